@@ -16,9 +16,11 @@
  */
 package com.osstelecom.db.inventory.manager.client.smtx;
 
+import com.osstelecom.db.inventory.manager.client.smtx.config.JobRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Este é o cliente do SMTX
@@ -28,6 +30,7 @@ import org.springframework.context.annotation.ComponentScan;
  */
 @SpringBootApplication
 @ComponentScan({"com.osstelecom.db.inventory"})
+@ImportRuntimeHints(JobRuntimeHints.class)
 public class SMTXClientApp {
 
     public static void main(String[] args) {
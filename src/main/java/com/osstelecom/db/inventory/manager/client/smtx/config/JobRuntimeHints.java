@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.config;
+
+import com.osstelecom.db.inventory.manager.client.smtx.jobs.SMTXDwdmJob;
+import com.osstelecom.db.inventory.manager.client.smtx.jobs.SMTXMetroJob;
+import com.osstelecom.db.inventory.manager.client.smtx.jobs.SMTXRadioJob;
+import java.util.Map;
+import org.quartz.Job;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Registra em tempo de build as Jobs conhecidas, assim o processamento AOT já
+ * sabe quais classes são instanciadas pelo Quartz e o JobManagerService não
+ * precisa resolver o nome via reflection no start
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class JobRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Jobs conhecidas pelo cliente, indexadas pelo className usado no
+     * config/jobs.yml
+     */
+    public static final Map<String, Class<? extends Job>> JOB_CLASSES = Map.of(
+            SMTXRadioJob.class.getName(), SMTXRadioJob.class,
+            SMTXDwdmJob.class.getName(), SMTXDwdmJob.class,
+            SMTXMetroJob.class.getName(), SMTXMetroJob.class
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        JOB_CLASSES.values().forEach(jobClass -> hints.reflection().registerType(jobClass,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_METHODS));
+    }
+
+}
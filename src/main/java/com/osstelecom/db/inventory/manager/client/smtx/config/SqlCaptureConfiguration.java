@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.config;
+
+import com.osstelecom.db.inventory.manager.client.smtx.sql.DimensionCache;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.LookupDataSource;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.QueryPlanCapture;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.QueryTimingDataSource;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.RecordingDataSource;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.ReplayDataSource;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.SqlCaptureStore;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Troca o DataSource das Jobs conforme smtx.sql.mode:
+ *
+ * live: banco real (padrão)
+ *
+ * record: banco real, gravando cada result set em smtx.sql.capture-dir
+ *
+ * replay: sem banco, servindo os result sets gravados
+ *
+ * Em live e record as queries passam também pelo QueryTimingDataSource
+ * (smtx.sql.slow-query.*), que loga as execuções lentas e grava o plano
+ *
+ * Em todos os modos o LookupDataSource fica por fora, fazendo em memória o
+ * join das queries que declaram {query}.lookups com as dimensões em cache
+ * (smtx.sql.dimensions.*)
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class SqlCaptureConfiguration implements BeanPostProcessor, EnvironmentAware {
+
+    private final Logger logger = LoggerFactory.getLogger(SqlCaptureConfiguration.class);
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof RecordingDataSource || bean instanceof ReplayDataSource
+                || bean instanceof QueryTimingDataSource || bean instanceof LookupDataSource) {
+            return bean;
+        }
+        String mode = environment.getProperty("smtx.sql.mode", "live");
+        String captureDir = environment.getProperty("smtx.sql.capture-dir", "sql-capture");
+        switch (mode) {
+            case "record" -> {
+                logger.info("SQL Record Mode, Capturing Result Sets To:[{}]", captureDir);
+                return this.lookups(this.timed(new RecordingDataSource(dataSource, new SqlCaptureStore(Paths.get(captureDir))), dataSource, captureDir), captureDir);
+            }
+            case "replay" -> {
+                long latencyMs = environment.getProperty("smtx.sql.replay.latency-ms", Long.class, 0L);
+                long rowsPerSecond = environment.getProperty("smtx.sql.replay.rows-per-second", Long.class, 0L);
+                logger.info("SQL Replay Mode, Reading Result Sets From:[{}] Latency:[{}] ms Rows/s:[{}]", captureDir, latencyMs, rowsPerSecond);
+                return this.lookups(new ReplayDataSource(new SqlCaptureStore(Paths.get(captureDir)), latencyMs, rowsPerSecond), captureDir);
+            }
+            default -> {
+                return this.lookups(this.timed(dataSource, dataSource, captureDir), captureDir);
+            }
+        }
+    }
+
+    /**
+     * Mede as queries de target, o plano das queries lentas é capturado
+     * direto no banco (database)
+     *
+     * @param target
+     * @param database
+     * @param captureDir
+     * @return
+     */
+    private DataSource timed(DataSource target, DataSource database, String captureDir) {
+        if (!environment.getProperty("smtx.sql.slow-query.enabled", Boolean.class, true)) {
+            return target;
+        }
+        long thresholdMs = environment.getProperty("smtx.sql.slow-query.threshold-ms", Long.class, 30000L);
+        QueryPlanCapture planCapture = null;
+        if (environment.getProperty("smtx.sql.slow-query.capture-plan", Boolean.class, true)) {
+            String planDir = environment.getProperty("smtx.sql.slow-query.plan-dir", "sql-plans");
+            long intervalMs = environment.getProperty("smtx.sql.slow-query.plan-interval-ms", Long.class, 3600000L);
+            planCapture = new QueryPlanCapture(database, Paths.get(planDir), intervalMs);
+        }
+        boolean countBytes = environment.getProperty("smtx.sql.slow-query.count-bytes", Boolean.class, false);
+        logger.info("SQL Query Timing Enabled Slow Threshold:[{}] ms Plan Capture:[{}] Count Bytes:[{}]", thresholdMs, planCapture != null, countBytes);
+        return new QueryTimingDataSource(target, new SqlCaptureStore(Paths.get(captureDir)), thresholdMs, planCapture, countBytes);
+    }
+
+    /**
+     * Join em memória com as dimensões, que são carregadas pelo próprio
+     * target (assim também são gravadas, medidas e reproduzidas)
+     *
+     * @param target
+     * @param captureDir
+     * @return
+     */
+    private DataSource lookups(DataSource target, String captureDir) {
+        if (!environment.getProperty("smtx.sql.dimensions.enabled", Boolean.class, true)) {
+            //
+            // As queries com {query}.lookups selecionam só as chaves, sem o
+            // join em memória as Jobs enviariam os campos das dimensões vazios
+            //
+            List<String> declared;
+            try {
+                declared = LookupDataSource.declaredLookups();
+            } catch (Exception ex) {
+                throw new IllegalStateException("Failed To Read Lookups From config/jobs.yml", ex);
+            }
+            if (!declared.isEmpty()) {
+                throw new IllegalStateException("smtx.sql.dimensions.enabled Is False But Queries Declare Lookups:" + declared
+                        + ", Restore Their Joins In config/jobs.yml Or Enable The Dimensions");
+            }
+            logger.info("SQL Dimension Cache Disabled");
+            return target;
+        }
+        long ttlSeconds = environment.getProperty("smtx.sql.dimensions.ttl-seconds", Long.class, 3600L);
+        boolean checksum = environment.getProperty("smtx.sql.dimensions.checksum", Boolean.class, true);
+        logger.info("SQL Dimension Cache TTL:[{}] s Checksum:[{}]", ttlSeconds, checksum);
+        DimensionCache dimensionCache = new DimensionCache(target, new SqlCaptureStore(Paths.get(captureDir)), ttlSeconds * 1000L, checksum);
+        return new LookupDataSource(target, dimensionCache);
+    }
+}
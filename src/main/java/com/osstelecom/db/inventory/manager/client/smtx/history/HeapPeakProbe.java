@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.history;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Pico de heap do processo durante uma execução. O pico de cada memory pool
+ * acontece em momentos diferentes (o eden enche antes de cada GC, a old gen
+ * cresce depois), então somar os picos dos pools superestima o heap. Aqui o
+ * heap total é amostrado nos momentos em que ele está no alto:
+ *
+ * antes de cada GC, somando o uso dos pools de heap informado na notificação
+ * do coletor
+ *
+ * a cada sample(), chamado pelo JobRunRecorder no fim de cada step e do
+ * upload
+ *
+ * e o resultado é o maior desses totais. Os picos dos pools são zerados no
+ * início: se nenhum GC rodou durante a execução nenhum pool diminuiu, e a
+ * soma dos picos desde o início é o pico exato.
+ *
+ * O heap é da JVM, com Jobs rodando juntas o pico inclui as outras.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+class HeapPeakProbe implements NotificationListener {
+
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+
+    private final Set<String> heapPoolNames = this.heapPools.stream().map(MemoryPoolMXBean::getName).collect(Collectors.toSet());
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final AtomicLong peak = new AtomicLong(0L);
+
+    private final AtomicLong collections = new AtomicLong(0L);
+
+    HeapPeakProbe() {
+        this.heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(this, null, null);
+                this.emitters.add(emitter);
+            }
+        }
+        this.sample();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = 0L;
+        for (Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+            if (this.heapPoolNames.contains(entry.getKey())) {
+                used += entry.getValue().getUsed();
+            }
+        }
+        this.collections.incrementAndGet();
+        this.peak.accumulateAndGet(used, Math::max);
+    }
+
+    /**
+     * Amostra o heap total agora
+     */
+    void sample() {
+        this.peak.accumulateAndGet(this.heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum(), Math::max);
+    }
+
+    /**
+     * Para de ouvir os coletores e devolve o pico da execução
+     *
+     * @return bytes
+     */
+    long finish() {
+        for (NotificationEmitter emitter : this.emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ex) {
+            }
+        }
+        this.sample();
+        if (this.collections.get() == 0L) {
+            //
+            // Sem GC nenhum pool diminuiu, a soma dos picos é o pico do heap
+            //
+            return Math.max(this.peak.get(), this.heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+        }
+        return this.peak.get();
+    }
+}
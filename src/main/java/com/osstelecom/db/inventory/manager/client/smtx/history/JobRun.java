@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registro de uma execução de Job, gravado como uma linha JSON no histórico
+ * de execuções
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class JobRun {
+
+    private String jobName;
+
+    private String startedAt;
+
+    private String finishedAt;
+
+    private long durationMs;
+
+    private long rows;
+
+    private long bytes;
+
+    private long objects;
+
+    private long errors;
+
+    private long uploadMs;
+
+    private double uploadObjectsPerSecond;
+
+    /**
+     * Pico de heap do processo durante esta execução, ver HeapPeakProbe. O
+     * heap é da JVM, com Jobs rodando juntas inclui as outras
+     */
+    private long processHeapPeakBytes;
+
+    /**
+     * SNAPSHOT quando todos os steps leram da mesma transação, READ_COMMITTED
+     * com uma conexão por step
+     */
+    private String isolation = "READ_COMMITTED";
+
+    private List<Step> steps = new ArrayList<>();
+
+    private List<String> regressions = new ArrayList<>();
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getObjects() {
+        return objects;
+    }
+
+    public void setObjects(long objects) {
+        this.objects = objects;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getUploadMs() {
+        return uploadMs;
+    }
+
+    public void setUploadMs(long uploadMs) {
+        this.uploadMs = uploadMs;
+    }
+
+    public double getUploadObjectsPerSecond() {
+        return uploadObjectsPerSecond;
+    }
+
+    public void setUploadObjectsPerSecond(double uploadObjectsPerSecond) {
+        this.uploadObjectsPerSecond = uploadObjectsPerSecond;
+    }
+
+    public long getProcessHeapPeakBytes() {
+        return processHeapPeakBytes;
+    }
+
+    public void setProcessHeapPeakBytes(long processHeapPeakBytes) {
+        this.processHeapPeakBytes = processHeapPeakBytes;
+    }
+
+    public String getIsolation() {
+        return isolation;
+    }
+
+    public void setIsolation(String isolation) {
+        this.isolation = isolation;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public List<String> getRegressions() {
+        return regressions;
+    }
+
+    public void setRegressions(List<String> regressions) {
+        this.regressions = regressions;
+    }
+
+    /**
+     * Procura o step pelo nome
+     *
+     * @param name
+     * @return null se o step não rodou nesta execução
+     */
+    public Step getStep(String name) {
+        for (Step step : this.steps) {
+            if (step.getName().equals(name)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Um step da Job (importRadios, importPortas, upload...)
+     */
+    public static class Step {
+
+        private String name;
+
+        private long durationMs;
+
+        private long rows;
+
+        private long bytes;
+
+        private long objects;
+
+        private long errors;
+
+        /**
+         * Erros por tipo de exceção
+         */
+        private Map<String, Long> errorsByType = new TreeMap<>();
+
+        /**
+         * Esperas por lock (LCK_M_*) da sessão durante o step
+         */
+        private long lockWaits;
+
+        private long lockWaitMs;
+
+        /**
+         * Mediana das últimas execuções, 0 se ainda não há histórico
+         */
+        private long baselineMs;
+
+        private boolean regression;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public void setDurationMs(long durationMs) {
+            this.durationMs = durationMs;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public void setRows(long rows) {
+            this.rows = rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public void setBytes(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long getObjects() {
+            return objects;
+        }
+
+        public void setObjects(long objects) {
+            this.objects = objects;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public void setErrors(long errors) {
+            this.errors = errors;
+        }
+
+        public Map<String, Long> getErrorsByType() {
+            return errorsByType;
+        }
+
+        public void setErrorsByType(Map<String, Long> errorsByType) {
+            this.errorsByType = errorsByType;
+        }
+
+        public long getLockWaits() {
+            return lockWaits;
+        }
+
+        public void setLockWaits(long lockWaits) {
+            this.lockWaits = lockWaits;
+        }
+
+        public long getLockWaitMs() {
+            return lockWaitMs;
+        }
+
+        public void setLockWaitMs(long lockWaitMs) {
+            this.lockWaitMs = lockWaitMs;
+        }
+
+        public long getBaselineMs() {
+            return baselineMs;
+        }
+
+        public void setBaselineMs(long baselineMs) {
+            this.baselineMs = baselineMs;
+        }
+
+        public boolean isRegression() {
+            return regression;
+        }
+
+        public void setRegression(boolean regression) {
+            this.regression = regression;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.history;
+
+import com.osstelecom.db.inventory.manager.client.smtx.sql.LockWaitProbe;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.QueryCounters;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.SampledErrorLog;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Acompanha uma execução da Job: mede cada step (tempo, linhas e bytes lidos,
+ * objetos enfileirados e erros), o upload e o pico de heap do processo
+ * durante a execução (HeapPeakProbe).
+ * Criado pelo RunHistoryService.start() na thread da Job, que deve chamar o
+ * RunHistoryService.finish() no fim para gravar a execução.
+ *
+ * Os erros das linhas passam pelo SampledErrorLog e são contados por step e
+ * tipo de exceção. Com um LockWaitProbe as esperas por lock da sessão também
+ * são medidas por step.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class JobRunRecorder {
+
+    /**
+     * Corpo de um step da Job
+     */
+    @FunctionalInterface
+    public interface StepBody {
+
+        void run() throws SQLException;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(JobRunRecorder.class);
+
+    private final JobRun run = new JobRun();
+
+    private final long startedAt = System.nanoTime();
+
+    private final LongSupplier writtenCount;
+
+    private final QueryCounters queryCounters;
+
+    private final AtomicLong errors = new AtomicLong(0L);
+
+    private final SampledErrorLog errorLog;
+
+    /**
+     * Step em execução, lido pelos workers do step
+     */
+    private volatile String currentStep = "run";
+
+    private boolean finished = false;
+
+    private LockWaitProbe lockWaitProbe;
+
+    private final HeapPeakProbe heapPeakProbe = new HeapPeakProbe();
+
+    JobRunRecorder(String jobName, LongSupplier writtenCount, SampledErrorLog errorLog) {
+        this.writtenCount = writtenCount;
+        this.errorLog = errorLog;
+        this.run.setJobName(jobName);
+        this.run.setStartedAt(Instant.now().toString());
+        this.queryCounters = QueryCounters.bind();
+    }
+
+    /**
+     * Executa e mede um step da Job. Se o step lançar exceção ela é contada
+     * como erro e repassada
+     *
+     * @param name
+     * @param body
+     * @throws SQLException
+     */
+    public void step(String name, StepBody body) throws SQLException {
+        long rows = this.queryCounters.getRows();
+        long bytes = this.queryCounters.getBytes();
+        long objects = this.writtenCount.getAsLong();
+        long errors = this.errors.get();
+        long[] lockWaits = this.lockWaitProbe != null ? this.lockWaitProbe.read() : null;
+        long start = System.nanoTime();
+        this.currentStep = name;
+        try {
+            body.run();
+        } catch (SQLException | RuntimeException ex) {
+            this.error(null, null, ex);
+            throw ex;
+        } finally {
+            this.currentStep = "run";
+            JobRun.Step step = new JobRun.Step();
+            step.setName(name);
+            step.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            step.setRows(this.queryCounters.getRows() - rows);
+            step.setBytes(this.queryCounters.getBytes() - bytes);
+            step.setObjects(this.writtenCount.getAsLong() - objects);
+            step.setErrors(this.errors.get() - errors);
+            step.setErrorsByType(this.errorLog.counts(name));
+            long[] lockWaitsAfter = lockWaits != null ? this.lockWaitProbe.read() : null;
+            if (lockWaitsAfter != null) {
+                step.setLockWaits(Math.max(0L, lockWaitsAfter[0] - lockWaits[0]));
+                step.setLockWaitMs(Math.max(0L, lockWaitsAfter[1] - lockWaits[1]));
+                logger.debug("Step Lock Waits Job:[{}] Step:[{}] Waits:[{}] Wait Time:[{}] ms", this.run.getJobName(), name, step.getLockWaits(), step.getLockWaitMs());
+            }
+            if (!step.getErrorsByType().isEmpty()) {
+                logger.warn("Step Errors Job:[{}] Step:[{}] Errors:[{}]", this.run.getJobName(), name, step.getErrorsByType());
+            }
+            this.run.getSteps().add(step);
+            this.heapPeakProbe.sample();
+        }
+    }
+
+    /**
+     * Mede as esperas por lock da conexão da Job a cada step
+     *
+     * @param lockWaitProbe
+     */
+    public void setLockWaitProbe(LockWaitProbe lockWaitProbe) {
+        this.lockWaitProbe = lockWaitProbe;
+    }
+
+    /**
+     * Nível de isolamento das leituras da execução
+     *
+     * @param isolation SNAPSHOT ou READ_COMMITTED
+     */
+    public void setIsolation(String isolation) {
+        this.run.setIsolation(isolation);
+    }
+
+    /**
+     * Executa e mede o upload, registrado como o step "upload"
+     *
+     * @param objects objetos enviados
+     * @param upload
+     */
+    public void upload(long objects, Runnable upload) {
+        long start = System.nanoTime();
+        try {
+            upload.run();
+        } finally {
+            long uploadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            JobRun.Step step = new JobRun.Step();
+            step.setName("upload");
+            step.setDurationMs(uploadMs);
+            step.setObjects(objects);
+            this.run.getSteps().add(step);
+            this.run.setUploadMs(uploadMs);
+            this.run.setUploadObjectsPerSecond(uploadMs > 0 ? objects * 1000D / uploadMs : 0D);
+            this.heapPeakProbe.sample();
+        }
+    }
+
+    /**
+     * Conta um erro do step em execução e loga de forma amostrada,
+     * thread-safe
+     *
+     * @param logger logger da Job, null para somente contar
+     * @param message
+     * @param ex
+     */
+    public void error(Logger logger, String message, Throwable ex) {
+        this.errors.incrementAndGet();
+        this.errorLog.error(logger, this.currentStep, message, ex);
+    }
+
+    /**
+     * Fecha a execução, só a primeira chamada tem efeito
+     *
+     * @return null se já foi finalizada
+     */
+    synchronized JobRun finish() {
+        if (this.finished) {
+            return null;
+        }
+        this.finished = true;
+        QueryCounters.unbind();
+        this.run.setFinishedAt(Instant.now().toString());
+        this.run.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startedAt));
+        this.run.setRows(this.queryCounters.getRows());
+        this.run.setBytes(this.queryCounters.getBytes());
+        this.run.setObjects(this.writtenCount.getAsLong());
+        this.run.setErrors(this.errors.get());
+        this.run.setProcessHeapPeakBytes(this.heapPeakProbe.finish());
+        return this.run;
+    }
+}
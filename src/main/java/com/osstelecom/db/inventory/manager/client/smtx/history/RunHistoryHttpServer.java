@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint HTTP local (somente loopback) para consultar o histórico de
+ * execuções:
+ *
+ * GET /runs?job=SMTX_RADIO&limit=20 últimas execuções
+ *
+ * GET /regressions?job=SMTX_RADIO&limit=20 execuções com step acima da
+ * baseline
+ *
+ * GET /trends?job=SMTX_RADIO&limit=50 duração de cada step por execução, da
+ * mais antiga para a mais recente, para acompanhar degradação lenta
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class RunHistoryHttpServer implements InitializingBean, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(RunHistoryHttpServer.class);
+
+    @Autowired
+    private RunHistoryService runHistoryService;
+
+    @Value("${smtx.history.http.enabled:false}")
+    private boolean enabled;
+
+    @Value("${smtx.history.http.port:18090}")
+    private int port;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!this.enabled) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "run-history-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port), 0);
+        this.server.createContext("/runs", exchange -> this.serve(exchange, query -> this.runs(query, false)));
+        this.server.createContext("/regressions", exchange -> this.serve(exchange, query -> this.runs(query, true)));
+        this.server.createContext("/trends", exchange -> this.serve(exchange, this::trends));
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        logger.info("Run History Listening Port:[{}]", this.port);
+    }
+
+    @Override
+    public void destroy() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Responde a requisição com o JSON gerado pelo handler
+     *
+     * @param exchange
+     * @param handler recebe os parâmetros da query string
+     * @throws IOException
+     */
+    private void serve(HttpExchange exchange, Function<Map<String, String>, String> handler) throws IOException {
+        try (exchange) {
+            int status = 200;
+            String response;
+            try {
+                response = handler.apply(this.query(exchange));
+            } catch (RuntimeException ex) {
+                logger.warn("Run History Request Failed:[{}]", exchange.getRequestURI(), ex);
+                status = 500;
+                response = "{}";
+            }
+            this.respond(exchange, status, response.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String runs(Map<String, String> query, boolean regressionsOnly) {
+        int limit = this.limit(query, 20);
+        List<JobRun> runs = this.runHistoryService.recent(query.get("job"), regressionsOnly ? Integer.MAX_VALUE : limit);
+        if (regressionsOnly) {
+            runs.removeIf(run -> run.getRegressions().isEmpty());
+            if (runs.size() > limit) {
+                runs = runs.subList(0, limit);
+            }
+        }
+        return this.runHistoryService.getGson().toJson(runs);
+    }
+
+    private String trends(Map<String, String> query) {
+        int limit = this.limit(query, 50);
+        JsonObject result = new JsonObject();
+        List<String> jobNames = query.containsKey("job") ? List.of(query.get("job")) : this.runHistoryService.jobNames();
+        for (String jobName : jobNames) {
+            List<JobRun> runs = this.runHistoryService.recent(jobName, limit);
+            Map<String, JsonArray> steps = new LinkedHashMap<>();
+            for (int i = runs.size() - 1; i >= 0; i--) {
+                JobRun run = runs.get(i);
+                for (JobRun.Step step : run.getSteps()) {
+                    JsonObject point = new JsonObject();
+                    point.addProperty("startedAt", run.getStartedAt());
+                    point.addProperty("durationMs", step.getDurationMs());
+                    point.addProperty("baselineMs", step.getBaselineMs());
+                    point.addProperty("regression", step.isRegression());
+                    steps.computeIfAbsent(step.getName(), k -> new JsonArray()).add(point);
+                }
+            }
+            JsonObject jobSteps = new JsonObject();
+            steps.forEach(jobSteps::add);
+            result.add(jobName, jobSteps);
+        }
+        return result.toString();
+    }
+
+    private int limit(Map<String, String> query, int defaultLimit) {
+        try {
+            return query.containsKey("limit") ? Math.max(1, Integer.parseInt(query.get("limit"))) : defaultLimit;
+        } catch (NumberFormatException ex) {
+            return defaultLimit;
+        }
+    }
+
+    private Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return result;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                result.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.history;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.SampledErrorLog;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Histórico das execuções das Jobs. Cada execução é gravada como uma linha
+ * JSON (append) em smtx.history.file, assim o histórico sobrevive entre as
+ * execuções one-shot e pode ser lido por qualquer ferramenta. Ao passar de
+ * smtx.history.max-bytes o arquivo é renomeado para .1 (substituindo o
+ * anterior) e um novo é iniciado, então o histórico em disco e a leitura na
+ * subida ficam limitados a duas vezes max-bytes.
+ *
+ * No fim de cada execução a duração de cada step é comparada com a mediana
+ * das últimas baseline-runs execuções da mesma Job: acima de factor vezes a
+ * mediana o step é marcado como regressão e logado como Step Regression.
+ * Steps com mediana abaixo de min-ms são ignorados, variação neles é ruído.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class RunHistoryService implements InitializingBean {
+
+    private final Logger logger = LoggerFactory.getLogger(RunHistoryService.class);
+
+    @Value("${smtx.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${smtx.history.file:history/runs.ndjson}")
+    private String file;
+
+    @Value("${smtx.history.baseline-runs:10}")
+    private int baselineRuns;
+
+    @Value("${smtx.history.factor:1.5}")
+    private double factor;
+
+    @Value("${smtx.history.min-ms:1000}")
+    private long minMs;
+
+    @Value("${smtx.history.keep-in-memory:500}")
+    private int keepInMemory;
+
+    @Value("${smtx.history.max-bytes:10485760}")
+    private long maxBytes;
+
+    @Value("${smtx.logging.row-errors.full-traces:3}")
+    private int rowErrorFullTraces;
+
+    @Value("${smtx.logging.row-errors.per-second:1.0}")
+    private double rowErrorsPerSecond;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Últimas execuções de cada Job, da mais antiga para a mais recente
+     */
+    private final Map<String, Deque<JobRun>> runs = new HashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!this.enabled) {
+            return;
+        }
+        Path path = Paths.get(this.file);
+        //
+        // O arquivo rotacionado tem as execuções mais antigas
+        //
+        long[] counts = new long[2];
+        this.load(this.rotated(path), counts);
+        this.load(path, counts);
+        if (counts[0] > 0 || counts[1] > 0) {
+            logger.info("Run History Loaded File:[{}] Runs:[{}] Invalid:[{}]", this.file, counts[0], counts[1]);
+        }
+    }
+
+    /**
+     * Lê um arquivo do histórico
+     *
+     * @param path
+     * @param counts execuções lidas e linhas inválidas
+     */
+    private void load(Path path, long[] counts) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JobRun run = this.gson.fromJson(line, JobRun.class);
+                    if (run != null && run.getJobName() != null) {
+                        this.remember(run);
+                        counts[0]++;
+                    }
+                } catch (JsonParseException ex) {
+                    counts[1]++;
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed To Read Run History File:[{}]", path, ex);
+        }
+    }
+
+    /**
+     * Inicia o registro de uma execução, deve ser chamado na thread da Job
+     *
+     * @param jobName
+     * @param writtenCount objetos enfileirados até o momento
+     * @return
+     */
+    public JobRunRecorder start(String jobName, LongSupplier writtenCount) {
+        return new JobRunRecorder(jobName, writtenCount, new SampledErrorLog(this.rowErrorFullTraces, this.rowErrorsPerSecond));
+    }
+
+    /**
+     * Fecha a execução, compara com a baseline e grava no histórico. Pode ser
+     * chamado mais de uma vez, só a primeira grava
+     *
+     * @param recorder
+     */
+    public void finish(JobRunRecorder recorder) {
+        JobRun run = recorder.finish();
+        if (run == null) {
+            return;
+        }
+        synchronized (this) {
+            this.compare(run);
+            logger.info("Run Done Job:[{}] Took:[{}] ms Rows:[{}] Objects:[{}] Upload:[{}] objects/s Errors:[{}] Process Heap Peak:[{}] MB Regressions:[{}]",
+                    run.getJobName(), run.getDurationMs(), run.getRows(), run.getObjects(),
+                    String.format("%.1f", run.getUploadObjectsPerSecond()), run.getErrors(),
+                    run.getProcessHeapPeakBytes() / (1024 * 1024), run.getRegressions());
+            if (!this.enabled) {
+                return;
+            }
+            this.append(run);
+            this.remember(run);
+        }
+    }
+
+    /**
+     * Marca os steps acima da baseline
+     *
+     * @param run
+     */
+    private void compare(JobRun run) {
+        for (JobRun.Step step : run.getSteps()) {
+            long baseline = this.baseline(run.getJobName(), step.getName());
+            step.setBaselineMs(baseline);
+            if (baseline >= this.minMs && step.getDurationMs() > baseline * this.factor) {
+                step.setRegression(true);
+                run.getRegressions().add(step.getName());
+                logger.warn("Step Regression Job:[{}] Step:[{}] Took:[{}] ms Baseline:[{}] ms Factor:[{}]", run.getJobName(), step.getName(),
+                        step.getDurationMs(), baseline, String.format("%.2f", (double) step.getDurationMs() / baseline));
+            }
+        }
+    }
+
+    /**
+     * Mediana da duração do step nas últimas baseline-runs execuções da Job
+     *
+     * @param jobName
+     * @param stepName
+     * @return 0 se o step não tem histórico
+     */
+    public synchronized long baseline(String jobName, String stepName) {
+        Deque<JobRun> jobRuns = this.runs.get(jobName);
+        if (jobRuns == null) {
+            return 0L;
+        }
+        List<Long> durations = new ArrayList<>();
+        Iterator<JobRun> it = jobRuns.descendingIterator();
+        while (it.hasNext() && durations.size() < this.baselineRuns) {
+            JobRun.Step step = it.next().getStep(stepName);
+            if (step != null) {
+                durations.add(step.getDurationMs());
+            }
+        }
+        if (durations.isEmpty()) {
+            return 0L;
+        }
+        durations.sort(null);
+        int middle = durations.size() / 2;
+        return durations.size() % 2 == 1 ? durations.get(middle) : (durations.get(middle - 1) + durations.get(middle)) / 2;
+    }
+
+    /**
+     * Últimas execuções, da mais recente para a mais antiga
+     *
+     * @param jobName null para todas as Jobs
+     * @param limit
+     * @return
+     */
+    public synchronized List<JobRun> recent(String jobName, int limit) {
+        List<JobRun> result = new ArrayList<>();
+        for (Map.Entry<String, Deque<JobRun>> entry : this.runs.entrySet()) {
+            if (jobName == null || entry.getKey().equals(jobName)) {
+                result.addAll(entry.getValue());
+            }
+        }
+        result.sort((a, b) -> b.getStartedAt().compareTo(a.getStartedAt()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public synchronized List<String> jobNames() {
+        return new ArrayList<>(this.runs.keySet());
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    private void remember(JobRun run) {
+        Deque<JobRun> jobRuns = this.runs.computeIfAbsent(run.getJobName(), k -> new ArrayDeque<>());
+        jobRuns.addLast(run);
+        while (jobRuns.size() > this.keepInMemory) {
+            jobRuns.removeFirst();
+        }
+    }
+
+    private void append(JobRun run) {
+        Path path = Paths.get(this.file);
+        try {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+            if (this.maxBytes > 0 && Files.exists(path) && Files.size(path) >= this.maxBytes) {
+                Files.move(path, this.rotated(path), StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Run History Rotated File:[{}] Max Bytes:[{}]", this.file, this.maxBytes);
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(this.gson.toJson(run));
+                writer.write('\n');
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed To Write Run History File:[{}]", this.file, ex);
+        }
+    }
+
+    private Path rotated(Path path) {
+        return path.resolveSibling(path.getFileName() + ".1");
+    }
+}
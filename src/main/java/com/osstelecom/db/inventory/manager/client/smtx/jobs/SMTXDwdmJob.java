@@ -17,6 +17,22 @@
 package com.osstelecom.db.inventory.manager.client.smtx.jobs;
 
 import com.osstelecom.db.inventory.manager.annotations.ImportJobStep;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.ConcurrentInventoryWriter;
+import com.osstelecom.db.inventory.manager.client.smtx.history.JobRunRecorder;
+import com.osstelecom.db.inventory.manager.client.smtx.history.RunHistoryService;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.ExtractionSnapshot;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.LockWaitProbe;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.FlushConcurrencyController;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriter;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriterFactory;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.HierarchyImporter;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PartitionedRowProcessor;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PortPathBuilder;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PortPathBuilder.PortPath;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PreparedStatementCache;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.RowSnapshot;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.SharedResourceFactory;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.StartupMetrics;
 import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
 import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
 import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
@@ -26,7 +42,6 @@ import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
 import com.osstelecom.db.inventory.manager.jobs.JobConfiguration;
 import com.osstelecom.db.inventory.manager.resources.*;
 import com.osstelecom.db.inventory.manager.utils.ResultSetStreamReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Serializable;
 import java.sql.Connection;
@@ -35,6 +50,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -50,6 +66,7 @@ import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 
 
@@ -65,26 +82,86 @@ public class SMTXDwdmJob implements Job {
 
     private Connection sqlConnection;
 
+    private PreparedStatementCache statementCache;
+
+    private PortPathBuilder portPathBuilder;
+
     private JobConfiguration configuration;
 
     private NetcompassClientConfiguration netcompassClientConfiguration;
 
     private NetcompassAPIClient netcompassApiClient;
 
+    /**
+     * get* do cliente para os workers dos steps de porta
+     */
+    private SharedResourceFactory resourceFactory;
+
+    @Autowired
+    private InventoryWriterFactory inventoryWriterFactory;
+
+    private InventoryWriter inventoryWriter;
+
+    @Autowired
+    private FlushConcurrencyController flushConcurrencyController;
+
+    @Autowired
+    private RunHistoryService runHistoryService;
+
+    private JobRunRecorder run;
+
+    private Integer flushThreads;
+
     @Autowired
     private ApplicationArguments applicationArguments;
 
-    private void initNetcompassClient() throws SQLException, FileNotFoundException {
+    /**
+     * Importa equipamento, shelf, slot, módulo e porta em uma única leitura
+     * ordenada (getDwdmHierarquia) ao invés dos 6 steps
+     */
+    @Value("${smtx.import.hierarchy:false}")
+    private boolean hierarchyImport;
+
+    /**
+     * Workers dos steps de porta, 1 = processa na thread da Job, 0 = número
+     * de cores
+     */
+    @Value("${smtx.import.row-workers:1}")
+    private int rowParallelism;
+
+    @Value("${smtx.import.row-queue-size:4096}")
+    private int rowQueueSize;
+
+    /**
+     * Todos os steps leem da mesma transação SNAPSHOT, ver ExtractionSnapshot
+     */
+    @Value("${smtx.sql.snapshot.enabled:false}")
+    private boolean snapshotExtraction;
+
+    private ExtractionSnapshot snapshot;
+
+    /**
+     * Colunas copiadas das linhas de porta para os workers
+     */
+    private static final String[] PORTA_COLUMNS = {"IdEquipamento", "Hostname", "Shelf", "Slot", "Modulo", "Porta", "Nome", "Funcao",
+        "FuncaoPorta", "VelocidadePorta", "SwitchMode", "AutoNegociacao", "Eletrico"};
+
+    private void initNetcompassClient() throws SQLException, IOException {
         logger.debug("Trying to Create Netcompass Client");
         this.netcompassClientConfiguration = new ConfigurationManager().loadConfiguration();
         this.netcompassApiClient = new NetcompassAPIClient(netcompassClientConfiguration);
-        this.netcompassApiClient.initLoadSession(Domain.toUpperCase(), this.configuration.getFlushThreads());
+        this.resourceFactory = new SharedResourceFactory(this.netcompassApiClient);
+        this.flushThreads = this.flushConcurrencyController.flushThreadsFor(Domain.toUpperCase(), this.configuration.getFlushThreads());
+        this.netcompassApiClient.initLoadSession(Domain.toUpperCase(), this.flushThreads);
+        this.inventoryWriter = this.inventoryWriterFactory.createWriter(this.netcompassApiClient, Domain.toUpperCase(), this.rowParallelism != 1);
+        this.portPathBuilder = new PortPathBuilder(this.resourceFactory, Domain, "resource.smtx.dwdm", "connection.default");
     }
 
     private void initConnection() {
         while (true) {
             logger.debug("Trying to get Connection");
             try {
+                this.closeStatementCache();
                 if (this.sqlConnection != null) {
                     try {
                         this.sqlConnection.close();
@@ -93,11 +170,19 @@ public class SMTXDwdmJob implements Job {
                         logger.warn("Connection Close error But OK", ex);
                     }
                 }
-                this.sqlConnection = this.dataSource.getConnection();
+                this.sqlConnection = this.snapshot != null ? this.snapshot.getConnection() : this.dataSource.getConnection();
+                this.statementCache = new PreparedStatementCache(this.sqlConnection, this.configuration.getQueries());
                 logger.info("Connected OK");
                 return;
             } catch (SQLException ex) {
                 logger.error("Failed To Acquire Connection");
+                if (this.snapshot != null) {
+                    logger.warn("Snapshot Lost, Remaining Steps Will Use Per Step Connections");
+                    this.sqlConnection = null;
+                    this.closeSnapshot();
+                    this.run.setIsolation("READ_COMMITTED");
+                    continue;
+                }
             }
             logger.debug("Retrying in 5s");
             try {
@@ -107,6 +192,119 @@ public class SMTXDwdmJob implements Job {
         }
     }
 
+    /**
+     * Workers do step, as linhas de um mesmo Hostname caem sempre no mesmo
+     * worker. Com mais de um worker o inventoryWriter é um
+     * ConcurrentInventoryWriter, ver flushStagedWrites, e os recursos são
+     * montados pelo resourceFactory
+     *
+     * @param stepName
+     * @param worker
+     * @return
+     */
+    private PartitionedRowProcessor<RowSnapshot> rowWorkers(String stepName, Consumer<RowSnapshot> worker) {
+        return new PartitionedRowProcessor<>(stepName, this.rowParallelism, this.rowQueueSize, row -> row.get("Hostname").asString(), worker);
+    }
+
+    /**
+     * Junta no destino os add* acumulados pelos workers do step, chamado com
+     * os workers já encerrados
+     */
+    private void flushStagedWrites() {
+        if (this.inventoryWriter instanceof ConcurrentInventoryWriter concurrentWriter) {
+            concurrentWriter.flush();
+        }
+    }
+
+    /**
+     * Executa o step e entrega os add* acumulados antes do próximo step, assim
+     * os recursos pais (ex: slots) chegam ao destino antes dos filhos
+     * produzidos pelos workers do step seguinte (portas)
+     *
+     * @param name
+     * @param body
+     * @throws SQLException
+     */
+    private void step(String name, JobRunRecorder.StepBody body) throws SQLException {
+        this.run.step(name, () -> {
+            try {
+                body.run();
+            } finally {
+                this.flushStagedWrites();
+            }
+        });
+    }
+
+    /**
+     * Encerra a transação SNAPSHOT da execução, se aberta
+     */
+    private void closeSnapshot() {
+        if (this.snapshot != null) {
+            this.snapshot.close();
+            this.snapshot = null;
+        }
+    }
+
+    /**
+     * Fecha os statements do step anterior
+     */
+    private void closeStatementCache() {
+        if (this.statementCache != null) {
+            this.statementCache.close();
+            this.statementCache = null;
+        }
+    }
+
+    /**
+     * Finaliza o writer da sessão, no modo export fecha o arquivo
+     */
+    private void closeInventoryWriter() {
+        try {
+            this.inventoryWriter.close();
+        } catch (IOException ex) {
+            //
+            // Inclui o último lote do BatchingInventoryWriter
+            //
+            if (this.run != null) {
+                this.run.error(logger, "Failed To Close Inventory Writer", ex);
+            } else {
+                logger.error("Failed To Close Inventory Writer", ex);
+            }
+        }
+    }
+
+    /**
+     * Carrega o arquivo gerado pelo modo export e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromFile(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromFile(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Export File", ex);
+        }
+    }
+
+    /**
+     * Carrega o espelho local da sessão e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromMirror(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromMirror(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Inventory Mirror", ex);
+        }
+    }
+
     /**
      * Executa o Contexto de execução da JOB
      *
@@ -124,8 +322,18 @@ public class SMTXDwdmJob implements Job {
             this.initNetcompassClient();
 
             this.initCollector();
-        } catch (SQLException | FileNotFoundException ex) {
+        } catch (SQLException | IOException ex) {
             java.util.logging.Logger.getLogger(SMTXDwdmJob.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            //
+            // Também quando escapa uma RuntimeException: finish desvincula os
+            // QueryCounters da thread do Quartz e grava a execução
+            //
+            this.closeStatementCache();
+            this.closeSnapshot();
+            if (this.run != null) {
+                this.runHistoryService.finish(this.run);
+            }
         }
 
     }
@@ -137,60 +345,107 @@ public class SMTXDwdmJob implements Job {
      */
     private void initCollector() throws SQLException {
         if (applicationArguments.getNonOptionArgs().contains("upload-only")) {
-            logger.info("Upload Only Mode Starting..");
-            logger.debug("Uploading Data");
-            this.netcompassApiClient.upload();
-            logger.debug("Uploading Data Done");
+            if (this.inventoryWriterFactory.isMirrorAvailable(Domain.toUpperCase())) {
+                logger.info("Upload Only Mode Starting From Mirror..");
+                this.uploadFromMirror(Domain.toUpperCase());
+            } else {
+                logger.info("Upload Only Mode Starting..");
+                logger.debug("Uploading Data");
+                this.netcompassApiClient.upload();
+                logger.debug("Uploading Data Done");
+            }
+            System.exit(0);
+        } else if (this.inventoryWriterFactory.isUploadFromFileMode()) {
+            logger.info("Upload From File Mode Starting..");
+            this.uploadFromFile(Domain.toUpperCase());
             System.exit(0);
         } else {
+            this.run = this.runHistoryService.start(Domain.toUpperCase(), () -> this.inventoryWriter.getWrittenCount());
+            if (this.inventoryWriter instanceof ConcurrentInventoryWriter concurrentWriter) {
+                //
+                // Os objetos recusados na entrega dos workers contam como erro
+                // do step em execução
+                //
+                concurrentWriter.setErrorHandler((message, ex) -> this.run.error(logger, message, ex));
+            }
 
 
-           this.initConnection();
-            this.importDwdm();
+            if (this.snapshotExtraction) {
+                this.snapshot = ExtractionSnapshot.begin(this.dataSource, Domain.toUpperCase(), this.configuration.getQueries().values());
+            }
+            this.run.setIsolation(this.snapshot != null ? "SNAPSHOT" : "READ_COMMITTED");
+            this.run.setLockWaitProbe(new LockWaitProbe(() -> this.sqlConnection));
 
             this.initConnection();
-            this.importDwdmShelf();
+            StartupMetrics.markFirstQuery(Domain.toUpperCase());
+            if (this.hierarchyImport) {
+                this.step("importDwdmHierarquia", this::importDwdmHierarquia);
+            } else {
+                this.step("importDwdm", this::importDwdm);
 
-            this.initConnection();
-            this.importDwdmSlot();
+                this.initConnection();
+                this.step("importDwdmShelf", this::importDwdmShelf);
 
-            this.initConnection();
-            this.importDwdmModulo();
+                this.initConnection();
+                this.step("importDwdmSlot", this::importDwdmSlot);
 
-            this.initConnection();
-            this.importDwdmPortaSemModulo();
+                this.initConnection();
+                this.step("importDwdmModulo", this::importDwdmModulo);
 
-            this.initConnection();
-            this.importDwdmPortaComModulo();
+                this.initConnection();
+                this.step("importDwdmPortaSemModulo", this::importDwdmPortaSemModulo);
+
+                this.initConnection();
+                this.step("importDwdmPortaComModulo", this::importDwdmPortaComModulo);
+            }
 
+            //
+            // Steps de circuito desligados, o portPathBuilder só é usado
+            // quando eles voltarem: OTS RX/TX e OCH montam as cadeias até as
+            // portas por ele, OMS e ODU só juntam os paths dos circuitos da
+            // camada de baixo (OTS e OCH) e não montam cadeias de porta
+            //
             /*this.initConnection();
-            this.importCircuitoOtsRx();
+            this.step("importCircuitoOtsRx", this::importCircuitoOtsRx);
 
             this.initConnection();
-            this.importCircuitoOtsTx();
+            this.step("importCircuitoOtsTx", this::importCircuitoOtsTx);
 
             this.initConnection();
-            this.importCircuitoOts();
+            this.step("importCircuitoOts", this::importCircuitoOts);
 
             this.initConnection();
-            this.importCircuitoOms();
+            this.step("importCircuitoOms", this::importCircuitoOms);
 
             this.initConnection();
-            this.importCircuitoOch();
+            this.step("importCircuitoOch", this::importCircuitoOch);
 
             this.initConnection();
-            this.importCircuitoOdu();*/
+            this.step("importCircuitoOdu", this::importCircuitoOdu);*/
+
+            this.closeStatementCache();
+
+            this.closeSnapshot();
 
-            if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
+            this.portPathBuilder.clear();
+
+            this.closeInventoryWriter();
+
+            if (this.inventoryWriterFactory.isExportMode()) {
+                logger.info("NOT Uploading Data [export] Flag Set");
+            } else if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
                 logger.debug("Uploading Data");
-                this.netcompassApiClient.upload();
+                this.run.upload(this.inventoryWriter.getWrittenCount(), () -> this.flushConcurrencyController.upload(Domain.toUpperCase(), this.netcompassApiClient, this.flushThreads, this.inventoryWriter.getWrittenCount()));
                 logger.debug("Uploading Data Done");
 
             } else {
                 logger.warn("NOT Uploading Data [dont-upload] Flag Set");
+                this.runHistoryService.finish(this.run);
                 System.exit(0);
             }
 
+            this.runHistoryService.finish(this.run);
+
             if (applicationArguments.getNonOptionArgs().contains("exit")) {
                 System.exit(0);
             }
@@ -208,7 +463,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdm"));
+            PreparedStatement pst = this.statementCache.get("getDwdm");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -234,18 +489,18 @@ public class SMTXDwdmJob implements Job {
                             dwdmResource.getAttributes().put("enderecoIP4", a.get("EnderecoIP4").asString("-"));
                             dwdmResource.getAttributes().put("configuracao", a.get("Configuracao").asString("-"));
                             dwdmResource.getAttributes().put("numeroOe", a.get("NumOE").asString("-"));
-                            this.netcompassApiClient.addManagedResource(dwdmResource);
+                            this.inventoryWriter.addManagedResource(dwdmResource);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Dwdm");
             }
@@ -259,7 +514,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Shelf Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmShelf"));
+            PreparedStatement pst = this.statementCache.get("getDwdmShelf");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -280,21 +535,21 @@ public class SMTXDwdmJob implements Job {
                             dwdmShelfResource.getAttributes().put("shelf", a.get("Shelf").asString("-"));
                             dwdmShelfResource.getAttributes().put("subModeloEquipamento", a.get("SubModeloEquipamento").asString("-"));
                             dwdmShelfResource.setStructureId(dwdmResource.getKey());
-                            this.netcompassApiClient.addManagedResource(dwdmShelfResource);
+                            this.inventoryWriter.addManagedResource(dwdmShelfResource);
 
                             ResourceConnection dwdmShelfConnection = this.netcompassApiClient.getResourceConnection(dwdmResource, dwdmShelfResource, Domain, "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(dwdmShelfConnection);
+                            this.inventoryWriter.addResourceConnection(dwdmShelfConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Dwdm Shelf");
             }
@@ -308,7 +563,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Slot Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmSlot"));
+            PreparedStatement pst = this.statementCache.get("getDwdmSlot");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -337,21 +592,21 @@ public class SMTXDwdmJob implements Job {
                             dwdmSlotResource.getAttributes().put("numeroPlacas", a.get("NumPlacas").asInteger(0));
                             dwdmSlotResource.getAttributes().put("numeroOe", a.get("NumOE").asString("-"));
                             dwdmSlotResource.setStructureId(dwdmResource.getKey());
-                            this.netcompassApiClient.addManagedResource(dwdmSlotResource);
+                            this.inventoryWriter.addManagedResource(dwdmSlotResource);
 
                             ResourceConnection dwdmSlotConnection = this.netcompassApiClient.getResourceConnection(dwdmShelfResource, dwdmSlotResource, Domain, "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(dwdmSlotConnection);
+                            this.inventoryWriter.addResourceConnection(dwdmSlotConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Dwdm Slot");
             }
@@ -365,7 +620,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmModulo"));
+            PreparedStatement pst = this.statementCache.get("getDwdmModulo");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -396,21 +651,21 @@ public class SMTXDwdmJob implements Job {
                             dwdmModuloResource.getAttributes().put("numeroPlacas", a.get("NumPlacas").asInteger(0));
                             dwdmModuloResource.getAttributes().put("numeroOe", a.get("NumOE").asString("-"));
                             dwdmModuloResource.setStructureId(dwdmResource.getKey());
-                            this.netcompassApiClient.addManagedResource(dwdmModuloResource);
+                            this.inventoryWriter.addManagedResource(dwdmModuloResource);
 
                             ResourceConnection dwdmSlotConnection = this.netcompassApiClient.getResourceConnection(dwdmSlotResource, dwdmModuloResource, Domain, "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(dwdmSlotConnection);
+                            this.inventoryWriter.addResourceConnection(dwdmSlotConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Dwdm Modulo");
             }
@@ -424,21 +679,21 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Porta S/ Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmPortaSemModulo"));
-            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
-                r.forEach(a -> {
+            PreparedStatement pst = this.statementCache.get("getDwdmPortaSemModulo");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst);
+                    PartitionedRowProcessor<RowSnapshot> workers = this.rowWorkers("importDwdmPortaSemModulo", a -> {
                     try {
 
                         if (a.get("Hostname").isNotNull() && a.get("Porta").isNotNull()) {
 
                             String getSlotNodeAddress = a.get("Hostname").asString() + ".SHELF-" + a.get("Shelf").asString() + ".SLOT-" + a.get("Slot").asString();
-                            ManagedResource dwdmResource = this.netcompassApiClient.getManagedResource(a.get("Hostname").asString(), Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
-                            ManagedResource dwdmSlotResource = this.netcompassApiClient.getManagedResource(getSlotNodeAddress, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
+                            ManagedResource dwdmResource = this.resourceFactory.getManagedResource(a.get("Hostname").asString(), Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
+                            ManagedResource dwdmSlotResource = this.resourceFactory.getManagedResource(getSlotNodeAddress, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
 
                             String portaName = "PORTA-" + a.get("Porta").asString("N/A");
                             String portaNodeAddress = getSlotNodeAddress + "." + portaName;
 
-                            ManagedResource dwdmPortaResource = this.netcompassApiClient.getManagedResource(portaNodeAddress, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
+                            ManagedResource dwdmPortaResource = this.resourceFactory.getManagedResource(portaNodeAddress, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
                             dwdmPortaResource.setName(portaName);
                             dwdmPortaResource.getAttributes().put("idEquipamento", a.get("IdEquipamento").asInteger(0));
                             dwdmPortaResource.getAttributes().put("shelf", a.get("Shelf").asString("0"));
@@ -453,22 +708,23 @@ public class SMTXDwdmJob implements Job {
                             dwdmPortaResource.getAttributes().put("autoNegociacao", a.get("AutoNegociacao").asString("-"));
                             dwdmPortaResource.getAttributes().put("eletrico", a.get("Eletrico").asString("-"));
                             dwdmPortaResource.setStructureId(dwdmResource.getKey());
-                            this.netcompassApiClient.addManagedResource(dwdmPortaResource);
-
-                            ResourceConnection dwdmPortaConnection = this.netcompassApiClient.getResourceConnection(dwdmSlotResource, dwdmPortaResource, Domain, "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(dwdmPortaConnection);
+                            ResourceConnection dwdmPortaConnection = this.resourceFactory.getResourceConnection(dwdmSlotResource, dwdmPortaResource, Domain, "connection.default", "connection.default");
+                            this.inventoryWriter.addManagedResource(dwdmPortaResource);
+                            this.inventoryWriter.addResourceConnection(dwdmPortaConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
-                });
+                    })) {
+                r.forEach(a -> workers.submit(RowSnapshot.of(PORTA_COLUMNS, column -> a.get(column).isNotNull() ? a.get(column).asString() : null)));
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
+                this.flushStagedWrites();
                 logger.debug("Done Creating Dwdm Porta S/ Modulo");
             }
         }
@@ -481,21 +737,21 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Porta C/ Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmPortaComModulo"));
-            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
-                r.forEach(a -> {
+            PreparedStatement pst = this.statementCache.get("getDwdmPortaComModulo");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst);
+                    PartitionedRowProcessor<RowSnapshot> workers = this.rowWorkers("importDwdmPortaComModulo", a -> {
                     try {
 
                         if (a.get("Hostname").isNotNull() && a.get("Porta").isNotNull()) {
 
                             String getModuloNodeAddress = a.get("Hostname").asString() + ".SHELF-" + a.get("Shelf").asString() + ".SLOT-" + a.get("Slot").asString() + ".MODULO-" + a.get("Modulo").asString();
-                            ManagedResource dwdmResource = this.netcompassApiClient.getManagedResource(a.get("Hostname").asString(), Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
-                            ManagedResource dwdmModuloResource = this.netcompassApiClient.getManagedResource(getModuloNodeAddress, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
+                            ManagedResource dwdmResource = this.resourceFactory.getManagedResource(a.get("Hostname").asString(), Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
+                            ManagedResource dwdmModuloResource = this.resourceFactory.getManagedResource(getModuloNodeAddress, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
 
                             String portaModuloName = "PORTA-" + a.get("Porta").asString("N/A");
                             String portaModuloNodeAddress = getModuloNodeAddress + "." + portaModuloName;
 
-                            ManagedResource dwdmPortaModuloResource = this.netcompassApiClient.getManagedResource(portaModuloNodeAddress, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
+                            ManagedResource dwdmPortaModuloResource = this.resourceFactory.getManagedResource(portaModuloNodeAddress, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
                             dwdmPortaModuloResource.setName(portaModuloName);
                             dwdmPortaModuloResource.getAttributes().put("idEquipamento", a.get("IdEquipamento").asInteger(0));
                             dwdmPortaModuloResource.getAttributes().put("shelf", a.get("Shelf").asString("0"));
@@ -511,34 +767,149 @@ public class SMTXDwdmJob implements Job {
                             dwdmPortaModuloResource.getAttributes().put("autoNegociacao", a.get("AutoNegociacao").asString("-"));
                             dwdmPortaModuloResource.getAttributes().put("eletrico", a.get("Eletrico").asString("-"));
                             dwdmPortaModuloResource.setStructureId(dwdmResource.getKey());
-                            this.netcompassApiClient.addManagedResource(dwdmPortaModuloResource);
-
-                            ResourceConnection dwdmPortaModuloConnection = this.netcompassApiClient.getResourceConnection(dwdmModuloResource, dwdmPortaModuloResource, Domain, "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(dwdmPortaModuloConnection);
+                            ResourceConnection dwdmPortaModuloConnection = this.resourceFactory.getResourceConnection(dwdmModuloResource, dwdmPortaModuloResource, Domain, "connection.default", "connection.default");
+                            this.inventoryWriter.addManagedResource(dwdmPortaModuloResource);
+                            this.inventoryWriter.addResourceConnection(dwdmPortaModuloConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
-                });
+                    })) {
+                r.forEach(a -> workers.submit(RowSnapshot.of(PORTA_COLUMNS, column -> a.get(column).isNotNull() ? a.get(column).asString() : null)));
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
+                this.flushStagedWrites();
                 logger.debug("Done Creating Dwdm Porta C/ Modulo");
             }
         }
     }
 
+    /**
+     * Níveis da getDwdmHierarquia, com os mesmos atributos dos steps 0 a 5.
+     * Os atributos do slot vêm das colunas Slot*, preenchidas só na linha do
+     * próprio slot (Modulo nulo)
+     *
+     * @return
+     */
+    private HierarchyImporter.Level[] dwdmHierarchyLevels() {
+        return new HierarchyImporter.Level[]{
+            new HierarchyImporter.Level("Hostname", "", "resource.smtx.dwdm")
+            .attribute("idEquipamento", "IdEquipamento", 0)
+            .attribute("status", "Status", "-")
+            .attribute("camada", "Camada", "-")
+            .attribute("fabricante", "Fabricante", "-")
+            .attribute("modelo", "Modelo", "-")
+            .attribute("numeroShelfs", "NumShelfs", "-")
+            .attribute("siglaSite", "SiglaSite", "-")
+            .attribute("uf", "UfSite", "-")
+            .attribute("funcaoEnderecoIP", "FuncaoEnderecoIP", "-")
+            .attribute("enderecoIP", "EnderecoIP", "-")
+            .attribute("funcaoEnderecoIP2", "FuncaoEnderecoIP2", "-")
+            .attribute("enderecoIP2", "EnderecoIP2", "-")
+            .attribute("funcaoEnderecoIP3", "FuncaoEnderecoIP3", "-")
+            .attribute("enderecoIP3", "EnderecoIP3", "-")
+            .attribute("funcaoEnderecoIP4", "FuncaoEnderecoIP4", "-")
+            .attribute("enderecoIP4", "EnderecoIP4", "-")
+            .attribute("configuracao", "Configuracao", "-")
+            .attribute("numeroOe", "NumOE", "-"),
+            new HierarchyImporter.Level("Shelf", "SHELF-", "resource.smtx.dwdm.shelf")
+            .attribute("idEquipamento", "IdEquipamento", 0)
+            .attribute("hostname", "Hostname", "-")
+            .attribute("tipoAddDrop", "TipoAddDrop", "-")
+            .attribute("statusShelf", "StatusShelf", "-")
+            .attribute("shelf", "Shelf", "-")
+            .attribute("subModeloEquipamento", "SubModeloEquipamento", "-"),
+            new HierarchyImporter.Level("Slot", "SLOT-", "resource.smtx.dwdm.slot")
+            .attribute("idEquipamento", "IdEquipamento", 0)
+            .attribute("shelf", "Shelf", 0)
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", 0)
+            .attribute("statusSlot", "SlotStatusSlot", "-")
+            .attribute("tipoPlaca", "SlotTipoPlaca", "-")
+            .attribute("funcao", "SlotFuncao", "-")
+            .attribute("numeroPortas", "SlotNumPortas", 0)
+            .attribute("numeroPortasLogicas", "SlotNumPortasLogicas", 0)
+            .attribute("numeroDIDs", "SlotNumDIDs", 0)
+            .attribute("numeroPlacas", "SlotNumPlacas", 0)
+            .attribute("numeroOe", "SlotNumOE", "-"),
+            new HierarchyImporter.Level("Modulo", "MODULO-", "resource.smtx.dwdm.modulo")
+            .attribute("idEquipamento", "IdEquipamento", 0)
+            .attribute("shelf", "Shelf", 0)
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", 0)
+            .attribute("modulo", "Modulo", 0)
+            .attribute("statusSlot", "StatusSlot", "-")
+            .attribute("tipoPlaca", "TipoPlaca", "-")
+            .attribute("funcao", "Funcao", "-")
+            .attribute("numeroPortas", "NumPortas", 0)
+            .attribute("numeroPortasLogicas", "NumPortasLogicas", 0)
+            .attribute("numeroDIDs", "NumDIDs", 0)
+            .attribute("numeroPlacas", "NumPlacas", 0)
+            .attribute("numeroOe", "NumOESlot", "-"),
+            new HierarchyImporter.Level("Porta", "PORTA-", "resource.smtx.dwdm.porta")
+            .attribute("idEquipamento", "IdEquipamento", 0)
+            .attribute("shelf", "Shelf", "0")
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", "0")
+            .attribute("modulo", "Modulo", null)
+            .attribute("porta", "Porta", "0")
+            .attribute("nome", "Nome", "-")
+            .attribute("funcao", "PortaFuncao", "-")
+            .attribute("funcaoPorta", "FuncaoPorta", "-")
+            .attribute("velocidadePorta", "VelocidadePorta", "-")
+            .attribute("switchMode", "SwitchMode", "-")
+            .attribute("autoNegociacao", "AutoNegociacao", "-")
+            .attribute("eletrico", "Eletrico", "-")
+        };
+    }
+
+    /**
+     * Modo smtx.import.hierarchy, substitui os steps 0 a 5 por uma única
+     * leitura da getDwdmHierarquia
+     *
+     * @throws SQLException
+     */
+    @ImportJobStep(stepIndex = 12, stepName = "importDwdmHierarquia")
+    private void importDwdmHierarquia() throws SQLException {
+        int attempt = 1;
+        boolean importing = true;
+
+        while (importing) {
+            logger.debug("Starting Dwdm Hierarquia Import Step Attempt[{}]", attempt);
+            HierarchyImporter importer = new HierarchyImporter(this.netcompassApiClient, this.inventoryWriter, Domain, "connection.default", this.dwdmHierarchyLevels());
+            PreparedStatement pst = this.statementCache.get("getDwdmHierarquia");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
+                r.forEach(a -> {
+                    try {
+                        importer.accept(column -> a.get(column).isNotNull() ? a.get(column).asString() : null);
+                    } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
+                        this.run.error(logger, "Error Fetching Data", ex);
+                    }
+
+                });
+                importing = false;
+                attempt++;
+            } catch (IllegalStateException | SQLException ex) {
+                this.run.error(logger, "Error Fetching Data", ex);
+            } finally {
+                importer.clear();
+                logger.debug("Done Creating Dwdm Hierarquia");
+            }
+        }
+    }
+
     @ImportJobStep(stepIndex = 6, stepName = "importCircuitoOtsRx")
     private void importCircuitoOtsRx() throws SQLException {
         int attempt = 1;
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Dwdm Circuito Ots Rx Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOts"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOts");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
 
                 r.forEach(a -> {
@@ -553,91 +924,42 @@ public class SMTXDwdmJob implements Job {
                          * Trechos RX Ponta A
                          */
 
-                        String rxShelfA = hostnameA.getNodeAddress() + ".SHELF-" + a.get("RxShelfA").asString("N/A");
-                        String rxSlotA = rxShelfA + ".SLOT-" + a.get("RxSlotA").asString("N/A");
-
-                        ManagedResource rxShelfAResource = this.netcompassApiClient.getManagedResource(rxShelfA, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                        ManagedResource rxSlotAResource = this.netcompassApiClient.getManagedResource(rxSlotA, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                        ManagedResource rxPortaAResource;
-
-                        if (a.get("RxModuloA").isNotNull()) {
-                            String rxModuloA = rxSlotA + ".MODULO-" + a.get("RxModuloA").asString("N/A");
-                            String rxPortaA = rxModuloA + ".PORTA-" + a.get("RxPortaA").asString("N/A");
-
-                            ManagedResource rxModuloAResource = this.netcompassApiClient.getManagedResource(rxModuloA, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                            rxPortaAResource = this.netcompassApiClient.getManagedResource(rxPortaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(hostnameA, rxShelfAResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxShelfAResource, rxSlotAResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxSlotAResource, rxModuloAResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxModuloAResource, rxPortaAResource, Domain, "connection.default", "connection.default"));
-
-                        } else {
-                            String rxPortaA = rxSlotA + ".PORTA-" + a.get("RxPortaA").asString("N/A");
-
-                            rxPortaAResource = this.netcompassApiClient.getManagedResource(rxPortaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(hostnameA, rxShelfAResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxShelfAResource, rxSlotAResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxSlotAResource, rxPortaAResource, Domain, "connection.default", "connection.default"));
-                        }
+                        PortPath rxPathA = this.portPathBuilder.get(hostnameA, a.get("RxShelfA").asString("N/A"), a.get("RxSlotA").asString("N/A"),
+                                a.get("RxModuloA").isNotNull() ? a.get("RxModuloA").asString("N/A") : null, a.get("RxPortaA").asString("N/A"));
+                        ManagedResource rxPortaAResource = rxPathA.getPort();
+                        pathsRx.addAll(rxPathA.getConnections());
 
 
                         /**
                          * Trechos RX Ponta B
                          */
-                        String rxShelfB = hostnameB.getNodeAddress() + ".SHELF-" + a.get("RxShelfB").asString("N/A");
-                        String rxSlotB = rxShelfB + ".SLOT-" + a.get("RxSlotB").asString("N/A");
-
-                        ManagedResource rxShelfBResource = this.netcompassApiClient.getManagedResource(rxShelfB, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                        ManagedResource rxSlotBResource = this.netcompassApiClient.getManagedResource(rxSlotB, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                        ManagedResource rxPortaBResource;
-
-                        if (a.get("RxModuloB").isNotNull()) {
-
-                            String rxModuloB = rxSlotB + ".MODULO-" + a.get("RxModuloB").asString("N/A");
-                            String rxPortaB = rxModuloB + ".PORTA-" + a.get("RxPortaB").asString("N/A");
-
-                            ManagedResource rxModuloBResource = this.netcompassApiClient.getManagedResource(rxModuloB, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                            rxPortaBResource = this.netcompassApiClient.getManagedResource(rxPortaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(hostnameB, rxShelfBResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxShelfBResource, rxSlotBResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxSlotBResource, rxModuloBResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxModuloBResource, rxPortaBResource, Domain, "connection.default", "connection.default"));
-                        } else {
-                            String rxPortaB = rxSlotB + ".PORTA-" + a.get("RxPortaB").asString("N/A");
-
-                            rxPortaBResource = this.netcompassApiClient.getManagedResource(rxPortaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(hostnameB, rxShelfBResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxShelfBResource, rxSlotBResource, Domain, "connection.default", "connection.default"));
-                            pathsRx.add(this.netcompassApiClient.getResourceConnection(rxSlotBResource, rxPortaBResource, Domain, "connection.default", "connection.default"));
-
-                        }
+                        PortPath rxPathB = this.portPathBuilder.get(hostnameB, a.get("RxShelfB").asString("N/A"), a.get("RxSlotB").asString("N/A"),
+                                a.get("RxModuloB").isNotNull() ? a.get("RxModuloB").asString("N/A") : null, a.get("RxPortaB").asString("N/A"));
+                        ManagedResource rxPortaBResource = rxPathB.getPort();
+                        pathsRx.addAll(rxPathB.getConnections());
 
 
                         ResourceConnection portaRxConnection = this.netcompassApiClient.getResourceConnection(rxPortaAResource, rxPortaBResource, Domain, "connection.default", "connection.default");
-                        this.netcompassApiClient.addResourceConnection(portaRxConnection);
+                        this.inventoryWriter.addResourceConnection(portaRxConnection);
                         pathsRx.add(portaRxConnection);
 
                         String nameCircuitoRx = "OTS-RX." + a.get("IdOts").asString() + "." + hostnameA.getNodeAddress() + "." + hostnameB.getNodeAddress();
                         CircuitResource circuitOtsRx = this.netcompassApiClient.getCircuitResource(nameCircuitoRx, Domain, hostnameA, hostnameB, "circuit.smtx.dwdm.ots.rx", "circuit.smtx.dwdm.ots.rx");
                         circuitOtsRx.setName(nameCircuitoRx);
                         circuitOtsRx.getAttributes().put("idOts", a.get("IdOts").asInteger(0));
-                        this.netcompassApiClient.addCircuitResource(circuitOtsRx);
+                        this.inventoryWriter.addCircuitResource(circuitOtsRx);
 
                         CircuitPathDTO pathRx = this.netcompassApiClient.getCircuitPath(circuitOtsRx, pathsRx);
-                        this.netcompassApiClient.addCircuitPath(pathRx);
+                        this.inventoryWriter.addCircuitPath(pathRx);
 
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Ots Rx");
             }
@@ -650,7 +972,7 @@ public class SMTXDwdmJob implements Job {
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Dwdm Circuito Ots Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOts"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOts");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
 
                 r.forEach(a -> {
@@ -665,97 +987,42 @@ public class SMTXDwdmJob implements Job {
                          * Trechos TX Ponta A
                          */
 
-                        String txShelfA = hostnameA.getNodeAddress() + ".SHELF-" + a.get("TxShelfA").asString("N/A");
-                        String txSlotA = txShelfA + ".SLOT-" + a.get("TxSlotA").asString("N/A");
-
-                        ManagedResource txShelfAResource = this.netcompassApiClient.getManagedResource(txShelfA, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                        ManagedResource txSlotAResource = this.netcompassApiClient.getManagedResource(txSlotA, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                        ManagedResource txPortaAResource;
-
-
-                        if (a.get("TxModuloA").isNotNull()) {
-
-                            String txModuloA = txSlotA + ".MODULO-" + a.get("TxModuloA").asString("N/A");
-                            String txPortaA = txModuloA + ".PORTA-" + a.get("TxPortaA").asString("N/A");
-
-                            ManagedResource txModuloAResource = this.netcompassApiClient.getManagedResource(txModuloA, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                            txPortaAResource = this.netcompassApiClient.getManagedResource(txPortaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(hostnameA, txShelfAResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txShelfAResource, txSlotAResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txSlotAResource, txModuloAResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txModuloAResource, txPortaAResource, Domain, "connection.default", "connection.default"));
-
-                        } else {
-                            String txPortaA = txSlotA + ".PORTA-" + a.get("TxPortaA").asString("N/A");
-
-                            txPortaAResource = this.netcompassApiClient.getManagedResource(txPortaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(hostnameA, txShelfAResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txShelfAResource, txSlotAResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txSlotAResource, txPortaAResource, Domain, "connection.default", "connection.default"));
-
-                        }
+                        PortPath txPathA = this.portPathBuilder.get(hostnameA, a.get("TxShelfA").asString("N/A"), a.get("TxSlotA").asString("N/A"),
+                                a.get("TxModuloA").isNotNull() ? a.get("TxModuloA").asString("N/A") : null, a.get("TxPortaA").asString("N/A"));
+                        ManagedResource txPortaAResource = txPathA.getPort();
+                        pathsTx.addAll(txPathA.getConnections());
 
 
                         /**
                          * Trechos TX Ponta B
                          */
-                        String txShelfB = hostnameB.getNodeAddress() + ".SHELF-" + a.get("TxShelfB").asString("N/A");
-                        String txSlotB = txShelfB + ".SLOT-" + a.get("TxSlotB").asString("N/A");
-
-                        ManagedResource txShelfBResource = this.netcompassApiClient.getManagedResource(txShelfB, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                        ManagedResource txSlotBResource = this.netcompassApiClient.getManagedResource(txSlotB, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                        ManagedResource txPortaBResource;
-
-
-                        if (a.get("TxModuloB").isNotNull()) {
-
-                            String txModuloB = txSlotB + ".MODULO-" + a.get("TxModuloB").asString("N/A");
-                            String txPortaB = txModuloB + ".PORTA-" + a.get("TxPortaB").asString("N/A");
-
-                            ManagedResource txModuloBResource = this.netcompassApiClient.getManagedResource(txModuloB, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                            txPortaBResource = this.netcompassApiClient.getManagedResource(txPortaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(hostnameB, txShelfBResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txShelfBResource, txSlotBResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txSlotBResource, txModuloBResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txModuloBResource, txPortaBResource, Domain, "connection.default", "connection.default"));
-
-                        } else {
-
-                            String txPortaB = txSlotB + ".PORTA-" + a.get("TxPortaB").asString("N/A");
-
-                            txPortaBResource = this.netcompassApiClient.getManagedResource(txPortaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(hostnameB, txShelfBResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txShelfBResource, txSlotBResource, Domain, "connection.default", "connection.default"));
-                            pathsTx.add(this.netcompassApiClient.getResourceConnection(txSlotBResource, txPortaBResource, Domain, "connection.default", "connection.default"));
-
-                        }
+                        PortPath txPathB = this.portPathBuilder.get(hostnameB, a.get("TxShelfB").asString("N/A"), a.get("TxSlotB").asString("N/A"),
+                                a.get("TxModuloB").isNotNull() ? a.get("TxModuloB").asString("N/A") : null, a.get("TxPortaB").asString("N/A"));
+                        ManagedResource txPortaBResource = txPathB.getPort();
+                        pathsTx.addAll(txPathB.getConnections());
 
 
                         ResourceConnection portasTxConnection = this.netcompassApiClient.getResourceConnection(txPortaAResource, txPortaBResource, Domain, "connection.default", "connection.default");
-                        this.netcompassApiClient.addResourceConnection(portasTxConnection);
+                        this.inventoryWriter.addResourceConnection(portasTxConnection);
                         pathsTx.add(portasTxConnection);
 
                         String nameCircuitoTx = "OTS-TX." + a.get("IdOts").asString() + "." + hostnameA.getNodeAddress() + "." + hostnameB.getNodeAddress();
                         CircuitResource CircuitOtsTx = this.netcompassApiClient.getCircuitResource(nameCircuitoTx, Domain, hostnameA, hostnameB, "circuit.smtx.dwdm.ots.tx", "circuit.smtx.dwdm.ots.tx");
                         CircuitOtsTx.setName(nameCircuitoTx);
                         CircuitOtsTx.getAttributes().put("idOts", a.get("IdOts").asInteger(0));
-                        this.netcompassApiClient.addCircuitResource(CircuitOtsTx);
+                        this.inventoryWriter.addCircuitResource(CircuitOtsTx);
 
                         CircuitPathDTO pathTx = this.netcompassApiClient.getCircuitPath(CircuitOtsTx, pathsTx);
-                        this.netcompassApiClient.addCircuitPath(pathTx);
+                        this.inventoryWriter.addCircuitPath(pathTx);
 
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Ots Tx");
             }
@@ -768,7 +1035,7 @@ public class SMTXDwdmJob implements Job {
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Dwdm Circuito Ots Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOts"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOts");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
 
                 r.forEach(a -> {
@@ -834,18 +1101,18 @@ public class SMTXDwdmJob implements Job {
                         circuitOts.getAttributes().put("txSlotB", a.get("TxSlotB").asInteger(0));
                         circuitOts.getAttributes().put("txModuloB", a.get("TxModuloB").asInteger(0));
                         circuitOts.getAttributes().put("txPortaB", a.get("TxPortaB").asInteger(0));
-                        this.netcompassApiClient.addCircuitResource(circuitOts);
+                        this.inventoryWriter.addCircuitResource(circuitOts);
 
                         CircuitPathDTO pathDto = this.netcompassApiClient.getCircuitPath(circuitOts, paths);
-                        this.netcompassApiClient.addCircuitPath(pathDto);
+                        this.inventoryWriter.addCircuitPath(pathDto);
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Ots");
             }
@@ -859,7 +1126,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Circuito Oms Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOms"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOms");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -867,7 +1134,7 @@ public class SMTXDwdmJob implements Job {
                         List<Integer> iDsOts = new ArrayList<>();
 
                         try {
-                            PreparedStatement smt = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCamadaOmsOts"));
+                            PreparedStatement smt = this.statementCache.get("getDwdmCamadaOmsOts");
                             smt.setString(1, a.get("IdOms").asString("N/A"));
                             try (ResultSetStreamReader f = new ResultSetStreamReader(smt)) {
                                 f.forEach(d -> {
@@ -891,10 +1158,10 @@ public class SMTXDwdmJob implements Job {
 
                                 });
                             } catch (SQLException ex) {
-                                logger.error("Error Fetching Data", ex);
+                                this.run.error(logger, "Error Fetching Data", ex);
                             }
                         } catch (Exception ex) {
-                            logger.error("Generic Error", ex);
+                            this.run.error(logger, "Generic Error", ex);
                         }
 
 
@@ -913,19 +1180,19 @@ public class SMTXDwdmJob implements Job {
                         circuitOms.getAttributes().put("idEquipamentoA", a.get("IdEquipamentoA").asString("-"));
                         circuitOms.getAttributes().put("idEquipamentoB", a.get("IdEquipamentoB").asString("-"));
                         circuitOms.getAttributes().put("idOts", iDsOts );
-                        this.netcompassApiClient.addCircuitResource(circuitOms);
+                        this.inventoryWriter.addCircuitResource(circuitOms);
 
                         CircuitPathDTO pathOms = this.netcompassApiClient.getCircuitPath(circuitOms, pathsOts);
-                        this.netcompassApiClient.addCircuitPath(pathOms);
+                        this.inventoryWriter.addCircuitPath(pathOms);
 
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Oms");
             }
@@ -939,7 +1206,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Circuito Och Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOch"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOch");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -947,7 +1214,7 @@ public class SMTXDwdmJob implements Job {
                         List<Integer> iDsOms = new ArrayList<>();
                         try {
                             String idOch = a.get("IdOch").asString("N/A");
-                            PreparedStatement smt = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCamadaOchOms"));
+                            PreparedStatement smt = this.statementCache.get("getDwdmCamadaOchOms");
                             smt.setString(1, idOch);
                             try (ResultSetStreamReader f = new ResultSetStreamReader(smt)) {
                                 f.forEach(d -> {
@@ -961,90 +1228,34 @@ public class SMTXDwdmJob implements Job {
                                             if (d.get("OrdemA").asInteger() == 0) {
 
                                                 String hostnameA = d.get("HostnameA").asString("N/A");
-                                                String shelfA = hostnameA + ".SHELF-" + d.get("ShelfA").asString("N/A");
-                                                String slotA = shelfA + ".SLOT-" + d.get("SlotA").asString("N/A");
-
-                                                ManagedResource hostnameAResource = this.netcompassApiClient.getManagedResource(hostnameA, Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
-                                                ManagedResource shelfAResource = this.netcompassApiClient.getManagedResource(shelfA, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                                                ManagedResource slotAResource = this.netcompassApiClient.getManagedResource(slotA, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                                                ManagedResource portaAResource;
-
-
-                                                if (d.get("ModuloA").isNotNull()) {
-
-                                                    String moduloA = slotA + ".MODULO-" + d.get("ModuloA").asString("N/A");
-                                                    String portaA = moduloA + ".PORTA-" + d.get("PortaA").asString("N/A");
-
-                                                    ManagedResource moduloAResource = this.netcompassApiClient.getManagedResource(moduloA, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                                                    portaAResource = this.netcompassApiClient.getManagedResource(portaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(hostnameAResource, shelfAResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(shelfAResource, slotAResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(slotAResource, moduloAResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(moduloAResource, portaAResource, Domain, "connection.default", "connection.default"));
-
-
-                                                } else {
-                                                    String portaA = slotA + ".PORTA-" + d.get("PortaA").asString("N/A");
-
-                                                    portaAResource = this.netcompassApiClient.getManagedResource(portaA, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(hostnameAResource, shelfAResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(shelfAResource, slotAResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(slotAResource, portaAResource, Domain, "connection.default", "connection.default"));
-                                                }
+                                                PortPath pathA = this.portPathBuilder.get(hostnameA, d.get("ShelfA").asString("N/A"), d.get("SlotA").asString("N/A"),
+                                                        d.get("ModuloA").isNotNull() ? d.get("ModuloA").asString("N/A") : null, d.get("PortaA").asString("N/A"));
+                                                ManagedResource portaAResource = pathA.getPort();
+                                                pathsOms.addAll(pathA.getConnections());
 
                                                 ManagedResource nodeAddressA = this.netcompassApiClient.getManagedResource(portaAResource.getNodeAddress(), Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
                                                 ResourceConnection ochOrdemAConnection = this.netcompassApiClient.getResourceConnection(nodeAddressA, hostnameTrechoA, Domain, "connection.default", "connection.default");
-                                                this.netcompassApiClient.addResourceConnection(ochOrdemAConnection);
+                                                this.inventoryWriter.addResourceConnection(ochOrdemAConnection);
                                                 pathsOms.add(ochOrdemAConnection);
 
                                             //Conectar o HostnameB com o ultimo hostaname do trecho e busca os patchs do hostname B
                                             } else if (d.get("OrdemB").asInteger() == 1) {
 
                                                 String hostnameB = d.get("HostnameB").asString("N/A");
-                                                String shelfB = hostnameB + ".SHELF-" + d.get("ShelfB").asString("N/A");
-                                                String slotB = shelfB + ".SLOT-" + d.get("SlotB").asString("N/A");
-
-                                                ManagedResource hostnameBResource = this.netcompassApiClient.getManagedResource(hostnameB, Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
-                                                ManagedResource shelfBResource = this.netcompassApiClient.getManagedResource(shelfB, Domain, "resource.smtx.dwdm.shelf", "resource.smtx.dwdm.shelf");
-                                                ManagedResource slotBResource = this.netcompassApiClient.getManagedResource(slotB, Domain, "resource.smtx.dwdm.slot", "resource.smtx.dwdm.slot");
-                                                ManagedResource portaBResource;
-
-
-                                                if (d.get("ModuloB").isNotNull()) {
-
-                                                    String moduloB = slotB + ".MODULO-" + d.get("ModuloB").asString("N/A");
-                                                    String portaB = moduloB + ".PORTA-" + d.get("PortaB").asString("N/A");
-
-                                                    ManagedResource moduloBResource = this.netcompassApiClient.getManagedResource(moduloB, Domain, "resource.smtx.dwdm.modulo", "resource.smtx.dwdm.modulo");
-                                                    portaBResource = this.netcompassApiClient.getManagedResource(portaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(hostnameBResource, shelfBResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(shelfBResource, slotBResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(slotBResource, moduloBResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(moduloBResource, portaBResource, Domain, "connection.default", "connection.default"));
-
-
-                                                } else {
-                                                    String portaB = slotB + ".PORTA-" + d.get("PortaB").asString("N/A");
-
-                                                    portaBResource = this.netcompassApiClient.getManagedResource(portaB, Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
-
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(hostnameBResource, shelfBResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(shelfBResource, slotBResource, Domain, "connection.default", "connection.default"));
-                                                    pathsOms.add(this.netcompassApiClient.getResourceConnection(slotBResource, portaBResource, Domain, "connection.default", "connection.default"));
-                                                }
+                                                PortPath pathB = this.portPathBuilder.get(hostnameB, d.get("ShelfB").asString("N/A"), d.get("SlotB").asString("N/A"),
+                                                        d.get("ModuloB").isNotNull() ? d.get("ModuloB").asString("N/A") : null, d.get("PortaB").asString("N/A"));
+                                                ManagedResource portaBResource = pathB.getPort();
+                                                pathsOms.addAll(pathB.getConnections());
 
                                                 ManagedResource nodeAddressB = this.netcompassApiClient.getManagedResource(portaBResource.getNodeAddress(), Domain, "resource.smtx.dwdm.porta", "resource.smtx.dwdm.porta");
                                                 ResourceConnection ochOrdemBConnection = this.netcompassApiClient.getResourceConnection(nodeAddressB, hostnameTrechoB, Domain, "connection.default", "connection.default");
-                                                this.netcompassApiClient.addResourceConnection(ochOrdemBConnection);
+                                                this.inventoryWriter.addResourceConnection(ochOrdemBConnection);
                                                 pathsOms.add(ochOrdemBConnection);
                                         }
 
                                         } catch (SQLException | IOException | InvalidRequestException |
                                                  LocalQueueException ex) {
-                                            logger.error("Error Fetching Data", ex);
+                                            this.run.error(logger, "Error Fetching Data", ex);
                                         }
 
                                         //Cria conexão entre Trechos(oms)
@@ -1052,7 +1263,7 @@ public class SMTXDwdmJob implements Job {
                                         {
                                             ManagedResource enlaceOms = this.netcompassApiClient.getManagedResource(d.get("EnlaceOms").asString(), Domain, "resource.smtx.dwdm", "resource.smtx.dwdm");
                                             ResourceConnection enlaceOmsConnection = this.netcompassApiClient.getResourceConnection(hostnameTrechoB, enlaceOms, Domain, "connection.default", "connection.default");
-                                            this.netcompassApiClient.addResourceConnection(enlaceOmsConnection);
+                                            this.inventoryWriter.addResourceConnection(enlaceOmsConnection);
                                             pathsOms.add(enlaceOmsConnection);
                                         }
 
@@ -1069,15 +1280,15 @@ public class SMTXDwdmJob implements Job {
                                         iDsOms.add(d.get("IdOms").asInteger());
 
                                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                                        logger.error("Error Fetching Data", ex);
+                                        this.run.error(logger, "Error Fetching Data", ex);
                                     }
 
                                 });
                             } catch (SQLException ex) {
-                                logger.error("Error Fetching Data", ex);
+                                this.run.error(logger, "Error Fetching Data", ex);
                             }
                         } catch (Exception ex) {
-                            logger.error("Generic Error", ex);
+                            this.run.error(logger, "Generic Error", ex);
                         }
 
                         //Cria o circuito de Och
@@ -1098,19 +1309,19 @@ public class SMTXDwdmJob implements Job {
                         circuitOch.getAttributes().put("velocidade", a.get("Velocidade").asString("-"));
                         circuitOch.getAttributes().put("canal", a.get("Canal").asString("-"));
                         circuitOch.getAttributes().put("idOms",iDsOms);
-                        this.netcompassApiClient.addCircuitResource(circuitOch);
+                        this.inventoryWriter.addCircuitResource(circuitOch);
 
                         CircuitPathDTO pathOms = this.netcompassApiClient.getCircuitPath(circuitOch, pathsOms);
-                        this.netcompassApiClient.addCircuitPath(pathOms);
+                        this.inventoryWriter.addCircuitPath(pathOms);
 
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Och");
             }
@@ -1124,7 +1335,7 @@ public class SMTXDwdmJob implements Job {
 
         while (importing) {
             logger.debug("Starting Dwdm Circuito Odu Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCircuitoOdu"));
+            PreparedStatement pst = this.statementCache.get("getDwdmCircuitoOdu");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -1132,7 +1343,7 @@ public class SMTXDwdmJob implements Job {
                         List<ResourceConnection> pathsOch = new ArrayList<>();
                         List<Integer> iDsOch = new ArrayList<>();
                         try {
-                            PreparedStatement smt = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getDwdmCamadaOduOch"));
+                            PreparedStatement smt = this.statementCache.get("getDwdmCamadaOduOch");
                             smt.setString(1, a.get("IdOdu").asString("N/A"));
                             smt.setString(2, a.get("Caminho").asString("N/A"));
                             try (ResultSetStreamReader f = new ResultSetStreamReader(smt)) {
@@ -1155,10 +1366,10 @@ public class SMTXDwdmJob implements Job {
                                     }
                                 });
                             } catch (SQLException ex) {
-                                logger.error("Error Fetching Data", ex);
+                                this.run.error(logger, "Error Fetching Data", ex);
                             }
                         } catch (Exception ex) {
-                            logger.error("Generic Error", ex);
+                            this.run.error(logger, "Generic Error", ex);
                         }
 
 
@@ -1179,19 +1390,19 @@ public class SMTXDwdmJob implements Job {
                         circuitOdu.getAttributes().put("numeroOe", a.get("NumOE").asInteger(0));
                         circuitOdu.getAttributes().put("caminho", a.get("Caminho").asString("-"));
                         circuitOdu.getAttributes().put("idOch", iDsOch);
-                        this.netcompassApiClient.addCircuitResource(circuitOdu);
+                        this.inventoryWriter.addCircuitResource(circuitOdu);
 
                         CircuitPathDTO pathOdu = this.netcompassApiClient.getCircuitPath(circuitOdu, pathsOch);
-                        this.netcompassApiClient.addCircuitPath(pathOdu);
+                        this.inventoryWriter.addCircuitPath(pathOdu);
 
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Circuito Odu");
             }
@@ -17,6 +17,20 @@
 package com.osstelecom.db.inventory.manager.client.smtx.jobs;
 
 import com.osstelecom.db.inventory.manager.annotations.ImportJobStep;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.ConcurrentInventoryWriter;
+import com.osstelecom.db.inventory.manager.client.smtx.history.JobRunRecorder;
+import com.osstelecom.db.inventory.manager.client.smtx.history.RunHistoryService;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.ExtractionSnapshot;
+import com.osstelecom.db.inventory.manager.client.smtx.sql.LockWaitProbe;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.FlushConcurrencyController;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriter;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriterFactory;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.HierarchyImporter;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PartitionedRowProcessor;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PreparedStatementCache;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.RowSnapshot;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.SharedResourceFactory;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.StartupMetrics;
 import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
 import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
 import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
@@ -28,7 +42,6 @@ import com.osstelecom.db.inventory.manager.resources.CircuitResource;
 import com.osstelecom.db.inventory.manager.resources.ManagedResource;
 import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
 import com.osstelecom.db.inventory.manager.utils.ResultSetStreamReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -36,6 +49,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -49,6 +63,7 @@ import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 
 
@@ -62,26 +77,86 @@ public class SMTXMetroJob implements Job {
 
     private Connection sqlConnection;
 
+    private PreparedStatementCache statementCache;
+
     private JobConfiguration configuration;
 
     private NetcompassClientConfiguration netcompassClientConfiguration;
 
     private NetcompassAPIClient netcompassApiClient;
 
+    /**
+     * get* do cliente para os workers dos steps de porta
+     */
+    private SharedResourceFactory resourceFactory;
+
+    @Autowired
+    private InventoryWriterFactory inventoryWriterFactory;
+
+    private InventoryWriter inventoryWriter;
+
+    @Autowired
+    private FlushConcurrencyController flushConcurrencyController;
+
+    @Autowired
+    private RunHistoryService runHistoryService;
+
+    private JobRunRecorder run;
+
+    private Integer flushThreads;
+
     @Autowired
     private ApplicationArguments applicationArguments;
 
-    private void initNetcompassClient() throws SQLException, FileNotFoundException {
+    /**
+     * Importa equipamento, shelf, slot, módulo e porta em uma única leitura
+     * ordenada (getMetroHierarquia) ao invés dos 6 steps
+     */
+    @Value("${smtx.import.hierarchy:false}")
+    private boolean hierarchyImport;
+
+    /**
+     * Workers dos steps de porta, 1 = processa na thread da Job, 0 = número
+     * de cores
+     */
+    @Value("${smtx.import.row-workers:1}")
+    private int rowParallelism;
+
+    @Value("${smtx.import.row-queue-size:4096}")
+    private int rowQueueSize;
+
+    /**
+     * Todos os steps leem da mesma transação SNAPSHOT, ver ExtractionSnapshot
+     */
+    @Value("${smtx.sql.snapshot.enabled:false}")
+    private boolean snapshotExtraction;
+
+    private ExtractionSnapshot snapshot;
+
+    /**
+     * Colunas copiadas das linhas de porta para os workers
+     */
+    private static final String[] PORTA_SEM_MODULO_COLUMNS = {"Hostname", "Camada", "Shelf", "Slot", "Porta", "Nome", "Funcao",
+        "FuncaoPorta", "VelocidadePorta", "SwitchMode", "AutoNegociacao", "Eletrico"};
+
+    private static final String[] PORTA_COM_MODULO_COLUMNS = {"Hostname", "Camada", "Shelf", "Slot", "Modulo", "Porta", "Nome", "Funcao",
+        "FuncaoPorta", "VelocidadePorta", "SwitchMode", "AutoNegociacao", "Eletrico"};
+
+    private void initNetcompassClient() throws SQLException, IOException {
         logger.debug("Trying to Create Netcompass Client");
         this.netcompassClientConfiguration = new ConfigurationManager().loadConfiguration();
         this.netcompassApiClient = new NetcompassAPIClient(netcompassClientConfiguration);
-        this.netcompassApiClient.initLoadSession("SMTX_IP_METRO", this.configuration.getFlushThreads());
+        this.resourceFactory = new SharedResourceFactory(this.netcompassApiClient);
+        this.flushThreads = this.flushConcurrencyController.flushThreadsFor("SMTX_IP_METRO", this.configuration.getFlushThreads());
+        this.netcompassApiClient.initLoadSession("SMTX_IP_METRO", this.flushThreads);
+        this.inventoryWriter = this.inventoryWriterFactory.createWriter(this.netcompassApiClient, "SMTX_IP_METRO", this.rowParallelism != 1);
     }
 
     private void initConnection() {
         while (true) {
             logger.debug("Trying to get Connection");
             try {
+                this.closeStatementCache();
                 if (this.sqlConnection != null) {
                     try {
                         this.sqlConnection.close();
@@ -90,11 +165,19 @@ public class SMTXMetroJob implements Job {
                         logger.warn("Connection Close error But OK", ex);
                     }
                 }
-                this.sqlConnection = this.dataSource.getConnection();
+                this.sqlConnection = this.snapshot != null ? this.snapshot.getConnection() : this.dataSource.getConnection();
+                this.statementCache = new PreparedStatementCache(this.sqlConnection, this.configuration.getQueries());
                 logger.info("Connected OK");
                 return;
             } catch (SQLException ex) {
                 logger.error("Failed To Acquire Connection");
+                if (this.snapshot != null) {
+                    logger.warn("Snapshot Lost, Remaining Steps Will Use Per Step Connections");
+                    this.sqlConnection = null;
+                    this.closeSnapshot();
+                    this.run.setIsolation("READ_COMMITTED");
+                    continue;
+                }
             }
             logger.debug("Retrying in 5s");
             try {
@@ -104,6 +187,119 @@ public class SMTXMetroJob implements Job {
         }
     }
 
+    /**
+     * Workers do step, as linhas de um mesmo Hostname caem sempre no mesmo
+     * worker. Com mais de um worker o inventoryWriter é um
+     * ConcurrentInventoryWriter, ver flushStagedWrites, e os recursos são
+     * montados pelo resourceFactory
+     *
+     * @param stepName
+     * @param worker
+     * @return
+     */
+    private PartitionedRowProcessor<RowSnapshot> rowWorkers(String stepName, Consumer<RowSnapshot> worker) {
+        return new PartitionedRowProcessor<>(stepName, this.rowParallelism, this.rowQueueSize, row -> row.get("Hostname").asString(), worker);
+    }
+
+    /**
+     * Junta no destino os add* acumulados pelos workers do step, chamado com
+     * os workers já encerrados
+     */
+    private void flushStagedWrites() {
+        if (this.inventoryWriter instanceof ConcurrentInventoryWriter concurrentWriter) {
+            concurrentWriter.flush();
+        }
+    }
+
+    /**
+     * Executa o step e entrega os add* acumulados antes do próximo step, assim
+     * os recursos pais (ex: slots) chegam ao destino antes dos filhos
+     * produzidos pelos workers do step seguinte (portas)
+     *
+     * @param name
+     * @param body
+     * @throws SQLException
+     */
+    private void step(String name, JobRunRecorder.StepBody body) throws SQLException {
+        this.run.step(name, () -> {
+            try {
+                body.run();
+            } finally {
+                this.flushStagedWrites();
+            }
+        });
+    }
+
+    /**
+     * Encerra a transação SNAPSHOT da execução, se aberta
+     */
+    private void closeSnapshot() {
+        if (this.snapshot != null) {
+            this.snapshot.close();
+            this.snapshot = null;
+        }
+    }
+
+    /**
+     * Fecha os statements do step anterior
+     */
+    private void closeStatementCache() {
+        if (this.statementCache != null) {
+            this.statementCache.close();
+            this.statementCache = null;
+        }
+    }
+
+    /**
+     * Finaliza o writer da sessão, no modo export fecha o arquivo
+     */
+    private void closeInventoryWriter() {
+        try {
+            this.inventoryWriter.close();
+        } catch (IOException ex) {
+            //
+            // Inclui o último lote do BatchingInventoryWriter
+            //
+            if (this.run != null) {
+                this.run.error(logger, "Failed To Close Inventory Writer", ex);
+            } else {
+                logger.error("Failed To Close Inventory Writer", ex);
+            }
+        }
+    }
+
+    /**
+     * Carrega o arquivo gerado pelo modo export e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromFile(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromFile(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Export File", ex);
+        }
+    }
+
+    /**
+     * Carrega o espelho local da sessão e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromMirror(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromMirror(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Inventory Mirror", ex);
+        }
+    }
+
     /**
      * Executa o Contexto de execução da JOB
      *
@@ -121,8 +317,18 @@ public class SMTXMetroJob implements Job {
             this.initNetcompassClient();
 
             this.initCollector();
-        } catch (SQLException | FileNotFoundException ex) {
+        } catch (SQLException | IOException ex) {
             java.util.logging.Logger.getLogger(SMTXDwdmJob.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            //
+            // Também quando escapa uma RuntimeException: finish desvincula os
+            // QueryCounters da thread do Quartz e grava a execução
+            //
+            this.closeStatementCache();
+            this.closeSnapshot();
+            if (this.run != null) {
+                this.runHistoryService.finish(this.run);
+            }
         }
 
     }
@@ -134,37 +340,76 @@ public class SMTXMetroJob implements Job {
      */
     private void initCollector() throws SQLException {
         if (applicationArguments.getNonOptionArgs().contains("upload-only")) {
-            logger.info("Upload Only Mode Starting..");
-            logger.debug("Uploading Data");
-            this.netcompassApiClient.upload();
-            logger.debug("Uploading Data Done");
+            if (this.inventoryWriterFactory.isMirrorAvailable("SMTX_IP_METRO")) {
+                logger.info("Upload Only Mode Starting From Mirror..");
+                this.uploadFromMirror("SMTX_IP_METRO");
+            } else {
+                logger.info("Upload Only Mode Starting..");
+                logger.debug("Uploading Data");
+                this.netcompassApiClient.upload();
+                logger.debug("Uploading Data Done");
+            }
+            System.exit(0);
+        } else if (this.inventoryWriterFactory.isUploadFromFileMode()) {
+            logger.info("Upload From File Mode Starting..");
+            this.uploadFromFile("SMTX_IP_METRO");
             System.exit(0);
         } else {
+            this.run = this.runHistoryService.start("SMTX_IP_METRO", () -> this.inventoryWriter.getWrittenCount());
+            if (this.inventoryWriter instanceof ConcurrentInventoryWriter concurrentWriter) {
+                //
+                // Os objetos recusados na entrega dos workers contam como erro
+                // do step em execução
+                //
+                concurrentWriter.setErrorHandler((message, ex) -> this.run.error(logger, message, ex));
+            }
+
+            if (this.snapshotExtraction) {
+                this.snapshot = ExtractionSnapshot.begin(this.dataSource, "SMTX_IP_METRO", this.configuration.getQueries().values());
+            }
+            this.run.setIsolation(this.snapshot != null ? "SNAPSHOT" : "READ_COMMITTED");
+            this.run.setLockWaitProbe(new LockWaitProbe(() -> this.sqlConnection));
 
             this.initConnection();
-            this.importMetro();
-            this.initConnection();
-            this.importMetroShelf();
-            this.initConnection();
-            this.importMetroSlot();
-            this.initConnection();
-            this.importMetroModulo();
-            this.initConnection();
-            this.importMetroPortaSemModulo();
-            this.initConnection();
-            this.importMetroPortaComModulo();
+            StartupMetrics.markFirstQuery("SMTX_IP_METRO");
+            if (this.hierarchyImport) {
+                this.step("importMetroHierarquia", this::importMetroHierarquia);
+            } else {
+                this.step("importMetro", this::importMetro);
+                this.initConnection();
+                this.step("importMetroShelf", this::importMetroShelf);
+                this.initConnection();
+                this.step("importMetroSlot", this::importMetroSlot);
+                this.initConnection();
+                this.step("importMetroModulo", this::importMetroModulo);
+                this.initConnection();
+                this.step("importMetroPortaSemModulo", this::importMetroPortaSemModulo);
+                this.initConnection();
+                this.step("importMetroPortaComModulo", this::importMetroPortaComModulo);
+            }
+
+
+            this.closeStatementCache();
 
+            this.closeSnapshot();
 
-            if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
+            this.closeInventoryWriter();
+
+            if (this.inventoryWriterFactory.isExportMode()) {
+                logger.info("NOT Uploading Data [export] Flag Set");
+            } else if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
                 logger.debug("Uploading Data");
-                this.netcompassApiClient.upload();
+                this.run.upload(this.inventoryWriter.getWrittenCount(), () -> this.flushConcurrencyController.upload("SMTX_IP_METRO", this.netcompassApiClient, this.flushThreads, this.inventoryWriter.getWrittenCount()));
                 logger.debug("Uploading Data Done");
 
             } else {
                 logger.warn("NOT Uploading Data [dont-upload] Flag Set");
+                this.runHistoryService.finish(this.run);
                 System.exit(0);
             }
 
+            this.runHistoryService.finish(this.run);
+
             if (applicationArguments.getNonOptionArgs().contains("exit")) {
                 System.exit(0);
             }
@@ -182,7 +427,7 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetro"));
+            PreparedStatement pst = this.statementCache.get("getMetro");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -208,18 +453,18 @@ public class SMTXMetroJob implements Job {
                             metroResource.getAttributes().put("enderecoIP4", a.get("EnderecoIP4").asString("N/A"));
                             metroResource.getAttributes().put("configuracao", a.get("Configuracao").asString("N/A"));
                             metroResource.getAttributes().put("numeroOe", a.get("NumOE").asString("N/A"));
-                            this.netcompassApiClient.addManagedResource(metroResource);
+                            this.inventoryWriter.addManagedResource(metroResource);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Metro");
             }
@@ -233,7 +478,7 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Shelf Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetroShelf"));
+            PreparedStatement pst = this.statementCache.get("getMetroShelf");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -252,21 +497,21 @@ public class SMTXMetroJob implements Job {
                             metroShelfResource.getAttributes().put("shelf", a.get("Shelf").asString("0"));
                             metroShelfResource.getAttributes().put("hostname", a.get("Hostname").asString("-"));
                             metroShelfResource.setStructureId(metroResource.getKey());
-                            this.netcompassApiClient.addManagedResource(metroShelfResource);
+                            this.inventoryWriter.addManagedResource(metroShelfResource);
 
                             ResourceConnection metroShelfConnection = this.netcompassApiClient.getResourceConnection(metroResource, metroShelfResource, "smtx_ip_metro", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(metroShelfConnection);
+                            this.inventoryWriter.addResourceConnection(metroShelfConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Metro Shelf");
             }
@@ -280,7 +525,7 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Slot Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetroSlot"));
+            PreparedStatement pst = this.statementCache.get("getMetroSlot");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -307,21 +552,21 @@ public class SMTXMetroJob implements Job {
                             metroSlotResource.getAttributes().put("numeroDIDs", a.get("NumDIDs").asString("0"));
                             metroSlotResource.getAttributes().put("numeroPlacas", a.get("NumPlacas").asString("0"));
                             metroSlotResource.setStructureId(metroResource.getKey());
-                            this.netcompassApiClient.addManagedResource(metroSlotResource);
+                            this.inventoryWriter.addManagedResource(metroSlotResource);
 
                             ResourceConnection metroSlotConnection = this.netcompassApiClient.getResourceConnection(metroShelfResource, metroSlotResource, "smtx_ip_metro", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(metroSlotConnection);
+                            this.inventoryWriter.addResourceConnection(metroSlotConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Metro Slot");
             }
@@ -335,7 +580,7 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetroModulo"));
+            PreparedStatement pst = this.statementCache.get("getMetroModulo");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -364,21 +609,21 @@ public class SMTXMetroJob implements Job {
                             metroModuloResource.getAttributes().put("numeroDIDs", a.get("NumDIDs").asString("0"));
                             metroModuloResource.getAttributes().put("numeroPlacas", a.get("NumPlacas").asString("0"));
                             metroModuloResource.setStructureId(metroResource.getKey());
-                            this.netcompassApiClient.addManagedResource(metroModuloResource);
+                            this.inventoryWriter.addManagedResource(metroModuloResource);
 
                             ResourceConnection metroSlotConnection = this.netcompassApiClient.getResourceConnection(metroSlotResource, metroModuloResource, "smtx_ip_metro", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(metroSlotConnection);
+                            this.inventoryWriter.addResourceConnection(metroSlotConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Modulo Slot");
             }
@@ -392,21 +637,21 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Porta S/ Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetroPortaSemModulo"));
-            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
-                r.forEach(a -> {
+            PreparedStatement pst = this.statementCache.get("getMetroPortaSemModulo");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst);
+                    PartitionedRowProcessor<RowSnapshot> workers = this.rowWorkers("importMetroPortaSemModulo", a -> {
                     try {
 
                         if (a.get("Hostname").isNotNull() && a.get("Porta").isNotNull()) {
 
                             String getSlotNodeAddress = a.get("Hostname").asString() + ".shelf-" + a.get("Shelf").asString() + ".slot-" + a.get("Slot").asString();
-                            ManagedResource metroResource = this.netcompassApiClient.getManagedResource(a.get("Hostname").asString(), "smtx_ip_metro", "resource.smtx.ip_metro", "resource.smtx.ip_metro");
-                            ManagedResource metroSlotResource = this.netcompassApiClient.getManagedResource(getSlotNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.slot", "resource.smtx.ip_metro.slot");
+                            ManagedResource metroResource = this.resourceFactory.getManagedResource(a.get("Hostname").asString(), "smtx_ip_metro", "resource.smtx.ip_metro", "resource.smtx.ip_metro");
+                            ManagedResource metroSlotResource = this.resourceFactory.getManagedResource(getSlotNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.slot", "resource.smtx.ip_metro.slot");
 
                             String portaName = "porta-" + a.get("Porta").asString("N/A");
                             String portaNodeAddress = getSlotNodeAddress + "." + portaName;
 
-                            ManagedResource metroPortaResource = this.netcompassApiClient.getManagedResource(portaNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.porta", "resource.smtx.ip_metro.porta");
+                            ManagedResource metroPortaResource = this.resourceFactory.getManagedResource(portaNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.porta", "resource.smtx.ip_metro.porta");
                             metroPortaResource.setName(portaName);
                             metroPortaResource.getAttributes().put("camada", a.get("Camada").asString("-"));
                             metroPortaResource.getAttributes().put("shelf", a.get("Shelf").asString("0"));
@@ -421,22 +666,23 @@ public class SMTXMetroJob implements Job {
                             metroPortaResource.getAttributes().put("autoNegociacao", a.get("AutoNegociacao").asString("-"));
                             metroPortaResource.getAttributes().put("eletrico", a.get("Eletrico").asString("-"));
                             metroPortaResource.setStructureId(metroResource.getKey());
-                            this.netcompassApiClient.addManagedResource(metroPortaResource);
-
-                            ResourceConnection metroPortaConnection = this.netcompassApiClient.getResourceConnection(metroSlotResource, metroPortaResource, "smtx_ip_metro", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(metroPortaConnection);
+                            ResourceConnection metroPortaConnection = this.resourceFactory.getResourceConnection(metroSlotResource, metroPortaResource, "smtx_ip_metro", "connection.default", "connection.default");
+                            this.inventoryWriter.addManagedResource(metroPortaResource);
+                            this.inventoryWriter.addResourceConnection(metroPortaConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
-                });
+                    })) {
+                r.forEach(a -> workers.submit(RowSnapshot.of(PORTA_SEM_MODULO_COLUMNS, column -> a.get(column).isNotNull() ? a.get(column).asString() : null)));
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
+                this.flushStagedWrites();
                 logger.debug("Done Creating Porta S/ Modulo Slot");
             }
         }
@@ -449,21 +695,21 @@ public class SMTXMetroJob implements Job {
 
         while (importing) {
             logger.debug("Starting Metro Porta S/ Modulo Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getMetroPortaComModulo"));
-            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
-                r.forEach(a -> {
+            PreparedStatement pst = this.statementCache.get("getMetroPortaComModulo");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst);
+                    PartitionedRowProcessor<RowSnapshot> workers = this.rowWorkers("importMetroPortaComModulo", a -> {
                     try {
 
                         if (a.get("Hostname").isNotNull() && a.get("Porta").isNotNull()) {
 
                             String getModuloNodeAddress = a.get("Hostname").asString() + ".shelf-" + a.get("Shelf").asString() + ".slot-" + a.get("Slot").asString() + ".modulo-" + a.get("Modulo").asString();
-                            ManagedResource metroResource = this.netcompassApiClient.getManagedResource(a.get("Hostname").asString(), "smtx_ip_metro", "resource.smtx.ip_metro", "resource.smtx.ip_metro");
-                            ManagedResource metroModuloResource = this.netcompassApiClient.getManagedResource(getModuloNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.modulo", "resource.smtx.ip_metro.modulo");
+                            ManagedResource metroResource = this.resourceFactory.getManagedResource(a.get("Hostname").asString(), "smtx_ip_metro", "resource.smtx.ip_metro", "resource.smtx.ip_metro");
+                            ManagedResource metroModuloResource = this.resourceFactory.getManagedResource(getModuloNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.modulo", "resource.smtx.ip_metro.modulo");
 
                             String portaModuloName = "porta-" + a.get("Porta").asString("N/A");
                             String portaModuloNodeAddress = getModuloNodeAddress + "." + portaModuloName;
 
-                            ManagedResource metroPortaModuloResource = this.netcompassApiClient.getManagedResource(portaModuloNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.porta", "resource.smtx.ip_metro.porta");
+                            ManagedResource metroPortaModuloResource = this.resourceFactory.getManagedResource(portaModuloNodeAddress, "smtx_ip_metro", "resource.smtx.ip_metro.porta", "resource.smtx.ip_metro.porta");
                             metroPortaModuloResource.setName(portaModuloName);
                             metroPortaModuloResource.getAttributes().put("camada", a.get("Camada").asString("-"));
                             metroPortaModuloResource.getAttributes().put("shelf", a.get("Shelf").asString("0"));
@@ -479,25 +725,133 @@ public class SMTXMetroJob implements Job {
                             metroPortaModuloResource.getAttributes().put("autoNegociacao", a.get("AutoNegociacao").asString("-"));
                             metroPortaModuloResource.getAttributes().put("eletrico", a.get("Eletrico").asString("-"));
                             metroPortaModuloResource.setStructureId(metroResource.getKey());
-                            this.netcompassApiClient.addManagedResource(metroPortaModuloResource);
-
-                            ResourceConnection metroPortaConnection = this.netcompassApiClient.getResourceConnection(metroModuloResource, metroPortaModuloResource, "smtx_ip_metro", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(metroPortaConnection);
+                            ResourceConnection metroPortaConnection = this.resourceFactory.getResourceConnection(metroModuloResource, metroPortaModuloResource, "smtx_ip_metro", "connection.default", "connection.default");
+                            this.inventoryWriter.addManagedResource(metroPortaModuloResource);
+                            this.inventoryWriter.addResourceConnection(metroPortaConnection);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
-                });
+                    })) {
+                r.forEach(a -> workers.submit(RowSnapshot.of(PORTA_COM_MODULO_COLUMNS, column -> a.get(column).isNotNull() ? a.get(column).asString() : null)));
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
+                this.flushStagedWrites();
                 logger.debug("Done Creating Porta C/ Modulo Slot");
             }
         }
     }
 
+    /**
+     * Níveis da getMetroHierarquia, com os mesmos atributos dos steps 0 a 5.
+     * Os atributos do slot vêm das colunas Slot*, preenchidas só na linha do
+     * próprio slot (Modulo nulo)
+     *
+     * @return
+     */
+    private HierarchyImporter.Level[] metroHierarchyLevels() {
+        return new HierarchyImporter.Level[]{
+            new HierarchyImporter.Level("Hostname", "", "resource.smtx.ip_metro")
+            .attribute("idEquipamento", "IdEquipamento", "N/A")
+            .attribute("status", "Status", "N/A")
+            .attribute("camada", "Camada", "N/A")
+            .attribute("fabricante", "Fabricante", "N/A")
+            .attribute("modelo", "Modelo", "N/A")
+            .attribute("numeroShelfs", "NumShelfs", "N/A")
+            .attribute("siglaSite", "SiglaSite", "N/A")
+            .attribute("uf", "UfSite", "N/A")
+            .attribute("funcaoEnderecoIP", "FuncaoEnderecoIP", "N/A")
+            .attribute("enderecoIP", "EnderecoIP", "N/A")
+            .attribute("funcaoEnderecoIP2", "FuncaoEnderecoIP2", "N/A")
+            .attribute("enderecoIP2", "EnderecoIP2", "N/A")
+            .attribute("funcaoEnderecoIP3", "FuncaoEnderecoIP3", "N/A")
+            .attribute("enderecoIP3", "EnderecoIP3", "N/A")
+            .attribute("funcaoEnderecoIP4", "FuncaoEnderecoIP4", "N/A")
+            .attribute("enderecoIP4", "EnderecoIP4", "N/A")
+            .attribute("configuracao", "Configuracao", "N/A")
+            .attribute("numeroOe", "NumOE", "N/A"),
+            new HierarchyImporter.Level("Shelf", "shelf-", "resource.smtx.ip_metro.shelf")
+            .attribute("camada", "Camada", "-")
+            .attribute("shelf", "Shelf", "0")
+            .attribute("hostname", "Hostname", "-"),
+            new HierarchyImporter.Level("Slot", "slot-", "resource.smtx.ip_metro.slot")
+            .attribute("camada", "Camada", "-")
+            .attribute("shelf", "Shelf", "0")
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", "0")
+            .attribute("tipoPlaca", "SlotTipoPlaca", "-")
+            .attribute("funcao", "SlotFuncao", "-")
+            .attribute("numeroPortas", "SlotNumPortas", "0")
+            .attribute("numeroPortasLogicas", "SlotNumPortasLogicas", "0")
+            .attribute("numeroDIDs", "SlotNumDIDs", "0")
+            .attribute("numeroPlacas", "SlotNumPlacas", "0"),
+            new HierarchyImporter.Level("Modulo", "modulo-", "resource.smtx.ip_metro.modulo")
+            .attribute("camada", "Camada", "-")
+            .attribute("shelf", "Shelf", "0")
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", "0")
+            .attribute("modulo", "Modulo", "0")
+            .attribute("tipoPlaca", "TipoPlaca", "-")
+            .attribute("funcao", "Funcao", "-")
+            .attribute("numeroPortas", "NumPortas", "0")
+            .attribute("numeroPortasLogicas", "NumPortasLogicas", "0")
+            .attribute("numeroDIDs", "NumDIDs", "0")
+            .attribute("numeroPlacas", "NumPlacas", "0"),
+            new HierarchyImporter.Level("Porta", "porta-", "resource.smtx.ip_metro.porta")
+            .attribute("camada", "Camada", "-")
+            .attribute("shelf", "Shelf", "0")
+            .attribute("hostname", "Hostname", "-")
+            .attribute("slot", "Slot", "0")
+            .attribute("modulo", "Modulo", null)
+            .attribute("porta", "Porta", "0")
+            .attribute("nome", "Nome", "-")
+            .attribute("funcao", "PortaFuncao", "-")
+            .attribute("funcaoPorta", "FuncaoPorta", "-")
+            .attribute("velocidadePorta", "VelocidadePorta", "-")
+            .attribute("switchMode", "SwitchMode", "-")
+            .attribute("autoNegociacao", "AutoNegociacao", "-")
+            .attribute("eletrico", "Eletrico", "-")
+        };
+    }
+
+    /**
+     * Modo smtx.import.hierarchy, substitui os steps 0 a 5 por uma única
+     * leitura da getMetroHierarquia
+     *
+     * @throws SQLException
+     */
+    @ImportJobStep(stepIndex = 6, stepName = "importMetroHierarquia")
+    private void importMetroHierarquia() throws SQLException {
+        int attempt = 1;
+        boolean importing = true;
+
+        while (importing) {
+            logger.debug("Starting Metro Hierarquia Import Step Attempt[{}]", attempt);
+            HierarchyImporter importer = new HierarchyImporter(this.netcompassApiClient, this.inventoryWriter, "smtx_ip_metro", "connection.default", this.metroHierarchyLevels());
+            PreparedStatement pst = this.statementCache.get("getMetroHierarquia");
+            try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
+                r.forEach(a -> {
+                    try {
+                        importer.accept(column -> a.get(column).isNotNull() ? a.get(column).asString() : null);
+                    } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
+                        this.run.error(logger, "Error Fetching Data", ex);
+                    }
+
+                });
+                importing = false;
+                attempt++;
+            } catch (IllegalStateException | SQLException ex) {
+                this.run.error(logger, "Error Fetching Data", ex);
+            } finally {
+                importer.clear();
+                logger.debug("Done Creating Metro Hierarquia");
+            }
+        }
+    }
+
 }
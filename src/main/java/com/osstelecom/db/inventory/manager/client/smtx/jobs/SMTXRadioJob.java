@@ -17,6 +17,13 @@
 package com.osstelecom.db.inventory.manager.client.smtx.jobs;
 
 import com.osstelecom.db.inventory.manager.annotations.ImportJobStep;
+import com.osstelecom.db.inventory.manager.client.smtx.history.JobRunRecorder;
+import com.osstelecom.db.inventory.manager.client.smtx.history.RunHistoryService;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.FlushConcurrencyController;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriter;
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriterFactory;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PreparedStatementCache;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.StartupMetrics;
 import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
 import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
 import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
@@ -28,7 +35,6 @@ import com.osstelecom.db.inventory.manager.resources.CircuitResource;
 import com.osstelecom.db.inventory.manager.resources.ManagedResource;
 import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
 import com.osstelecom.db.inventory.manager.utils.ResultSetStreamReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -64,26 +70,46 @@ public class SMTXRadioJob implements Job {
 
     private Connection sqlConnection;
 
+    private PreparedStatementCache statementCache;
+
     private JobConfiguration configuration;
 
     private NetcompassClientConfiguration netcompassClientConfiguration;
 
     private NetcompassAPIClient netcompassApiClient;
 
+    @Autowired
+    private InventoryWriterFactory inventoryWriterFactory;
+
+    private InventoryWriter inventoryWriter;
+
+    @Autowired
+    private FlushConcurrencyController flushConcurrencyController;
+
+    @Autowired
+    private RunHistoryService runHistoryService;
+
+    private JobRunRecorder run;
+
+    private Integer flushThreads;
+
     @Autowired
     private ApplicationArguments applicationArguments;
 
-    private void initNetcompassClient() throws SQLException, FileNotFoundException {
+    private void initNetcompassClient() throws SQLException, IOException {
         logger.debug("Trying to Create Netcompass Client");
         this.netcompassClientConfiguration = new ConfigurationManager().loadConfiguration();
         this.netcompassApiClient = new NetcompassAPIClient(netcompassClientConfiguration);
-        this.netcompassApiClient.initLoadSession("SMTX_RADIO", this.configuration.getFlushThreads());
+        this.flushThreads = this.flushConcurrencyController.flushThreadsFor("SMTX_RADIO", this.configuration.getFlushThreads());
+        this.netcompassApiClient.initLoadSession("SMTX_RADIO", this.flushThreads);
+        this.inventoryWriter = this.inventoryWriterFactory.createWriter(this.netcompassApiClient, "SMTX_RADIO");
     }
 
     private void initConnection() {
         while (true) {
             logger.debug("Trying to get Connection");
             try {
+                this.closeStatementCache();
                 if (this.sqlConnection != null) {
                     try {
                         this.sqlConnection.close();
@@ -93,6 +119,7 @@ public class SMTXRadioJob implements Job {
                     }
                 }
                 this.sqlConnection = this.dataSource.getConnection();
+                this.statementCache = new PreparedStatementCache(this.sqlConnection, this.configuration.getQueries());
                 logger.info("Connected OK");
                 return;
             } catch (SQLException ex) {
@@ -106,6 +133,66 @@ public class SMTXRadioJob implements Job {
         }
     }
 
+    /**
+     * Fecha os statements do step anterior
+     */
+    private void closeStatementCache() {
+        if (this.statementCache != null) {
+            this.statementCache.close();
+            this.statementCache = null;
+        }
+    }
+
+    /**
+     * Finaliza o writer da sessão, no modo export fecha o arquivo
+     */
+    private void closeInventoryWriter() {
+        try {
+            this.inventoryWriter.close();
+        } catch (IOException ex) {
+            //
+            // Inclui o último lote do BatchingInventoryWriter
+            //
+            if (this.run != null) {
+                this.run.error(logger, "Failed To Close Inventory Writer", ex);
+            } else {
+                logger.error("Failed To Close Inventory Writer", ex);
+            }
+        }
+    }
+
+    /**
+     * Carrega o arquivo gerado pelo modo export e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromFile(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromFile(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Export File", ex);
+        }
+    }
+
+    /**
+     * Carrega o espelho local da sessão e faz o upload
+     *
+     * @param sessionName
+     */
+    private void uploadFromMirror(String sessionName) {
+        try {
+            long loaded = this.inventoryWriterFactory.loadFromMirror(this.netcompassApiClient, sessionName);
+            logger.debug("Uploading Data");
+            this.flushConcurrencyController.upload(sessionName, this.netcompassApiClient, this.flushThreads, loaded);
+            logger.debug("Uploading Data Done");
+        } catch (IOException ex) {
+            logger.error("Failed To Load Inventory Mirror", ex);
+        }
+    }
+
     /**
      * Executa o Contexto de execução da JOB
      *
@@ -123,8 +210,17 @@ public class SMTXRadioJob implements Job {
             this.initNetcompassClient();
 
             this.initCollector();
-        } catch (SQLException | FileNotFoundException ex) {
+        } catch (SQLException | IOException ex) {
             java.util.logging.Logger.getLogger(SMTXRadioJob.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            //
+            // Também quando escapa uma RuntimeException: finish desvincula os
+            // QueryCounters da thread do Quartz e grava a execução
+            //
+            this.closeStatementCache();
+            if (this.run != null) {
+                this.runHistoryService.finish(this.run);
+            }
         }
 
     }
@@ -136,36 +232,56 @@ public class SMTXRadioJob implements Job {
      */
     private void initCollector() throws SQLException {
         if (applicationArguments.getNonOptionArgs().contains("upload-only")) {
-            logger.info("Upload Only Mode Starting..");
-            logger.debug("Uploading Data");
-            this.netcompassApiClient.upload();
-            logger.debug("Uploading Data Done");
+            if (this.inventoryWriterFactory.isMirrorAvailable("SMTX_RADIO")) {
+                logger.info("Upload Only Mode Starting From Mirror..");
+                this.uploadFromMirror("SMTX_RADIO");
+            } else {
+                logger.info("Upload Only Mode Starting..");
+                logger.debug("Uploading Data");
+                this.netcompassApiClient.upload();
+                logger.debug("Uploading Data Done");
+            }
+            System.exit(0);
+        } else if (this.inventoryWriterFactory.isUploadFromFileMode()) {
+            logger.info("Upload From File Mode Starting..");
+            this.uploadFromFile("SMTX_RADIO");
             System.exit(0);
         } else {
+            this.run = this.runHistoryService.start("SMTX_RADIO", () -> this.inventoryWriter.getWrittenCount());
             /**
              * 1. Importa os rádios... que vão ser estruturas
              */
             this.initConnection();
-            this.importRadios();
+            StartupMetrics.markFirstQuery("SMTX_RADIO");
+            this.run.step("importRadios", this::importRadios);
             /**
              * Depois importa as portas dos rádios já ligando a porta ao rádio
              */
             this.initConnection();
-            this.importPortas();
+            this.run.step("importPortas", this::importPortas);
             this.initConnection();
-            this.importAntenas();
+            this.run.step("importAntenas", this::importAntenas);
             this.initConnection();
-            this.importEnlaces();
-            if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
+            this.run.step("importEnlaces", this::importEnlaces);
+            this.closeStatementCache();
+
+            this.closeInventoryWriter();
+
+            if (this.inventoryWriterFactory.isExportMode()) {
+                logger.info("NOT Uploading Data [export] Flag Set");
+            } else if (!applicationArguments.getNonOptionArgs().contains("dont-upload")) {
                 logger.debug("Uploading Data");
-                this.netcompassApiClient.upload();
+                this.run.upload(this.inventoryWriter.getWrittenCount(), () -> this.flushConcurrencyController.upload("SMTX_RADIO", this.netcompassApiClient, this.flushThreads, this.inventoryWriter.getWrittenCount()));
                 logger.debug("Uploading Data Done");
 
             } else {
                 logger.warn("NOT Uploading Data [dont-upload] Flag Set");
+                this.runHistoryService.finish(this.run);
                 System.exit(0);
             }
 
+            this.runHistoryService.finish(this.run);
+
             if (applicationArguments.getNonOptionArgs().contains("exit")) {
                 System.exit(0);
             }
@@ -178,7 +294,7 @@ public class SMTXRadioJob implements Job {
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Enlace Import Step  Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getEnlaces"));
+            PreparedStatement pst = this.statementCache.get("getEnlaces");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 //
                 // Vamos ter que recriar todas as conexões relacionadas ao enlace...
@@ -213,7 +329,7 @@ public class SMTXRadioJob implements Job {
 
                         ResourceConnection antenaConnection = this.netcompassApiClient.getResourceConnection(antenaAResource, antenaBResource, "smtx_radios", "connection.smtx.radio.enlace", "connection.smtx.radio.enlace");
 
-                        this.netcompassApiClient.addResourceConnection(antenaConnection);
+                        this.inventoryWriter.addResourceConnection(antenaConnection);
 
                         //
                         // Conecta as antenas com: connection.smtx.radio.enlace
@@ -238,18 +354,18 @@ public class SMTXRadioJob implements Job {
                         enlaceCircuit.getAttributes().put("nomenclaturaSiteA", a.get("UF_SITE_SIGLA_PONTA_A").asString("N/A"));
                         enlaceCircuit.getAttributes().put("nomenclaturaSiteB", a.get("UF_SITE_SIGLA_PONTA_B").asString("N/A"));
 
-                        this.netcompassApiClient.addCircuitResource(enlaceCircuit);
+                        this.inventoryWriter.addCircuitResource(enlaceCircuit);
 
                         CircuitPathDTO pathDto = this.netcompassApiClient.getCircuitPath(enlaceCircuit, paths);
-                        this.netcompassApiClient.addCircuitPath(pathDto);
+                        this.inventoryWriter.addCircuitPath(pathDto);
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Enlaces");
             }
@@ -267,7 +383,7 @@ public class SMTXRadioJob implements Job {
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Antenas Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getAntenas"));
+            PreparedStatement pst = this.statementCache.get("getAntenas");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     if (a.get("HOSTNAME").isNotNull() && a.get("SIGLA_ANTENA").isNotNull()) {
@@ -313,22 +429,22 @@ public class SMTXRadioJob implements Job {
 //                        logger.debug(this.netcompassApiClient.getGson().toJson(antenaResource));
 //                        logger.debug("-------------------------------------------------------");
                             antenaResource.setStructureId(radioResource.getKey());
-                            this.netcompassApiClient.addManagedResource(antenaResource);
+                            this.inventoryWriter.addManagedResource(antenaResource);
 
                             /**
                              * Conecta o Radio a Porta
                              */
                             ResourceConnection radioAntenaConnection = this.netcompassApiClient.getResourceConnection(radioResource, antenaResource, "smtx_radios", "connection.default", "connection.default");
-                            this.netcompassApiClient.addResourceConnection(radioAntenaConnection);
+                            this.inventoryWriter.addResourceConnection(radioAntenaConnection);
 
                         } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                            logger.error("Error Fetching Data", ex);
+                            this.run.error(logger, "Error Fetching Data", ex);
                         }
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Antenas");
             }
@@ -346,7 +462,7 @@ public class SMTXRadioJob implements Job {
         boolean importing = true;
         while (importing) {
             logger.debug("Starting Portas Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getPortas"));
+            PreparedStatement pst = this.statementCache.get("getPortas");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(p -> {
                     if (p.get("HOSTNAME").isNotNull() && p.get("PORTA").isNotNull()) {
@@ -380,22 +496,22 @@ public class SMTXRadioJob implements Job {
                             portaResource.getAttributes().put("idDID", p.get("ID_DID").asString("-"));
                             portaResource.getAttributes().put("idFast", p.get("ID_FAST").asString("-"));
                             portaResource.setStructureId(radioResource.getKey());
-                            this.netcompassApiClient.addManagedResource(portaResource);
+                            this.inventoryWriter.addManagedResource(portaResource);
 
                             /**
                              * Conecta o Radio a Porta
                              */
                             ResourceConnection radioPortaConnection = this.netcompassApiClient.getResourceConnection(radioResource, portaResource, "smtx_radios", "connection.default", "connection.default");
 
-                            this.netcompassApiClient.addResourceConnection(radioPortaConnection);
+                            this.inventoryWriter.addResourceConnection(radioPortaConnection);
                         } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                            logger.error("Error Fetching Data", ex);
+                            this.run.error(logger, "Error Fetching Data", ex);
                         }
                     }
                 });
                 importing = false;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Portas");
             }
@@ -414,7 +530,7 @@ public class SMTXRadioJob implements Job {
 
         while (importing) {
             logger.debug("Starting Radios Import Step Attempt[{}]", attempt);
-            PreparedStatement pst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getRadios"));
+            PreparedStatement pst = this.statementCache.get("getRadios");
             try (ResultSetStreamReader r = new ResultSetStreamReader(pst)) {
                 r.forEach(a -> {
                     try {
@@ -448,7 +564,7 @@ public class SMTXRadioJob implements Job {
                             // Para cada Rádio vamos importar as Frequencias, bloco bem isoladinho
                             //
                             try {
-                                PreparedStatement freqPst = this.sqlConnection.prepareStatement(this.configuration.getQueries().get("getFrequencias"));
+                                PreparedStatement freqPst = this.statementCache.get("getFrequencias");
                                 freqPst.setString(1, a.get("HOSTNAME").asString("N/A"));
                                 try (ResultSetStreamReader f = new ResultSetStreamReader(freqPst)) {
                                     AtomicInteger freqIdx = new AtomicInteger(1);
@@ -463,24 +579,24 @@ public class SMTXRadioJob implements Job {
                                         freqIdx.incrementAndGet();
                                     });
                                 } catch (SQLException ex) {
-                                    logger.error("Error Fetching Frequency Data", ex);
+                                    this.run.error(logger, "Error Fetching Frequency Data", ex);
                                 }
                             } catch (Exception ex) {
-                                logger.error("Generic Error on Frequency", ex);
+                                this.run.error(logger, "Generic Error on Frequency", ex);
                             }
 
-                            this.netcompassApiClient.addManagedResource(radioResource);
+                            this.inventoryWriter.addManagedResource(radioResource);
                         }
 
                     } catch (SQLException | IOException | InvalidRequestException | LocalQueueException ex) {
-                        logger.error("Error Fetching Data", ex);
+                        this.run.error(logger, "Error Fetching Data", ex);
                     }
 
                 });
                 importing = false;
                 attempt++;
             } catch (IllegalStateException | SQLException ex) {
-                logger.error("Error Fetching Data", ex);
+                this.run.error(logger, "Error Fetching Data", ex);
             } finally {
                 logger.debug("Done Creating Radios");
             }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.loadtest;
+
+import com.osstelecom.db.inventory.manager.client.smtx.sql.CatalogToSchemaDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * No profile loadtest as Jobs apontam para o banco H2 gerado pelo
+ * SyntheticDataGenerator, as queries do config/jobs.yml continuam as mesmas,
+ * só os nomes [MeiosTX_Web_XX].[dbo].tabela são reescritos para schema.tabela.
+ *
+ * Roda antes do SqlCaptureConfiguration, assim o modo record continua
+ * enxergando o SQL original
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestConfiguration implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CatalogToSchemaDataSource)) {
+            return new CatalogToSchemaDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.TokenBucket;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Servidor HTTP local que faz o papel do Netcompass nos testes de upload.
+ * Implementa as rotas da API REST v1 (smtx.netcompass-stub.base-path) que o
+ * NetcompassAPIClient chama no initLoadSession e no upload():
+ *
+ * GET {base}/domain/{domain} e POST/PUT {base}/domain: consulta e criação do
+ * domínio da sessão de carga
+ *
+ * POST/PUT/PATCH {base}/{domain}/resource, connection, circuit e
+ * circuit/path: gravação dos objetos, um por requisição ou um array no
+ * payLoad. A resposta devolve cada objeto gravado com _key, _id, _rev e
+ * insertedDate preenchidos, como o servidor real
+ *
+ * POST {base}/{domain}/{tipo}/filter: consultas, sempre vazias
+ *
+ * Qualquer outra rota responde 404 e é contada como Unmatched, com um warn
+ * por rota, para que uma mudança de endpoint no cliente apareça no
+ * benchmark em vez de inflar os objetos/s.
+ *
+ * Para simular o servidor real é possível configurar latência, taxa de erro,
+ * limite de requisições/bytes por segundo (global) e slow drain (o corpo de
+ * cada requisição é lido devagar, segurando a conexão do cliente).
+ *
+ * Para usar, aponte a url da configuração do cliente Netcompass para
+ * http://localhost:{smtx.netcompass-stub.port}
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+@Profile("netcompass-stub")
+public class NetcompassStubServer implements InitializingBean, DisposableBean {
+
+    private static final Pattern DOMAIN_ROUTE = Pattern.compile("/domain(?:/([^/]+))?/?");
+
+    private static final Pattern OBJECT_ROUTE = Pattern.compile("/([^/]+)/(resource|connection|circuit/path|circuit)(/filter)?/?");
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH");
+
+    private final Logger logger = LoggerFactory.getLogger(NetcompassStubServer.class);
+
+    @Value("${smtx.netcompass-stub.port:18080}")
+    private int port;
+
+    @Value("${smtx.netcompass-stub.base-path:/inventory/v1}")
+    private String basePath;
+
+    @Value("${smtx.netcompass-stub.threads:16}")
+    private int threads;
+
+    @Value("${smtx.netcompass-stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${smtx.netcompass-stub.latency-jitter-ms:0}")
+    private long latencyJitterMs;
+
+    @Value("${smtx.netcompass-stub.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${smtx.netcompass-stub.error-status:503}")
+    private int errorStatus;
+
+    @Value("${smtx.netcompass-stub.max-requests-per-second:0}")
+    private long maxRequestsPerSecond;
+
+    @Value("${smtx.netcompass-stub.max-bytes-per-second:0}")
+    private long maxBytesPerSecond;
+
+    @Value("${smtx.netcompass-stub.slow-drain-bytes-per-second:0}")
+    private long slowDrainBytesPerSecond;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private TokenBucket requestBucket;
+
+    private TokenBucket byteBucket;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final Map<String, LongAdder> requestsByPath = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> objectsByDomain = new ConcurrentHashMap<>();
+    private final Set<String> warnedRoutes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong firstRequestNanos = new AtomicLong(0L);
+    private final AtomicLong lastRequestNanos = new AtomicLong(0L);
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        this.requestBucket = new TokenBucket(this.maxRequestsPerSecond, 1.0);
+        this.byteBucket = new TokenBucket(this.maxBytesPerSecond, 1.0);
+        this.executor = Executors.newFixedThreadPool(this.threads);
+        this.server = HttpServer.create(new InetSocketAddress(this.port), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        logger.info("Netcompass Stub Listening Port:[{}] Base Path:[{}] Latency:[{}+-{}] ms ErrorRate:[{}] MaxRequests/s:[{}] MaxBytes/s:[{}] SlowDrain:[{}] bytes/s",
+                this.port, this.basePath, this.latencyMs, this.latencyJitterMs, this.errorRate, this.maxRequestsPerSecond,
+                this.maxBytesPerSecond, this.slowDrainBytesPerSecond);
+    }
+
+    @Override
+    public void destroy() {
+        if (this.server != null) {
+            logger.info("Netcompass Stub Stopping {}", this.snapshot());
+            this.server.stop(0);
+            this.executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            this.requestBucket.acquire(1);
+            byte[] body = this.drain(exchange.getRequestBody());
+            long now = System.nanoTime();
+            this.firstRequestNanos.compareAndSet(0L, now);
+            this.lastRequestNanos.accumulateAndGet(now, Math::max);
+            this.requests.increment();
+            this.bytes.add(body.length);
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            this.requestsByPath.computeIfAbsent(method + " " + path, k -> new LongAdder()).increment();
+
+            long latency = this.latencyMs + (this.latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(this.latencyJitterMs + 1) : 0);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            if (this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+                this.errors.increment();
+                this.respond(exchange, this.errorStatus, this.message("Netcompass Stub Injected Error"));
+                return;
+            }
+
+            String route = path.startsWith(this.basePath) ? path.substring(this.basePath.length()) : null;
+            Matcher domain = route != null ? DOMAIN_ROUTE.matcher(route) : null;
+            Matcher object = route != null ? OBJECT_ROUTE.matcher(route) : null;
+            if (domain != null && domain.matches()) {
+                this.handleDomain(exchange, method, domain.group(1), body);
+            } else if (object != null && object.matches() && object.group(3) != null && "POST".equals(method)) {
+                JsonObject response = new JsonObject();
+                response.add("payLoad", new JsonArray());
+                response.addProperty("size", 0);
+                this.respond(exchange, 200, response);
+            } else if (object != null && object.matches() && object.group(3) == null && WRITE_METHODS.contains(method)) {
+                this.handleObjects(exchange, object.group(1), object.group(2), body);
+            } else {
+                this.unmatched.increment();
+                if (this.warnedRoutes.add(method + " " + path)) {
+                    logger.warn("Netcompass Stub Unmatched Route:[{} {}]", method, path);
+                }
+                this.respond(exchange, 404, this.message("Netcompass Stub Unknown Route:[" + method + " " + path + "]"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consulta ou cria o domínio da sessão de carga
+     *
+     * @param exchange
+     * @param method
+     * @param domainName null na criação
+     * @param body
+     * @throws IOException
+     */
+    private void handleDomain(HttpExchange exchange, String method, String domainName, byte[] body) throws IOException {
+        if ("GET".equals(method) && domainName != null) {
+            JsonObject domain = new JsonObject();
+            domain.addProperty("domainName", domainName);
+            domain.addProperty("resourceCount", this.objectsByDomain.getOrDefault(domainName, new LongAdder()).sum());
+            JsonObject response = new JsonObject();
+            response.add("payLoad", domain);
+            this.respond(exchange, 200, response);
+        } else if (WRITE_METHODS.contains(method) && domainName == null) {
+            JsonElement payload = this.parse(exchange, body);
+            if (payload == null) {
+                this.respond(exchange, 400, this.message("Netcompass Stub Invalid Payload"));
+                return;
+            }
+            JsonObject response = new JsonObject();
+            response.add("payLoad", payload);
+            this.respond(exchange, 200, response);
+        } else {
+            this.unmatched.increment();
+            this.respond(exchange, 405, this.message("Netcompass Stub Method Not Allowed:[" + method + "]"));
+        }
+    }
+
+    /**
+     * Grava os objetos do payLoad (um objeto ou um array) e devolve cada um
+     * com os campos preenchidos pelo servidor
+     *
+     * @param exchange
+     * @param domainName
+     * @param type resource, connection, circuit ou circuit/path
+     * @param body
+     * @throws IOException
+     */
+    private void handleObjects(HttpExchange exchange, String domainName, String type, byte[] body) throws IOException {
+        JsonElement payload = this.parse(exchange, body);
+        if (payload != null && payload.isJsonObject() && payload.getAsJsonObject().has("payLoad")) {
+            payload = payload.getAsJsonObject().get("payLoad");
+        }
+        if (payload == null || !(payload.isJsonObject() || payload.isJsonArray())) {
+            this.respond(exchange, 400, this.message("Netcompass Stub Invalid Payload"));
+            return;
+        }
+        long count = 0;
+        if (payload.isJsonArray()) {
+            for (JsonElement element : payload.getAsJsonArray()) {
+                if (element.isJsonObject()) {
+                    this.stamp(element.getAsJsonObject(), domainName, type);
+                    count++;
+                }
+            }
+        } else {
+            this.stamp(payload.getAsJsonObject(), domainName, type);
+            count = 1;
+        }
+        this.objects.add(count);
+        this.objectsByDomain.computeIfAbsent(domainName, k -> new LongAdder()).add(count);
+        JsonObject response = new JsonObject();
+        response.add("payLoad", payload);
+        this.respond(exchange, 200, response);
+    }
+
+    /**
+     * Preenche os campos que o servidor gera na gravação
+     *
+     * @param object
+     * @param domainName
+     * @param type
+     */
+    private void stamp(JsonObject object, String domainName, String type) {
+        String key = object.has("_key") && !object.get("_key").isJsonNull() ? object.get("_key").getAsString() : UUID.randomUUID().toString();
+        object.addProperty("_key", key);
+        object.addProperty("_id", domainName + "_" + type.replace('/', '_') + "/" + key);
+        object.addProperty("_rev", Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        if (!object.has("insertedDate")) {
+            object.addProperty("insertedDate", Instant.now().toString());
+        }
+    }
+
+    /**
+     * Lê o corpo da requisição respeitando o limite global de bytes/s e o
+     * slow drain por requisição
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private byte[] drain(InputStream in) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TokenBucket drainBucket = new TokenBucket(this.slowDrainBytesPerSecond, 0.1);
+        byte[] buffer = new byte[this.slowDrainBytesPerSecond > 0 ? (int) Math.min(8192, Math.max(1, this.slowDrainBytesPerSecond / 10)) : 8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            this.byteBucket.acquire(read);
+            drainBucket.acquire(read);
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Corpo da requisição como JSON, descompactando se veio em gzip
+     *
+     * @param exchange
+     * @param body
+     * @return null se o corpo não é JSON válido
+     */
+    private JsonElement parse(HttpExchange exchange, byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(body)) : new ByteArrayInputStream(body);
+                Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader);
+        } catch (RuntimeException | IOException ex) {
+            logger.warn("Netcompass Stub Failed To Parse Payload Size:[{}]", body.length);
+            return null;
+        }
+    }
+
+    private JsonObject message(String message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("message", message);
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonObject response) throws IOException {
+        byte[] payload = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+
+    /**
+     * Zera os contadores, usado entre as rodadas do benchmark
+     */
+    public void reset() {
+        this.requests.reset();
+        this.objects.reset();
+        this.bytes.reset();
+        this.errors.reset();
+        this.unmatched.reset();
+        this.requestsByPath.clear();
+        this.firstRequestNanos.set(0L);
+        this.lastRequestNanos.set(0L);
+    }
+
+    public Stats snapshot() {
+        long activeNanos = this.firstRequestNanos.get() == 0L ? 0L : this.lastRequestNanos.get() - this.firstRequestNanos.get();
+        return new Stats(this.requests.sum(), this.objects.sum(), this.bytes.sum(), this.errors.sum(), this.unmatched.sum(), TimeUnit.NANOSECONDS.toMillis(activeNanos),
+                new TreeMap<>(this.requestsByPath.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()))));
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Contadores do servidor num dado momento
+     */
+    public static class Stats {
+
+        private final long requests;
+        private final long objects;
+        private final long bytes;
+        private final long errors;
+        private final long unmatched;
+        private final long activeMs;
+        private final Map<String, Long> requestsByPath;
+
+        private Stats(long requests, long objects, long bytes, long errors, long unmatched, long activeMs, Map<String, Long> requestsByPath) {
+            this.requests = requests;
+            this.objects = objects;
+            this.bytes = bytes;
+            this.errors = errors;
+            this.unmatched = unmatched;
+            this.activeMs = activeMs;
+            this.requestsByPath = requestsByPath;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getObjects() {
+            return objects;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Requisições para rotas que o stub não implementa (404/405)
+         *
+         * @return
+         */
+        public long getUnmatched() {
+            return unmatched;
+        }
+
+        /**
+         * Tempo entre a primeira e a última requisição recebida
+         *
+         * @return
+         */
+        public long getActiveMs() {
+            return activeMs;
+        }
+
+        public Map<String, Long> getRequestsByPath() {
+            return requestsByPath;
+        }
+
+        @Override
+        public String toString() {
+            return "Requests:[" + requests + "] Objects:[" + objects + "] Bytes:[" + bytes + "] Errors:[" + errors + "] Unmatched:[" + unmatched
+                    + "] Active:[" + activeMs + "] ms Paths:" + requestsByPath;
+        }
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Popula o banco de load test com dados sintéticos do SMTX, nas tabelas
+ * usadas pelas queries do config/jobs.yml:
+ *
+ * MeiosTX_Web_MG: rádios, antenas, frequências e portas fast
+ *
+ * MeiosTX_Web_BN: MUX DWDM com shelf/slot/módulo/porta e camadas
+ * OTS/OMS/OCH/ODU
+ *
+ * MeiosTX_Web_BA: MUX do IP Metro (HL4/HL5)
+ *
+ * As cardinalidades base são multiplicadas por smtx.loadtest.scale, com seed
+ * fixa para que duas execuções com a mesma escala gerem a mesma massa. A
+ * geração roda antes das Jobs serem agendadas e é pulada se o banco já tiver
+ * a mesma escala/seed.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+@Profile("loadtest")
+public class SyntheticDataGenerator implements InitializingBean {
+
+    private static final String MG = "MeiosTX_Web_MG";
+    private static final String BN = "MeiosTX_Web_BN";
+    private static final String BA = "MeiosTX_Web_BA";
+
+    private static final String[] UFS = {"MG", "BA", "SE", "ES", "RJ", "GO", "DF", "PE", "BN"};
+    private static final String[] FABRICANTES = {"HUAWEI", "ERICSSON", "NOKIA", "ZTE", "NEC", "CIENA", "PADTEC", "CISCO"};
+    private static final String[] FAIXAS = {"7GHz", "8GHz", "11GHz", "13GHz", "15GHz", "18GHz", "23GHz"};
+    private static final String[] MODULACOES = {"QPSK", "16QAM", "32QAM", "64QAM", "128QAM", "256QAM"};
+    private static final int[] CAPACIDADES = {16, 34, 100, 155, 311, 622};
+    private static final String[] VELOCIDADES = {"1G", "10G", "100G", "STM-16", "STM-64"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${smtx.loadtest.scale:1.0}")
+    private double scale;
+
+    @Value("${smtx.loadtest.seed:42}")
+    private long seed;
+
+    @Value("${smtx.loadtest.regenerate:false}")
+    private boolean regenerate;
+
+    private Random random;
+
+    private long totalRows = 0L;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException, IOException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            if (!this.regenerate && this.alreadyGenerated(connection)) {
+                logger.info("Load Test Data Already Generated Scale:[{}] Seed:[{}], Skipping", this.scale, this.seed);
+                return;
+            }
+            long start = System.currentTimeMillis();
+            logger.info("Generating Load Test Data Scale:[{}] Seed:[{}]", this.scale, this.seed);
+            this.random = new Random(this.seed);
+            this.totalRows = 0L;
+            connection.setAutoCommit(false);
+
+            for (String schema : new String[]{MG, BN, BA}) {
+                this.createSchema(connection, schema);
+            }
+            this.generateRadios(connection);
+            MuxInventory dwdm = this.generateMux(connection, BN, this.scaled(600), this.scaled(800), 4, 16, 0.25, 16);
+            this.generateWdmLayers(connection, dwdm);
+            this.generateMux(connection, BA, this.scaled(2500), this.scaled(1000), 2, 8, 0.20, 48);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS PUBLIC.loadtest_info");
+                statement.execute("CREATE TABLE PUBLIC.loadtest_info (scale DOUBLE, seed BIGINT)");
+                statement.execute("INSERT INTO PUBLIC.loadtest_info VALUES (" + this.scale + ", " + this.seed + ")");
+            }
+            connection.commit();
+            logger.info("Load Test Data Generated Rows:[{}] Took:[{}] ms", this.totalRows, System.currentTimeMillis() - start);
+        }
+    }
+
+    private boolean alreadyGenerated(Connection connection) {
+        try (Statement statement = connection.createStatement();
+                ResultSet info = statement.executeQuery("SELECT scale, seed FROM PUBLIC.loadtest_info")) {
+            return info.next() && info.getDouble(1) == this.scale && info.getLong(2) == this.seed;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void createSchema(Connection connection, String schema) throws SQLException, IOException {
+        String ddl;
+        try (InputStream in = SyntheticDataGenerator.class.getResourceAsStream("/loadtest/smtx-schema.sql")) {
+            if (in == null) {
+                throw new IOException("Resource Not Found: [loadtest/smtx-schema.sql]");
+            }
+            ddl = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+            for (String sql : ddl.replace("{schema}", schema).split(";")) {
+                String command = sql.replaceAll("(?m)^--.*$", "").trim();
+                if (!command.isEmpty()) {
+                    statement.execute(command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rádios em pares (enlaces), cada um com antena, 1 a 4 frequências e 2 a
+     * 4 portas fast
+     *
+     * @param connection
+     * @throws SQLException
+     */
+    private void generateRadios(Connection connection) throws SQLException {
+        String[] sites = this.generateSites(connection, MG, this.scaled(1500));
+        this.generateLookups(connection, MG);
+
+        try (Batch fabricantes = new Batch(connection, MG, "tabAntenaFabricantes", "codFabricanteAntena, FabricanteAntena");
+                Batch modelos = new Batch(connection, MG, "tabAntenaModelos", "codAntena, codFabricanteAntena, SiglaAntena, Diametro");
+                Batch anatel = new Batch(connection, MG, "tabFrequenciasAnatel", "idFrequenciaAnatel, FaixaFrequencia, Baixa, Alta");
+                Batch caracteristicas = new Batch(connection, MG, "tabRadioModeloCaracteristicas", "codModeloEquip, FaixaFrequencia, Modulacao, CapacidadeMb, EspacamentoCanal")) {
+            for (int i = 1; i <= 6; i++) {
+                fabricantes.add(i, "ANT-FAB-" + i);
+            }
+            for (int i = 1; i <= 30; i++) {
+                modelos.add(i, 1 + this.random.nextInt(6), "ANT-MOD-" + i, this.decimal(0.3 + 0.3 * this.random.nextInt(6)));
+            }
+            for (int f = 0; f < FAIXAS.length; f++) {
+                for (int i = 0; i < 30; i++) {
+                    double baixa = 7000 + f * 2500 + i * 28.0;
+                    anatel.add(f * 30 + i + 1, FAIXAS[f], this.decimal(baixa), this.decimal(baixa + 161));
+                }
+            }
+            for (int modelo = 1; modelo <= 40; modelo++) {
+                for (int[] combo : this.radioCombos(modelo)) {
+                    caracteristicas.add(modelo, FAIXAS[combo[0]], MODULACOES[combo[1]], CAPACIDADES[combo[2]], this.decimal(7 + 7 * this.random.nextInt(8)));
+                }
+            }
+        }
+
+        int radios = this.scaled(4000) & ~1;
+        int idFrequencia = 1;
+        int idFast = 1;
+        try (Batch equipamentos = new Batch(connection, MG, "tabEquipamentosTransmissao", "idEquipTrans, SiglaET, idSite");
+                Batch antenas = new Batch(connection, MG, "tabAntenas", "idAntena, idSite, codAntena, SiglaAntena, Altura");
+                Batch radio = new Batch(connection, MG, "tabRadios", "idEquipTrans, SiglaET, Status, SiglaPlataforma, Tecnologia, EnderecoIP, Subrede, Configuracao, RadioGerenciado, "
+                        + "idAntena, codAntena, codFabricante, ModeloEquip, Azimute, AnguloElevacao, Trecho, Modulacao, ModulacaoMax, ModulacaoAdaptativa, "
+                        + "CapacidadeMb, CapacidadeMbMax, idEquipTransAssociado, Atenuacao, NivelTX, Potencia, Sensibilidade, FaixaFrequencia");
+                Batch frequencias = new Batch(connection, MG, "tabRadioFrequencias", "idRadioFrequencia, idEquipTrans, idFrequenciaAnatel, Polarizacao");
+                Batch portas = new Batch(connection, MG, "tabRadioPortasFast", "idEquipTrans, Porta, VelocidadePorta, idDID");
+                Batch fast = new Batch(connection, MG, "tabFastEthernet", "idFast, idEquipTransB, PortaB")) {
+            for (int id = 1; id <= radios; id++) {
+                //
+                // Os dois lados do enlace compartilham modelo e características
+                //
+                boolean ladoA = (id & 1) == 1;
+                int par = ladoA ? id + 1 : id - 1;
+                Random pairRandom = new Random(this.seed * 31 + Math.min(id, par));
+                int modelo = 1 + pairRandom.nextInt(40);
+                List<int[]> combos = this.radioCombos(modelo);
+                int[] combo = combos.get(pairRandom.nextInt(combos.size()));
+
+                int site = this.random.nextInt(sites.length);
+                String hostname = sites[site] + "-RD" + id;
+                int codAntena = 1 + this.random.nextInt(30);
+                String status = this.status(0.90, "Ativado");
+
+                equipamentos.add(id, hostname, site + 1);
+                antenas.add(id, site + 1, codAntena, "A" + id, this.decimal(10 + this.random.nextInt(60)));
+                radio.add(id, hostname, status, hostname + "-PLT", "PDH/SDH", this.ip(id), "255.255.255.0", "1+0",
+                        this.random.nextBoolean() ? "SIM" : "NAO", id, codAntena, 1 + this.random.nextInt(FABRICANTES.length), modelo,
+                        this.decimal(this.random.nextInt(360)), this.decimal(this.random.nextInt(10)), "TRECHO-" + Math.min(id, par),
+                        MODULACOES[combo[1]], MODULACOES[MODULACOES.length - 1], "SIM", CAPACIDADES[combo[2]], CAPACIDADES[combo[2]] * 2,
+                        par, this.decimal(this.random.nextInt(60)), this.decimal(this.random.nextInt(30)), this.decimal(this.random.nextInt(30)),
+                        this.decimal(-this.random.nextInt(90)), FAIXAS[combo[0]]);
+
+                int numFrequencias = 1 + this.random.nextInt(4);
+                for (int f = 0; f < numFrequencias; f++) {
+                    frequencias.add(idFrequencia++, id, combo[0] * 30 + this.random.nextInt(30) + 1, this.random.nextBoolean() ? "Vertical" : "Horizontal");
+                }
+                int numPortas = 2 + this.random.nextInt(3);
+                for (int p = 1; p <= numPortas; p++) {
+                    portas.add(id, p, this.random.nextInt(10) == 0 ? null : (this.random.nextBoolean() ? "100M" : "1G"), id * 10 + p);
+                    if (this.random.nextBoolean()) {
+                        fast.add(idFast++, id, p);
+                    }
+                }
+            }
+        }
+        logger.debug("Generated Radios:[{}] Sites:[{}] Schema:[{}]", radios, sites.length, MG);
+    }
+
+    /**
+     * Combinações (faixa, modulação, capacidade) aceitas por um modelo de
+     * rádio, derivadas do próprio modelo para não precisar guardar em memória
+     *
+     * @param modelo
+     * @return
+     */
+    private List<int[]> radioCombos(int modelo) {
+        Random modelRandom = new Random(this.seed * 17 + modelo);
+        List<int[]> combos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            combos.add(new int[]{modelRandom.nextInt(FAIXAS.length), i + modelRandom.nextInt(2), modelRandom.nextInt(CAPACIDADES.length)});
+        }
+        return combos;
+    }
+
+    /**
+     * Gera os MUX com shelf, slots, módulos e portas
+     *
+     * @param connection
+     * @param schema
+     * @param muxCount
+     * @param siteCount
+     * @param maxShelves
+     * @param slotsPerShelf
+     * @param moduleRatio fração dos slots que têm módulos
+     * @param maxPorts
+     * @return os slots de cada MUX, usados para montar as camadas WDM
+     * @throws SQLException
+     */
+    private MuxInventory generateMux(Connection connection, String schema, int muxCount, int siteCount,
+            int maxShelves, int slotsPerShelf, double moduleRatio, int maxPorts) throws SQLException {
+        String[] sites = this.generateSites(connection, schema, siteCount);
+        this.generateLookups(connection, schema);
+
+        int[] portasPorPlaca = new int[25];
+        try (Batch subModelos = new Batch(connection, schema, "tabSubModelosEquipTransmissao", "idSubModeloEquip, DescSubModeloEquip");
+                Batch placas = new Batch(connection, schema, "tabMUXTipoPlacas", "idMUXTipoPlaca, Descricao, Funcao, NumPortas, NumPortasLogicas, NumDIDs, NumPlacas")) {
+            for (int i = 1; i <= 10; i++) {
+                subModelos.add(i, "SUBMODELO-" + i);
+            }
+            for (int i = 0; i < portasPorPlaca.length; i++) {
+                portasPorPlaca[i] = 2 + this.random.nextInt(maxPorts - 1);
+                placas.add(i + 1, "PLACA-" + (i + 1), this.random.nextBoolean() ? "TRIBUTARIA" : "LINHA", portasPorPlaca[i], portasPorPlaca[i] * 2, portasPorPlaca[i], 1);
+            }
+        }
+
+        MuxInventory inventory = new MuxInventory(muxCount);
+        int idShelf = 1;
+        int idSlot = 1;
+        try (Batch equipamentos = new Batch(connection, schema, "tabEquipamentosTransmissao", "idEquipTrans, SiglaET, idSite");
+                Batch mux = new Batch(connection, schema, "tabMUX", "idEquipTrans, Status, ModeloEquip, codFabricante, NumShelfs, FuncaoEnderecoIP, EnderecoIP, "
+                        + "FuncaoEnderecoIP2, EnderecoIP2, FuncaoEnderecoIP3, EnderecoIP3, FuncaoEnderecoIP4, EnderecoIP4, Configuracao, NumOE");
+                Batch shelves = new Batch(connection, schema, "tabShelf", "idShelf, Status, idSubModeloEquip, TipoAddDrop");
+                Batch slots = new Batch(connection, schema, "tabMUXSlots", "idMUXSlot, idEquipTrans, idShelf, Shelf, Slot, Modulo, Status, idMUXTipoPlaca, numOE");
+                Batch portas = new Batch(connection, schema, "tabMUXSlotPortas", "idMUXSlot, Porta, Nome, Funcao, FuncaoPorta, VelocidadePorta, SwitchMode, AutoNegociacao, Eletrico")) {
+            for (int m = 0; m < muxCount; m++) {
+                int id = m + 1;
+                int site = this.random.nextInt(sites.length);
+                String tipo = schema.equals(BA) ? (this.random.nextInt(10) < 6 ? "HL5" : "HL4") : "DWDM";
+                String hostname = sites[site] + "-" + tipo + "-" + id;
+                int numShelves = 1 + this.random.nextInt(maxShelves);
+
+                inventory.equipIds[m] = id;
+                inventory.siteIds[m] = site + 1;
+                equipamentos.add(id, hostname, site + 1);
+                mux.add(id, this.status(0.95, "Ativado"), 1 + this.random.nextInt(40), 1 + this.random.nextInt(FABRICANTES.length), numShelves,
+                        "GERENCIA", this.ip(id), "Selecione", "", null, null, null, null, "CONFIG-" + this.random.nextInt(5), "OE-" + id);
+
+                for (int shelf = 1; shelf <= numShelves; shelf++) {
+                    shelves.add(idShelf, "Ativado", 1 + this.random.nextInt(10), this.random.nextBoolean() ? "ROADM" : "FOADM");
+                    for (int slot = 1; slot <= slotsPerShelf; slot++) {
+                        int modulos = this.random.nextDouble() < moduleRatio ? 2 : 0;
+                        for (int modulo = modulos == 0 ? 0 : 1; modulo <= modulos; modulo++) {
+                            int placa = this.random.nextInt(portasPorPlaca.length);
+                            slots.add(idSlot, id, idShelf, shelf, slot, modulo == 0 ? null : modulo, "Ativado", placa + 1, "OE-" + idSlot);
+                            for (int porta = 1; porta <= portasPorPlaca[placa]; porta++) {
+                                portas.add(idSlot, porta, "P" + porta, "TRANSPORTE", porta == 1 ? "LINHA" : "CLIENTE",
+                                        VELOCIDADES[this.random.nextInt(VELOCIDADES.length)], "NORMAL", "NAO", this.random.nextBoolean() ? "SIM" : "NAO");
+                            }
+                            inventory.slots.get(m).add(new int[]{idSlot, portasPorPlaca[placa]});
+                            idSlot++;
+                        }
+                    }
+                    idShelf++;
+                }
+            }
+        }
+        logger.debug("Generated MUX:[{}] Shelves:[{}] Slots:[{}] Schema:[{}]", muxCount, idShelf - 1, idSlot - 1, schema);
+        return inventory;
+    }
+
+    /**
+     * Camadas OTS -> OMS -> OCH -> ODU sobre os MUX DWDM
+     *
+     * @param connection
+     * @param dwdm
+     * @throws SQLException
+     */
+    private void generateWdmLayers(Connection connection, MuxInventory dwdm) throws SQLException {
+        int otsCount = this.scaled(900);
+        int[][] omsEnds = new int[otsCount][];
+        int ochId = 1;
+        int oduId = 1;
+        try (Batch fibras = new Batch(connection, BN, "tabTipoFibra", "idTipoFibra, TipoFibra");
+                Batch redes = new Batch(connection, BN, "tabTipoRedeOptica", "idTipoRedeOptica, TipoRedeOptica")) {
+            String[] tipos = {"G.652", "G.655", "G.653", "G.654"};
+            for (int i = 0; i < tipos.length; i++) {
+                fibras.add(i + 1, tipos[i]);
+            }
+            String[] redesOpticas = {"BACKBONE", "REGIONAL", "METRO"};
+            for (int i = 0; i < redesOpticas.length; i++) {
+                redes.add(i + 1, redesOpticas[i]);
+            }
+        }
+        try (Batch header = new Batch(connection, BN, "tabWDMOTSHeader", "idWDMOTS, Status, idEquipTransInic, idEquipTransFim, idSiteInic, idSiteFim, "
+                + "idMUXSlotInic, PortaInic, idMUXSlotInicTX, PortaInicTX, idMUXSlotFim, PortaFim, idMUXSlotFimTX, PortaFimTX, idTipoFibra, idTipoRedeOptica, "
+                + "Sigla, DistanciaTeorica, DistanciaReal, AtenuacaoTeorica, AtenuacaoRealTX, AtenuacaoRealRX, dB_Km, ChaveOTS, ChaveOMS, NumOEAtivacao, "
+                + "NumOEDesativ, idETP, MargemSistemica, Coerente");
+                Batch oms = new Batch(connection, BN, "tabWDMOMS", "idWDMOMS, Status, idEquipTransInic, idEquipTransFim, Sigla, NumCanais, Funcao, Velocidade");
+                Batch otsOms = new Batch(connection, BN, "tabWDMOTS", "idWDMOTS, idWDMOMS");
+                Batch och = new Batch(connection, BN, "tabWDMOCH", "idWDMOCH, Status, idEquipTransInic, idEquipTransFim, idMUXSlotInic, PortaInic, "
+                        + "idMUXSlotFim, PortaFim, TipoOCH, LambdaAlien, Sigla, Funcao, Velocidade");
+                Batch ochTrechos = new Batch(connection, BN, "tabWDMOCHTrechos", "idWDMOCH, idWDMOMS, Ordem, idEquipTransA, idEquipTransB, Canal");
+                Batch odu = new Batch(connection, BN, "tabWDMODU", "idWDMODU, Status, Sigla, idEquipTransInic, idEquipTransFim, Velocidade, CaminhoAlternativo, NumOE");
+                Batch oduTrechos = new Batch(connection, BN, "tabWDMODUTrechos", "idWDMODU, idWDMOCH, Caminho, Ordem")) {
+            for (int ots = 1; ots <= otsCount; ots++) {
+                int a = this.random.nextInt(dwdm.equipIds.length);
+                int b = (a + 1 + this.random.nextInt(dwdm.equipIds.length - 1)) % dwdm.equipIds.length;
+                int[] rxA = this.port(dwdm, a);
+                int[] txA = this.port(dwdm, a);
+                int[] rxB = this.port(dwdm, b);
+                int[] txB = this.port(dwdm, b);
+                double distancia = 5 + this.random.nextInt(120);
+                header.add(ots, this.status(0.95, "Ativado"), dwdm.equipIds[a], dwdm.equipIds[b], dwdm.siteIds[a], dwdm.siteIds[b],
+                        rxA[0], rxA[1], txA[0], txA[1], rxB[0], rxB[1], txB[0], txB[1], 1 + this.random.nextInt(4), 1 + this.random.nextInt(3),
+                        "OTS-" + ots, this.decimal(distancia), this.decimal(distancia * 1.1), this.decimal(distancia * 0.25), this.decimal(distancia * 0.27),
+                        this.decimal(distancia * 0.26), this.decimal(0.25), "CHOTS-" + ots, "CHOMS-" + ots, "OE-" + ots, null, ots, this.decimal(3), "SIM");
+
+                //
+                // Um OMS por OTS, com 10% dos OTS compartilhados com o OMS anterior
+                //
+                omsEnds[ots - 1] = new int[]{dwdm.equipIds[a], dwdm.equipIds[b], rxA[0], rxA[1], rxB[0], rxB[1]};
+                oms.add(ots, this.status(0.95, "Ativado"), dwdm.equipIds[a], dwdm.equipIds[b], "OMS-" + ots, 40 + 40 * this.random.nextInt(2), "LINHA", "100G");
+                otsOms.add(ots, ots);
+                if (ots > 1 && this.random.nextInt(10) == 0) {
+                    otsOms.add(ots, ots - 1);
+                }
+            }
+
+            for (int omsId = 1; omsId <= otsCount; omsId++) {
+                int[] ends = omsEnds[omsId - 1];
+                for (int i = 0; i < 2; i++) {
+                    och.add(ochId, this.status(0.95, "Ativado"), ends[0], ends[1], ends[2], ends[3], ends[4], ends[5],
+                            this.random.nextBoolean() ? "OTU4" : "OTU2", this.random.nextInt(10) == 0 ? "SIM" : "NAO", "OCH-" + ochId, "CANAL", "100G");
+                    int trechos = 1 + this.random.nextInt(3);
+                    int canal = 1 + this.random.nextInt(96);
+                    for (int ordem = 1; ordem <= trechos; ordem++) {
+                        int trechoOms = ordem == 1 ? omsId : 1 + this.random.nextInt(otsCount);
+                        int[] trechoEnds = omsEnds[trechoOms - 1];
+                        ochTrechos.add(ochId, trechoOms, ordem, trechoEnds[0], trechoEnds[1], canal);
+                    }
+                    //
+                    // Um ODU a cada dois OCH
+                    //
+                    if ((ochId & 1) == 0) {
+                        odu.add(oduId, this.status(0.95, "Ativado"), "ODU-" + oduId, ends[0], ends[1], "10G", "NAO", "OE-" + oduId);
+                        oduTrechos.add(oduId, ochId - 1, 1, 1);
+                        oduTrechos.add(oduId, ochId, 1, 2);
+                        if (this.random.nextInt(5) == 0) {
+                            oduTrechos.add(oduId, ochId, 2, 1);
+                        }
+                        oduId++;
+                    }
+                    ochId++;
+                }
+            }
+        }
+        logger.debug("Generated OTS/OMS:[{}] OCH:[{}] ODU:[{}] Schema:[{}]", otsCount, ochId - 1, oduId - 1, BN);
+    }
+
+    /**
+     * Sorteia um slot e uma porta existentes do MUX
+     *
+     * @param inventory
+     * @param mux
+     * @return {idMUXSlot, Porta}
+     */
+    private int[] port(MuxInventory inventory, int mux) {
+        List<int[]> slots = inventory.slots.get(mux);
+        int[] slot = slots.get(this.random.nextInt(slots.size()));
+        return new int[]{slot[0], 1 + this.random.nextInt(slot[1])};
+    }
+
+    /**
+     * Gera os sites, devolve o prefixo de hostname (UF-SIGLA) de cada um
+     *
+     * @param connection
+     * @param schema
+     * @param count
+     * @return
+     * @throws SQLException
+     */
+    private String[] generateSites(Connection connection, String schema, int count) throws SQLException {
+        String[] prefixes = new String[count];
+        try (Batch sites = new Batch(connection, schema, "tabSites", "idSite, SiglaSite, UFDoSite")) {
+            for (int i = 0; i < count; i++) {
+                String uf = UFS[this.random.nextInt(UFS.length)];
+                String sigla = "S" + Integer.toString(i + 1, 36).toUpperCase();
+                sites.add(i + 1, sigla, uf);
+                prefixes[i] = uf + "-" + sigla;
+            }
+        }
+        return prefixes;
+    }
+
+    private void generateLookups(Connection connection, String schema) throws SQLException {
+        try (Batch fabricantes = new Batch(connection, schema, "tabFabricantesEquipTransmissao", "codFabricante, Descricao");
+                Batch modelos = new Batch(connection, schema, "tabModelosEquipTransmissao", "codModeloEquip, Descricao")) {
+            for (int i = 0; i < FABRICANTES.length; i++) {
+                fabricantes.add(i + 1, FABRICANTES[i]);
+            }
+            for (int i = 1; i <= 40; i++) {
+                modelos.add(i, "MODELO-" + i);
+            }
+        }
+    }
+
+    private int scaled(int base) {
+        return Math.max(2, (int) Math.round(base * this.scale));
+    }
+
+    private String status(double activeRatio, String active) {
+        double r = this.random.nextDouble();
+        if (r < activeRatio) {
+            return active;
+        }
+        return r < activeRatio + (1 - activeRatio) / 2 ? "Desativado" : "Em Implantacao";
+    }
+
+    private String ip(int id) {
+        return "10." + ((id >> 16) & 0xff) + "." + ((id >> 8) & 0xff) + "." + (id & 0xff);
+    }
+
+    private BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Slots gerados de cada MUX: {idMUXSlot, número de portas}
+     */
+    private static class MuxInventory {
+
+        private final int[] equipIds;
+        private final int[] siteIds;
+        private final List<List<int[]>> slots;
+
+        private MuxInventory(int muxCount) {
+            this.equipIds = new int[muxCount];
+            this.siteIds = new int[muxCount];
+            this.slots = new ArrayList<>(muxCount);
+            for (int i = 0; i < muxCount; i++) {
+                this.slots.add(new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * Insert em batch numa tabela do schema
+     */
+    private class Batch implements AutoCloseable {
+
+        private final PreparedStatement statement;
+        private int pending = 0;
+
+        private Batch(Connection connection, String schema, String table, String columns) throws SQLException {
+            int count = columns.split(",").length;
+            String placeholders = String.join(", ", Collections.nCopies(count, "?"));
+            this.statement = connection.prepareStatement("INSERT INTO " + schema + "." + table + " (" + columns + ") VALUES (" + placeholders + ")");
+        }
+
+        private void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                this.statement.setObject(i + 1, values[i]);
+            }
+            this.statement.addBatch();
+            totalRows++;
+            if (++this.pending >= BATCH_SIZE) {
+                this.flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (this.pending > 0) {
+                this.statement.executeBatch();
+                this.pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                this.flush();
+            } finally {
+                this.statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.loadtest;
+
+import com.osstelecom.db.inventory.manager.client.smtx.service.JobManagerService;
+import com.osstelecom.db.inventory.manager.jobs.JobConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * Benchmark ponta a ponta do upload: executa cada job do config/jobs.yml
+ * contra o NetcompassStubServer, uma vez para cada valor de flushThreads em
+ * smtx.benchmark.flush-threads, e reporta os objetos/s recebidos pelo stub.
+ *
+ * Disparado pelo argumento benchmark-upload, ex:
+ * mvn -P loadtest spring-boot:run -Dspring-boot.run.profiles=loadtest,netcompass-stub -Dspring-boot.run.arguments=benchmark-upload
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+@Profile("netcompass-stub")
+public class UploadBenchmark implements JobListener {
+
+    private final Logger logger = LoggerFactory.getLogger(UploadBenchmark.class);
+
+    private static final String GROUP = "benchmark";
+
+    @Autowired
+    private SchedulerFactoryBean schedulerFactoryBean;
+
+    @Autowired
+    private NetcompassStubServer stubServer;
+
+    @Value("${smtx.benchmark.flush-threads:1,2,4,8}")
+    private int[] flushThreads;
+
+    /**
+     * Jobs a executar (group.name), vazio executa todas do config/jobs.yml,
+     * mesmo as desabilitadas
+     */
+    @Value("${smtx.benchmark.jobs:}")
+    private List<String> jobNames;
+
+    @Value("${smtx.benchmark.timeout-minutes:60}")
+    private long timeoutMinutes;
+
+    private final Map<JobKey, CountDownLatch> running = new ConcurrentHashMap<>();
+
+    /**
+     * Executa as rodadas do benchmark em sequência
+     *
+     * @param jobs jobs carregadas do config/jobs.yml
+     * @throws SchedulerException
+     */
+    public void run(List<JobConfiguration> jobs) throws SchedulerException {
+        Scheduler scheduler = this.schedulerFactoryBean.getScheduler();
+        scheduler.getListenerManager().addJobListener(this);
+        scheduler.start();
+
+        List<String> report = new ArrayList<>();
+        for (JobConfiguration job : jobs) {
+            String jobId = job.getGroup() + "." + job.getName();
+            if (!this.jobNames.isEmpty() && !this.jobNames.contains(jobId)) {
+                continue;
+            }
+            for (int threads : this.flushThreads) {
+                //
+                // Cada rodada usa uma cópia, a JobConfiguration carregada do
+                // config/jobs.yml não é alterada
+                //
+                JobConfiguration round = SerializationUtils.clone(job);
+                round.setFlushThreads(threads);
+                try {
+                    report.add(this.runOnce(scheduler, round, threads));
+                } catch (ClassNotFoundException ex) {
+                    logger.error("Failed To Load Job Class:[{}]", job.getClassName());
+                    break;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        logger.info("Upload Benchmark Results:");
+        logger.info(String.format("%-32s %8s %10s %10s %8s %10s %10s %12s %12s", "JOB", "THREADS", "OBJECTS", "REQUESTS", "ERRORS", "UNMATCHED", "TIME(ms)", "OBJ/s(JOB)", "OBJ/s(HTTP)"));
+        report.forEach(logger::info);
+    }
+
+    private String runOnce(Scheduler scheduler, JobConfiguration job, int threads) throws ClassNotFoundException, SchedulerException, InterruptedException {
+        String jobId = job.getGroup() + "." + job.getName();
+        JobKey key = new JobKey(job.getName() + "-" + threads, GROUP);
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("config", job);
+        JobDetail detail = JobBuilder.newJob(JobManagerService.resolveJobClass(job.getClassName()))
+                .withIdentity(key)
+                .setJobData(jdm)
+                .build();
+
+        CountDownLatch done = new CountDownLatch(1);
+        this.running.put(key, done);
+        this.stubServer.reset();
+        logger.info("Benchmark Starting JOB:[{}] FlushThreads:[{}]", jobId, threads);
+        long start = System.nanoTime();
+        scheduler.scheduleJob(detail, TriggerBuilder.newTrigger().forJob(key).startNow().build());
+        if (!done.await(this.timeoutMinutes, TimeUnit.MINUTES)) {
+            logger.warn("Benchmark Timeout JOB:[{}] FlushThreads:[{}]", jobId, threads);
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        this.running.remove(key);
+
+        NetcompassStubServer.Stats stats = this.stubServer.snapshot();
+        logger.info("Benchmark Done JOB:[{}] FlushThreads:[{}] Took:[{}] ms {}", jobId, threads, elapsedMs, stats);
+        return String.format("%-32s %8d %10d %10d %8d %10d %10d %12.1f %12.1f", jobId, threads, stats.getObjects(), stats.getRequests(),
+                stats.getErrors(), stats.getUnmatched(), elapsedMs, stats.getObjects() * 1000.0 / elapsedMs,
+                stats.getObjects() * 1000.0 / Math.max(1, stats.getActiveMs()));
+    }
+
+    @Override
+    public String getName() {
+        return UploadBenchmark.class.getSimpleName();
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        this.jobWasExecuted(context, null);
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        CountDownLatch done = this.running.get(context.getJobDetail().getKey());
+        if (done != null) {
+            done.countDown();
+        }
+    }
+}
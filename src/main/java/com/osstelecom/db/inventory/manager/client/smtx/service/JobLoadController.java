@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Controla a carga das Jobs no banco e no Netcompass compartilhados, ao invés
+ * de todas dispararem juntas no mesmo cron:
+ *
+ * budget: soma máxima dos pesos das Jobs executando ao mesmo tempo
+ * (smtx.scheduling.budget, 0 = sem limite). Cada Job tem um peso
+ * (smtx.scheduling.jobs.{JOB}.weight, padrão 1)
+ *
+ * exclusion-group: Jobs do mesmo grupo nunca executam juntas
+ * (smtx.scheduling.jobs.{JOB}.exclusion-group)
+ *
+ * interval-seconds: ao invés do cron a Job executa de novo interval-seconds
+ * depois do fim da execução anterior, alinhado em múltiplos de
+ * smtx.scheduling.align-seconds. initial-delay-seconds escalona a primeira
+ * execução de cada Job
+ *
+ * Uma Job sem budget ou com o grupo ocupado espera na thread do Quartz, por
+ * ordem de chegada, até ser liberada.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class JobLoadController implements TriggerListener, JobListener, InitializingBean {
+
+    private final Logger logger = LoggerFactory.getLogger(JobLoadController.class);
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${smtx.scheduling.budget:0}")
+    private int budget;
+
+    @Value("${smtx.scheduling.align-seconds:0}")
+    private long alignSeconds;
+
+    private Semaphore budgetSemaphore;
+
+    private final Map<String, Semaphore> exclusionGroups = new ConcurrentHashMap<>();
+
+    /**
+     * Recursos adquiridos por cada execução, indexados pelo fireInstanceId
+     */
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (this.budget > 0) {
+            this.budgetSemaphore = new Semaphore(this.budget, true);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "smtx-job-load-controller";
+    }
+
+    /**
+     * Peso da Job no budget, limitado ao próprio budget
+     *
+     * @param jobName
+     * @return
+     */
+    public int weight(String jobName) {
+        int weight = Math.max(1, this.environment.getProperty("smtx.scheduling.jobs." + jobName + ".weight", Integer.class, 1));
+        return this.budget > 0 ? Math.min(weight, this.budget) : weight;
+    }
+
+    public String exclusionGroup(String jobName) {
+        return this.environment.getProperty("smtx.scheduling.jobs." + jobName + ".exclusion-group");
+    }
+
+    /**
+     *
+     * @param jobName
+     * @return 0 se a Job usa o cron
+     */
+    public long intervalSeconds(String jobName) {
+        return this.environment.getProperty("smtx.scheduling.jobs." + jobName + ".interval-seconds", Long.class, 0L);
+    }
+
+    public boolean isIntervalMode(String jobName) {
+        return this.intervalSeconds(jobName) > 0;
+    }
+
+    /**
+     * Primeira execução da Job no modo intervalo
+     *
+     * @param jobName
+     * @return
+     */
+    public Date firstFireTime(String jobName) {
+        long delaySeconds = this.environment.getProperty("smtx.scheduling.jobs." + jobName + ".initial-delay-seconds", Long.class, 0L);
+        return this.align(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delaySeconds));
+    }
+
+    /**
+     * Próxima execução no modo intervalo, contando a partir do fim da
+     * execução anterior
+     *
+     * @param jobName
+     * @return
+     */
+    public Date nextFireTime(String jobName) {
+        return this.align(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(this.intervalSeconds(jobName)));
+    }
+
+    private Date align(long timeMs) {
+        if (this.alignSeconds <= 0) {
+            return new Date(timeMs);
+        }
+        long alignMs = TimeUnit.SECONDS.toMillis(this.alignSeconds);
+        return new Date((timeMs + alignMs - 1) / alignMs * alignMs);
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    /**
+     * Chamado na thread do Quartz antes da execução, espera o grupo de
+     * exclusão e o budget. Só veta se a thread for interrompida (shutdown)
+     *
+     * @param trigger
+     * @param context
+     * @return
+     */
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        String jobName = context.getJobDetail().getKey().getName();
+        String group = this.exclusionGroup(jobName);
+        int weight = this.weight(jobName);
+        Semaphore groupSemaphore = group != null ? this.exclusionGroups.computeIfAbsent(group, k -> new Semaphore(1, true)) : null;
+
+        long start = System.nanoTime();
+        boolean groupAcquired = false;
+        try {
+            if (groupSemaphore != null) {
+                groupSemaphore.acquire();
+                groupAcquired = true;
+            }
+            if (this.budgetSemaphore != null) {
+                this.budgetSemaphore.acquire(weight);
+            }
+        } catch (InterruptedException ex) {
+            if (groupAcquired) {
+                groupSemaphore.release();
+            }
+            Thread.currentThread().interrupt();
+            logger.warn("Job Admission Interrupted JOB:[{}]", jobName);
+            return true;
+        }
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.leases.put(context.getFireInstanceId(), new Lease(groupSemaphore, weight));
+        if (waitedMs >= 1000) {
+            logger.info("Job Admitted JOB:[{}] Weight:[{}] Group:[{}] Waited:[{}] ms", jobName, weight, group, waitedMs);
+        } else {
+            logger.debug("Job Admitted JOB:[{}] Weight:[{}] Group:[{}]", jobName, weight, group);
+        }
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        logger.debug("Trigger Misfired:[{}]", trigger.getKey());
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        this.release(context);
+        this.rescheduleInterval(context);
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        this.release(context);
+        this.rescheduleInterval(context);
+    }
+
+    private void release(JobExecutionContext context) {
+        Lease lease = this.leases.remove(context.getFireInstanceId());
+        if (lease != null) {
+            if (this.budgetSemaphore != null) {
+                this.budgetSemaphore.release(lease.weight);
+            }
+            if (lease.groupSemaphore != null) {
+                lease.groupSemaphore.release();
+            }
+        }
+    }
+
+    /**
+     * No modo intervalo a trigger é de um disparo só, reagenda a mesma trigger
+     * para interval-seconds depois do fim desta execução
+     *
+     * @param context
+     */
+    private void rescheduleInterval(JobExecutionContext context) {
+        String jobName = context.getJobDetail().getKey().getName();
+        if (!this.isIntervalMode(jobName)) {
+            return;
+        }
+        Trigger trigger = context.getTrigger();
+        Date next = this.nextFireTime(jobName);
+        try {
+            if (context.getScheduler().checkExists(trigger.getKey())) {
+                context.getScheduler().rescheduleJob(trigger.getKey(), trigger.getTriggerBuilder().startAt(next).build());
+                logger.info("JOB:[{}] Next Run At:[{}]", jobName, next);
+            }
+        } catch (SchedulerException ex) {
+            logger.error("Failed To Reschedule JOB:[{}]", jobName, ex);
+        }
+    }
+
+    private static class Lease {
+
+        private final Semaphore groupSemaphore;
+
+        private final int weight;
+
+        private Lease(Semaphore groupSemaphore, int weight) {
+            this.groupSemaphore = groupSemaphore;
+            this.weight = weight;
+        }
+    }
+}
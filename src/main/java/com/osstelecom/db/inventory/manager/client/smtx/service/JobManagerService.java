@@ -16,22 +16,40 @@
  */
 package com.osstelecom.db.inventory.manager.client.smtx.service;
 
+import com.osstelecom.db.inventory.manager.client.smtx.config.JobRuntimeHints;
+import com.osstelecom.db.inventory.manager.client.smtx.loadtest.UploadBenchmark;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.StartupMetrics;
 import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
 import com.osstelecom.db.inventory.manager.jobs.JobConfiguration;
 import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.Job;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
@@ -48,24 +66,64 @@ public class JobManagerService {
 
     private final Logger logger = LoggerFactory.getLogger(JobManagerService.class);
     private final ConfigurationManager configurationManager = new ConfigurationManager();
+    private static final String JOBS_FILE = "config/jobs.yml";
 
     @Autowired
     private SchedulerFactoryBean schedulerFactoryBean;
 
+    @Autowired
+    private ApplicationArguments applicationArguments;
+
+    @Autowired
+    private JobLoadController jobLoadController;
+
+    /**
+     * Só existe com o profile netcompass-stub
+     */
+    @Autowired(required = false)
+    private UploadBenchmark uploadBenchmark;
+
     private Scheduler scheduler;
 
     private List<JobConfiguration> jobs;
 
+    /**
+     * Configuração atualmente aplicada no scheduler, por group.name
+     */
+    private final Map<String, JobConfiguration> currentJobs = new HashMap<>();
+
+    @Value("${smtx.jobs.hot-reload:true}")
+    private boolean hotReload;
+
     /**
      * Inicia e procura por Jobs configuradas no arquivo YML
      */
     @EventListener(ApplicationReadyEvent.class)
     private void onStartUp() throws IOException, SchedulerException {
         logger.debug("Hello There xD");
-        this.jobs = configurationManager.loadJobsFromYml("config/jobs.yml");
+        StartupMetrics.markContextReady();
+        this.jobs = configurationManager.loadJobsFromYml(JOBS_FILE);
         logger.debug("Found :[{}] Jobs ", this.jobs.size());
+        if (applicationArguments.getNonOptionArgs().contains("training-run")) {
+            //
+            // Execução de treino do profile fast-start, só carrega as classes
+            // para o archive do CDS e sai sem agendar nada
+            //
+            this.trainingRun();
+            System.exit(0);
+        }
+        if (applicationArguments.getNonOptionArgs().contains("benchmark-upload")) {
+            if (this.uploadBenchmark == null) {
+                logger.error("Benchmark Upload Requires Profile:[netcompass-stub]");
+            } else {
+                this.uploadBenchmark.run(this.jobs);
+            }
+            System.exit(0);
+        }
         this.scheduleJobs();
-
+        if (this.hotReload) {
+            this.startConfigWatcher();
+        }
     }
 
     /**
@@ -75,38 +133,263 @@ public class JobManagerService {
      */
     private void scheduleJobs() throws SchedulerException {
         this.scheduler = this.schedulerFactoryBean.getScheduler();
+        this.scheduler.getListenerManager().addTriggerListener(this.jobLoadController);
+        this.scheduler.getListenerManager().addJobListener(this.jobLoadController);
         this.scheduler.start();
         logger.debug("Scheduler Started!");
 
         this.jobs.forEach(job -> {
             if (job.isEnabled()) {
                 try {
+                    this.scheduleJob(job);
+                } catch (ClassNotFoundException | SchedulerException ex) {
                     //
-                    // Cria uma instancia da classe dinamicamente com base no nome
+                    // Não registra a job, assim o próximo reload tenta agendar de novo
                     //
-                    Class<? extends Job> act = Class.forName(job.getClassName()).asSubclass(Job.class);
-                    JobDataMap jdm = new JobDataMap();
-                    jdm.put("config", job);
-
-                    JobDetail importerJob = JobBuilder
-                            .newJob(act)
-                            .setJobData(jdm)
-                            .build();
-
-                    Trigger trigger = TriggerBuilder.newTrigger()
-                            .withDescription("(" + job.getName() + ") CRON: [" + job.getCron() + "]")
-                            .withIdentity(job.getGroup() + "." + job.getName())
-                            .withSchedule(CronScheduleBuilder.cronSchedule(job.getCron())).build();
-                    this.scheduler.scheduleJob(importerJob, trigger);
-                    logger.info("JOB:[" + job.getGroup() + "." + job.getName() + "] Scheduled :)");
-                } catch (ClassNotFoundException | SchedulerException ex) {
-                    logger.error("Failed To Schedule Job:[{}]", job.getName());
+                    logger.error("Failed To Schedule Job:[{}]", job.getName(), ex);
+                    return;
                 }
             } else {
                 logger.info("JOB:[" + job.getGroup() + "." + job.getName() + "] Not Enabled");
             }
+            this.currentJobs.put(this.jobId(job), job);
+        });
+    }
+
+    /**
+     * Cria o JobDetail e a Trigger da Job e agenda no scheduler
+     *
+     * @param job
+     * @throws ClassNotFoundException
+     * @throws SchedulerException
+     */
+    private void scheduleJob(JobConfiguration job) throws ClassNotFoundException, SchedulerException {
+        this.scheduler.scheduleJob(this.buildJobDetail(job), this.buildTrigger(job));
+        logger.info("JOB:[" + job.getGroup() + "." + job.getName() + "] Scheduled :)");
+    }
+
+    /**
+     * Cria o JobDetail, a identidade é fixa (group.name) para que a
+     * recarga do arquivo substitua a job ao invés de criar uma nova
+     *
+     * @param job
+     * @return
+     * @throws ClassNotFoundException
+     */
+    private JobDetail buildJobDetail(JobConfiguration job) throws ClassNotFoundException {
+        //
+        // Cria uma instancia da classe dinamicamente com base no nome
+        //
+        Class<? extends Job> act = resolveJobClass(job.getClassName());
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("config", job);
+
+        //
+        // No modo intervalo a trigger é trocada a cada execução, a job é
+        // durável para não ser removida junto com a trigger antiga
+        //
+        return JobBuilder
+                .newJob(act)
+                .withIdentity(this.jobKey(job))
+                .setJobData(jdm)
+                .storeDurably(this.jobLoadController.isIntervalMode(job.getName()))
+                .build();
+    }
+
+    private Trigger buildTrigger(JobConfiguration job) {
+        if (this.jobLoadController.isIntervalMode(job.getName())) {
+            //
+            // Um disparo só, o JobLoadController reagenda no fim da execução
+            //
+            return TriggerBuilder.newTrigger()
+                    .withDescription("(" + job.getName() + ") INTERVAL: [" + this.jobLoadController.intervalSeconds(job.getName()) + "s]")
+                    .withIdentity(this.triggerKey(job))
+                    .forJob(this.jobKey(job))
+                    .startAt(this.jobLoadController.firstFireTime(job.getName()))
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule()).build();
+        }
+        return TriggerBuilder.newTrigger()
+                .withDescription("(" + job.getName() + ") CRON: [" + job.getCron() + "]")
+                .withIdentity(this.triggerKey(job))
+                .forJob(this.jobKey(job))
+                .withSchedule(CronScheduleBuilder.cronSchedule(job.getCron())).build();
+    }
+
+    private String jobId(JobConfiguration job) {
+        return job.getGroup() + "." + job.getName();
+    }
+
+    private JobKey jobKey(JobConfiguration job) {
+        return new JobKey(job.getName(), job.getGroup());
+    }
+
+    private TriggerKey triggerKey(JobConfiguration job) {
+        return new TriggerKey(this.jobId(job));
+    }
+
+    /**
+     * Observa o diretório do config/jobs.yml e recarrega as jobs quando o
+     * arquivo for alterado
+     */
+    private void startConfigWatcher() {
+        Path jobsFile = Paths.get(JOBS_FILE).toAbsolutePath();
+        Thread watcher = new Thread(() -> {
+            try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+                jobsFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+                logger.info("Watching [{}] For Changes", jobsFile);
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (jobsFile.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    if (changed) {
+                        //
+                        // Editores costumam gerar mais de um evento por save,
+                        // espera o arquivo estabilizar antes de recarregar
+                        //
+                        Thread.sleep(1000);
+                        WatchKey pending = watchService.poll();
+                        while (pending != null) {
+                            pending.pollEvents();
+                            pending.reset();
+                            pending = watchService.poll();
+                        }
+                        this.reloadJobs();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ex) {
+                logger.error("Failed To Watch Jobs File:[{}]", jobsFile, ex);
+            }
+        }, "jobs-yml-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Recarrega o config/jobs.yml e reagenda somente as jobs que mudaram. Uma
+     * execução em andamento nunca é interrompida: ela termina com a
+     * configuração antiga e a próxima execução já usa a nova
+     */
+    private synchronized void reloadJobs() {
+        List<JobConfiguration> reloaded;
+        try {
+            reloaded = configurationManager.loadJobsFromYml(JOBS_FILE);
+        } catch (Exception ex) {
+            logger.error("Failed To Reload [{}], Keeping Current Jobs", JOBS_FILE, ex);
+            return;
+        }
+        logger.info("Reloading [{}] Found :[{}] Jobs", JOBS_FILE, reloaded.size());
 
+        Map<String, JobConfiguration> previousJobs = new HashMap<>(this.currentJobs);
+        for (JobConfiguration job : reloaded) {
+            String jobId = this.jobId(job);
+            JobConfiguration previous = previousJobs.remove(jobId);
+            try {
+                this.applyJobChange(previous, job);
+                this.currentJobs.put(jobId, job);
+            } catch (ClassNotFoundException | RuntimeException | SchedulerException ex) {
+                logger.error("Failed To Reschedule Job:[{}]", jobId, ex);
+            }
+        }
+
+        //
+        // Jobs que sumiram do arquivo
+        //
+        previousJobs.forEach((jobId, job) -> {
+            try {
+                if (job.isEnabled()) {
+                    this.scheduler.deleteJob(this.jobKey(job));
+                }
+                this.currentJobs.remove(jobId);
+                logger.info("JOB:[{}] Removed", jobId);
+            } catch (SchedulerException ex) {
+                logger.error("Failed To Remove Job:[{}]", jobId, ex);
+            }
+        });
+    }
+
+    /**
+     * Aplica no scheduler a diferença entre a configuração anterior e a nova
+     * de uma job
+     *
+     * @param previous configuração anterior, null se a job é nova
+     * @param job
+     * @throws ClassNotFoundException
+     * @throws SchedulerException
+     */
+    private void applyJobChange(JobConfiguration previous, JobConfiguration job) throws ClassNotFoundException, SchedulerException {
+        String jobId = this.jobId(job);
+        boolean wasEnabled = previous != null && previous.isEnabled();
+        boolean enabled = job.isEnabled();
+
+        if (!wasEnabled && enabled) {
+            this.scheduleJob(job);
+        } else if (wasEnabled && !enabled) {
+            //
+            // Remove a job e a trigger, se estiver executando ela termina normalmente
+            //
+            this.scheduler.deleteJob(this.jobKey(job));
+            logger.info("JOB:[{}] Disabled", jobId);
+        } else if (enabled) {
+            boolean jobChanged = !Objects.equals(previous.getClassName(), job.getClassName())
+                    || !Objects.equals(previous.getQueries(), job.getQueries())
+                    || !Objects.equals(previous.getFlushThreads(), job.getFlushThreads());
+            boolean cronChanged = !Objects.equals(previous.getCron(), job.getCron())
+                    && !this.jobLoadController.isIntervalMode(job.getName());
+
+            if (jobChanged) {
+                //
+                // Substitui o JobDetail mantendo a mesma chave, a trigger atual continua valendo
+                //
+                this.scheduler.addJob(this.buildJobDetail(job), true, true);
+                logger.info("JOB:[{}] Configuration Updated", jobId);
+            }
+            if (cronChanged) {
+                this.scheduler.rescheduleJob(this.triggerKey(job), this.buildTrigger(job));
+                logger.info("JOB:[{}] Rescheduled CRON: [{}]", jobId, job.getCron());
+            }
+            if (!jobChanged && !cronChanged) {
+                logger.debug("JOB:[{}] Unchanged", jobId);
+            }
+        }
+    }
+
+    /**
+     * Resolve a classe da Job, usando primeiro as jobs registradas em tempo de
+     * build e só depois o Class.forName
+     *
+     * @param className
+     * @return
+     * @throws ClassNotFoundException
+     */
+    public static Class<? extends Job> resolveJobClass(String className) throws ClassNotFoundException {
+        Class<? extends Job> jobClass = JobRuntimeHints.JOB_CLASSES.get(className);
+        if (jobClass == null) {
+            jobClass = Class.forName(className).asSubclass(Job.class);
+        }
+        return jobClass;
+    }
+
+    /**
+     * Carrega as classes das jobs configuradas para que entrem no archive do
+     * CDS gerado pelo profile fast-start
+     */
+    private void trainingRun() {
+        logger.info("Training Run Mode, Loading Job Classes");
+        this.jobs.forEach(job -> {
+            try {
+                logger.debug("Loaded JOB:[{}] Class:[{}]", job.getName(), resolveJobClass(job.getClassName()).getName());
+            } catch (ClassNotFoundException ex) {
+                logger.error("Failed To Load Job Class:[{}]", job.getClassName());
+            }
         });
+        logger.info("Training Run Done In: [{}] ms", StartupMetrics.sinceJvmStart());
     }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+/**
+ * Reescreve os nomes de três partes do SQL Server
+ * ([MeiosTX_Web_BN].[dbo].[tabMUX]) para schema.tabela antes de preparar o
+ * statement. Um banco embarcado (H2) só tem um catálogo, então cada base
+ * MeiosTX_Web_XX vira um schema
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class CatalogToSchemaDataSource implements DataSource {
+
+    private static final Pattern THREE_PART_NAME = Pattern.compile("\\[?(MeiosTX_Web_[A-Za-z]+)\\]?\\s*\\.\\s*\\[?dbo\\]?\\s*\\.");
+
+    private final DataSource dataSource;
+
+    public CatalogToSchemaDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public static String rewrite(String sql) {
+        return THREE_PART_NAME.matcher(sql).replaceAll("$1.");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall") || method.getName().equals("nativeSQL"))
+                    && args != null && args[0] instanceof String sql) {
+                args[0] = rewrite(sql);
+            }
+            return JdbcProxies.invoke(connection, method, args);
+        });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return this.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return this.dataSource.isWrapperFor(iface);
+    }
+}
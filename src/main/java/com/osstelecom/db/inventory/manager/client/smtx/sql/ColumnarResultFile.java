@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato colunar simples para guardar um result set em disco. Os valores são
+ * guardados como texto (o mesmo que o getString devolve) junto com o tipo
+ * JDBC de cada coluna, coluna a coluna, o que comprime bem com gzip.
+ *
+ * Layout: magic, número de colunas, (nome, tipo) de cada coluna, número de
+ * linhas, e para cada coluna o bitmap de nulls, a codificação e os valores não
+ * nulos. Colunas com poucos valores distintos (status, fabricante, modelo,
+ * sigla do site...) são gravadas com dicionário: os valores distintos uma vez
+ * e um código de 1, 2 ou 4 bytes por linha. Na leitura as linhas da coluna
+ * apontam para a mesma String do dicionário.
+ *
+ * Arquivos SMTXCOL1 (sem dicionário) continuam sendo lidos.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public final class ColumnarResultFile {
+
+    private static final String MAGIC_V1 = "SMTXCOL1";
+
+    private static final String MAGIC = "SMTXCOL2";
+
+    private static final byte PLAIN = 0;
+
+    private static final byte DICTIONARY = 1;
+
+    private ColumnarResultFile() {
+    }
+
+    /**
+     * Result set lido do disco, as colunas são indexadas a partir de 0
+     */
+    public static class Table {
+
+        private final String[] names;
+        private final int[] types;
+        private final String[][] columns;
+        private final int rowCount;
+
+        /**
+         * Códigos por linha das colunas com dicionário (-1 = null), null nas
+         * colunas sem dicionário
+         */
+        private final int[][] codes;
+        private final String[][] dictionaries;
+        private final Map<String, Integer> columnIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        public Table(String[] names, int[] types, String[][] columns, int rowCount) {
+            this(names, types, columns, rowCount, new int[names.length][], new String[names.length][]);
+        }
+
+        public Table(String[] names, int[] types, String[][] columns, int rowCount, int[][] codes, String[][] dictionaries) {
+            this.names = names;
+            this.types = types;
+            this.columns = columns;
+            this.rowCount = rowCount;
+            this.codes = codes;
+            this.dictionaries = dictionaries;
+            for (int c = names.length - 1; c >= 0; c--) {
+                this.columnIndex.put(names[c], c);
+            }
+        }
+
+        public int getColumnCount() {
+            return names.length;
+        }
+
+        public String getName(int column) {
+            return names[column];
+        }
+
+        public int getType(int column) {
+            return types[column];
+        }
+
+        public String getValue(int row, int column) {
+            return columns[column][row];
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Índice da coluna pelo nome, sem diferenciar maiúsculas
+         *
+         * @param name
+         * @return -1 se não existe
+         */
+        public int findColumn(String name) {
+            return this.columnIndex.getOrDefault(name, -1);
+        }
+
+        /**
+         * Todos os valores da coluna, para percorrer a coluna inteira sem
+         * passar pelo ResultSet. Não deve ser alterado
+         *
+         * @param column
+         * @return
+         */
+        public String[] getColumn(int column) {
+            return columns[column];
+        }
+
+        public boolean isDictionary(int column) {
+            return codes[column] != null;
+        }
+
+        /**
+         * Códigos por linha de uma coluna com dicionário, -1 para null. Filtros
+         * e agrupamentos podem comparar os códigos ao invés das strings
+         *
+         * @param column
+         * @return null se a coluna não tem dicionário
+         */
+        public int[] getCodes(int column) {
+            return codes[column];
+        }
+
+        /**
+         * Valores distintos de uma coluna com dicionário, indexados pelo
+         * código
+         *
+         * @param column
+         * @return null se a coluna não tem dicionário
+         */
+        public String[] getDictionary(int column) {
+            return dictionaries[column];
+        }
+    }
+
+    /**
+     * Grava as linhas em formato colunar, via arquivo temporário para nunca
+     * deixar um arquivo pela metade
+     *
+     * @param file
+     * @param names
+     * @param types
+     * @param rows
+     * @throws IOException
+     */
+    public static void write(Path file, String[] names, int[] types, List<String[]> rows) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(names.length);
+            for (int c = 0; c < names.length; c++) {
+                out.writeUTF(names[c]);
+                out.writeInt(types[c]);
+            }
+            out.writeInt(rows.size());
+            for (int c = 0; c < names.length; c++) {
+                byte[] nulls = new byte[(rows.size() + 7) / 8];
+                int nonNull = 0;
+                for (int r = 0; r < rows.size(); r++) {
+                    if (rows.get(r)[c] == null) {
+                        nulls[r >> 3] |= (byte) (1 << (r & 7));
+                    } else {
+                        nonNull++;
+                    }
+                }
+                out.write(nulls);
+                Map<String, Integer> dictionary = dictionary(rows, c, nonNull);
+                if (dictionary == null) {
+                    out.writeByte(PLAIN);
+                    for (String[] row : rows) {
+                        if (row[c] != null) {
+                            writeValue(out, row[c]);
+                        }
+                    }
+                } else {
+                    out.writeByte(DICTIONARY);
+                    out.writeInt(dictionary.size());
+                    String[] values = new String[dictionary.size()];
+                    dictionary.forEach((value, code) -> values[code] = value);
+                    for (String value : values) {
+                        writeValue(out, value);
+                    }
+                    int width = codeWidth(values.length);
+                    for (String[] row : rows) {
+                        if (row[c] != null) {
+                            writeCode(out, width, dictionary.get(row[c]));
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Monta o dicionário da coluna, desiste quando os valores distintos
+     * passam da metade dos valores não nulos
+     *
+     * @return null se a coluna deve ser gravada sem dicionário
+     */
+    private static Map<String, Integer> dictionary(List<String[]> rows, int column, int nonNull) {
+        if (nonNull < 2) {
+            return null;
+        }
+        int limit = nonNull / 2;
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (String[] row : rows) {
+            if (row[column] != null && dictionary.putIfAbsent(row[column], dictionary.size()) == null && dictionary.size() > limit) {
+                return null;
+            }
+        }
+        return dictionary;
+    }
+
+    private static int codeWidth(int dictionarySize) {
+        if (dictionarySize <= 0xFF) {
+            return 1;
+        } else if (dictionarySize <= 0xFFFF) {
+            return 2;
+        }
+        return 4;
+    }
+
+    private static void writeCode(DataOutputStream out, int width, int code) throws IOException {
+        switch (width) {
+            case 1:
+                out.writeByte(code);
+                break;
+            case 2:
+                out.writeShort(code);
+                break;
+            default:
+                out.writeInt(code);
+        }
+    }
+
+    private static int readCode(DataInputStream in, int width) throws IOException {
+        switch (width) {
+            case 1:
+                return in.readUnsignedByte();
+            case 2:
+                return in.readUnsignedShort();
+            default:
+                return in.readInt();
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readValue(DataInputStream in) throws IOException {
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    public static Table read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            String magic = in.readUTF();
+            if (!MAGIC.equals(magic) && !MAGIC_V1.equals(magic)) {
+                throw new IOException("Invalid Columnar File: [" + file + "]");
+            }
+            boolean encoded = MAGIC.equals(magic);
+            int columnCount = in.readInt();
+            String[] names = new String[columnCount];
+            int[] types = new int[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                names[c] = in.readUTF();
+                types[c] = in.readInt();
+            }
+            int rowCount = in.readInt();
+            String[][] columns = new String[columnCount][rowCount];
+            int[][] codes = new int[columnCount][];
+            String[][] dictionaries = new String[columnCount][];
+            for (int c = 0; c < columnCount; c++) {
+                byte[] nulls = new byte[(rowCount + 7) / 8];
+                in.readFully(nulls);
+                byte encoding = encoded ? in.readByte() : PLAIN;
+                if (encoding == DICTIONARY) {
+                    String[] dictionary = new String[in.readInt()];
+                    for (int d = 0; d < dictionary.length; d++) {
+                        dictionary[d] = readValue(in);
+                    }
+                    int width = codeWidth(dictionary.length);
+                    int[] columnCodes = new int[rowCount];
+                    for (int r = 0; r < rowCount; r++) {
+                        if ((nulls[r >> 3] & (1 << (r & 7))) == 0) {
+                            columnCodes[r] = readCode(in, width);
+                            columns[c][r] = dictionary[columnCodes[r]];
+                        } else {
+                            columnCodes[r] = -1;
+                        }
+                    }
+                    codes[c] = columnCodes;
+                    dictionaries[c] = dictionary;
+                } else if (encoding == PLAIN) {
+                    for (int r = 0; r < rowCount; r++) {
+                        if ((nulls[r >> 3] & (1 << (r & 7))) == 0) {
+                            columns[c][r] = readValue(in);
+                        }
+                    }
+                } else {
+                    throw new IOException("Invalid Column Encoding:[" + encoding + "] Column:[" + names[c] + "] File:[" + file + "]");
+                }
+            }
+            return new Table(names, types, columns, rowCount, codes, dictionaries);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import com.osstelecom.db.inventory.manager.client.smtx.utils.LongObjectHashMap;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache das tabelas de dimensão do SMTX (tabSites, tabFabricantes..., etc),
+ * pequenas e que quase não mudam. Cada dimensão é uma query do
+ * config/jobs.yml cuja primeira coluna é o id inteiro da tabela, as linhas
+ * ficam num LongObjectHashMap indexado pelo id.
+ *
+ * A dimensão é carregada no primeiro uso e vale por ttlMs, entre execuções
+ * das Jobs. Vencido o TTL, se checksum estiver ligado, compara o
+ * CHECKSUM_AGG(BINARY_CHECKSUM(*)) da query (SQL Server) e só recarrega se
+ * mudou. Se o banco não suportar o checksum recarrega sempre.
+ *
+ * Thread-safe, a dimensão carregada é imutável.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class DimensionCache {
+
+    private final Logger logger = LoggerFactory.getLogger(DimensionCache.class);
+
+    private final DataSource dataSource;
+
+    private final SqlCaptureStore store;
+
+    private final long ttlMs;
+
+    private volatile boolean checksum;
+
+    private final Map<String, Holder> dimensions = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param dataSource usado para carregar as dimensões
+     * @param store usado para resolver o nome das queries
+     * @param ttlMs
+     * @param checksum compara o checksum antes de recarregar
+     */
+    public DimensionCache(DataSource dataSource, SqlCaptureStore store, long ttlMs, boolean checksum) {
+        this.dataSource = dataSource;
+        this.store = store;
+        this.ttlMs = ttlMs;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Dimensão da query, carregando ou validando se o TTL venceu
+     *
+     * @param sql
+     * @return
+     * @throws SQLException
+     */
+    public Dimension get(String sql) throws SQLException {
+        Holder holder = this.dimensions.computeIfAbsent(sql.trim(), k -> new Holder());
+        synchronized (holder) {
+            long now = System.currentTimeMillis();
+            if (holder.dimension != null && now - holder.validatedAt < this.ttlMs) {
+                return holder.dimension;
+            }
+            try (Connection connection = this.dataSource.getConnection()) {
+                if (holder.dimension != null && this.checksum) {
+                    Long current = this.checksum(connection, sql);
+                    if (current != null && current.equals(holder.checksum)) {
+                        holder.validatedAt = now;
+                        logger.debug("Dimension Unchanged Query:[{}]", this.store.queryName(sql));
+                        return holder.dimension;
+                    }
+                }
+                holder.dimension = this.load(connection, sql);
+                holder.checksum = this.checksum ? this.checksum(connection, sql) : null;
+                holder.validatedAt = now;
+            }
+            return holder.dimension;
+        }
+    }
+
+    private Dimension load(Connection connection, String sql) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(sql); ResultSet resultSet = statement.executeQuery()) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            String[] columns = new String[metaData.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = metaData.getColumnLabel(i + 1).toUpperCase(Locale.ROOT);
+            }
+            LongObjectHashMap<String[]> rows = new LongObjectHashMap<>(1024);
+            if (resultSet.isWrapperFor(ColumnarResultFile.Table.class)) {
+                this.loadColumns(resultSet.unwrap(ColumnarResultFile.Table.class), rows);
+            } else {
+                while (resultSet.next()) {
+                    long key = resultSet.getLong(1);
+                    if (resultSet.wasNull()) {
+                        continue;
+                    }
+                    String[] row = new String[columns.length];
+                    for (int i = 1; i < columns.length; i++) {
+                        row[i] = resultSet.getString(i + 1);
+                    }
+                    row[0] = Long.toString(key);
+                    rows.put(key, row);
+                }
+            }
+            logger.info("Dimension Loaded Query:[{}] Rows:[{}] Took:[{}] ms", this.store.queryName(sql), rows.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return new Dimension(columns, rows);
+        }
+    }
+
+    /**
+     * Carga a partir da captura (replay), percorrendo as colunas ao invés do
+     * ResultSet
+     */
+    private void loadColumns(ColumnarResultFile.Table table, LongObjectHashMap<String[]> rows) {
+        String[] keys = table.getColumn(0);
+        for (int r = 0; r < table.getRowCount(); r++) {
+            if (keys[r] == null) {
+                continue;
+            }
+            long key = new BigDecimal(keys[r]).longValue();
+            String[] row = new String[table.getColumnCount()];
+            row[0] = Long.toString(key);
+            for (int c = 1; c < row.length; c++) {
+                row[c] = table.getValue(r, c);
+            }
+            rows.put(key, row);
+        }
+    }
+
+    /**
+     *
+     * @param connection
+     * @param sql
+     * @return null se o banco não suporta o checksum
+     */
+    private Long checksum(Connection connection, String sql) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT CHECKSUM_AGG(BINARY_CHECKSUM(*)) FROM (" + sql + ") dim");
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : null;
+        } catch (SQLException ex) {
+            logger.info("Dimension Checksum Not Supported, Reloading On TTL Only: [{}]", ex.getMessage());
+            this.checksum = false;
+            return null;
+        }
+    }
+
+    private static class Holder {
+
+        private Dimension dimension;
+
+        private Long checksum;
+
+        private long validatedAt;
+    }
+
+    /**
+     * Linhas da dimensão indexadas pelo id (primeira coluna)
+     */
+    public static class Dimension {
+
+        private final String[] columns;
+
+        private final LongObjectHashMap<String[]> rows;
+
+        private Dimension(String[] columns, LongObjectHashMap<String[]> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        /**
+         * Índice da coluna pelo label, sem diferenciar maiúsculas
+         *
+         * @param label
+         * @return -1 se não existe
+         */
+        public int column(String label) {
+            String upper = label.toUpperCase(Locale.ROOT);
+            for (int i = 0; i < this.columns.length; i++) {
+                if (this.columns[i].equals(upper)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         *
+         * @param key
+         * @return null se o id não existe na dimensão
+         */
+        public String[] row(long key) {
+            return this.rows.get(key);
+        }
+
+        public int size() {
+            return this.rows.size();
+        }
+    }
+}
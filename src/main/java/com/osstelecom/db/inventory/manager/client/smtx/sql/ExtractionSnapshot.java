@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uma transação de leitura em SNAPSHOT isolation aberta no início da execução
+ * da Job e compartilhada por todos os steps, assim portas, slots e shelfs são
+ * lidos da mesma versão do banco e as leituras não pegam shared locks nem
+ * esperam pelos writers do SMTX.
+ *
+ * Os steps recebem a mesma conexão, com o close() ignorado (a Job fecha a
+ * conexão entre os steps), a transação só termina no close() do snapshot.
+ * A versão é fixada pelo SQL Server na primeira leitura da transação.
+ *
+ * Os workers dos steps não fazem queries, só consomem as linhas lidas pela
+ * thread da Job, então uma conexão é suficiente.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ExtractionSnapshot implements AutoCloseable {
+
+    /**
+     * SQLServerConnection.TRANSACTION_SNAPSHOT
+     */
+    public static final int TRANSACTION_SNAPSHOT = 0x1000;
+
+    private static final Pattern DATABASE_REFERENCE = Pattern.compile("\\b(\\w+)\\.dbo\\.", Pattern.CASE_INSENSITIVE);
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionSnapshot.class);
+
+    private final String jobName;
+
+    private final Connection connection;
+
+    private final Connection shared;
+
+    private final long startedAt = System.nanoTime();
+
+    private ExtractionSnapshot(String jobName, Connection connection) {
+        this.jobName = jobName;
+        this.connection = connection;
+        this.shared = JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                case "setTransactionIsolation":
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "SnapshotConnection[" + jobName + "]";
+                default:
+                    return JdbcProxies.invoke(this.connection, method, args);
+            }
+        });
+    }
+
+    /**
+     * Abre o snapshot da execução. Se algum banco usado pelas queries não
+     * permite SNAPSHOT isolation (ALLOW_SNAPSHOT_ISOLATION OFF), ou o servidor
+     * não suportar, retorna null e a Job segue com uma conexão por step
+     *
+     * @param dataSource
+     * @param jobName
+     * @param queries queries da Job, usadas para achar os bancos referenciados
+     * @return null se o snapshot não pôde ser aberto
+     */
+    public static ExtractionSnapshot begin(DataSource dataSource, String jobName, Collection<String> queries) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            Set<String> notAllowed = notAllowedDatabases(connection, queries);
+            if (!notAllowed.isEmpty()) {
+                logger.warn("Snapshot Isolation Not Allowed Job:[{}] Databases:{}, Using Per Step Connections", jobName, notAllowed);
+                connection.close();
+                return null;
+            }
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(TRANSACTION_SNAPSHOT);
+            logger.info("Snapshot Transaction Started Job:[{}]", jobName);
+            return new ExtractionSnapshot(jobName, connection);
+        } catch (SQLException ex) {
+            logger.warn("Failed To Start Snapshot Transaction Job:[{}] Error:[{}], Using Per Step Connections", jobName, ex.getMessage());
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException closeEx) {
+                    logger.warn("Connection Close error But OK", closeEx);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Bancos da conexão e dos nomes [banco].dbo. das queries com
+     * snapshot_isolation_state diferente de ON
+     */
+    private static Set<String> notAllowedDatabases(Connection connection, Collection<String> queries) throws SQLException {
+        Set<String> databases = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (String query : queries) {
+            Matcher matcher = DATABASE_REFERENCE.matcher(query);
+            while (matcher.find()) {
+                databases.add(matcher.group(1));
+            }
+        }
+        Set<String> notAllowed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT name, snapshot_isolation_state, CASE WHEN database_id = DB_ID() THEN 1 ELSE 0 END FROM sys.databases")) {
+            Set<String> allowed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            while (resultSet.next()) {
+                if (resultSet.getInt(3) == 1) {
+                    databases.add(resultSet.getString(1));
+                }
+                if (resultSet.getInt(2) == 1) {
+                    allowed.add(resultSet.getString(1));
+                }
+            }
+            for (String database : databases) {
+                if (!allowed.contains(database)) {
+                    notAllowed.add(database);
+                }
+            }
+        }
+        return notAllowed;
+    }
+
+    /**
+     * Conexão do snapshot para o step, o close() não fecha a conexão real
+     *
+     * @return
+     * @throws SQLException se a conexão do snapshot foi perdida
+     */
+    public Connection getConnection() throws SQLException {
+        if (this.connection.isClosed()) {
+            throw new SQLException("Snapshot Connection Lost Job:[" + this.jobName + "]");
+        }
+        return this.shared;
+    }
+
+    /**
+     * Encerra a transação (só leitura, o commit apenas libera a versão) e
+     * fecha a conexão
+     */
+    @Override
+    public void close() {
+        try {
+            if (!this.connection.isClosed()) {
+                this.connection.commit();
+            }
+        } catch (SQLException ex) {
+            logger.warn("Snapshot Commit error But OK Job:[{}]", this.jobName, ex);
+        }
+        try {
+            this.connection.close();
+        } catch (SQLException ex) {
+            logger.warn("Connection Close error But OK", ex);
+        }
+        logger.info("Snapshot Transaction Closed Job:[{}] Duration:[{}] ms", this.jobName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startedAt));
+    }
+}
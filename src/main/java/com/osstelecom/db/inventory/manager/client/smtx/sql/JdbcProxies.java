@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Utilitários para criar proxies JDBC, assim só os métodos que interessam
+ * precisam ser tratados e o resto é repassado para o objeto real
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+final class JdbcProxies {
+
+    private JdbcProxies() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Repassa a chamada para o objeto real, devolvendo a exceção original
+     *
+     * @param target
+     * @param method
+     * @param args
+     * @return
+     * @throws Throwable
+     */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    static SQLFeatureNotSupportedException notSupported(Method method) {
+        return new SQLFeatureNotSupportedException("Not Supported: [" + method.getDeclaringClass().getSimpleName() + "." + method.getName() + "]");
+    }
+
+    /**
+     * Verifica se é um set* de parâmetro de PreparedStatement (índice + valor)
+     *
+     * @param method
+     * @param args
+     * @return
+     */
+    static boolean isParameterSetter(Method method, Object[] args) {
+        return method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer;
+    }
+
+    /**
+     * Converte o valor texto para o tipo de retorno do get* chamado
+     *
+     * @param method get* do ResultSet
+     * @param value
+     * @param sqlType tipo da coluna, usado pelo getObject
+     * @return
+     * @throws SQLException
+     */
+    static Object convert(Method method, String value, int sqlType) throws SQLException {
+        Class<?> target = method.getReturnType();
+        try {
+            if (target == String.class) {
+                return value;
+            } else if (target == int.class) {
+                return value == null ? 0 : new BigDecimal(value).intValue();
+            } else if (target == long.class) {
+                return value == null ? 0L : new BigDecimal(value).longValue();
+            } else if (target == short.class) {
+                return value == null ? (short) 0 : new BigDecimal(value).shortValue();
+            } else if (target == byte.class) {
+                return value == null ? (byte) 0 : new BigDecimal(value).byteValue();
+            } else if (target == double.class) {
+                return value == null ? 0D : Double.parseDouble(value);
+            } else if (target == float.class) {
+                return value == null ? 0F : Float.parseFloat(value);
+            } else if (target == boolean.class) {
+                return value != null && ("1".equals(value) || Boolean.parseBoolean(value));
+            } else if (target == BigDecimal.class) {
+                return value == null ? null : new BigDecimal(value);
+            } else if (target == Timestamp.class) {
+                return value == null ? null : Timestamp.valueOf(value);
+            } else if (target == Date.class) {
+                return value == null ? null : Date.valueOf(value.substring(0, Math.min(10, value.length())));
+            } else if (method.getName().equals("getObject")) {
+                return value == null ? null : toObject(value, sqlType);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new SQLException("Failed To Convert Value:[" + value + "] With:[" + method.getName() + "]", ex);
+        }
+        throw notSupported(method);
+    }
+
+    private static Object toObject(String value, int sqlType) {
+        try {
+            return switch (sqlType) {
+                case Types.INTEGER, Types.SMALLINT, Types.TINYINT ->
+                    Integer.valueOf(value);
+                case Types.BIGINT ->
+                    Long.valueOf(value);
+                case Types.DECIMAL, Types.NUMERIC ->
+                    new BigDecimal(value);
+                case Types.FLOAT, Types.DOUBLE ->
+                    Double.valueOf(value);
+                case Types.REAL ->
+                    Float.valueOf(value);
+                case Types.BIT, Types.BOOLEAN ->
+                    "1".equals(value) || Boolean.parseBoolean(value);
+                case Types.TIMESTAMP ->
+                    Timestamp.valueOf(value);
+                case Types.DATE ->
+                    Date.valueOf(value);
+                default ->
+                    value;
+            };
+        } catch (IllegalArgumentException ex) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lê as esperas por lock (LCK_M_*) acumuladas pela sessão da conexão atual da
+ * Job, via sys.dm_exec_session_wait_stats (SQL Server 2016+). A diferença
+ * entre o início e o fim de cada step é gravada no histórico da execução.
+ *
+ * Usa createStatement, que não passa pelos wrappers de timing/captura. Se a
+ * leitura falhar (ex: replay ou sem VIEW SERVER STATE) a sonda é desligada
+ * para o resto da execução.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class LockWaitProbe {
+
+    private static final String QUERY = "SELECT COALESCE(SUM(waiting_tasks_count), 0), COALESCE(SUM(wait_time_ms), 0)"
+            + " FROM sys.dm_exec_session_wait_stats WHERE session_id = @@SPID AND wait_type LIKE 'LCK[_]M[_]%'";
+
+    private final Logger logger = LoggerFactory.getLogger(LockWaitProbe.class);
+
+    private final Supplier<Connection> connection;
+
+    private boolean supported = true;
+
+    /**
+     *
+     * @param connection conexão atual da Job, lida a cada chamada
+     */
+    public LockWaitProbe(Supplier<Connection> connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Esperas por lock da sessão até agora
+     *
+     * @return {quantidade, ms} ou null se não disponível
+     */
+    public long[] read() {
+        Connection current = this.connection.get();
+        if (!this.supported || current == null) {
+            return null;
+        }
+        try (Statement statement = current.createStatement(); ResultSet resultSet = statement.executeQuery(QUERY)) {
+            if (resultSet.next()) {
+                return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+            }
+            return new long[]{0L, 0L};
+        } catch (SQLException ex) {
+            this.supported = false;
+            logger.warn("Lock Wait Stats Not Available, Disabling Probe Error:[{}]", ex.getMessage());
+            return null;
+        }
+    }
+}
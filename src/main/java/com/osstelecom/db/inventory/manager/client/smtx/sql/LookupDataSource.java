@@ -0,0 +1,509 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
+import com.osstelecom.db.inventory.manager.jobs.JobConfiguration;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DataSource que faz em memória o join das queries com as tabelas de
+ * dimensão. A query declara no config/jobs.yml, em {query}.lookups, quais
+ * colunas vêm de qual dimensão:
+ *
+ * getRadios.lookups: ID_SITE -> dimSites(SIGLA_SITE=SiglaSite,
+ * REGIONAL=UFDoSite); left COD_MODELO -> dimModelos(MODELO=Descricao)
+ *
+ * Para cada linha o valor de ID_SITE é procurado na dimensão dimSites (outra
+ * query do mesmo job, primeira coluna = id) e as colunas SIGLA_SITE e REGIONAL
+ * passam a existir no ResultSet como se viessem do banco. Sem o prefixo left o
+ * lookup funciona como INNER JOIN: a linha sem correspondência é descartada. A
+ * chave pode ser uma coluna de um lookup anterior, para dimensões encadeadas.
+ *
+ * Assim a query no servidor fica sem os joins das tabelas pequenas e as Jobs
+ * continuam lendo as mesmas colunas.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class LookupDataSource implements DataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(LookupDataSource.class);
+
+    private static final String LOOKUPS_SUFFIX = ".lookups";
+
+    private final DataSource dataSource;
+
+    private final DimensionCache dimensionCache;
+
+    /**
+     * Lookups por texto da query, lista vazia para as queries sem lookup
+     */
+    private final Map<String, List<Lookup>> lookups = new ConcurrentHashMap<>();
+
+    public LookupDataSource(DataSource dataSource, DimensionCache dimensionCache) {
+        this.dataSource = dataSource;
+        this.dimensionCache = dimensionCache;
+        this.loadLookups();
+    }
+
+    /**
+     * Relê o config/jobs.yml montando o mapa SQL -> lookups
+     */
+    private void loadLookups() {
+        try {
+            for (JobConfiguration job : new ConfigurationManager().loadJobsFromYml("config/jobs.yml")) {
+                if (job.getQueries() == null) {
+                    continue;
+                }
+                Map<String, String> queries = job.getQueries();
+                queries.forEach((name, sql) -> {
+                    if (name.endsWith(LOOKUPS_SUFFIX)) {
+                        return;
+                    }
+                    String spec = queries.get(name + LOOKUPS_SUFFIX);
+                    try {
+                        this.lookups.put(sql.trim(), spec != null ? parse(spec, queries) : List.of());
+                    } catch (IllegalArgumentException ex) {
+                        logger.error("Invalid Lookups For Query:[{}] Job:[{}]: {}", name, job.getName(), ex.getMessage());
+                    }
+                });
+            }
+        } catch (Exception ex) {
+            logger.warn("Failed To Read Lookups From config/jobs.yml", ex);
+        }
+    }
+
+    /**
+     * Queries do config/jobs.yml que declaram {query}.lookups, no formato
+     * job.query
+     *
+     * @return
+     * @throws Exception se o arquivo não pode ser lido
+     */
+    public static List<String> declaredLookups() throws Exception {
+        List<String> result = new ArrayList<>();
+        for (JobConfiguration job : new ConfigurationManager().loadJobsFromYml("config/jobs.yml")) {
+            if (job.getQueries() == null) {
+                continue;
+            }
+            for (String name : job.getQueries().keySet()) {
+                if (name.endsWith(LOOKUPS_SUFFIX)) {
+                    result.add(job.getName() + "." + name.substring(0, name.length() - LOOKUPS_SUFFIX.length()));
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Lookup> lookupsFor(String sql) {
+        List<Lookup> result = this.lookups.get(sql.trim());
+        if (result == null) {
+            //
+            // O arquivo pode ter sido recarregado desde o start
+            //
+            this.loadLookups();
+            result = this.lookups.computeIfAbsent(sql.trim(), s -> List.of());
+        }
+        return result;
+    }
+
+    /**
+     * Interpreta a declaração: [left ]CHAVE -> dimensao(COLUNA=ColunaDimensao,
+     * ...); ...
+     *
+     * @param spec
+     * @param queries queries do job, para resolver a dimensão
+     * @return
+     */
+    static List<Lookup> parse(String spec, Map<String, String> queries) {
+        List<Lookup> result = new ArrayList<>();
+        for (String part : spec.split(";")) {
+            String item = part.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            boolean left = false;
+            if (item.regionMatches(true, 0, "left ", 0, 5)) {
+                left = true;
+                item = item.substring(5).trim();
+            }
+            int arrow = item.indexOf("->");
+            int open = item.indexOf('(');
+            int close = item.lastIndexOf(')');
+            if (arrow <= 0 || open <= arrow || close < open) {
+                throw new IllegalArgumentException("Expected [left ]KEY -> dimension(COLUMN=DimColumn, ...) Got:[" + item + "]");
+            }
+            String keyColumn = item.substring(0, arrow).trim();
+            String dimensionName = item.substring(arrow + 2, open).trim();
+            String dimensionSql = queries.get(dimensionName);
+            if (dimensionSql == null) {
+                throw new IllegalArgumentException("Dimension Query Not Found:[" + dimensionName + "]");
+            }
+            Map<String, String> columns = new LinkedHashMap<>();
+            for (String mapping : item.substring(open + 1, close).split(",")) {
+                if (mapping.isBlank()) {
+                    continue;
+                }
+                String[] pair = mapping.split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Expected COLUMN=DimColumn Got:[" + mapping.trim() + "]");
+                }
+                columns.put(pair[0].trim(), pair[1].trim());
+            }
+            result.add(new Lookup(keyColumn, dimensionName, dimensionSql.trim(), columns, left));
+        }
+        return List.copyOf(result);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.wrap(this.dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.wrap(this.dataSource.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                List<Lookup> queryLookups = this.lookupsFor(sql);
+                if (!queryLookups.isEmpty()) {
+                    return this.wrap((PreparedStatement) result, queryLookups);
+                }
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, List<Lookup> queryLookups) {
+        return JdbcProxies.proxy(PreparedStatement.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.invoke(statement, method, args);
+            if (result instanceof ResultSet resultSet
+                    && (method.getName().equals("executeQuery") || method.getName().equals("getResultSet"))) {
+                return new LookupResultSet(resultSet, queryLookups, this.resolve(queryLookups)).proxy();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Carrega (ou valida o TTL) das dimensões usadas pela query
+     *
+     * @param queryLookups
+     * @return
+     * @throws SQLException
+     */
+    private DimensionCache.Dimension[] resolve(List<Lookup> queryLookups) throws SQLException {
+        DimensionCache.Dimension[] dimensions = new DimensionCache.Dimension[queryLookups.size()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = this.dimensionCache.get(queryLookups.get(i).dimensionSql);
+        }
+        return dimensions;
+    }
+
+    /**
+     * Declaração de um lookup
+     */
+    static class Lookup {
+
+        private final String keyColumn;
+
+        private final String dimensionName;
+
+        private final String dimensionSql;
+
+        /**
+         * Coluna virtual -> coluna da dimensão
+         */
+        private final Map<String, String> columns;
+
+        private final boolean left;
+
+        Lookup(String keyColumn, String dimensionName, String dimensionSql, Map<String, String> columns, boolean left) {
+            this.keyColumn = keyColumn;
+            this.dimensionName = dimensionName;
+            this.dimensionSql = dimensionSql;
+            this.columns = columns;
+            this.left = left;
+        }
+    }
+
+    /**
+     * ResultSet com as colunas virtuais dos lookups depois das colunas reais
+     */
+    private static class LookupResultSet {
+
+        private final Logger logger = LoggerFactory.getLogger(LookupResultSet.class);
+
+        private final ResultSet resultSet;
+
+        private final List<Lookup> queryLookups;
+
+        private final DimensionCache.Dimension[] dimensions;
+
+        /**
+         * Label (maiúsculo) -> índice da coluna virtual
+         */
+        private final Map<String, Integer> virtualIndex = new LinkedHashMap<>();
+
+        private final List<String> virtualNames = new ArrayList<>();
+
+        /**
+         * Por coluna virtual: índice do lookup e da coluna na dimensão
+         */
+        private final List<int[]> virtualSources = new ArrayList<>();
+
+        /**
+         * Chave de cada lookup: -1 para coluna real, senão o índice da coluna
+         * virtual de um lookup anterior
+         */
+        private final int[] keyVirtual;
+
+        /**
+         * Linha da dimensão de cada lookup para a linha atual
+         */
+        private final String[][] current;
+
+        private int realColumnCount = -1;
+
+        private boolean lastVirtual = false;
+
+        private boolean virtualWasNull = false;
+
+        private long rows = 0L;
+
+        private long skipped = 0L;
+
+        private LookupResultSet(ResultSet resultSet, List<Lookup> queryLookups, DimensionCache.Dimension[] dimensions) throws SQLException {
+            this.resultSet = resultSet;
+            this.queryLookups = queryLookups;
+            this.dimensions = dimensions;
+            this.keyVirtual = new int[queryLookups.size()];
+            this.current = new String[queryLookups.size()][];
+            for (int i = 0; i < queryLookups.size(); i++) {
+                Lookup lookup = queryLookups.get(i);
+                this.keyVirtual[i] = this.virtualIndex.getOrDefault(lookup.keyColumn.toUpperCase(Locale.ROOT), -1);
+                for (Map.Entry<String, String> column : lookup.columns.entrySet()) {
+                    int dimensionColumn = dimensions[i].column(column.getValue());
+                    if (dimensionColumn < 0) {
+                        throw new SQLException("Column:[" + column.getValue() + "] Not Found In Dimension:[" + lookup.dimensionName + "]");
+                    }
+                    this.virtualIndex.put(column.getKey().toUpperCase(Locale.ROOT), this.virtualNames.size());
+                    this.virtualNames.add(column.getKey());
+                    this.virtualSources.add(new int[]{i, dimensionColumn});
+                }
+            }
+        }
+
+        private ResultSet proxy() {
+            return JdbcProxies.proxy(ResultSet.class, this::invoke);
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    return this.next();
+                case "wasNull":
+                    return this.lastVirtual ? this.virtualWasNull : this.resultSet.wasNull();
+                case "findColumn": {
+                    Integer index = this.virtualIndex.get(((String) args[0]).toUpperCase(Locale.ROOT));
+                    if (index != null) {
+                        return this.realColumnCount() + index + 1;
+                    }
+                    break;
+                }
+                case "getMetaData":
+                    return this.metaData(this.resultSet.getMetaData());
+                case "close":
+                    if (this.skipped > 0) {
+                        logger.debug("Lookup Rows:[{}] Skipped Without Match:[{}]", this.rows, this.skipped);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (method.getName().startsWith("get") && args != null && args.length >= 1) {
+                int virtual = this.virtualColumn(args[0]);
+                if (virtual >= 0) {
+                    String value = this.virtualValue(virtual);
+                    this.lastVirtual = true;
+                    this.virtualWasNull = value == null;
+                    return JdbcProxies.convert(method, value, Types.VARCHAR);
+                }
+                this.lastVirtual = false;
+            }
+            return JdbcProxies.invoke(this.resultSet, method, args);
+        }
+
+        /**
+         * Avança até a próxima linha com correspondência em todos os lookups
+         * obrigatórios
+         *
+         * @return
+         * @throws SQLException
+         */
+        private boolean next() throws SQLException {
+            while (this.resultSet.next()) {
+                if (this.match()) {
+                    this.rows++;
+                    return true;
+                }
+                this.skipped++;
+            }
+            return false;
+        }
+
+        private boolean match() throws SQLException {
+            for (int i = 0; i < this.current.length; i++) {
+                Lookup lookup = this.queryLookups.get(i);
+                String key = this.keyVirtual[i] >= 0 ? this.virtualValue(this.keyVirtual[i]) : this.resultSet.getString(lookup.keyColumn);
+                this.current[i] = key != null ? this.row(lookup, this.dimensions[i], key) : null;
+                if (this.current[i] == null && !lookup.left) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * As dimensões são indexadas por id numérico, uma chave que não é
+         * número inteiro indica erro de configuração do lookup e não pode
+         * virar uma linha descartada em silêncio
+         */
+        private String[] row(Lookup lookup, DimensionCache.Dimension dimension, String key) throws SQLException {
+            long id;
+            try {
+                id = new BigDecimal(key.trim()).longValueExact();
+            } catch (NumberFormatException | ArithmeticException ex) {
+                throw new SQLException("Non Numeric Key:[" + key + "] Column:[" + lookup.keyColumn + "] Dimension:[" + lookup.dimensionName + "]", ex);
+            }
+            return dimension.row(id);
+        }
+
+        private String virtualValue(int virtual) {
+            int[] source = this.virtualSources.get(virtual);
+            String[] row = this.current[source[0]];
+            return row != null ? row[source[1]] : null;
+        }
+
+        /**
+         *
+         * @param column label ou índice (1..n) do get*
+         * @return índice da coluna virtual, -1 se é uma coluna real
+         * @throws SQLException
+         */
+        private int virtualColumn(Object column) throws SQLException {
+            if (column instanceof String label) {
+                return this.virtualIndex.getOrDefault(label.toUpperCase(Locale.ROOT), -1);
+            } else if (column instanceof Integer index && index > this.realColumnCount()) {
+                return index - this.realColumnCount() - 1;
+            }
+            return -1;
+        }
+
+        private int realColumnCount() throws SQLException {
+            if (this.realColumnCount < 0) {
+                this.realColumnCount = this.resultSet.getMetaData().getColumnCount();
+            }
+            return this.realColumnCount;
+        }
+
+        private ResultSetMetaData metaData(ResultSetMetaData metaData) throws SQLException {
+            int realCount = this.realColumnCount();
+            return JdbcProxies.proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+                if (method.getName().equals("getColumnCount")) {
+                    return realCount + this.virtualNames.size();
+                }
+                if (args != null && args.length == 1 && args[0] instanceof Integer index && index > realCount) {
+                    switch (method.getName()) {
+                        case "getColumnName":
+                        case "getColumnLabel":
+                            return this.virtualNames.get(index - realCount - 1);
+                        case "getColumnType":
+                            return Types.VARCHAR;
+                        case "getColumnTypeName":
+                            return "varchar";
+                        case "getColumnClassName":
+                            return String.class.getName();
+                        case "isNullable":
+                            return ResultSetMetaData.columnNullable;
+                        default:
+                            throw JdbcProxies.notSupported(method);
+                    }
+                }
+                return JdbcProxies.invoke(metaData, method, args);
+            });
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return this.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return this.dataSource.isWrapperFor(iface);
+    }
+}
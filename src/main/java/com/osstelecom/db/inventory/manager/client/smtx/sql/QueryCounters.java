@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de linhas e bytes lidos pelas queries, vinculados à thread da
+ * Job. É um InheritableThreadLocal, assim os workers criados pela Job durante
+ * o step (PartitionedRowProcessor) somam no mesmo contador.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public final class QueryCounters {
+
+    private static final InheritableThreadLocal<QueryCounters> current = new InheritableThreadLocal<>();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Cria um contador novo e vincula à thread atual
+     *
+     * @return
+     */
+    public static QueryCounters bind() {
+        QueryCounters counters = new QueryCounters();
+        current.set(counters);
+        return counters;
+    }
+
+    public static void unbind() {
+        current.remove();
+    }
+
+    /**
+     * Chamado pelo QueryTimingDataSource no fim de cada execução, não faz nada
+     * se a thread não estiver vinculada
+     *
+     * @param rows
+     * @param bytes
+     */
+    static void add(long rows, long bytes) {
+        QueryCounters counters = current.get();
+        if (counters != null) {
+            counters.rows.add(rows);
+            counters.bytes.add(bytes);
+        }
+    }
+
+    public long getRows() {
+        return this.rows.sum();
+    }
+
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Grava o plano de execução de uma query lenta, em
+ * {planDir}/{query}/{data}.sqlplan (abre no SSMS). No SQL Server o plano é o
+ * estimado (SET SHOWPLAN_XML ON), a query não é executada de novo. No H2 (load
+ * test) usa EXPLAIN.
+ *
+ * A captura roda em uma thread própria e em outra conexão, a conexão da Job
+ * ainda está lendo o result set. Cada query é capturada no máximo uma vez a
+ * cada minIntervalMs.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class QueryPlanCapture {
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Logger logger = LoggerFactory.getLogger(QueryPlanCapture.class);
+
+    private final DataSource dataSource;
+
+    private final Path planDir;
+
+    private final long minIntervalMs;
+
+    private final Map<String, Long> lastCapture = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "query-plan-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     *
+     * @param dataSource DataSource real, sem o proxy de timing
+     * @param planDir
+     * @param minIntervalMs
+     */
+    public QueryPlanCapture(DataSource dataSource, Path planDir, long minIntervalMs) {
+        this.dataSource = dataSource;
+        this.planDir = planDir;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    /**
+     * Agenda a captura do plano da query
+     *
+     * @param queryName
+     * @param sql
+     * @param parameters parâmetros da execução lenta, por índice
+     */
+    public void capture(String queryName, String sql, Map<Integer, Object> parameters) {
+        long now = System.currentTimeMillis();
+        Long last = this.lastCapture.get(queryName);
+        if (last != null && now - last < this.minIntervalMs) {
+            return;
+        }
+        this.lastCapture.put(queryName, now);
+        try {
+            this.executor.execute(() -> this.capturePlan(queryName, sql, parameters));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Plan Capture Rejected Query:[{}]", queryName);
+        }
+    }
+
+    private void capturePlan(String queryName, String sql, Map<Integer, Object> parameters) {
+        try (Connection connection = this.dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            String plan;
+            String extension;
+            if (product.contains("SQL Server")) {
+                plan = this.showplanXml(connection, sql, parameters);
+                extension = ".sqlplan";
+            } else if (product.contains("H2")) {
+                plan = this.query(connection, "EXPLAIN " + sql, parameters);
+                extension = ".txt";
+            } else {
+                logger.info("Plan Capture Not Supported Database:[{}] Query:[{}]", product, queryName);
+                return;
+            }
+
+            Path file = this.planDir.resolve(queryName).resolve(LocalDateTime.now().format(FILE_DATE) + extension);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, plan, StandardCharsets.UTF_8);
+            logger.info("Captured Query Plan:[{}] File:[{}]", queryName, file);
+        } catch (SQLException | IOException ex) {
+            logger.warn("Failed To Capture Query Plan:[{}]", queryName, ex);
+        }
+    }
+
+    /**
+     * Com SHOWPLAN_XML ligado o SQL Server devolve o plano estimado ao invés
+     * de executar. O SET precisa ir sozinho no batch
+     */
+    private String showplanXml(Connection connection, String sql, Map<Integer, Object> parameters) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET SHOWPLAN_XML ON");
+            try {
+                return this.query(connection, sql, parameters);
+            } finally {
+                statement.execute("SET SHOWPLAN_XML OFF");
+            }
+        }
+    }
+
+    private String query(Connection connection, String sql, Map<Integer, Object> parameters) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        if (parameters.isEmpty()) {
+            try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        } else {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                    statement.setObject(parameter.getKey(), parameter.getValue());
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+            }
+        }
+        return plan.toString();
+    }
+}
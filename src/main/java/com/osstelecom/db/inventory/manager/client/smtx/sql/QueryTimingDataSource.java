@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DataSource que mede cada execução das queries nomeadas do config/jobs.yml:
+ * tempo até a primeira linha, tempo total de fetch, linhas e, com countBytes,
+ * bytes lidos (aproximado pelo tamanho dos valores lidos pela Job).
+ *
+ * Os tempos somam só o que é gasto dentro do execute* e de cada next(), ou
+ * seja, no driver e no banco. O processamento da linha pela Job entre um
+ * next() e outro não conta.
+ *
+ * Uma execução acima de thresholdMs é logada como Slow Query e, se houver
+ * QueryPlanCapture, o plano da query é gravado em disco. Os totais de cada
+ * statement são logados no close, ou seja, no fim do step.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class QueryTimingDataSource implements DataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(QueryTimingDataSource.class);
+
+    private final DataSource dataSource;
+
+    private final SqlCaptureStore store;
+
+    private final long thresholdNanos;
+
+    private final QueryPlanCapture planCapture;
+
+    private final boolean countBytes;
+
+    /**
+     *
+     * @param dataSource
+     * @param store usado para resolver o nome das queries
+     * @param thresholdMs
+     * @param planCapture null para não capturar o plano
+     * @param countBytes mede o tamanho de cada valor lido pelos get*, tem
+     * custo em todas as colunas de todas as linhas
+     */
+    public QueryTimingDataSource(DataSource dataSource, SqlCaptureStore store, long thresholdMs, QueryPlanCapture planCapture, boolean countBytes) {
+        this.dataSource = dataSource;
+        this.store = store;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.planCapture = planCapture;
+        this.countBytes = countBytes;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return this.wrapStatement(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement wrapStatement(PreparedStatement statement, String sql) {
+        String queryName = this.store.queryName(sql);
+        Map<Integer, Object> parameters = new TreeMap<>();
+        StatementStats stats = new StatementStats();
+        long[] executeNanos = {0L};
+
+        return JdbcProxies.proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (JdbcProxies.isParameterSetter(method, args)) {
+                parameters.put((Integer) args[0], args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("close") && stats.executions > 0) {
+                logger.debug("Query Stats Query:[{}] Executions:[{}] Rows:[{}] Bytes:[{}] Total:[{}] ms Max:[{}] ms Slow:[{}]", queryName,
+                        stats.executions, stats.rows, stats.bytes, TimeUnit.NANOSECONDS.toMillis(stats.totalNanos),
+                        TimeUnit.NANOSECONDS.toMillis(stats.maxNanos), stats.slow);
+            }
+            long started = System.nanoTime();
+            Object result = JdbcProxies.invoke(statement, method, args);
+            if (name.startsWith("execute")) {
+                executeNanos[0] = System.nanoTime() - started;
+            }
+            if (result instanceof ResultSet resultSet) {
+                //
+                // Com execute() o result set vem depois, pelo getResultSet
+                //
+                long nanos = executeNanos[0];
+                executeNanos[0] = 0L;
+                return this.wrapResultSet(resultSet, sql, queryName, new TreeMap<>(parameters), nanos, stats);
+            }
+            return result;
+        });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, String sql, String queryName, Map<Integer, Object> parameters, long executeNanos, StatementStats stats) {
+        Execution execution = new Execution(executeNanos);
+
+        return JdbcProxies.proxy(ResultSet.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long started = System.nanoTime();
+                Object result = JdbcProxies.invoke(resultSet, method, args);
+                execution.nanos += System.nanoTime() - started;
+                if (Boolean.TRUE.equals(result)) {
+                    if (execution.rows++ == 0) {
+                        execution.firstRowNanos = execution.nanos;
+                    }
+                } else {
+                    this.finish(execution, sql, queryName, parameters, stats);
+                }
+                return result;
+            }
+            Object result = JdbcProxies.invoke(resultSet, method, args);
+            if (this.countBytes && args != null && args.length == 1 && name.startsWith("get")) {
+                execution.bytes += sizeOf(result);
+            } else if (name.equals("close")) {
+                this.finish(execution, sql, queryName, parameters, stats);
+            }
+            return result;
+        });
+    }
+
+    private void finish(Execution execution, String sql, String queryName, Map<Integer, Object> parameters, StatementStats stats) {
+        if (execution.finished) {
+            return;
+        }
+        execution.finished = true;
+        long totalNanos = execution.nanos;
+
+        stats.executions++;
+        stats.rows += execution.rows;
+        stats.bytes += execution.bytes;
+        stats.totalNanos += totalNanos;
+        stats.maxNanos = Math.max(stats.maxNanos, totalNanos);
+        QueryCounters.add(execution.rows, execution.bytes);
+
+        if (this.thresholdNanos > 0 && totalNanos >= this.thresholdNanos) {
+            stats.slow++;
+            logger.warn("Slow Query:[{}] First Row:[{}] ms Fetch:[{}] ms Rows:[{}] Bytes:[{}] Parameters:[{}]", queryName,
+                    TimeUnit.NANOSECONDS.toMillis(execution.firstRowNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                    execution.rows, execution.bytes, parameters);
+            if (this.planCapture != null) {
+                this.planCapture.capture(queryName, sql, parameters);
+            }
+        } else {
+            logger.trace("Query Timing Query:[{}] First Row:[{}] ms Fetch:[{}] ms Rows:[{}] Bytes:[{}]", queryName,
+                    TimeUnit.NANOSECONDS.toMillis(execution.firstRowNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                    execution.rows, execution.bytes);
+        }
+    }
+
+    /**
+     * Tamanho aproximado do valor lido, em bytes (texto conta 1 byte por
+     * caractere)
+     *
+     * @param value
+     * @return
+     */
+    private static long sizeOf(Object value) {
+        if (value == null) {
+            return 0L;
+        } else if (value instanceof String text) {
+            return text.length();
+        } else if (value instanceof byte[] bytes) {
+            return bytes.length;
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return 8L;
+        }
+        return String.valueOf(value).length();
+    }
+
+    /**
+     * Uma execução da query, do execute até o fim do result set
+     */
+    private static final class Execution {
+
+        /**
+         * Tempo dentro do execute* e dos next()
+         */
+        private long nanos;
+
+        private long firstRowNanos = 0L;
+
+        private long rows = 0L;
+
+        private long bytes = 0L;
+
+        private boolean finished = false;
+
+        private Execution(long executeNanos) {
+            this.nanos = executeNanos;
+        }
+    }
+
+    /**
+     * Totais das execuções de um statement, logados no close
+     */
+    private static final class StatementStats {
+
+        private long executions = 0L;
+
+        private long rows = 0L;
+
+        private long bytes = 0L;
+
+        private long totalNanos = 0L;
+
+        private long maxNanos = 0L;
+
+        private long slow = 0L;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return this.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return this.dataSource.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DataSource que repassa tudo para o banco real e grava em disco, no formato
+ * colunar, cada result set lido pelas Jobs. Os arquivos gerados são servidos
+ * depois pelo ReplayDataSource
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class RecordingDataSource implements DataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(RecordingDataSource.class);
+
+    private final DataSource dataSource;
+
+    private final SqlCaptureStore store;
+
+    public RecordingDataSource(DataSource dataSource, SqlCaptureStore store) {
+        this.dataSource = dataSource;
+        this.store = store;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.wrapConnection(this.dataSource.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return this.wrapStatement(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement wrapStatement(PreparedStatement statement, String sql) {
+        Map<Integer, String> parameters = new TreeMap<>();
+        return JdbcProxies.proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (JdbcProxies.isParameterSetter(method, args)) {
+                parameters.put((Integer) args[0], String.valueOf(args[1]));
+            } else if (method.getName().equals("clearParameters")) {
+                parameters.clear();
+            }
+            Object result = JdbcProxies.invoke(statement, method, args);
+            if (result instanceof ResultSet resultSet) {
+                return this.wrapResultSet(resultSet, sql, new TreeMap<>(parameters));
+            }
+            return result;
+        });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, String sql, Map<Integer, String> parameters) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        int[] types = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            names[c] = metaData.getColumnLabel(c + 1);
+            types[c] = metaData.getColumnType(c + 1);
+        }
+        List<String[]> rows = new ArrayList<>();
+        boolean[] saved = {false};
+
+        return JdbcProxies.proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = JdbcProxies.invoke(resultSet, method, args);
+            if (method.getName().equals("next")) {
+                if (Boolean.TRUE.equals(result)) {
+                    String[] row = new String[columnCount];
+                    for (int c = 0; c < columnCount; c++) {
+                        row[c] = resultSet.getString(c + 1);
+                    }
+                    rows.add(row);
+                } else {
+                    this.save(saved, sql, parameters, names, types, rows, true);
+                }
+            } else if (method.getName().equals("close")) {
+                this.save(saved, sql, parameters, names, types, rows, false);
+            }
+            return result;
+        });
+    }
+
+    private void save(boolean[] saved, String sql, Map<Integer, String> parameters, String[] names, int[] types, List<String[]> rows, boolean complete) {
+        if (saved[0]) {
+            return;
+        }
+        saved[0] = true;
+        try {
+            if (!complete) {
+                logger.warn("Result Set Closed Before The End, Capture Is Partial Query:[{}]", this.store.queryName(sql));
+            }
+            ColumnarResultFile.write(this.store.captureFile(sql, parameters), names, types, rows);
+            logger.debug("Captured Query:[{}] Rows:[{}]", this.store.queryName(sql), rows.size());
+        } catch (IOException ex) {
+            logger.error("Failed To Capture Query:[{}]", this.store.queryName(sql), ex);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return this.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return this.dataSource.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DataSource que não acessa banco nenhum, serve os result sets gravados pelo
+ * RecordingDataSource pelo mesmo caminho JDBC usado pelas Jobs. Latência por
+ * query e vazão máxima de linhas por segundo são configuráveis, para simular o
+ * SQL Server de produção
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ReplayDataSource implements DataSource {
+
+    private final Logger logger = LoggerFactory.getLogger(ReplayDataSource.class);
+
+    private final SqlCaptureStore store;
+
+    private final long latencyMs;
+
+    private final long rowsPerSecond;
+
+    private int loginTimeout = 0;
+
+    private PrintWriter logWriter;
+
+    /**
+     *
+     * @param store
+     * @param latencyMs espera antes de devolver cada result set
+     * @param rowsPerSecond vazão máxima por result set, 0 para ilimitado
+     */
+    public ReplayDataSource(SqlCaptureStore store, long latencyMs, long rowsPerSecond) {
+        this.store = store;
+        this.latencyMs = latencyMs;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @Override
+    public Connection getConnection() {
+        boolean[] closed = {false};
+        return JdbcProxies.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return this.newStatement(proxy, (String) args[0]);
+                case "close":
+                    closed[0] = true;
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "isValid":
+                    return !closed[0];
+                case "getAutoCommit":
+                    return true;
+                case "isReadOnly":
+                    return true;
+                case "getTransactionIsolation":
+                    return Connection.TRANSACTION_READ_COMMITTED;
+                case "setAutoCommit":
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                case "commit":
+                case "rollback":
+                case "clearWarnings":
+                    return null;
+                case "getWarnings":
+                case "getCatalog":
+                case "getSchema":
+                    return null;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ReplayConnection[" + this.store.getCaptureDir() + "]";
+                default:
+                    throw JdbcProxies.notSupported(method);
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return this.getConnection();
+    }
+
+    private PreparedStatement newStatement(Object connection, String sql) {
+        Map<Integer, String> parameters = new TreeMap<>();
+        boolean[] closed = {false};
+        ResultSet[] current = {null};
+        return JdbcProxies.proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (JdbcProxies.isParameterSetter(method, args)) {
+                parameters.put((Integer) args[0], String.valueOf(args[1]));
+                return null;
+            }
+            switch (method.getName()) {
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "executeQuery":
+                    current[0] = this.newResultSet(proxy, sql, new TreeMap<>(parameters));
+                    return current[0];
+                case "execute":
+                    current[0] = this.newResultSet(proxy, sql, new TreeMap<>(parameters));
+                    return true;
+                case "getResultSet":
+                    return current[0];
+                case "getUpdateCount":
+                    return -1;
+                case "getMoreResults":
+                    return false;
+                case "getConnection":
+                    return connection;
+                case "close":
+                    closed[0] = true;
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "getFetchSize":
+                case "getMaxRows":
+                case "getQueryTimeout":
+                    return 0;
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setQueryTimeout":
+                case "setFetchDirection":
+                case "setEscapeProcessing":
+                case "clearWarnings":
+                    return null;
+                case "getWarnings":
+                    return null;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ReplayStatement[" + this.store.queryName(sql) + "]";
+                default:
+                    throw JdbcProxies.notSupported(method);
+            }
+        });
+    }
+
+    private ResultSet newResultSet(Object statement, String sql, Map<Integer, String> parameters) throws SQLException {
+        Path file = this.store.captureFile(sql, parameters);
+        if (!Files.exists(file)) {
+            throw new SQLException("No Capture For Query:[" + this.store.queryName(sql) + "] Parameters:" + parameters + " File:[" + file + "]");
+        }
+        ColumnarResultFile.Table table;
+        try {
+            table = ColumnarResultFile.read(file);
+        } catch (IOException ex) {
+            throw new SQLException("Failed To Read Capture File:[" + file + "]", ex);
+        }
+        if (this.latencyMs > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(this.latencyMs));
+        }
+        logger.trace("Replaying Query:[{}] Rows:[{}]", this.store.queryName(sql), table.getRowCount());
+        return new ReplayResultSet(table, statement).proxy();
+    }
+
+    /**
+     * Cursor sobre a tabela lida do arquivo. unwrap(ColumnarResultFile.Table)
+     * devolve a tabela, para quem quiser percorrer as colunas direto
+     */
+    private class ReplayResultSet {
+
+        private final ColumnarResultFile.Table table;
+        private final Object statement;
+        private final long startNanos = System.nanoTime();
+        private int row = -1;
+        private boolean wasNull = false;
+        private boolean closed = false;
+
+        private ReplayResultSet(ColumnarResultFile.Table table, Object statement) {
+            this.table = table;
+            this.statement = statement;
+        }
+
+        private ResultSet proxy() {
+            return JdbcProxies.proxy(ResultSet.class, (proxy, method, args) -> this.invoke(proxy, method, args));
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+                case "next":
+                    return this.next();
+                case "close":
+                    this.closed = true;
+                    return null;
+                case "isClosed":
+                    return this.closed;
+                case "wasNull":
+                    return this.wasNull;
+                case "findColumn":
+                    return this.findColumn((String) args[0]) + 1;
+                case "getMetaData":
+                    return this.metaData();
+                case "getStatement":
+                    return this.statement;
+                case "getRow":
+                    return this.row + 1;
+                case "isBeforeFirst":
+                    return this.row < 0 && this.table.getRowCount() > 0;
+                case "isAfterLast":
+                    return this.row >= this.table.getRowCount();
+                case "getType":
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                case "getConcurrency":
+                    return ResultSet.CONCUR_READ_ONLY;
+                case "getFetchSize":
+                    return 0;
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "clearWarnings":
+                    return null;
+                case "getWarnings":
+                    return null;
+                case "isWrapperFor":
+                    return args[0] == ColumnarResultFile.Table.class;
+                case "unwrap":
+                    if (args[0] == ColumnarResultFile.Table.class) {
+                        return this.table;
+                    }
+                    throw new SQLException("Not A Wrapper For: [" + ((Class<?>) args[0]).getName() + "]");
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ReplayResultSet";
+                default:
+                    break;
+            }
+            if (method.getName().startsWith("get") && args != null && args.length >= 1) {
+                int column = args[0] instanceof Integer index ? index - 1 : this.findColumn((String) args[0]);
+                if (this.row < 0 || this.row >= this.table.getRowCount()) {
+                    throw new SQLException("No Current Row");
+                }
+                String value = this.table.getValue(this.row, column);
+                this.wasNull = value == null;
+                return JdbcProxies.convert(method, value, this.table.getType(column));
+            }
+            throw JdbcProxies.notSupported(method);
+        }
+
+        private boolean next() {
+            if (this.row >= this.table.getRowCount()) {
+                return false;
+            }
+            this.row++;
+            if (rowsPerSecond > 0) {
+                //
+                // Segura a linha até o instante em que ela chegaria na vazão configurada
+                //
+                long due = this.startNanos + (this.row * TimeUnit.SECONDS.toNanos(1)) / rowsPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            return this.row < this.table.getRowCount();
+        }
+
+        private int findColumn(String label) throws SQLException {
+            int column = this.table.findColumn(label);
+            if (column < 0) {
+                throw new SQLException("Column Not Found: [" + label + "]");
+            }
+            return column;
+        }
+
+        private ResultSetMetaData metaData() {
+            return JdbcProxies.proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return this.table.getColumnCount();
+                    case "getColumnName":
+                    case "getColumnLabel":
+                        return this.table.getName((Integer) args[0] - 1);
+                    case "getColumnType":
+                        return this.table.getType((Integer) args[0] - 1);
+                    case "getColumnClassName":
+                        return String.class.getName();
+                    case "isNullable":
+                        return ResultSetMetaData.columnNullableUnknown;
+                    case "isWrapperFor":
+                        return false;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "ReplayResultSetMetaData";
+                    default:
+                        throw JdbcProxies.notSupported(method);
+                }
+            });
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return this.logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return this.loginTimeout;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not A Wrapper For: [" + iface.getName() + "]");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+}
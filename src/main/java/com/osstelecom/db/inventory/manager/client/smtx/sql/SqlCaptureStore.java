@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import com.osstelecom.db.inventory.manager.http.client.configuration.ConfigurationManager;
+import com.osstelecom.db.inventory.manager.jobs.JobConfiguration;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Organiza os arquivos de captura: um diretório por query nomeada do
+ * config/jobs.yml e um arquivo por combinação de parâmetros, assim as queries
+ * aninhadas (ex: getFrequencias por HOSTNAME) também podem ser reproduzidas
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class SqlCaptureStore {
+
+    private final Logger logger = LoggerFactory.getLogger(SqlCaptureStore.class);
+
+    private final Path captureDir;
+
+    private final Map<String, String> queryNames = new ConcurrentHashMap<>();
+
+    public SqlCaptureStore(Path captureDir) {
+        this.captureDir = captureDir;
+        this.loadQueryNames();
+    }
+
+    public Path getCaptureDir() {
+        return captureDir;
+    }
+
+    /**
+     * Relê o config/jobs.yml montando o mapa SQL -> nome da query
+     */
+    private void loadQueryNames() {
+        try {
+            for (JobConfiguration job : new ConfigurationManager().loadJobsFromYml("config/jobs.yml")) {
+                if (job.getQueries() != null) {
+                    job.getQueries().forEach((name, sql) -> this.queryNames.put(sql.trim(), name));
+                }
+            }
+        } catch (Exception ex) {
+            logger.warn("Failed To Read Query Names From config/jobs.yml", ex);
+        }
+    }
+
+    /**
+     * Nome da query no config/jobs.yml, ou sql-<hash> se o texto não for
+     * encontrado
+     *
+     * @param sql
+     * @return
+     */
+    public String queryName(String sql) {
+        String name = this.queryNames.get(sql.trim());
+        if (name == null) {
+            //
+            // O arquivo pode ter sido recarregado desde o start
+            //
+            this.loadQueryNames();
+            name = this.queryNames.computeIfAbsent(sql.trim(), s -> "sql-" + digest(s));
+        }
+        return name;
+    }
+
+    /**
+     * Arquivo de captura de uma execução da query com os parâmetros
+     * informados
+     *
+     * @param sql
+     * @param parameters parâmetros já convertidos para texto, por índice
+     * @return
+     */
+    public Path captureFile(String sql, Map<Integer, String> parameters) {
+        String key = parameters.isEmpty() ? "noparams" : digest(parameters.toString());
+        return this.captureDir.resolve(this.queryName(sql)).resolve(key + ".col");
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+}
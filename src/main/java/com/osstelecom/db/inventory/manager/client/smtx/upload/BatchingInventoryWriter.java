@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Acumula os add* das Jobs e entrega ao destino em lotes. O lote é enviado
+ * quando atinge batchSize objetos ou quando o objeto mais antigo passa de
+ * maxAgeMs (verificado a cada add), e no close.
+ *
+ * O lote é entregue pelos métodos add*s do destino, uma chamada por sequência
+ * do mesmo tipo, na ordem dos add*: uma conexão nunca chega antes do recurso
+ * que foi adicionado antes dela. O export grava a sequência de uma vez e o
+ * limite de envio reserva a sequência inteira, na fila do cliente os objetos
+ * ainda entram um a um.
+ *
+ * Uma sequência com erro não impede a entrega das demais. Os erros voltam
+ * como IOException para quem disparou o flush (o add* que completou o lote ou
+ * o close), assim a Job conta o erro na execução.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class BatchingInventoryWriter implements InventoryWriter {
+
+    private static final byte RESOURCE = 0;
+    private static final byte CONNECTION = 1;
+    private static final byte CIRCUIT = 2;
+    private static final byte PATH = 3;
+    private static final String[] TYPE_NAMES = {"resource", "connection", "circuit", "path"};
+
+    private final Logger logger = LoggerFactory.getLogger(BatchingInventoryWriter.class);
+
+    private final InventoryWriter delegate;
+
+    private final String sessionName;
+
+    private final int batchSize;
+
+    private final long maxAgeNanos;
+
+    private final List<Object> pending;
+
+    private final byte[] pendingTypes;
+
+    private long oldestPendingNanos = 0L;
+
+    private long batches = 0L;
+
+    private long ageFlushes = 0L;
+
+    private long objects = 0L;
+
+    private long failedObjects = 0L;
+
+    private long failedRuns = 0L;
+
+    public BatchingInventoryWriter(InventoryWriter delegate, String sessionName, int batchSize, long maxAgeMs) {
+        this.delegate = delegate;
+        this.sessionName = sessionName;
+        this.batchSize = batchSize;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        this.pending = new ArrayList<>(batchSize);
+        this.pendingTypes = new byte[batchSize];
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(RESOURCE, resource);
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(CONNECTION, connection);
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(CIRCUIT, circuit);
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(PATH, circuitPath);
+    }
+
+    private synchronized void add(byte type, Object value) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        long now = System.nanoTime();
+        if (this.pending.isEmpty()) {
+            this.oldestPendingNanos = now;
+        }
+        this.pendingTypes[this.pending.size()] = type;
+        this.pending.add(value);
+        if (this.pending.size() >= this.batchSize) {
+            this.flush();
+        } else if (this.maxAgeNanos > 0 && now - this.oldestPendingNanos >= this.maxAgeNanos) {
+            this.ageFlushes++;
+            this.flush();
+        }
+    }
+
+    /**
+     * Entrega o lote pendente ao destino, uma chamada add*s por sequência do
+     * mesmo tipo
+     *
+     * @throws IOException com as sequências que falharam, a primeira como
+     * causa e as demais como suppressed
+     */
+    public synchronized void flush() throws IOException {
+        int size = this.pending.size();
+        if (size == 0) {
+            return;
+        }
+        IOException failure = null;
+        try {
+            int start = 0;
+            while (start < size) {
+                byte type = this.pendingTypes[start];
+                int end = start + 1;
+                while (end < size && this.pendingTypes[end] == type) {
+                    end++;
+                }
+                try {
+                    this.flushRun(type, this.pending.subList(start, end));
+                } catch (SQLException | IOException | InvalidRequestException | LocalQueueException | RuntimeException ex) {
+                    this.failedRuns++;
+                    this.failedObjects += end - start;
+                    IOException runFailure = new IOException("Batch Run Failed Session:[" + this.sessionName + "] Type:[" + TYPE_NAMES[type]
+                            + "] Objects:[" + (end - start) + "]", ex);
+                    if (failure == null) {
+                        failure = runFailure;
+                    } else {
+                        failure.addSuppressed(runFailure);
+                    }
+                }
+                start = end;
+            }
+        } finally {
+            this.batches++;
+            this.objects += size;
+            this.pending.clear();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flushRun(byte type, List<?> run) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        switch (type) {
+            case RESOURCE:
+                this.delegate.addManagedResources((List<ManagedResource>) run);
+                break;
+            case CONNECTION:
+                this.delegate.addResourceConnections((List<ResourceConnection>) run);
+                break;
+            case CIRCUIT:
+                this.delegate.addCircuitResources((List<CircuitResource>) run);
+                break;
+            default:
+                this.delegate.addCircuitPaths((List<CircuitPathDTO>) run);
+                break;
+        }
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.delegate.getWrittenCount();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            logger.info("Batching Session:[{}] Objects:[{}] Failed:[{}] Failed Runs:[{}] Batches:[{}] Age Flushes:[{}] Avg Batch Size:[{}]", this.sessionName,
+                    this.objects, this.failedObjects, this.failedRuns, this.batches, this.ageFlushes, this.batches == 0 ? 0 : this.objects / this.batches);
+            this.delegate.close();
+        }
+    }
+}
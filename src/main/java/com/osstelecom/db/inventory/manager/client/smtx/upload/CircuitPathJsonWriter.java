@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serializa um CircuitPathDTO direto no JsonWriter, conexão por conexão, sem
+ * montar a árvore JSON nem a String do path inteiro. Os paths de OMS/OCH/ODU
+ * copiam os paths das camadas de baixo e chegam a centenas de conexões.
+ *
+ * Os demais campos do DTO (tudo menos circuit e paths) são escritos pelo
+ * próprio Gson, então o resultado é o mesmo de gson.toJson(circuitPath), só
+ * que com paths no fim do objeto.
+ *
+ * Com keysOnly cada conexão do path é escrita só com a sua identificação
+ * (key e nodeAddress), as conexões completas já foram enviadas pelos steps
+ * anteriores.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class CircuitPathJsonWriter {
+
+    private static final String CIRCUIT = "circuit";
+
+    private static final String PATHS = "paths";
+
+    private final Gson gson;
+
+    /**
+     * Gson que ignora circuit e paths do CircuitPathDTO, usado para os demais
+     * campos
+     */
+    private final Gson headGson;
+
+    private final boolean keysOnly;
+
+    public CircuitPathJsonWriter(Gson gson, boolean keysOnly) {
+        this.gson = gson;
+        this.keysOnly = keysOnly;
+        this.headGson = gson.newBuilder().addSerializationExclusionStrategy(new ExclusionStrategy() {
+            @Override
+            public boolean shouldSkipField(FieldAttributes field) {
+                return field.getDeclaringClass() == CircuitPathDTO.class
+                        && (CIRCUIT.equals(field.getName()) || PATHS.equals(field.getName()));
+            }
+
+            @Override
+            public boolean shouldSkipClass(Class<?> clazz) {
+                return false;
+            }
+        }).create();
+    }
+
+    public void write(JsonWriter out, CircuitPathDTO circuitPath) throws IOException {
+        out.beginObject();
+        out.name(CIRCUIT);
+        if (circuitPath.getCircuit() == null) {
+            out.nullValue();
+        } else {
+            this.gson.toJson(circuitPath.getCircuit(), CircuitResource.class, out);
+        }
+        //
+        // Campos que não são circuit nem paths, pelo tipo real do objeto
+        //
+        JsonElement head = this.headGson.toJsonTree(circuitPath);
+        if (head != null && head.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> field : ((JsonObject) head).entrySet()) {
+                if (!CIRCUIT.equals(field.getKey()) && !PATHS.equals(field.getKey())) {
+                    out.name(field.getKey());
+                    this.gson.toJson(field.getValue(), out);
+                }
+            }
+        }
+        out.name(PATHS);
+        if (circuitPath.getPaths() == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (ResourceConnection connection : circuitPath.getPaths()) {
+                if (connection == null) {
+                    out.nullValue();
+                } else if (this.keysOnly) {
+                    this.writeKey(out, connection);
+                } else {
+                    this.gson.toJson(connection, ResourceConnection.class, out);
+                }
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    private void writeKey(JsonWriter out, ResourceConnection connection) throws IOException {
+        out.beginObject();
+        if (connection.getKey() != null) {
+            out.name("key").value(connection.getKey());
+        }
+        if (connection.getNodeAddress() != null) {
+            out.name("nodeAddress").value(connection.getNodeAddress());
+        }
+        out.endObject();
+    }
+
+    public boolean isKeysOnly() {
+        return keysOnly;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fachada thread-safe na frente do writer da sessão, para vários produtores
+ * (workers de um step) alimentarem a mesma sessão de carga.
+ *
+ * Cada thread acumula os add* em um buffer próprio (sem lock). O buffer cheio
+ * vai para uma fila lock-free e quem conseguir o lock do destino (tryLock)
+ * entrega os buffers da fila, as outras threads seguem produzindo ao invés de
+ * esperar um lock global. Só quando há buffers demais esperando o produtor
+ * aguarda o lock, para não acumular memória sem limite.
+ *
+ * A ordem dos add* de cada thread é mantida, entre threads não. O flush junta
+ * os buffers de todas as threads no destino e deve ser chamado com os
+ * produtores parados (ex: depois do close do PartitionedRowProcessor).
+ *
+ * Os objetos de um buffer são entregues um a um, o erro de um objeto não
+ * impede a entrega dos demais. Quem entrega pode ser qualquer thread, então
+ * o erro não volta para o add* que o produziu: é contado e repassado ao
+ * errorHandler, que nas Jobs é o JobRunRecorder.error (log amostrado e
+ * contagem por step).
+ *
+ * O close faz o flush e fecha o destino.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ConcurrentInventoryWriter implements InventoryWriter {
+
+    private static final byte RESOURCE = 0;
+    private static final byte CONNECTION = 1;
+    private static final byte CIRCUIT = 2;
+    private static final byte PATH = 3;
+    private static final String[] TYPE_NAMES = {"resource", "connection", "circuit", "path"};
+
+    private final Logger logger = LoggerFactory.getLogger(ConcurrentInventoryWriter.class);
+
+    private final InventoryWriter delegate;
+
+    private final String sessionName;
+
+    private final int stageSize;
+
+    private final int maxReady;
+
+    /**
+     * Buffers cheios aguardando entrega
+     */
+    private final ConcurrentLinkedQueue<Stage> ready = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger readyCount = new AtomicInteger();
+
+    /**
+     * Buffers de todas as threads, para o flush
+     */
+    private final ConcurrentLinkedQueue<Stage> stages = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<Stage> stage;
+
+    private final ReentrantLock delegateLock = new ReentrantLock();
+
+    private long delivered = 0L;
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong contended = new AtomicLong();
+
+    /**
+     * Recebe a mensagem e o erro de cada objeto recusado pelo destino
+     */
+    private volatile BiConsumer<String, Throwable> errorHandler;
+
+    /**
+     *
+     * @param delegate
+     * @param sessionName
+     * @param stageSize objetos por buffer de thread
+     * @param maxReady buffers cheios aguardando antes do produtor esperar
+     */
+    public ConcurrentInventoryWriter(InventoryWriter delegate, String sessionName, int stageSize, int maxReady) {
+        this.delegate = delegate;
+        this.sessionName = sessionName;
+        this.stageSize = Math.max(1, stageSize);
+        this.maxReady = Math.max(1, maxReady);
+        this.stage = ThreadLocal.withInitial(() -> {
+            Stage created = new Stage(Thread.currentThread(), this.stageSize);
+            this.stages.add(created);
+            return created;
+        });
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(RESOURCE, resource);
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(CONNECTION, connection);
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(CIRCUIT, circuit);
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.add(PATH, circuitPath);
+    }
+
+    private void add(byte type, Object value) {
+        Stage current = this.stage.get();
+        current.add(type, value);
+        if (current.size >= this.stageSize) {
+            this.ready.add(current.detach());
+            this.readyCount.incrementAndGet();
+            this.deliver(this.readyCount.get() > this.maxReady);
+        }
+    }
+
+    /**
+     * Entrega os buffers da fila. Sem wait só entrega se o destino estiver
+     * livre, quem está com o lock entrega também os buffers que chegarem
+     * enquanto isso
+     *
+     * @param wait
+     */
+    private void deliver(boolean wait) {
+        while (!this.ready.isEmpty()) {
+            if (wait) {
+                this.delegateLock.lock();
+            } else if (!this.delegateLock.tryLock()) {
+                this.contended.incrementAndGet();
+                return;
+            }
+            try {
+                Stage batch;
+                while ((batch = this.ready.poll()) != null) {
+                    this.readyCount.decrementAndGet();
+                    this.write(batch);
+                }
+            } finally {
+                this.delegateLock.unlock();
+            }
+        }
+    }
+
+    private void write(Stage batch) {
+        for (int i = 0; i < batch.size; i++) {
+            byte type = batch.types[i];
+            try {
+                switch (type) {
+                    case RESOURCE:
+                        this.delegate.addManagedResource((ManagedResource) batch.values[i]);
+                        break;
+                    case CONNECTION:
+                        this.delegate.addResourceConnection((ResourceConnection) batch.values[i]);
+                        break;
+                    case CIRCUIT:
+                        this.delegate.addCircuitResource((CircuitResource) batch.values[i]);
+                        break;
+                    default:
+                        this.delegate.addCircuitPath((CircuitPathDTO) batch.values[i]);
+                        break;
+                }
+            } catch (SQLException | IOException | InvalidRequestException | LocalQueueException | RuntimeException ex) {
+                this.failed.incrementAndGet();
+                BiConsumer<String, Throwable> handler = this.errorHandler;
+                if (handler != null) {
+                    handler.accept("Staged Object Failed Session:[" + this.sessionName + "] Type:[" + TYPE_NAMES[type] + "]", ex);
+                } else {
+                    logger.error("Staged Object Failed Session:[{}] Type:[{}]", this.sessionName, TYPE_NAMES[type], ex);
+                }
+            }
+        }
+        this.delivered += batch.size;
+    }
+
+    /**
+     * Junta os buffers de todas as threads no destino. Os produtores devem
+     * estar parados
+     */
+    public void flush() {
+        List<Stage> finished = new ArrayList<>();
+        for (Stage staged : this.stages) {
+            if (staged.size > 0) {
+                this.ready.add(staged.detach());
+                this.readyCount.incrementAndGet();
+            }
+            if (!staged.owner.isAlive()) {
+                finished.add(staged);
+            }
+        }
+        this.stages.removeAll(finished);
+        this.deliver(true);
+    }
+
+    /**
+     * Destino dos erros de entrega, sem handler os erros são logados
+     *
+     * @param errorHandler
+     */
+    public void setErrorHandler(BiConsumer<String, Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Objetos que o destino recusou
+     *
+     * @return
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.delegate.getWrittenCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            logger.info("Concurrent Writer Session:[{}] Objects:[{}] Failed:[{}] Threads:[{}] Contended Deliveries:[{}]", this.sessionName,
+                    this.delivered, this.failed.get(), this.stages.size(), this.contended.get());
+            this.delegate.close();
+        }
+    }
+
+    /**
+     * Buffer de uma thread, tipos e objetos na ordem dos add*
+     */
+    private static final class Stage {
+
+        private final Thread owner;
+
+        private final int capacity;
+
+        private Object[] values;
+
+        private byte[] types;
+
+        private int size = 0;
+
+        private Stage(Thread owner, int capacity) {
+            this.owner = owner;
+            this.capacity = capacity;
+            this.values = new Object[capacity];
+            this.types = new byte[capacity];
+        }
+
+        private Stage(Thread owner, Object[] values, byte[] types, int size) {
+            this.owner = owner;
+            this.capacity = values.length;
+            this.values = values;
+            this.types = types;
+            this.size = size;
+        }
+
+        private void add(byte type, Object value) {
+            this.types[this.size] = type;
+            this.values[this.size] = value;
+            this.size++;
+        }
+
+        /**
+         * Entrega o conteúdo como um novo Stage e recomeça vazio
+         *
+         * @return
+         */
+        private Stage detach() {
+            Stage full = new Stage(this.owner, this.values, this.types, this.size);
+            this.values = new Object[this.capacity];
+            this.types = new byte[this.capacity];
+            this.size = 0;
+            return full;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.Hash64;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.LongHashSet;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Descarta os add* repetidos antes de chegarem na fila local do cliente. As
+ * conexões estruturais (equipamento->shelf, shelf->slot, slot->porta) e as
+ * cadeias dos circuitos DWDM são remontadas a cada linha das queries, então o
+ * mesmo objeto é enviado várias vezes na mesma execução.
+ *
+ * A chave é um hash de 64 bits do JSON do objeto (o mesmo que iria para a
+ * fila), então só são descartadas cópias idênticas. Um mesmo objeto pode
+ * voltar com atributos diferentes, como as antenas do SMTXRadioJob, uma linha
+ * por polarização, e nesse caso continua sendo enviado. O Gson escreve direto
+ * no Hash64, sem montar a String, mas é uma serialização a mais por add*, por
+ * isso smtx.upload.dedup vem desligado. Os hashes ficam num LongHashSet, 8
+ * bytes por objeto, válido só durante a execução da Job.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class DeduplicatingInventoryWriter implements InventoryWriter {
+
+    private final Logger logger = LoggerFactory.getLogger(DeduplicatingInventoryWriter.class);
+
+    private final InventoryWriter delegate;
+
+    private final Gson gson;
+
+    private final String sessionName;
+
+    private final LongHashSet seen = new LongHashSet(1 << 16);
+
+    private final long[] added = new long[4];
+
+    private final long[] dropped = new long[4];
+
+    private static final int RESOURCE = 0;
+    private static final int CONNECTION = 1;
+    private static final int CIRCUIT = 2;
+    private static final int PATH = 3;
+    private static final String[] TYPE_NAMES = {"resource", "connection", "circuit", "path"};
+
+    public DeduplicatingInventoryWriter(InventoryWriter delegate, Gson gson, String sessionName) {
+        this.delegate = delegate;
+        this.gson = gson;
+        this.sessionName = sessionName;
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.firstSeen(RESOURCE, resource)) {
+            this.delegate.addManagedResource(resource);
+        }
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.firstSeen(CONNECTION, connection)) {
+            this.delegate.addResourceConnection(connection);
+        }
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.firstSeen(CIRCUIT, circuit)) {
+            this.delegate.addCircuitResource(circuit);
+        }
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.firstSeen(PATH, circuitPath)) {
+            this.delegate.addCircuitPath(circuitPath);
+        }
+    }
+
+    /**
+     * Calcula o hash do objeto e registra no seen-set
+     *
+     * @param type
+     * @param object
+     * @return true se é a primeira vez que o objeto aparece
+     */
+    private boolean firstSeen(int type, Object object) {
+        Hash64 hash = new Hash64();
+        hash.append((char) ('0' + type));
+        this.gson.toJson(object, hash);
+        long key = hash.value();
+        synchronized (this.seen) {
+            if (this.seen.add(key)) {
+                this.added[type]++;
+                return true;
+            }
+            this.dropped[type]++;
+            return false;
+        }
+    }
+
+    /**
+     * Quantidade de add* descartados por serem repetidos
+     *
+     * @return
+     */
+    public long getDropped() {
+        synchronized (this.seen) {
+            return this.dropped[RESOURCE] + this.dropped[CONNECTION] + this.dropped[CIRCUIT] + this.dropped[PATH];
+        }
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.delegate.getWrittenCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.seen) {
+            for (int type = 0; type < TYPE_NAMES.length; type++) {
+                long total = this.added[type] + this.dropped[type];
+                if (total > 0) {
+                    logger.info("Dedup Session:[{}] Type:[{}] Added:[{}] Dropped:[{}] Rate:[{}%]", this.sessionName, TYPE_NAMES[type],
+                            this.added[type], this.dropped[type], String.format("%.1f", this.dropped[type] * 100.0 / total));
+                }
+            }
+            logger.debug("Dedup Session:[{}] Keys:[{}] Memory:[{}] bytes", this.sessionName, this.seen.size(), this.seen.memoryBytes());
+            this.seen.clear();
+        }
+        this.delegate.close();
+    }
+}
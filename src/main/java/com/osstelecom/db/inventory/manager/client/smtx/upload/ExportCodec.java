@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codec dos chunks do arquivo de export (smtx.export.codec):
+ *
+ * gzip: deflate no nível padrão, melhor taxa para mandar pelo link WAN
+ *
+ * gzip-fast: deflate no nível 1, bem mais rápido e ainda pega a maior parte
+ * da repetição (domain, className, chaves dos atributos, "N/A")
+ *
+ * none: sem compressão
+ *
+ * Os dois gzip geram o mesmo formato, o índice só registra o formato
+ *
+ * Vale só para os arquivos do export. O corpo das requisições do
+ * netcompassApiClient.upload() continua sem compressão: o HTTP é do
+ * NetcompassAPIClient, que não expõe como trocar o encoding do corpo. Onde o
+ * link WAN é o limite, o export roda no coletor e o upload-from-file perto do
+ * Netcompass, assim só os chunks comprimidos passam pelo link.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public enum ExportCodec {
+
+    GZIP("gzip", "gzip", Deflater.DEFAULT_COMPRESSION),
+    GZIP_FAST("gzip-fast", "gzip", Deflater.BEST_SPEED),
+    NONE("none", "none", Deflater.NO_COMPRESSION);
+
+    private final String codecName;
+
+    private final String format;
+
+    private final int level;
+
+    private ExportCodec(String codecName, String format, int level) {
+        this.codecName = codecName;
+        this.format = format;
+        this.level = level;
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    /**
+     * Formato gravado no cabeçalho do índice
+     *
+     * @return
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    public String getExtension() {
+        return this.isCompressed() ? ".ndjson.gz" : ".ndjson";
+    }
+
+    public boolean isCompressed() {
+        return !this.format.equals("none");
+    }
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        if (!this.isCompressed()) {
+            return out;
+        }
+        return new GZIPOutputStream(out, 64 * 1024) {
+            {
+                this.def.setLevel(level);
+            }
+        };
+    }
+
+    public InputStream unwrap(InputStream in) throws IOException {
+        return this.isCompressed() ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * Codec pelo nome da configuração
+     *
+     * @param codecName
+     * @return
+     */
+    public static ExportCodec fromName(String codecName) {
+        for (ExportCodec codec : values()) {
+            if (codec.codecName.equalsIgnoreCase(codecName)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Export Codec: [" + codecName + "]");
+    }
+
+    /**
+     * Codec de leitura pelo formato do cabeçalho do índice
+     *
+     * @param format
+     * @return
+     */
+    public static ExportCodec fromFormat(String format) {
+        for (ExportCodec codec : values()) {
+            if (codec.format.equals(format)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Export Format: [" + format + "]");
+    }
+}
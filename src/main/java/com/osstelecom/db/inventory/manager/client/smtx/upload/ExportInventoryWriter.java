@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Grava o inventário montado pela Job em um arquivo NDJSON comprimido, para
+ * ser enviado depois com o modo upload-from-file.
+ *
+ * O arquivo é uma sequência de chunks independentes comprimidos pelo
+ * ExportCodec configurado (com gzip o arquivo inteiro continua legível com
+ * zcat), cada chunk já comprimido em memória é gravado com uma escrita
+ * posicional no FileChannel. O arquivo de índice (.idx) guarda offset, tamanho e número de registros de cada chunk,
+ * permitindo a leitura em paralelo, e só é gravado no close, então a presença
+ * dele indica que o export terminou.
+ *
+ * Cada linha: {"type":"resource|connection|circuit|path","data":{...}}
+ *
+ * Os registros são serializados em streaming direto no gzip do chunk, os
+ * paths de circuito pelo CircuitPathJsonWriter
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ExportInventoryWriter implements InventoryWriter {
+
+    static final String INDEX_HEADER_PREFIX = "#smtx-export v1 ";
+    static final String RESOURCE = "resource";
+    static final String CONNECTION = "connection";
+    static final String CIRCUIT = "circuit";
+    static final String PATH = "path";
+
+    private final Logger logger = LoggerFactory.getLogger(ExportInventoryWriter.class);
+
+    private final Gson gson;
+
+    private final Path dataFile;
+
+    private final Path indexFile;
+
+    private final int chunkSize;
+
+    private final CircuitPathJsonWriter pathWriter;
+
+    private final ExportCodec codec;
+
+    private final FileChannel channel;
+
+    private final List<String> index = new ArrayList<>();
+
+    private ByteArrayOutputStream chunkBuffer;
+
+    private Writer chunkWriter;
+
+    private CountingWriter recordWriter;
+
+    private long position = 0L;
+
+    private long chunkRawBytes = 0L;
+
+    private long chunkRecords = 0L;
+
+    private long totalRawBytes = 0L;
+
+    private long totalRecords = 0L;
+
+    private long encodeNanos = 0L;
+
+    public ExportInventoryWriter(Gson gson, Path dataFile, Path indexFile, int chunkSize, CircuitPathJsonWriter pathWriter, ExportCodec codec) throws IOException {
+        this.gson = gson;
+        this.codec = codec;
+        this.pathWriter = pathWriter;
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.chunkSize = chunkSize;
+        //
+        // Remove o índice antigo primeiro, assim um export interrompido nunca
+        // fica com cara de completo
+        //
+        Files.deleteIfExists(indexFile);
+        this.channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.newChunk();
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws IOException {
+        this.write(RESOURCE, resource);
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws IOException {
+        this.write(CONNECTION, connection);
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws IOException {
+        this.write(CIRCUIT, circuit);
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws IOException {
+        this.write(PATH, circuitPath);
+    }
+
+    @Override
+    public void addManagedResources(List<ManagedResource> resources) throws IOException {
+        this.writeAll(RESOURCE, resources);
+    }
+
+    @Override
+    public void addResourceConnections(List<ResourceConnection> connections) throws IOException {
+        this.writeAll(CONNECTION, connections);
+    }
+
+    @Override
+    public void addCircuitResources(List<CircuitResource> circuits) throws IOException {
+        this.writeAll(CIRCUIT, circuits);
+    }
+
+    @Override
+    public void addCircuitPaths(List<CircuitPathDTO> circuitPaths) throws IOException {
+        this.writeAll(PATH, circuitPaths);
+    }
+
+    /**
+     * Grava o lote inteiro pegando o lock uma vez só
+     *
+     * @param type
+     * @param values
+     * @throws IOException
+     */
+    private synchronized void writeAll(String type, List<?> values) throws IOException {
+        for (Object value : values) {
+            this.write(type, value);
+        }
+    }
+
+    private synchronized void write(String type, Object value) throws IOException {
+        long start = System.nanoTime();
+        long before = this.recordWriter.getCount();
+        JsonWriter json = this.gson.newJsonWriter(this.recordWriter);
+        json.beginObject();
+        json.name("type").value(type);
+        json.name("data");
+        if (value instanceof CircuitPathDTO circuitPath) {
+            this.pathWriter.write(json, circuitPath);
+        } else {
+            this.gson.toJson(value, value.getClass(), json);
+        }
+        json.endObject();
+        this.recordWriter.write('\n');
+        this.chunkRawBytes += this.recordWriter.getCount() - before;
+        this.chunkRecords++;
+        if (this.chunkRawBytes >= this.chunkSize) {
+            this.flushChunk();
+        }
+        this.encodeNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public synchronized long getWrittenCount() {
+        return this.totalRecords + this.chunkRecords;
+    }
+
+    private void newChunk() throws IOException {
+        this.chunkBuffer = new ByteArrayOutputStream(this.chunkSize / 4);
+        this.chunkWriter = new OutputStreamWriter(this.codec.wrap(this.chunkBuffer), StandardCharsets.UTF_8);
+        this.recordWriter = new CountingWriter(this.chunkWriter);
+        this.chunkRawBytes = 0L;
+        this.chunkRecords = 0L;
+    }
+
+    /**
+     * Finaliza a compressão do chunk atual e grava no arquivo
+     *
+     * @throws IOException
+     */
+    private void flushChunk() throws IOException {
+        if (this.chunkRecords == 0) {
+            return;
+        }
+        this.chunkWriter.close();
+        byte[] compressed = this.chunkBuffer.toByteArray();
+        ByteBuffer buffer = ByteBuffer.wrap(compressed);
+        long offset = this.position;
+        while (buffer.hasRemaining()) {
+            offset += this.channel.write(buffer, offset);
+        }
+
+        this.index.add(this.position + " " + compressed.length + " " + this.chunkRecords);
+        this.position += compressed.length;
+        this.totalRawBytes += this.chunkRawBytes;
+        this.totalRecords += this.chunkRecords;
+        this.newChunk();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            this.flushChunk();
+            this.channel.force(true);
+        } finally {
+            this.channel.close();
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(INDEX_HEADER_PREFIX + this.codec.getFormat());
+        lines.addAll(this.index);
+        Files.write(this.indexFile, lines, StandardCharsets.UTF_8);
+        logger.info("Export Done File:[{}] Codec:[{}] Records:[{}] Chunks:[{}] Raw Bytes:[{}] Compressed Bytes:[{}] Ratio:[{}] Encode Time:[{}] ms",
+                this.dataFile, this.codec.getCodecName(), this.totalRecords, this.index.size(), this.totalRawBytes, this.position,
+                String.format("%.2f", this.position == 0 ? 0.0 : (double) this.totalRawBytes / this.position), this.encodeNanos / 1_000_000L);
+    }
+
+    /**
+     * Conta os chars escritos no chunk. O flush e o close não são repassados,
+     * quem finaliza a compressão é o flushChunk
+     */
+    private static class CountingWriter extends Writer {
+
+        private final Writer delegate;
+
+        private long count = 0L;
+
+        private CountingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            this.delegate.write(buffer, offset, length);
+            this.count += length;
+        }
+
+        @Override
+        public void write(String value, int offset, int length) throws IOException {
+            this.delegate.write(value, offset, length);
+            this.count += length;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            this.delegate.write(c);
+            this.count++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private long getCount() {
+            return this.count;
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ajusta o flushThreads de cada sessão de carga com base no upload anterior
+ * (AIMD). O NetcompassAPIClient fixa a concorrência no initLoadSession, então
+ * o ajuste é feito entre uma execução e a próxima:
+ *
+ * upload ok e objetos/s não caiu mais que a tolerância: +1 thread
+ *
+ * upload falhou, ou o aumento anterior derrubou os objetos/s (servidor
+ * saturado): threads * decrease-factor
+ *
+ * Sempre entre min-threads e max-threads. O estado fica em state-file para
+ * valer também nas execuções one-shot (exit).
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class FlushConcurrencyController {
+
+    private final Logger logger = LoggerFactory.getLogger(FlushConcurrencyController.class);
+
+    @Value("${smtx.upload.adaptive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${smtx.upload.adaptive.min-threads:1}")
+    private int minThreads;
+
+    @Value("${smtx.upload.adaptive.max-threads:16}")
+    private int maxThreads;
+
+    @Value("${smtx.upload.adaptive.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${smtx.upload.adaptive.tolerance:0.1}")
+    private double tolerance;
+
+    @Value("${smtx.upload.adaptive.state-file:config/flush-threads.properties}")
+    private String stateFile;
+
+    /**
+     * flushThreads da sessão para a próxima carga. Na primeira execução usa o
+     * valor do config/jobs.yml
+     *
+     * @param sessionName
+     * @param configured flushThreads do config/jobs.yml
+     * @return
+     */
+    public synchronized Integer flushThreadsFor(String sessionName, Integer configured) {
+        if (!this.enabled) {
+            return configured;
+        }
+        Properties state = this.loadState();
+        String current = state.getProperty(sessionName + ".threads");
+        int threads = current != null ? Integer.parseInt(current) : (configured != null ? configured : this.minThreads);
+        threads = this.clamp(threads);
+        logger.info("Adaptive Flush Session:[{}] Threads:[{}]", sessionName, threads);
+        return threads;
+    }
+
+    /**
+     * Executa o upload medindo o tempo e ajusta o flushThreads da próxima
+     * execução
+     *
+     * @param sessionName
+     * @param netcompassApiClient
+     * @param threads flushThreads usado no initLoadSession
+     * @param objects objetos enfileirados para o upload
+     */
+    public void upload(String sessionName, NetcompassAPIClient netcompassApiClient, Integer threads, long objects) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            netcompassApiClient.upload();
+            failed = false;
+        } finally {
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+            logger.info("Upload Done Session:[{}] Threads:[{}] Objects:[{}] Took:[{}] ms Failed:[{}]", sessionName, threads, objects, elapsedMs, failed);
+            if (this.enabled && threads != null) {
+                this.record(sessionName, threads, objects, elapsedMs, failed);
+            }
+        }
+    }
+
+    private synchronized void record(String sessionName, int threads, long objects, long elapsedMs, boolean failed) {
+        Properties state = this.loadState();
+        double throughput = objects * 1000.0 / elapsedMs;
+        double lastThroughput = Double.parseDouble(state.getProperty(sessionName + ".throughput", "0"));
+        int lastThreads = Integer.parseInt(state.getProperty(sessionName + ".last-threads", "0"));
+
+        int next;
+        String reason;
+        if (failed) {
+            next = (int) Math.floor(threads * this.decreaseFactor);
+            reason = "Upload Failed";
+        } else if (lastThroughput > 0 && threads > lastThreads && throughput < lastThroughput * (1 - this.tolerance)) {
+            next = (int) Math.floor(threads * this.decreaseFactor);
+            reason = "Throughput Dropped";
+        } else {
+            next = threads + 1;
+            reason = "Throughput OK";
+        }
+        next = this.clamp(next);
+        logger.info("Adaptive Flush Session:[{}] Threads:[{}] -> [{}] Reason:[{}] Objects/s:[{}] Last:[{}]", sessionName, threads, next, reason,
+                String.format("%.1f", throughput), String.format("%.1f", lastThroughput));
+
+        state.setProperty(sessionName + ".threads", Integer.toString(next));
+        state.setProperty(sessionName + ".last-threads", Integer.toString(threads));
+        if (!failed) {
+            state.setProperty(sessionName + ".throughput", Double.toString(throughput));
+        }
+        this.saveState(state);
+    }
+
+    private int clamp(int threads) {
+        return Math.max(this.minThreads, Math.min(this.maxThreads, threads));
+    }
+
+    private Properties loadState() {
+        Properties state = new Properties();
+        Path path = Paths.get(this.stateFile);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                state.load(reader);
+            } catch (IOException | IllegalArgumentException ex) {
+                logger.warn("Failed To Read Adaptive Flush State:[{}], Starting Over", path);
+            }
+        }
+        return state;
+    }
+
+    private void saveState(Properties state) {
+        Path path = Paths.get(this.stateFile);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                state.store(writer, "smtx adaptive flush threads");
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed To Save Adaptive Flush State:[{}]", path, ex);
+        }
+    }
+}
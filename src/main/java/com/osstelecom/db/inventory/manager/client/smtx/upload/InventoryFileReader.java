@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lê o arquivo gerado pelo ExportInventoryWriter. Os chunks são
+ * descomprimidos e desserializados em paralelo, mas aplicados no destino na
+ * ordem original, assim recursos continuam chegando antes das conexões e
+ * circuitos que dependem deles.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class InventoryFileReader {
+
+    private final Logger logger = LoggerFactory.getLogger(InventoryFileReader.class);
+
+    private final Gson gson;
+
+    private final int readerThreads;
+
+    public InventoryFileReader(Gson gson, int readerThreads) {
+        this.gson = gson;
+        this.readerThreads = Math.max(1, readerThreads);
+    }
+
+    /**
+     * Carrega o arquivo no destino
+     *
+     * @param dataFile
+     * @param indexFile
+     * @param target
+     * @return número de registros aplicados
+     * @throws IOException
+     */
+    public long load(Path dataFile, Path indexFile, InventoryWriter target) throws IOException {
+        if (!Files.exists(indexFile)) {
+            throw new IOException("Export Index Not Found: [" + indexFile + "], Export Incomplete?");
+        }
+        ExportCodec codec = readCodec(indexFile);
+        List<long[]> chunks = this.readIndex(indexFile);
+        logger.info("Loading Export File:[{}] Codec:[{}] Chunks:[{}] Reader Threads:[{}]", dataFile, codec.getFormat(), chunks.size(), this.readerThreads);
+
+        long applied = 0L;
+        ExecutorService readers = Executors.newFixedThreadPool(this.readerThreads);
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            //
+            // Janela limitada de chunks em memória, para não descomprimir o arquivo inteiro
+            //
+            Deque<Future<List<ExportRecord>>> window = new ArrayDeque<>();
+            int next = 0;
+            while (next < chunks.size() || !window.isEmpty()) {
+                while (next < chunks.size() && window.size() < this.readerThreads * 2) {
+                    long[] chunk = chunks.get(next++);
+                    window.add(readers.submit(() -> this.decodeChunk(channel, codec, chunk[0], (int) chunk[1])));
+                }
+                for (ExportRecord record : window.poll().get()) {
+                    if (this.apply(target, record)) {
+                        applied++;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted Loading Export File", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed To Decode Export Chunk", ex.getCause());
+        } finally {
+            readers.shutdownNow();
+        }
+        logger.info("Export File Loaded:[{}] Records:[{}]", dataFile, applied);
+        return applied;
+    }
+
+    /**
+     * Codec do export, pelo cabeçalho do índice
+     *
+     * @param indexFile
+     * @return
+     * @throws IOException
+     */
+    public static ExportCodec readCodec(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            throw new IOException("Export Index Not Found: [" + indexFile + "], Export Incomplete?");
+        }
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        }
+        if (header == null || !header.startsWith(ExportInventoryWriter.INDEX_HEADER_PREFIX)) {
+            throw new IOException("Invalid Export Index: [" + indexFile + "]");
+        }
+        try {
+            return ExportCodec.fromFormat(header.substring(ExportInventoryWriter.INDEX_HEADER_PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Invalid Export Index: [" + indexFile + "]", ex);
+        }
+    }
+
+    private List<long[]> readIndex(Path indexFile) throws IOException {
+        List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+        List<long[]> chunks = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(" ");
+            chunks.add(new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1])});
+        }
+        return chunks;
+    }
+
+    private List<ExportRecord> decodeChunk(FileChannel channel, ExportCodec codec, long offset, int length) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        byte[] compressed = new byte[length];
+        region.get(compressed);
+
+        List<ExportRecord> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                codec.unwrap(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+                String type = json.get("type").getAsString();
+                JsonElement data = json.get("data");
+                switch (type) {
+                    case ExportInventoryWriter.RESOURCE ->
+                        records.add(new ExportRecord(type, this.gson.fromJson(data, ManagedResource.class)));
+                    case ExportInventoryWriter.CONNECTION ->
+                        records.add(new ExportRecord(type, this.gson.fromJson(data, ResourceConnection.class)));
+                    case ExportInventoryWriter.CIRCUIT ->
+                        records.add(new ExportRecord(type, this.gson.fromJson(data, CircuitResource.class)));
+                    case ExportInventoryWriter.PATH ->
+                        records.add(new ExportRecord(type, this.gson.fromJson(data, CircuitPathDTO.class)));
+                    default ->
+                        logger.warn("Unknown Export Record Type:[{}]", type);
+                }
+            }
+        }
+        return records;
+    }
+
+    private boolean apply(InventoryWriter target, ExportRecord record) throws IOException {
+        try {
+            switch (record.type) {
+                case ExportInventoryWriter.RESOURCE ->
+                    target.addManagedResource((ManagedResource) record.value);
+                case ExportInventoryWriter.CONNECTION ->
+                    target.addResourceConnection((ResourceConnection) record.value);
+                case ExportInventoryWriter.CIRCUIT ->
+                    target.addCircuitResource((CircuitResource) record.value);
+                case ExportInventoryWriter.PATH ->
+                    target.addCircuitPath((CircuitPathDTO) record.value);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        } catch (SQLException | InvalidRequestException | LocalQueueException ex) {
+            logger.error("Error Loading Export Record Type:[{}]", record.type, ex);
+            return false;
+        }
+    }
+
+    private static class ExportRecord {
+
+        private final String type;
+        private final Object value;
+
+        private ExportRecord(String type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
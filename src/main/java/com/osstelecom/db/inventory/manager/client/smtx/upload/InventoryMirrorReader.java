@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lê o espelho gravado pelo MirrorInventoryWriter. Cada tabela é dividida em
+ * faixas de KEY_HASH lidas e desserializadas em paralelo, cada faixa na sua
+ * conexão, e aplicadas no destino na ordem das tabelas (recursos, conexões,
+ * circuitos e paths), assim os objetos continuam chegando antes dos que
+ * dependem deles.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class InventoryMirrorReader {
+
+    /**
+     * Tabelas do espelho, na ordem de aplicação
+     */
+    static final String[] TABLES = {"RESOURCES", "CONNECTIONS", "CIRCUITS", "CIRCUIT_PATHS"};
+
+    private static final Class<?>[] TYPES = {ManagedResource.class, ResourceConnection.class, CircuitResource.class, CircuitPathDTO.class};
+
+    private final Logger logger = LoggerFactory.getLogger(InventoryMirrorReader.class);
+
+    private final Gson gson;
+
+    private final int readerThreads;
+
+    private final int partitions;
+
+    /**
+     *
+     * @param gson
+     * @param readerThreads
+     * @param partitions faixas de KEY_HASH por tabela
+     */
+    public InventoryMirrorReader(Gson gson, int readerThreads, int partitions) {
+        this.gson = gson;
+        this.readerThreads = Math.max(1, readerThreads);
+        this.partitions = Math.max(1, partitions);
+    }
+
+    /**
+     * Verifica se o espelho da sessão foi gravado até o fim
+     *
+     * @param jdbcUrl
+     * @param sessionName
+     * @return quantidade de objetos do espelho, -1 se não existe ou está
+     * incompleto
+     */
+    public static long completedObjects(String jdbcUrl, String sessionName) {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl + ";IFEXISTS=TRUE");
+                PreparedStatement statement = connection.prepareStatement("SELECT OBJECTS FROM MIRROR_INFO WHERE SESSION_NAME = ?")) {
+            statement.setString(1, sessionName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : -1L;
+            }
+        } catch (SQLException ex) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Carrega o espelho no destino
+     *
+     * @param jdbcUrl
+     * @param target
+     * @return número de registros aplicados
+     * @throws IOException
+     */
+    public long load(String jdbcUrl, InventoryWriter target) throws IOException {
+        //
+        // Faixas [início, fim) do KEY_HASH, a última vai até Long.MAX_VALUE
+        //
+        long width = Long.divideUnsigned(-1L, this.partitions);
+        List<long[]> ranges = new ArrayList<>();
+        for (int table = 0; table < TABLES.length; table++) {
+            for (int p = 0; p < this.partitions; p++) {
+                long from = Long.MIN_VALUE + p * width;
+                long to = p == this.partitions - 1 ? Long.MAX_VALUE : Long.MIN_VALUE + (p + 1) * width;
+                ranges.add(new long[]{table, from, to, p == this.partitions - 1 ? 1 : 0});
+            }
+        }
+        logger.info("Loading Inventory Mirror:[{}] Partitions:[{}] Reader Threads:[{}]", jdbcUrl, this.partitions, this.readerThreads);
+
+        long applied = 0L;
+        ExecutorService readers = Executors.newFixedThreadPool(this.readerThreads);
+        try {
+            //
+            // Janela limitada de faixas em memória, aplicadas na ordem
+            //
+            Deque<Future<List<Object>>> window = new ArrayDeque<>();
+            int next = 0;
+            while (next < ranges.size() || !window.isEmpty()) {
+                while (next < ranges.size() && window.size() < this.readerThreads * 2) {
+                    long[] range = ranges.get(next++);
+                    window.add(readers.submit(() -> this.readRange(jdbcUrl, (int) range[0], range[1], range[2], range[3] == 1)));
+                }
+                for (Object value : window.poll().get()) {
+                    if (this.apply(target, value)) {
+                        applied++;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted Loading Inventory Mirror", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed To Read Inventory Mirror Partition", ex.getCause());
+        } finally {
+            readers.shutdownNow();
+        }
+        logger.info("Inventory Mirror Loaded:[{}] Records:[{}]", jdbcUrl, applied);
+        return applied;
+    }
+
+    private List<Object> readRange(String jdbcUrl, int table, long from, long to, boolean last) throws SQLException {
+        List<Object> values = new ArrayList<>();
+        String sql = "SELECT RESOURCE FROM " + TABLES[table] + " WHERE KEY_HASH >= ?" + (last ? " AND KEY_HASH <= ?" : " AND KEY_HASH < ?");
+        try (Connection connection = DriverManager.getConnection(jdbcUrl);
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    values.add(this.gson.fromJson(new String(resultSet.getBytes(1), StandardCharsets.UTF_8), TYPES[table]));
+                }
+            }
+        }
+        return values;
+    }
+
+    private boolean apply(InventoryWriter target, Object value) throws IOException {
+        try {
+            if (value instanceof ManagedResource resource) {
+                target.addManagedResource(resource);
+            } else if (value instanceof ResourceConnection connection) {
+                target.addResourceConnection(connection);
+            } else if (value instanceof CircuitResource circuit) {
+                target.addCircuitResource(circuit);
+            } else if (value instanceof CircuitPathDTO circuitPath) {
+                target.addCircuitPath(circuitPath);
+            } else {
+                return false;
+            }
+            return true;
+        } catch (SQLException | InvalidRequestException | LocalQueueException ex) {
+            logger.error("Error Loading Mirror Record Type:[{}]", value.getClass().getSimpleName(), ex);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Destino dos objetos montados pelas Jobs. As Jobs continuam usando o
+ * NetcompassAPIClient para montar os objetos (getManagedResource e afins), mas
+ * os add* passam por aqui, assim o destino pode ser o cliente ou um arquivo
+ * local
+ *
+ * Os métodos em lote (add*s) recebem uma sequência do mesmo tipo já na ordem
+ * de envio, por padrão fazem um add* por objeto
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public interface InventoryWriter extends Closeable {
+
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException;
+
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException;
+
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException;
+
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException;
+
+    /**
+     * Objetos já entregues ao destino final (fila do cliente ou arquivo)
+     *
+     * @return
+     */
+    public long getWrittenCount();
+
+    public default void addManagedResources(List<ManagedResource> resources) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        for (ManagedResource resource : resources) {
+            this.addManagedResource(resource);
+        }
+    }
+
+    public default void addResourceConnections(List<ResourceConnection> connections) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        for (ResourceConnection connection : connections) {
+            this.addResourceConnection(connection);
+        }
+    }
+
+    public default void addCircuitResources(List<CircuitResource> circuits) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        for (CircuitResource circuit : circuits) {
+            this.addCircuitResource(circuit);
+        }
+    }
+
+    public default void addCircuitPaths(List<CircuitPathDTO> circuitPaths) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        for (CircuitPathDTO circuitPath : circuitPaths) {
+            this.addCircuitPath(circuitPath);
+        }
+    }
+
+}
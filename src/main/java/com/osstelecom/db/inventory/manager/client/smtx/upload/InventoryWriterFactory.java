@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decide, com base nos argumentos da aplicação, para onde as Jobs enviam o
+ * inventário montado:
+ *
+ * export: grava em arquivo local ao invés de fazer upload
+ *
+ * upload-from-file: não consulta o SMTX, carrega o arquivo exportado e faz o
+ * upload
+ *
+ * Com smtx.upload.mirror.enabled o inventário enviado também é gravado no
+ * espelho local da sessão (MirrorInventoryWriter), e o upload-only reenvia a
+ * partir dele com leitores em paralelo
+ *
+ * Com smtx.upload.dedup as cópias idênticas de um add* na mesma execução são
+ * descartadas antes de chegar no destino. Com smtx.upload.batch.size maior que 1 os add*
+ * são entregues em lotes, o tamanho e a idade máxima do lote podem ser
+ * sobrescritos por sessão em smtx.upload.batch.sessions.{SESSAO}.*
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class InventoryWriterFactory {
+
+    private final Logger logger = LoggerFactory.getLogger(InventoryWriterFactory.class);
+
+    @Autowired
+    private ApplicationArguments applicationArguments;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private UploadRateLimiter uploadRateLimiter;
+
+    @Value("${smtx.export.dir:export}")
+    private String exportDir;
+
+    @Value("${smtx.export.chunk-size:4194304}")
+    private int chunkSize;
+
+    @Value("${smtx.export.reader-threads:4}")
+    private int readerThreads;
+
+    @Value("${smtx.export.codec:gzip}")
+    private String codec;
+
+    @Value("${smtx.export.path-keys-only:false}")
+    private boolean pathKeysOnly;
+
+    @Value("${smtx.upload.dedup:false}")
+    private boolean dedup;
+
+    @Value("${smtx.upload.concurrent.stage-size:256}")
+    private int stageSize;
+
+    @Value("${smtx.upload.concurrent.max-ready:64}")
+    private int maxReadyStages;
+
+    @Value("${smtx.upload.mirror.enabled:false}")
+    private boolean mirror;
+
+    @Value("${smtx.upload.mirror.dir:mirror}")
+    private String mirrorDir;
+
+    @Value("${smtx.upload.mirror.reader-threads:4}")
+    private int mirrorReaderThreads;
+
+    @Value("${smtx.upload.mirror.partitions:32}")
+    private int mirrorPartitions;
+
+    public boolean isExportMode() {
+        return applicationArguments.getNonOptionArgs().contains("export");
+    }
+
+    public boolean isUploadFromFileMode() {
+        return applicationArguments.getNonOptionArgs().contains("upload-from-file");
+    }
+
+    public boolean isUploadOnlyMode() {
+        return applicationArguments.getNonOptionArgs().contains("upload-only");
+    }
+
+    /**
+     * Verifica se há um espelho completo da sessão para o upload-only
+     *
+     * @param sessionName
+     * @return
+     */
+    public boolean isMirrorAvailable(String sessionName) {
+        return this.mirror && InventoryMirrorReader.completedObjects(this.mirrorUrl(sessionName), sessionName) >= 0;
+    }
+
+    /**
+     * Cria o writer da sessão de carga
+     *
+     * @param netcompassApiClient cliente já com a sessão iniciada
+     * @param sessionName nome da sessão, usado no nome do arquivo de export
+     * @return
+     * @throws IOException
+     */
+    public InventoryWriter createWriter(NetcompassAPIClient netcompassApiClient, String sessionName) throws IOException {
+        InventoryWriter writer;
+        if (this.isExportMode()) {
+            Files.createDirectories(Paths.get(exportDir));
+            ExportCodec exportCodec = ExportCodec.fromName(this.codec);
+            writer = new ExportInventoryWriter(netcompassApiClient.getGson(), this.dataFile(sessionName, exportCodec), this.indexFile(sessionName), chunkSize,
+                    new CircuitPathJsonWriter(netcompassApiClient.getGson(), this.pathKeysOnly), exportCodec);
+        } else {
+            writer = this.netcompassWriter(netcompassApiClient, sessionName);
+            //
+            // No upload-only / upload-from-file o writer não recebe nada, e o
+            // espelho seria limpo na abertura
+            //
+            if (this.mirror && !this.isUploadOnlyMode() && !this.isUploadFromFileMode()) {
+                try {
+                    Files.createDirectories(Paths.get(mirrorDir));
+                    writer = new MirrorInventoryWriter(writer, netcompassApiClient.getGson(), this.mirrorUrl(sessionName), sessionName);
+                } catch (IOException ex) {
+                    logger.error("Failed To Open Inventory Mirror, Continuing Without It Session:[{}]", sessionName, ex);
+                }
+            }
+        }
+        int batchSize = this.batchSetting(sessionName, "size", 500);
+        if (batchSize > 1) {
+            writer = new BatchingInventoryWriter(writer, sessionName, batchSize, this.batchSetting(sessionName, "max-age-ms", 2000));
+        }
+        if (this.dedup) {
+            writer = new DeduplicatingInventoryWriter(writer, netcompassApiClient.getGson(), sessionName);
+        }
+        return writer;
+    }
+
+    /**
+     * Cria o writer da sessão de carga, com concurrentProducers o writer
+     * aceita add* de várias threads (ConcurrentInventoryWriter)
+     *
+     * @param netcompassApiClient cliente já com a sessão iniciada
+     * @param sessionName
+     * @param concurrentProducers
+     * @return
+     * @throws IOException
+     */
+    public InventoryWriter createWriter(NetcompassAPIClient netcompassApiClient, String sessionName, boolean concurrentProducers) throws IOException {
+        InventoryWriter writer = this.createWriter(netcompassApiClient, sessionName);
+        if (concurrentProducers) {
+            writer = new ConcurrentInventoryWriter(writer, sessionName, this.stageSize, this.maxReadyStages);
+        }
+        return writer;
+    }
+
+    /**
+     * Carrega o arquivo exportado da sessão na fila local do cliente, o upload
+     * fica a cargo da Job
+     *
+     * @param netcompassApiClient
+     * @param sessionName
+     * @return número de registros carregados
+     * @throws IOException
+     */
+    public long loadFromFile(NetcompassAPIClient netcompassApiClient, String sessionName) throws IOException {
+        InventoryFileReader reader = new InventoryFileReader(netcompassApiClient.getGson(), readerThreads);
+        //
+        // O codec de leitura vem do índice, não da configuração atual
+        //
+        ExportCodec exportCodec = InventoryFileReader.readCodec(this.indexFile(sessionName));
+        try (InventoryWriter target = this.netcompassWriter(netcompassApiClient, sessionName)) {
+            return reader.load(this.dataFile(sessionName, exportCodec), this.indexFile(sessionName), target);
+        }
+    }
+
+    /**
+     * Carrega o espelho da sessão na fila local do cliente, lendo as faixas de
+     * KEY_HASH em paralelo, o upload fica a cargo da Job
+     *
+     * @param netcompassApiClient
+     * @param sessionName
+     * @return número de registros carregados
+     * @throws IOException
+     */
+    public long loadFromMirror(NetcompassAPIClient netcompassApiClient, String sessionName) throws IOException {
+        InventoryMirrorReader reader = new InventoryMirrorReader(netcompassApiClient.getGson(), mirrorReaderThreads, mirrorPartitions);
+        try (InventoryWriter target = this.netcompassWriter(netcompassApiClient, sessionName)) {
+            return reader.load(this.mirrorUrl(sessionName), target);
+        }
+    }
+
+    /**
+     * Writer da fila do cliente, sempre passando pelo limite de envio
+     * compartilhado: a sessão fica registrada mesmo com o limite desligado,
+     * assim um limite ligado depois pelo MBean vale para as cargas em
+     * andamento
+     *
+     * @param netcompassApiClient
+     * @param sessionName
+     * @return
+     */
+    private InventoryWriter netcompassWriter(NetcompassAPIClient netcompassApiClient, String sessionName) {
+        return new RateLimitedInventoryWriter(new NetcompassInventoryWriter(netcompassApiClient), netcompassApiClient.getGson(),
+                this.uploadRateLimiter.register(sessionName));
+    }
+
+    /**
+     * Configuração de lote da sessão, com fallback para o valor global
+     *
+     * @param sessionName
+     * @param name
+     * @param defaultValue
+     * @return
+     */
+    private int batchSetting(String sessionName, String name, int defaultValue) {
+        Integer global = this.environment.getProperty("smtx.upload.batch." + name, Integer.class, defaultValue);
+        return this.environment.getProperty("smtx.upload.batch.sessions." + sessionName + "." + name, Integer.class, global);
+    }
+
+    private Path dataFile(String sessionName, ExportCodec exportCodec) {
+        return Paths.get(exportDir, sessionName + exportCodec.getExtension());
+    }
+
+    private String mirrorUrl(String sessionName) {
+        return "jdbc:h2:file:" + Paths.get(mirrorDir, sessionName).toAbsolutePath();
+    }
+
+    private Path indexFile(String sessionName) {
+        return Paths.get(exportDir, sessionName + ".ndjson.idx");
+    }
+}
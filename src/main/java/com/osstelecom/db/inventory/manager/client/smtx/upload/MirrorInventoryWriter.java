@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.osstelecom.db.inventory.manager.client.smtx.utils.Hash64;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.BasicResource;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repassa os add* para o writer da sessão e grava uma cópia no espelho local
+ * (banco H2 com as tabelas do sql/create.sql, ver upload/mirror-schema.sql),
+ * indexada pelo hash de 64 bits da chave do objeto. O upload-only lê o
+ * espelho em paralelo (InventoryMirrorReader) para reenviar o inventário sem
+ * consultar o SMTX.
+ *
+ * O espelho é limpo na abertura e marcado como completo (MIRROR_INFO) só no
+ * close. Uma falha no espelho é logada e desliga a cópia, a carga continua.
+ * Duas chaves com o mesmo KEY_HASH também desligam a cópia: o MERGE só
+ * atualiza a linha da mesma RESOURCE_KEY e a colisão aparece como update
+ * count 0, assim um objeto nunca sobrescreve outro no espelho e o
+ * upload-only segue sem ele.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class MirrorInventoryWriter implements InventoryWriter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(MirrorInventoryWriter.class);
+
+    private final InventoryWriter delegate;
+
+    private final Gson gson;
+
+    private final String sessionName;
+
+    private final Connection connection;
+
+    private final PreparedStatement resources;
+
+    private final PreparedStatement connections;
+
+    private final PreparedStatement circuits;
+
+    private final PreparedStatement paths;
+
+    private int pending = 0;
+
+    /**
+     * RESOURCE_KEY de cada linha pendente, por tabela na ordem do TABLES
+     */
+    private final List<List<String>> pendingKeys = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+    private long mirrored = 0L;
+
+    private boolean failed = false;
+
+    /**
+     *
+     * @param delegate writer da sessão
+     * @param gson
+     * @param jdbcUrl banco do espelho da sessão
+     * @param sessionName
+     * @throws IOException se o espelho não pôde ser aberto
+     */
+    public MirrorInventoryWriter(InventoryWriter delegate, Gson gson, String jdbcUrl, String sessionName) throws IOException {
+        this.delegate = delegate;
+        this.gson = gson;
+        this.sessionName = sessionName;
+        try {
+            this.connection = DriverManager.getConnection(jdbcUrl);
+            //
+            // O espelho é refeito a cada sessão, recriar as tabelas também
+            // atualiza o schema de espelhos gravados por versões anteriores
+            //
+            try (Statement statement = this.connection.createStatement()) {
+                for (String table : InventoryMirrorReader.TABLES) {
+                    statement.execute("DROP TABLE IF EXISTS " + table);
+                }
+            }
+            createSchema(this.connection);
+            try (Statement statement = this.connection.createStatement()) {
+                statement.execute("DELETE FROM MIRROR_INFO");
+            }
+            this.connection.setAutoCommit(false);
+            this.resources = this.connection.prepareStatement(mergeSql("RESOURCES", "NODEADDRESS VARCHAR(1024)", "RESOURCE_DOMAIN VARCHAR(255)",
+                    "RESOURCE_CLASSNAME VARCHAR(255)", "RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255)", "STRUCTURE_ID VARCHAR(255)"));
+            this.connections = this.connection.prepareStatement(mergeSql("CONNECTIONS", "NODEADDRESS VARCHAR(1024)", "RESOURCE_DOMAIN VARCHAR(255)",
+                    "RESOURCE_CLASSNAME VARCHAR(255)", "RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255)", "FROM_RESOURCE VARCHAR(1024)", "TO_RESOURCE VARCHAR(1024)"));
+            this.circuits = this.connection.prepareStatement(mergeSql("CIRCUITS", "NODEADDRESS VARCHAR(1024)", "RESOURCE_DOMAIN VARCHAR(255)",
+                    "RESOURCE_CLASSNAME VARCHAR(255)", "RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255)", "A_RESOURCE VARCHAR(1024)", "Z_RESOURCE VARCHAR(1024)"));
+            this.paths = this.connection.prepareStatement(mergeSql("CIRCUIT_PATHS"));
+        } catch (SQLException ex) {
+            throw new IOException("Failed To Open Inventory Mirror: [" + jdbcUrl + "]", ex);
+        }
+        logger.info("Inventory Mirror Opened Session:[{}] URL:[{}]", sessionName, jdbcUrl);
+    }
+
+    /**
+     * MERGE pelo KEY_HASH que só atualiza a linha com a mesma RESOURCE_KEY.
+     * Os parâmetros são KEY_HASH, RESOURCE_KEY, as colunas informadas e o
+     * RESOURCE, o INSERTED_ON é o horário da gravação
+     *
+     * @param table
+     * @param columns colunas entre a RESOURCE_KEY e o RESOURCE, "NOME TIPO"
+     * @return
+     */
+    static String mergeSql(String table, String... columns) {
+        List<String> names = new ArrayList<>();
+        StringBuilder source = new StringBuilder("SELECT CAST(? AS BIGINT) KEY_HASH, CAST(? AS VARCHAR(1024)) RESOURCE_KEY");
+        for (String column : columns) {
+            String[] parts = column.split(" ", 2);
+            names.add(parts[0]);
+            source.append(", CAST(? AS ").append(parts[1]).append(") ").append(parts[0]);
+        }
+        source.append(", CAST(? AS BINARY LARGE OBJECT) RESOURCE");
+        names.add("RESOURCE");
+        StringBuilder update = new StringBuilder("INSERTED_ON = CURRENT_TIMESTAMP");
+        StringBuilder insertColumns = new StringBuilder("KEY_HASH, RESOURCE_KEY, INSERTED_ON");
+        StringBuilder insertValues = new StringBuilder("S.KEY_HASH, S.RESOURCE_KEY, CURRENT_TIMESTAMP");
+        for (String name : names) {
+            update.append(", ").append(name).append(" = S.").append(name);
+            insertColumns.append(", ").append(name);
+            insertValues.append(", S.").append(name);
+        }
+        return "MERGE INTO " + table + " T USING (" + source + ") S ON T.KEY_HASH = S.KEY_HASH"
+                + " WHEN MATCHED AND T.RESOURCE_KEY = S.RESOURCE_KEY THEN UPDATE SET " + update
+                + " WHEN NOT MATCHED THEN INSERT (" + insertColumns + ") VALUES (" + insertValues + ")";
+    }
+
+    /**
+     * Cria as tabelas do espelho, se ainda não existem
+     *
+     * @param connection
+     * @throws SQLException
+     * @throws IOException
+     */
+    static void createSchema(Connection connection) throws SQLException, IOException {
+        String ddl;
+        try (InputStream in = MirrorInventoryWriter.class.getResourceAsStream("/upload/mirror-schema.sql")) {
+            if (in == null) {
+                throw new IOException("Resource Not Found: [upload/mirror-schema.sql]");
+            }
+            ddl = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : ddl.split(";")) {
+                String command = sql.replaceAll("(?m)^--.*$", "").trim();
+                if (!command.isEmpty()) {
+                    statement.execute(command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chave do objeto no espelho: a chave do Netcompass se já existir, senão
+     * domínio, classe e nodeAddress
+     *
+     * @param resource
+     * @return
+     */
+    static String resourceKey(BasicResource resource) {
+        if (resource == null) {
+            return null;
+        }
+        if (resource.getKey() != null) {
+            return resource.getKey();
+        }
+        return resource.getDomain() + "/" + resource.getClassName() + "/" + resource.getNodeAddress();
+    }
+
+    private static String connectionKey(ResourceConnection connection) {
+        if (connection.getKey() != null || connection.getNodeAddress() != null) {
+            return resourceKey(connection);
+        }
+        return connection.getDomain() + "/" + connection.getClassName() + "/" + resourceKey(connection.getFrom()) + ">" + resourceKey(connection.getTo());
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addManagedResource(resource);
+        this.mirrorResource(resource);
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addResourceConnection(connection);
+        this.mirrorConnection(connection);
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addCircuitResource(circuit);
+        this.mirrorCircuit(circuit);
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addCircuitPath(circuitPath);
+        this.mirrorPath(circuitPath);
+    }
+
+    @Override
+    public void addManagedResources(List<ManagedResource> resources) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addManagedResources(resources);
+        for (ManagedResource resource : resources) {
+            this.mirrorResource(resource);
+        }
+    }
+
+    @Override
+    public void addResourceConnections(List<ResourceConnection> connections) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addResourceConnections(connections);
+        for (ResourceConnection connection : connections) {
+            this.mirrorConnection(connection);
+        }
+    }
+
+    @Override
+    public void addCircuitResources(List<CircuitResource> circuits) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addCircuitResources(circuits);
+        for (CircuitResource circuit : circuits) {
+            this.mirrorCircuit(circuit);
+        }
+    }
+
+    @Override
+    public void addCircuitPaths(List<CircuitPathDTO> circuitPaths) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.delegate.addCircuitPaths(circuitPaths);
+        for (CircuitPathDTO circuitPath : circuitPaths) {
+            this.mirrorPath(circuitPath);
+        }
+    }
+
+    private synchronized void mirrorResource(ManagedResource resource) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            String key = resourceKey(resource);
+            this.bindResource(this.resources, key, resource);
+            this.resources.setString(7, resource.getStructureId());
+            this.resources.setBytes(8, this.json(resource));
+            this.addBatch(0, this.resources, key);
+        } catch (SQLException ex) {
+            this.fail(ex);
+        }
+    }
+
+    private synchronized void mirrorConnection(ResourceConnection connection) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            String key = connectionKey(connection);
+            this.bindResource(this.connections, key, connection);
+            this.connections.setString(7, connection.getFrom() != null ? connection.getFrom().getNodeAddress() : null);
+            this.connections.setString(8, connection.getTo() != null ? connection.getTo().getNodeAddress() : null);
+            this.connections.setBytes(9, this.json(connection));
+            this.addBatch(1, this.connections, key);
+        } catch (SQLException ex) {
+            this.fail(ex);
+        }
+    }
+
+    private synchronized void mirrorCircuit(CircuitResource circuit) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            String key = resourceKey(circuit);
+            this.bindResource(this.circuits, key, circuit);
+            this.circuits.setString(7, circuit.getaPoint() != null ? circuit.getaPoint().getNodeAddress() : null);
+            this.circuits.setString(8, circuit.getzPoint() != null ? circuit.getzPoint().getNodeAddress() : null);
+            this.circuits.setBytes(9, this.json(circuit));
+            this.addBatch(2, this.circuits, key);
+        } catch (SQLException ex) {
+            this.fail(ex);
+        }
+    }
+
+    private synchronized void mirrorPath(CircuitPathDTO circuitPath) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            byte[] json = this.json(circuitPath);
+            String key = circuitPath.getCircuit() != null ? resourceKey(circuitPath.getCircuit())
+                    : "path/" + Long.toHexString(Hash64.of(new String(json, StandardCharsets.UTF_8)));
+            this.paths.setLong(1, Hash64.of(key));
+            this.paths.setString(2, key);
+            this.paths.setBytes(3, json);
+            this.addBatch(3, this.paths, key);
+        } catch (SQLException ex) {
+            this.fail(ex);
+        }
+    }
+
+    /**
+     * Colunas comuns: KEY_HASH, RESOURCE_KEY, NODEADDRESS, RESOURCE_DOMAIN,
+     * RESOURCE_CLASSNAME e RESOURCE_ATTRIBUTE_SCHEMA_NAME
+     */
+    private void bindResource(PreparedStatement statement, String key, BasicResource resource) throws SQLException {
+        statement.setLong(1, Hash64.of(key));
+        statement.setString(2, key);
+        statement.setString(3, resource.getNodeAddress());
+        statement.setString(4, resource.getDomain());
+        statement.setString(5, resource.getClassName());
+        statement.setString(6, resource.getAttributeSchemaName());
+    }
+
+    private byte[] json(Object value) {
+        return this.gson.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addBatch(int table, PreparedStatement statement, String key) throws SQLException {
+        statement.addBatch();
+        this.pendingKeys.get(table).add(key);
+        this.mirrored++;
+        if (++this.pending >= BATCH_SIZE) {
+            this.flushBatches();
+        }
+    }
+
+    private void flushBatches() throws SQLException {
+        PreparedStatement[] statements = {this.resources, this.connections, this.circuits, this.paths};
+        for (int table = 0; table < statements.length; table++) {
+            int[] counts = statements[table].executeBatch();
+            List<String> keys = this.pendingKeys.get(table);
+            for (int i = 0; i < counts.length && i < keys.size(); i++) {
+                if (counts[i] == 0) {
+                    throw new SQLException("Key Hash Collision Table:[" + InventoryMirrorReader.TABLES[table] + "] Key:[" + keys.get(i)
+                            + "] Hash:[" + Long.toHexString(Hash64.of(keys.get(i))) + "]");
+                }
+            }
+            keys.clear();
+        }
+        this.connection.commit();
+        this.pending = 0;
+    }
+
+    private void fail(SQLException ex) {
+        this.failed = true;
+        logger.error("Inventory Mirror Failed, Disabling Mirror Session:[{}]", this.sessionName, ex);
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.delegate.getWrittenCount();
+    }
+
+    /**
+     * Grava os lotes pendentes, marca o espelho como completo e fecha o
+     * writer da sessão
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            try {
+                if (!this.failed) {
+                    this.flushBatches();
+                    try (PreparedStatement info = this.connection.prepareStatement(
+                            "MERGE INTO MIRROR_INFO (SESSION_NAME, COMPLETED_ON, OBJECTS) KEY(SESSION_NAME) VALUES (?, CURRENT_TIMESTAMP, ?)")) {
+                        info.setString(1, this.sessionName);
+                        info.setLong(2, this.mirrored);
+                        info.executeUpdate();
+                    }
+                    this.connection.commit();
+                    logger.info("Inventory Mirror Complete Session:[{}] Objects:[{}]", this.sessionName, this.mirrored);
+                }
+            } catch (SQLException ex) {
+                this.fail(ex);
+            } finally {
+                try {
+                    this.connection.close();
+                } catch (SQLException ex) {
+                    logger.warn("Mirror Connection Close error But OK", ex);
+                }
+            }
+        }
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envia os objetos direto para a fila local do NetcompassAPIClient, é o
+ * comportamento padrão das Jobs
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class NetcompassInventoryWriter implements InventoryWriter {
+
+    private final NetcompassAPIClient netcompassApiClient;
+
+    private final LongAdder written = new LongAdder();
+
+    public NetcompassInventoryWriter(NetcompassAPIClient netcompassApiClient) {
+        this.netcompassApiClient = netcompassApiClient;
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.netcompassApiClient.addManagedResource(resource);
+        this.written.increment();
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.netcompassApiClient.addResourceConnection(connection);
+        this.written.increment();
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.netcompassApiClient.addCircuitResource(circuit);
+        this.written.increment();
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        this.netcompassApiClient.addCircuitPath(circuitPath);
+        this.written.increment();
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.written.sum();
+    }
+
+    /**
+     * O upload continua sendo disparado pela Job
+     */
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Passa cada add* pelo UploadRateLimiter antes de entregar ao destino. Os
+ * métodos em lote pedem os tokens do lote inteiro de uma vez.
+ *
+ * O limite é consultado a cada chamada: com o limite desligado o add* passa
+ * direto, sem medir o tamanho do objeto.
+ *
+ * Só os add* são limitados: o upload() que envia a fila ao Netcompass roda
+ * depois do close() sem limite, ver UploadRateLimiter.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class RateLimitedInventoryWriter implements InventoryWriter {
+
+    private final InventoryWriter delegate;
+
+    private final Gson gson;
+
+    private final UploadRateLimiter.Lease lease;
+
+    public RateLimitedInventoryWriter(InventoryWriter delegate, Gson gson, UploadRateLimiter.Lease lease) {
+        this.delegate = delegate;
+        this.gson = gson;
+        this.lease = lease;
+    }
+
+    @Override
+    public void addManagedResource(ManagedResource resource) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(1, this.size(resource));
+        }
+        this.delegate.addManagedResource(resource);
+    }
+
+    @Override
+    public void addResourceConnection(ResourceConnection connection) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(1, this.size(connection));
+        }
+        this.delegate.addResourceConnection(connection);
+    }
+
+    @Override
+    public void addCircuitResource(CircuitResource circuit) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(1, this.size(circuit));
+        }
+        this.delegate.addCircuitResource(circuit);
+    }
+
+    @Override
+    public void addCircuitPath(CircuitPathDTO circuitPath) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(1, this.size(circuitPath));
+        }
+        this.delegate.addCircuitPath(circuitPath);
+    }
+
+    @Override
+    public void addManagedResources(List<ManagedResource> resources) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(resources.size(), this.size(resources));
+        }
+        this.delegate.addManagedResources(resources);
+    }
+
+    @Override
+    public void addResourceConnections(List<ResourceConnection> connections) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(connections.size(), this.size(connections));
+        }
+        this.delegate.addResourceConnections(connections);
+    }
+
+    @Override
+    public void addCircuitResources(List<CircuitResource> circuits) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(circuits.size(), this.size(circuits));
+        }
+        this.delegate.addCircuitResources(circuits);
+    }
+
+    @Override
+    public void addCircuitPaths(List<CircuitPathDTO> circuitPaths) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (this.lease.isLimited()) {
+            this.acquire(circuitPaths.size(), this.size(circuitPaths));
+        }
+        this.delegate.addCircuitPaths(circuitPaths);
+    }
+
+    private void acquire(long objects, long bytes) throws IOException {
+        try {
+            this.lease.acquire(objects, bytes);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted Waiting Upload Rate Limit");
+        }
+    }
+
+    /**
+     * Tamanho do JSON do objeto, só calculado se houver limite de bytes/s
+     *
+     * @param value
+     * @return
+     */
+    private long size(Object value) {
+        if (!this.lease.isBytesLimited()) {
+            return 0L;
+        }
+        CountingAppendable counter = new CountingAppendable();
+        this.gson.toJson(value, counter);
+        return counter.count;
+    }
+
+    private long size(List<?> values) {
+        long total = 0L;
+        if (this.lease.isBytesLimited()) {
+            for (Object value : values) {
+                total += this.size(value);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getWrittenCount() {
+        return this.delegate.getWrittenCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.delegate.close();
+        } finally {
+            this.lease.close();
+        }
+    }
+
+    private static class CountingAppendable implements Appendable {
+
+        private long count = 0L;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            this.count += csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            this.count += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            this.count++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.client.smtx.utils.TokenBucket;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limite de envio compartilhado por todas as Jobs do processo, em objetos/s
+ * e bytes/s. Cada sessão de carga ativa recebe uma fatia da taxa
+ * proporcional ao seu peso (smtx.upload.rate-limit.weights.{SESSAO}, padrão
+ * 1), recalculada quando uma sessão entra ou sai, então Jobs que rodam
+ * sozinhas usam a taxa inteira.
+ *
+ * O limite é aplicado só na entrada da fila local do NetcompassAPIClient,
+ * ou seja, ele desacelera a extração (leitura do banco e mapeamento) de cada
+ * Job. O envio HTTP ao Netcompass acontece depois, no upload() chamado pela
+ * FlushConcurrencyController após o closeInventoryWriter(), numa única
+ * chamada do cliente com flushThreads threads, e não passa por este limite.
+ * Para limitar a carga no servidor durante o upload reduza o flushThreads da
+ * sessão (config/jobs.yml ou smtx.upload.adaptive.max-threads).
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+@Component
+public class UploadRateLimiter implements UploadRateLimiterMBean, InitializingBean, DisposableBean {
+
+    private static final String OBJECT_NAME = "com.osstelecom.smtx:type=UploadRateLimiter";
+
+    private final Logger logger = LoggerFactory.getLogger(UploadRateLimiter.class);
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${smtx.upload.rate-limit.objects-per-second:0}")
+    private volatile double objectsPerSecond;
+
+    @Value("${smtx.upload.rate-limit.bytes-per-second:0}")
+    private volatile double bytesPerSecond;
+
+    @Value("${smtx.upload.rate-limit.burst-seconds:1.0}")
+    private double burstSeconds;
+
+    private final List<Lease> leases = new CopyOnWriteArrayList<>();
+
+    private final LongAdder acquiredObjects = new LongAdder();
+    private final LongAdder acquiredBytes = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException ex) {
+            logger.warn("Failed To Register Upload Rate Limiter MBean", ex);
+        }
+        if (this.isEnabled()) {
+            logger.info("Upload Rate Limit Objects/s:[{}] Bytes/s:[{}]", this.objectsPerSecond, this.bytesPerSecond);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.objectsPerSecond > 0 || this.bytesPerSecond > 0;
+    }
+
+    /**
+     * O limite de bytes exige medir o tamanho serializado de cada objeto
+     *
+     * @return
+     */
+    public boolean isBytesLimited() {
+        return this.bytesPerSecond > 0;
+    }
+
+    /**
+     * Registra a sessão de carga, a partir daqui as fatias são recalculadas
+     *
+     * @param sessionName
+     * @return lease que deve ser fechado no fim da carga
+     */
+    public Lease register(String sessionName) {
+        Lease lease = new Lease(sessionName, this.environment.getProperty("smtx.upload.rate-limit.weights." + sessionName, Double.class, 1.0));
+        this.leases.add(lease);
+        this.rebalance();
+        return lease;
+    }
+
+    private synchronized void rebalance() {
+        double totalWeight = this.leases.stream().mapToDouble(l -> l.weight).sum();
+        for (Lease lease : this.leases) {
+            double share = totalWeight > 0 ? lease.weight / totalWeight : 0;
+            lease.objects.setRate(this.objectsPerSecond * share);
+            lease.bytes.setRate(this.bytesPerSecond * share);
+        }
+        if (this.isEnabled()) {
+            logger.debug("Upload Rate Limit Rebalanced Sessions:[{}]", this.leases.size());
+        }
+    }
+
+    @Override
+    public double getObjectsPerSecond() {
+        return this.objectsPerSecond;
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    @Override
+    public void setObjectsPerSecond(double objectsPerSecond) {
+        this.objectsPerSecond = objectsPerSecond;
+        this.rebalance();
+    }
+
+    @Override
+    public void setBytesPerSecond(double bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.rebalance();
+    }
+
+    @Override
+    public int getActiveSessions() {
+        return this.leases.size();
+    }
+
+    @Override
+    public long getAcquiredObjects() {
+        return this.acquiredObjects.sum();
+    }
+
+    @Override
+    public long getAcquiredBytes() {
+        return this.acquiredBytes.sum();
+    }
+
+    @Override
+    public long getWaitedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(this.waitedNanos.sum());
+    }
+
+    @Override
+    public String[] getSessions() {
+        return this.leases.stream().map(Lease::toString).toArray(String[]::new);
+    }
+
+    /**
+     * Fatia do limite de uma sessão de carga
+     */
+    public class Lease implements AutoCloseable {
+
+        private final String sessionName;
+        private final double weight;
+        private final TokenBucket objects;
+        private final TokenBucket bytes;
+        private final LongAdder sessionObjects = new LongAdder();
+        private final LongAdder sessionWaitedNanos = new LongAdder();
+
+        private Lease(String sessionName, double weight) {
+            this.sessionName = sessionName;
+            this.weight = weight;
+            this.objects = new TokenBucket(0, burstSeconds);
+            this.bytes = new TokenBucket(0, burstSeconds);
+        }
+
+        /**
+         * Limite ligado agora, pode mudar durante a carga pelo MBean
+         *
+         * @return
+         */
+        public boolean isLimited() {
+            return isEnabled();
+        }
+
+        public boolean isBytesLimited() {
+            return UploadRateLimiter.this.isBytesLimited();
+        }
+
+        /**
+         * Espera a vez de enviar objectCount objetos somando byteCount bytes
+         *
+         * @param objectCount
+         * @param byteCount
+         * @throws InterruptedException
+         */
+        public void acquire(long objectCount, long byteCount) throws InterruptedException {
+            long waited = this.objects.acquire(objectCount) + this.bytes.acquire(byteCount);
+            this.sessionObjects.add(objectCount);
+            this.sessionWaitedNanos.add(waited);
+            acquiredObjects.add(objectCount);
+            acquiredBytes.add(byteCount);
+            waitedNanos.add(waited);
+        }
+
+        @Override
+        public void close() {
+            if (leases.remove(this)) {
+                rebalance();
+                if (isEnabled()) {
+                    logger.info("Upload Rate Limit Session:[{}] Objects:[{}] Waited:[{}] ms", this.sessionName, this.sessionObjects.sum(),
+                            TimeUnit.NANOSECONDS.toMillis(this.sessionWaitedNanos.sum()));
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.sessionName + " weight=" + this.weight + " objects/s=" + String.format("%.1f", this.objects.getRate())
+                    + " bytes/s=" + String.format("%.1f", this.bytes.getRate()) + " objects=" + this.sessionObjects.sum()
+                    + " waitedMs=" + TimeUnit.NANOSECONDS.toMillis(this.sessionWaitedNanos.sum());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+/**
+ * Métricas do UploadRateLimiter expostas via JMX
+ * (com.osstelecom.smtx:type=UploadRateLimiter)
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public interface UploadRateLimiterMBean {
+
+    public double getObjectsPerSecond();
+
+    public double getBytesPerSecond();
+
+    public int getActiveSessions();
+
+    public long getAcquiredObjects();
+
+    public long getAcquiredBytes();
+
+    public long getWaitedMs();
+
+    /**
+     * Uma linha por sessão ativa: peso, fatia da taxa e contadores
+     *
+     * @return
+     */
+    public String[] getSessions();
+
+    public void setObjectsPerSecond(double objectsPerSecond);
+
+    public void setBytesPerSecond(double bytesPerSecond);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+/**
+ * Hash de 64 bits: FNV-1a sobre os chars, com um mix final para espalhar os
+ * bits. Usado nas chaves do espelho local (MirrorInventoryWriter) e, como
+ * Appendable, recebe o JSON direto do Gson no DeduplicatingInventoryWriter
+ * sem montar a String.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public final class Hash64 implements Appendable {
+
+    private long hash = 0xcbf29ce484222325L;
+
+    /**
+     * Hash de 64 bits do texto
+     *
+     * @param value
+     * @return
+     */
+    public static long of(CharSequence value) {
+        Hash64 hash = new Hash64();
+        hash.append(value);
+        return hash.value();
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        return this.append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        for (int i = start; i < end; i++) {
+            this.append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        this.hash ^= c;
+        this.hash *= 0x100000001b3L;
+        return this;
+    }
+
+    public long value() {
+        long h = this.hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e63fe53ffL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import com.osstelecom.db.inventory.manager.client.smtx.upload.InventoryWriter;
+import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.http.exception.LocalQueueException;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Importa a árvore equipamento -> shelf -> slot -> (módulo) -> porta a partir
+ * de uma única query ordenada por Hostname, Shelf, Slot, Modulo, Porta.
+ *
+ * Como as linhas chegam ordenadas, cada nó é emitido (junto com a conexão para
+ * o pai) uma única vez, na primeira linha em que a sua chave muda. Só o ramo
+ * atual fica em memória, não há lookup de pais já importados.
+ *
+ * Um nível com a chave nula na linha é pulado, o nível seguinte conecta no
+ * ancestral mais próximo (ex: porta direto no slot quando Modulo é nulo). O
+ * SQL Server ordena NULL antes dos valores, então a linha do próprio slot
+ * (Modulo nulo) chega antes das linhas dos módulos.
+ *
+ * As linhas são lidas como coluna -> valor (null se a coluna é nula). Não é
+ * thread-safe, assim como a Job.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class HierarchyImporter {
+
+    private final Logger logger = LoggerFactory.getLogger(HierarchyImporter.class);
+
+    private final NetcompassAPIClient netcompassApiClient;
+
+    private final InventoryWriter inventoryWriter;
+
+    private final String domain;
+
+    private final String connectionClass;
+
+    private final Level[] levels;
+
+    /**
+     * Ramo atual, chave e recurso de cada nível
+     */
+    private final String[] keys;
+
+    private final ManagedResource[] nodes;
+
+    private long rows = 0L;
+
+    private long nodeCount = 0L;
+
+    /**
+     *
+     * @param netcompassApiClient
+     * @param inventoryWriter
+     * @param domain
+     * @param connectionClass
+     * @param levels do equipamento até a porta, o primeiro nível usa o valor
+     * da coluna como nodeAddress
+     */
+    public HierarchyImporter(NetcompassAPIClient netcompassApiClient, InventoryWriter inventoryWriter, String domain, String connectionClass, Level... levels) {
+        this.netcompassApiClient = netcompassApiClient;
+        this.inventoryWriter = inventoryWriter;
+        this.domain = domain;
+        this.connectionClass = connectionClass;
+        this.levels = levels;
+        this.keys = new String[levels.length];
+        this.nodes = new ManagedResource[levels.length];
+    }
+
+    /**
+     * Processa uma linha da query, emitindo os nós que mudaram em relação à
+     * linha anterior
+     *
+     * @param row coluna -> valor
+     * @throws SQLException
+     * @throws IOException
+     * @throws InvalidRequestException
+     * @throws LocalQueueException
+     */
+    public void accept(Function<String, String> row) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        if (row.apply(this.levels[0].column) == null) {
+            return;
+        }
+        this.rows++;
+
+        int depth = 0;
+        while (depth < this.levels.length && Objects.equals(this.keys[depth], row.apply(this.levels[depth].column))) {
+            depth++;
+        }
+
+        for (int i = depth; i < this.levels.length; i++) {
+            String key = row.apply(this.levels[i].column);
+            boolean emitted = false;
+            try {
+                this.nodes[i] = key != null ? this.emit(i, key, row) : null;
+                emitted = true;
+            } finally {
+                if (!emitted) {
+                    //
+                    // O nó não foi entregue, o ramo a partir dele é esquecido e a
+                    // próxima linha com a mesma chave tenta de novo
+                    //
+                    this.forget(i);
+                }
+            }
+            //
+            // A chave só entra no ramo depois que o nó foi entregue
+            //
+            this.keys[i] = key;
+        }
+    }
+
+    /**
+     * Descarta o ramo atual do nível index para baixo
+     *
+     * @param index
+     */
+    private void forget(int index) {
+        for (int i = index; i < this.levels.length; i++) {
+            this.keys[i] = null;
+            this.nodes[i] = null;
+        }
+    }
+
+    private ManagedResource emit(int index, String key, Function<String, String> row) throws SQLException, IOException, InvalidRequestException, LocalQueueException {
+        Level level = this.levels[index];
+        ManagedResource parent = null;
+        for (int i = index - 1; i >= 0 && parent == null; i--) {
+            parent = this.nodes[i];
+        }
+
+        ManagedResource resource;
+        if (parent == null) {
+            resource = this.netcompassApiClient.getManagedResource(key, this.domain, level.resourceClass, level.resourceClass);
+        } else {
+            String name = level.namePrefix + key;
+            resource = this.netcompassApiClient.getManagedResource(parent.getNodeAddress() + "." + name, this.domain, level.resourceClass, level.resourceClass);
+            resource.setName(name);
+            resource.setStructureId(this.nodes[0].getKey());
+        }
+        for (Attribute attribute : level.attributes) {
+            Object value = attribute.valueOf(row.apply(attribute.column));
+            if (value != null) {
+                resource.getAttributes().put(attribute.name, value);
+            }
+        }
+        this.inventoryWriter.addManagedResource(resource);
+        this.nodeCount++;
+
+        if (parent != null) {
+            ResourceConnection connection = this.netcompassApiClient.getResourceConnection(parent, resource, this.domain, this.connectionClass, this.connectionClass);
+            this.inventoryWriter.addResourceConnection(connection);
+        }
+        return resource;
+    }
+
+    /**
+     * Loga os contadores e descarta o ramo atual
+     */
+    public void clear() {
+        logger.debug("Hierarchy Import Domain:[{}] Rows:[{}] Nodes:[{}]", this.domain, this.rows, this.nodeCount);
+        this.forget(0);
+        this.rows = 0L;
+        this.nodeCount = 0L;
+    }
+
+    /**
+     * Um nível da árvore: coluna da chave, prefixo do nome e classe do recurso
+     */
+    public static final class Level {
+
+        private final String column;
+
+        private final String namePrefix;
+
+        private final String resourceClass;
+
+        private final List<Attribute> attributes = new ArrayList<>();
+
+        public Level(String column, String namePrefix, String resourceClass) {
+            this.column = column;
+            this.namePrefix = namePrefix;
+            this.resourceClass = resourceClass;
+        }
+
+        /**
+         * Atributo lido da coluna, o tipo do valor padrão define o tipo do
+         * atributo (String ou Integer). Com o padrão null o atributo só é
+         * gravado quando a coluna tem valor
+         *
+         * @param name
+         * @param column
+         * @param defaultValue
+         * @return
+         */
+        public Level attribute(String name, String column, Object defaultValue) {
+            this.attributes.add(new Attribute(name, column, defaultValue));
+            return this;
+        }
+    }
+
+    private static final class Attribute {
+
+        private final String name;
+
+        private final String column;
+
+        private final Object defaultValue;
+
+        private Attribute(String name, String column, Object defaultValue) {
+            this.name = name;
+            this.column = column;
+            this.defaultValue = defaultValue;
+        }
+
+        private Object valueOf(String value) {
+            if (value == null) {
+                return this.defaultValue;
+            }
+            if (this.defaultValue instanceof Integer) {
+                try {
+                    return Integer.valueOf(value.trim());
+                } catch (NumberFormatException ex) {
+                    return this.defaultValue;
+                }
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de longs com endereçamento aberto (linear probing) sobre um long[],
+ * sem boxing: 8 bytes por slot, ocupação máxima de 2/3. Usado para guardar
+ * hashes de 64 bits dos objetos já enviados numa execução.
+ *
+ * O valor 0 é usado como slot vazio, por isso é guardado à parte.
+ *
+ * Não é thread-safe.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class LongHashSet {
+
+    private long[] table;
+
+    private int mask;
+
+    private int size = 0;
+
+    private boolean containsZero = false;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 3 / 2) - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adiciona o valor
+     *
+     * @param value
+     * @return true se o valor ainda não existia
+     */
+    public boolean add(long value) {
+        if (value == 0L) {
+            if (this.containsZero) {
+                return false;
+            }
+            this.containsZero = true;
+            this.size++;
+            return true;
+        }
+        int slot = this.slot(value);
+        while (this.table[slot] != 0L) {
+            if (this.table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.table[slot] = value;
+        if (++this.size * 3 > this.table.length * 2) {
+            this.grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0L) {
+            return this.containsZero;
+        }
+        int slot = this.slot(value);
+        while (this.table[slot] != 0L) {
+            if (this.table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Memória ocupada pela tabela em bytes
+     *
+     * @return
+     */
+    public long memoryBytes() {
+        return this.table.length * 8L;
+    }
+
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+        this.size = 0;
+        this.containsZero = false;
+    }
+
+    private int slot(long value) {
+        //
+        // Mistura os bits altos, o hash pode vir de fora com baixa entropia
+        // nos bits baixos
+        //
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    private void grow() {
+        long[] old = this.table;
+        this.table = new long[old.length << 1];
+        this.mask = this.table.length - 1;
+        for (long value : old) {
+            if (value != 0L) {
+                int slot = this.slot(value);
+                while (this.table[slot] != 0L) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.table[slot] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+/**
+ * Mapa de chave long com endereçamento aberto (linear probing), sem boxing da
+ * chave: um long[] de chaves e um Object[] de valores, ocupação máxima de
+ * 2/3. Usado pelas tabelas de dimensão, onde a chave é o id inteiro da
+ * tabela do SMTX.
+ *
+ * A chave 0 é usada como slot vazio, por isso é guardada à parte.
+ *
+ * Não é thread-safe para escrita, depois de carregado pode ser lido por várias
+ * threads.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ * @param <V>
+ */
+public class LongObjectHashMap<V> {
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int size = 0;
+
+    private boolean containsZero = false;
+
+    private V zeroValue;
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 3 / 2) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Associa o valor à chave
+     *
+     * @param key
+     * @param value
+     * @return o valor anterior, null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0L) {
+            V previous = this.zeroValue;
+            if (!this.containsZero) {
+                this.containsZero = true;
+                this.size++;
+            }
+            this.zeroValue = value;
+            return previous;
+        }
+        int slot = this.slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key) {
+                V previous = (V) this.values[slot];
+                this.values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size * 3 > this.keys.length * 2) {
+            this.grow();
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param key
+     * @return null se a chave não existe
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0L) {
+            return this.zeroValue;
+        }
+        int slot = this.slot(key);
+        while (this.keys[slot] != 0L) {
+            if (this.keys[slot] == key) {
+                return (V) this.values[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private int slot(long key) {
+        //
+        // Ids sequenciais, mistura os bits para espalhar na tabela
+        //
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new long[oldKeys.length << 1];
+        this.values = new Object[oldValues.length << 1];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0L) {
+                int slot = this.slot(oldKeys[i]);
+                while (this.keys[slot] != 0L) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
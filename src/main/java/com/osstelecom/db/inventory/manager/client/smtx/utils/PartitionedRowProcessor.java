@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipeline leitor -> workers de um step. A thread da Job continua lendo o
+ * ResultSet e entrega cada linha (já copiada, ver {@link RowSnapshot}) para a
+ * fila do worker escolhido pelo hash da chave de partição (Hostname), assim
+ * todas as linhas de um equipamento são processadas em ordem pela mesma
+ * thread e o estado por equipamento não precisa de lock.
+ *
+ * Cada worker tem uma fila limitada (ArrayBlockingQueue, um ring buffer), com
+ * as filas cheias o leitor espera. Com parallelism 1 não cria threads, a linha
+ * é processada direto na thread do leitor, como antes.
+ *
+ * O worker não deve deixar escapar exceções, as que escapam são logadas e a
+ * linha é descartada.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ * @param <T>
+ */
+public class PartitionedRowProcessor<T> implements AutoCloseable {
+
+    private final Logger logger = LoggerFactory.getLogger(PartitionedRowProcessor.class);
+
+    /**
+     * Marca de fim da fila
+     */
+    private static final Object END = new Object();
+
+    private final String name;
+
+    private final Function<T, String> partitionKey;
+
+    private final Consumer<T> worker;
+
+    private final BlockingQueue<Object>[] queues;
+
+    private final Thread[] threads;
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private long rows = 0L;
+
+    private long blockedNanos = 0L;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     *
+     * @param name nome do step, usado nas threads e no log
+     * @param parallelism número de workers, 0 = número de cores
+     * @param queueSize capacidade total das filas, dividida entre os workers
+     * @param partitionKey chave de partição da linha
+     * @param worker processamento da linha
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionedRowProcessor(String name, int parallelism, int queueSize, Function<T, String> partitionKey, Consumer<T> worker) {
+        this.name = name;
+        this.partitionKey = partitionKey;
+        this.worker = worker;
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        if (parallelism == 1) {
+            this.queues = null;
+            this.threads = null;
+            return;
+        }
+
+        int capacity = Math.max(1, queueSize / parallelism);
+        this.queues = new BlockingQueue[parallelism];
+        this.threads = new Thread[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(capacity);
+            this.queues[i] = queue;
+            this.threads[i] = new Thread(() -> this.drain(queue), "rows-" + name + "-" + i);
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    /**
+     * Entrega a linha ao worker da partição, espera se a fila estiver cheia
+     *
+     * @param row
+     */
+    public void submit(T row) {
+        this.rows++;
+        if (this.queues == null) {
+            this.process(row);
+            return;
+        }
+
+        String key = this.partitionKey.apply(row);
+        BlockingQueue<Object> queue = this.queues[Math.floorMod(key != null ? key.hashCode() : 0, this.queues.length)];
+        if (!queue.offer(row)) {
+            long start = System.nanoTime();
+            try {
+                queue.put(row);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted Submitting Row To Workers: [" + this.name + "]", ex);
+            } finally {
+                this.blockedNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain(BlockingQueue<Object> queue) {
+        try {
+            while (true) {
+                Object row = queue.take();
+                if (row == END) {
+                    return;
+                }
+                this.process((T) row);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(T row) {
+        try {
+            this.worker.accept(row);
+        } catch (RuntimeException ex) {
+            this.errors.incrementAndGet();
+            logger.error("Row Worker Error Step:[{}]", this.name, ex);
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Sinaliza o fim das filas e espera os workers terminarem as linhas
+     * pendentes
+     */
+    @Override
+    public void close() {
+        if (this.queues != null) {
+            try {
+                for (BlockingQueue<Object> queue : this.queues) {
+                    queue.put(END);
+                }
+                for (Thread thread : this.threads) {
+                    thread.join();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                for (Thread thread : this.threads) {
+                    thread.interrupt();
+                }
+                logger.warn("Interrupted Waiting Row Workers Step:[{}]", this.name);
+            }
+        }
+        logger.debug("Row Workers Done Step:[{}] Workers:[{}] Rows:[{}] Errors:[{}] Reader Blocked:[{}] ms Took:[{}] ms", this.name,
+                this.queues != null ? this.queues.length : 1, this.rows, this.errors.get(), this.blockedNanos / 1_000_000L,
+                System.currentTimeMillis() - this.startedAt);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monta a cadeia de conexões de um equipamento até a porta:
+ * host -> .SHELF- -> .SLOT- -> (.MODULO-) -> .PORTA-
+ *
+ * A cadeia de cada porta é memorizada durante a execução da Job, vários
+ * circuitos terminam nas mesmas portas. Os recursos intermediários (host,
+ * shelf, slot, módulo) também são memorizados, portas vizinhas compartilham
+ * shelf e slot.
+ *
+ * As conexões devolvidas são compartilhadas entre os circuitos, não devem ser
+ * alteradas. Não é thread-safe, assim como a Job.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class PortPathBuilder {
+
+    private final Logger logger = LoggerFactory.getLogger(PortPathBuilder.class);
+
+    private final SharedResourceFactory resourceFactory;
+
+    private final String domain;
+
+    private final String resourceClass;
+
+    private final String connectionClass;
+
+    private final Map<String, ManagedResource> resources = new HashMap<>();
+
+    private final Map<String, PortPath> paths = new HashMap<>();
+
+    private long hits = 0L;
+
+    private long misses = 0L;
+
+    /**
+     *
+     * @param resourceFactory
+     * @param domain
+     * @param resourceClass classe do equipamento, ex: resource.smtx.dwdm, as
+     * classes de shelf, slot, módulo e porta são derivadas dela
+     * @param connectionClass
+     */
+    public PortPathBuilder(SharedResourceFactory resourceFactory, String domain, String resourceClass, String connectionClass) {
+        this.resourceFactory = resourceFactory;
+        this.domain = domain;
+        this.resourceClass = resourceClass;
+        this.connectionClass = connectionClass;
+    }
+
+    /**
+     * Cadeia até a porta a partir do nodeAddress do equipamento
+     *
+     * @param hostNodeAddress
+     * @param shelf
+     * @param slot
+     * @param modulo null se a porta fica direto no slot
+     * @param porta
+     * @return
+     * @throws SQLException
+     * @throws IOException
+     * @throws InvalidRequestException
+     */
+    public PortPath get(String hostNodeAddress, String shelf, String slot, String modulo, String porta) throws SQLException, IOException, InvalidRequestException {
+        PortPath path = this.paths.get(this.portNodeAddress(hostNodeAddress, shelf, slot, modulo, porta));
+        if (path != null) {
+            this.hits++;
+            return path;
+        }
+        return this.get(this.resource(hostNodeAddress, this.resourceClass), shelf, slot, modulo, porta);
+    }
+
+    /**
+     * Cadeia até a porta a partir do equipamento
+     *
+     * @param host
+     * @param shelf
+     * @param slot
+     * @param modulo null se a porta fica direto no slot
+     * @param porta
+     * @return
+     * @throws SQLException
+     * @throws IOException
+     * @throws InvalidRequestException
+     */
+    public PortPath get(ManagedResource host, String shelf, String slot, String modulo, String porta) throws SQLException, IOException, InvalidRequestException {
+        String portNodeAddress = this.portNodeAddress(host.getNodeAddress(), shelf, slot, modulo, porta);
+        PortPath path = this.paths.get(portNodeAddress);
+        if (path != null) {
+            this.hits++;
+            return path;
+        }
+        this.misses++;
+
+        String shelfNodeAddress = host.getNodeAddress() + ".SHELF-" + shelf;
+        String slotNodeAddress = shelfNodeAddress + ".SLOT-" + slot;
+        ManagedResource shelfResource = this.resource(shelfNodeAddress, this.resourceClass + ".shelf");
+        ManagedResource slotResource = this.resource(slotNodeAddress, this.resourceClass + ".slot");
+        ManagedResource portaResource = this.resource(portNodeAddress, this.resourceClass + ".porta");
+
+        List<ResourceConnection> connections = new ArrayList<>(4);
+        connections.add(this.connection(host, shelfResource));
+        connections.add(this.connection(shelfResource, slotResource));
+        if (modulo != null) {
+            ManagedResource moduloResource = this.resource(slotNodeAddress + ".MODULO-" + modulo, this.resourceClass + ".modulo");
+            connections.add(this.connection(slotResource, moduloResource));
+            connections.add(this.connection(moduloResource, portaResource));
+        } else {
+            connections.add(this.connection(slotResource, portaResource));
+        }
+
+        path = new PortPath(portaResource, Collections.unmodifiableList(connections));
+        this.paths.put(portNodeAddress, path);
+        return path;
+    }
+
+    private String portNodeAddress(String hostNodeAddress, String shelf, String slot, String modulo, String porta) {
+        String slotNodeAddress = hostNodeAddress + ".SHELF-" + shelf + ".SLOT-" + slot;
+        return (modulo != null ? slotNodeAddress + ".MODULO-" + modulo : slotNodeAddress) + ".PORTA-" + porta;
+    }
+
+    private ManagedResource resource(String nodeAddress, String className) throws SQLException, IOException, InvalidRequestException {
+        ManagedResource resource = this.resources.get(nodeAddress);
+        if (resource == null) {
+            resource = this.resourceFactory.getManagedResource(nodeAddress, this.domain, className, className);
+            this.resources.put(nodeAddress, resource);
+        }
+        return resource;
+    }
+
+    private ResourceConnection connection(ManagedResource from, ManagedResource to) throws SQLException, IOException, InvalidRequestException {
+        return this.resourceFactory.getResourceConnection(from, to, this.domain, this.connectionClass, this.connectionClass);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Loga os contadores e libera as cadeias memorizadas
+     */
+    public void clear() {
+        if (this.hits + this.misses > 0) {
+            logger.debug("Port Path Builder Domain:[{}] Paths:[{}] Resources:[{}] Hits:[{}] Misses:[{}]", this.domain,
+                    this.paths.size(), this.resources.size(), this.hits, this.misses);
+        }
+        this.paths.clear();
+        this.resources.clear();
+        this.hits = 0L;
+        this.misses = 0L;
+    }
+
+    /**
+     * Porta e a cadeia de conexões do equipamento até ela
+     */
+    public static final class PortPath {
+
+        private final ManagedResource port;
+
+        private final List<ResourceConnection> connections;
+
+        private PortPath(ManagedResource port, List<ResourceConnection> connections) {
+            this.port = port;
+            this.connections = connections;
+        }
+
+        public ManagedResource getPort() {
+            return port;
+        }
+
+        public List<ResourceConnection> getConnections() {
+            return connections;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache de PreparedStatement por conexão, indexado pelo nome da query no
+ * config/jobs.yml. As queries aninhadas (ex: getFrequencias) são executadas
+ * uma vez por linha da query principal, com o cache o handle preparado no
+ * servidor é reaproveitado ao invés de preparar (e vazar) um statement novo a
+ * cada linha.
+ *
+ * O ResultSetStreamReader (cliente Netcompass) recebe o statement e é fechado
+ * pelo try-with-resources da Job. Para o cache não depender de o reader
+ * fechar ou não o statement, o get() devolve uma visão do statement em que o
+ * close() só fecha o ResultSet aberto; o statement real só é fechado no
+ * close() do cache.
+ *
+ * Assim como a Connection, não é thread-safe.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class PreparedStatementCache implements AutoCloseable {
+
+    private final Logger logger = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final Connection connection;
+
+    private final Map<String, String> queries;
+
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    private final Map<String, PreparedStatement> views = new HashMap<>();
+
+    private final Map<String, Long> hits = new HashMap<>();
+
+    private final Map<String, Long> misses = new HashMap<>();
+
+    public PreparedStatementCache(Connection connection, Map<String, String> queries) {
+        this.connection = connection;
+        this.queries = queries;
+    }
+
+    /**
+     * Retorna o statement da query, com os parâmetros limpos. Se o statement
+     * ainda não existe ou foi fechado, prepara novamente. O close() do
+     * statement retornado fecha só o ResultSet
+     *
+     * @param queryName nome da query no config/jobs.yml
+     * @return
+     * @throws SQLException
+     */
+    public PreparedStatement get(String queryName) throws SQLException {
+        PreparedStatement statement = this.statements.get(queryName);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            this.hits.merge(queryName, 1L, Long::sum);
+            return this.views.get(queryName);
+        }
+
+        String query = this.queries.get(queryName);
+        if (query == null) {
+            throw new SQLException("Query Not Found: [" + queryName + "]");
+        }
+        statement = this.connection.prepareStatement(query);
+        PreparedStatement view = this.view(statement);
+        this.statements.put(queryName, statement);
+        this.views.put(queryName, view);
+        this.misses.merge(queryName, 1L, Long::sum);
+        return view;
+    }
+
+    /**
+     * Statement que repassa tudo para o real, menos o close(), que fecha só o
+     * ResultSet aberto
+     *
+     * @param statement
+     * @return
+     */
+    private PreparedStatement view(PreparedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatementCache.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        if (!statement.isClosed()) {
+                            ResultSet resultSet = statement.getResultSet();
+                            if (resultSet != null) {
+                                resultSet.close();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    public long getHits(String queryName) {
+        return this.hits.getOrDefault(queryName, 0L);
+    }
+
+    public long getMisses(String queryName) {
+        return this.misses.getOrDefault(queryName, 0L);
+    }
+
+    /**
+     * Fecha todos os statements e loga os contadores de hit/miss
+     */
+    @Override
+    public void close() {
+        this.misses.forEach((queryName, missCount)
+                -> logger.debug("Statement Cache Query:[{}] Hits:[{}] Misses:[{}]", queryName, this.getHits(queryName), missCount));
+        this.statements.forEach((queryName, statement) -> {
+            try {
+                statement.close();
+            } catch (SQLException ex) {
+                logger.warn("Statement Close error But OK Query:[{}]", queryName, ex);
+            }
+        });
+        this.statements.clear();
+        this.views.clear();
+        this.hits.clear();
+        this.misses.clear();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * Cópia das colunas de uma linha do ResultSetStreamReader. A linha do reader
+ * aponta para o cursor, que avança assim que o forEach retorna, por isso as
+ * linhas entregues ao {@link PartitionedRowProcessor} são copiadas na thread
+ * do leitor.
+ *
+ * Só as colunas informadas são copiadas (como String), o acesso segue a mesma
+ * forma da linha original: get("Coluna").asString("-").
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public final class RowSnapshot {
+
+    private final String[] columns;
+
+    private final String[] values;
+
+    private RowSnapshot(String[] columns, String[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Copia as colunas da linha
+     *
+     * @param columns colunas usadas pelo step, o array é compartilhado entre as
+     * cópias
+     * @param row coluna -> valor, null se a coluna é nula
+     * @return
+     */
+    public static RowSnapshot of(String[] columns, Function<String, String> row) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = row.apply(columns[i]);
+        }
+        return new RowSnapshot(columns, values);
+    }
+
+    /**
+     * Valor da coluna, uma coluna não copiada se comporta como nula
+     *
+     * @param column
+     * @return
+     */
+    public Value get(String column) {
+        for (int i = 0; i < this.columns.length; i++) {
+            if (this.columns[i].equals(column)) {
+                return new Value(this.values[i]);
+            }
+        }
+        return new Value(null);
+    }
+
+    public static final class Value {
+
+        private final String value;
+
+        private Value(String value) {
+            this.value = value;
+        }
+
+        public boolean isNotNull() {
+            return this.value != null;
+        }
+
+        public boolean isNull() {
+            return this.value == null;
+        }
+
+        public String asString() {
+            return this.value;
+        }
+
+        public String asString(String defaultValue) {
+            return this.value != null ? this.value : defaultValue;
+        }
+
+        public Integer asInteger(Integer defaultValue) {
+            if (this.value == null) {
+                return defaultValue;
+            }
+            try {
+                return new BigDecimal(this.value.trim()).intValue();
+            } catch (NumberFormatException ex) {
+                return defaultValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+/**
+ * Log de erro amostrado para os erros por linha dos steps. Quando o dado de
+ * origem vem ruim o mesmo erro se repete em milhares de linhas e o stack trace
+ * completo de cada uma segura as threads de import no I/O do log.
+ *
+ * Por step e tipo de exceção: as primeiras fullTraces ocorrências são logadas
+ * com stack trace, depois no máximo perSecond linhas/s sem stack trace (com o
+ * total e quantas foram suprimidas), o resto só é contado. Os contadores são
+ * consultados no fim do step.
+ *
+ * Thread-safe, os workers do step podem logar em paralelo.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class SampledErrorLog {
+
+    private final int fullTraces;
+
+    private final double perSecond;
+
+    private final Map<String, Map<String, Counter>> counters = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param fullTraces ocorrências logadas com stack trace por step e tipo
+     * @param perSecond linhas/s amostradas depois disso, 0 = sem limite
+     */
+    public SampledErrorLog(int fullTraces, double perSecond) {
+        this.fullTraces = fullTraces;
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * Conta o erro e loga se estiver dentro da amostragem
+     *
+     * @param logger logger da Job, null para somente contar
+     * @param step
+     * @param message
+     * @param ex
+     */
+    public void error(Logger logger, String step, String message, Throwable ex) {
+        String type = ex != null ? ex.getClass().getName() : "none";
+        Counter counter = this.counters.computeIfAbsent(step, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, k -> new Counter(this.perSecond));
+        long count = counter.count.incrementAndGet();
+        if (logger == null) {
+            return;
+        }
+        if (count <= this.fullTraces) {
+            logger.error(message, ex);
+        } else if (counter.bucket.tryAcquire(1)) {
+            logger.error("{} Step:[{}] Error:[{}] Count:[{}] Suppressed:[{}]", message, step, String.valueOf(ex), count,
+                    counter.suppressed.getAndSet(0));
+        } else {
+            counter.suppressed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Erros do step por tipo de exceção
+     *
+     * @param step
+     * @return
+     */
+    public Map<String, Long> counts(String step) {
+        Map<String, Long> result = new TreeMap<>();
+        Map<String, Counter> stepCounters = this.counters.get(step);
+        if (stepCounters != null) {
+            stepCounters.forEach((type, counter) -> result.put(type, counter.count.get()));
+        }
+        return result;
+    }
+
+    private static class Counter {
+
+        private final AtomicLong count = new AtomicLong(0L);
+
+        private final AtomicLong suppressed = new AtomicLong(0L);
+
+        private final TokenBucket bucket;
+
+        private Counter(double perSecond) {
+            this.bucket = new TokenBucket(perSecond, 1.0);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import com.osstelecom.db.inventory.manager.http.client.NetcompassAPIClient;
+import com.osstelecom.db.inventory.manager.http.exception.InvalidRequestException;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Acesso aos get* do NetcompassAPIClient para os workers de um step
+ * (PartitionedRowProcessor). O cliente não garante que os get* possam ser
+ * chamados por várias threads ao mesmo tempo, então as chamadas são
+ * serializadas no próprio cliente. Montar o DTO é local e curto, o trabalho
+ * pesado dos workers (copiar a linha, atributos, entregar ao writer) continua
+ * em paralelo.
+ *
+ * Os workers devem montar recursos e conexões só por aqui, nunca direto pelo
+ * netcompassApiClient da Job.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class SharedResourceFactory {
+
+    private final NetcompassAPIClient netcompassApiClient;
+
+    public SharedResourceFactory(NetcompassAPIClient netcompassApiClient) {
+        this.netcompassApiClient = netcompassApiClient;
+    }
+
+    public ManagedResource getManagedResource(String nodeAddress, String domain, String className, String attributeSchemaName) throws SQLException, IOException, InvalidRequestException {
+        synchronized (this.netcompassApiClient) {
+            return this.netcompassApiClient.getManagedResource(nodeAddress, domain, className, attributeSchemaName);
+        }
+    }
+
+    public ResourceConnection getResourceConnection(ManagedResource from, ManagedResource to, String domain, String className, String attributeSchemaName) throws SQLException, IOException, InvalidRequestException {
+        synchronized (this.netcompassApiClient) {
+            return this.netcompassApiClient.getResourceConnection(from, to, domain, className, attributeSchemaName);
+        }
+    }
+}
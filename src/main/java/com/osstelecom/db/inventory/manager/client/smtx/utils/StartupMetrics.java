@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mede o tempo de start do processo, útil para comparar o build normal com o
+ * profile fast-start (AOT + CDS)
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public final class StartupMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private static final AtomicBoolean firstQueryMarked = new AtomicBoolean(false);
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * Tempo em ms desde o start da JVM
+     *
+     * @return
+     */
+    public static long sinceJvmStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Loga o tempo até o contexto do Spring ficar pronto
+     */
+    public static void markContextReady() {
+        logger.info("Time To Context Ready: [{}] ms", sinceJvmStart());
+    }
+
+    /**
+     * Loga uma única vez por processo o tempo até a primeira query ser
+     * disparada
+     *
+     * @param jobName
+     */
+    public static void markFirstQuery(String jobName) {
+        if (firstQueryMarked.compareAndSet(false, true)) {
+            logger.info("Time To First Query: [{}] ms JOB:[{}]", sinceJvmStart(), jobName);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket: enche a rate tokens/s até capacity. Uma aquisição maior que
+ * o saldo deixa o balde negativo (débito) e espera o tempo de pagar, assim
+ * lotes maiores que a capacidade também passam, só que mais devagar.
+ *
+ * A taxa pode ser alterada em tempo de execução. Taxa zero desliga o limite.
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class TokenBucket {
+
+    private double rate;
+
+    private double burstSeconds;
+
+    private double tokens;
+
+    private long lastRefillNanos = System.nanoTime();
+
+    public TokenBucket(double rate, double burstSeconds) {
+        this.rate = rate;
+        this.burstSeconds = burstSeconds;
+        this.tokens = this.capacity();
+    }
+
+    /**
+     * Retira tokens do balde, esperando se não houver saldo
+     *
+     * @param amount
+     * @return tempo esperado em ns
+     * @throws InterruptedException
+     */
+    public long acquire(double amount) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            if (this.rate <= 0) {
+                return 0L;
+            }
+            this.refill();
+            this.tokens -= amount;
+            waitNanos = this.tokens >= 0 ? 0L : (long) (-this.tokens / this.rate * TimeUnit.SECONDS.toNanos(1));
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Retira tokens do balde somente se houver saldo, sem esperar
+     *
+     * @param amount
+     * @return false se não há saldo
+     */
+    public synchronized boolean tryAcquire(double amount) {
+        if (this.rate <= 0) {
+            return true;
+        }
+        this.refill();
+        if (this.tokens < amount) {
+            return false;
+        }
+        this.tokens -= amount;
+        return true;
+    }
+
+    public synchronized void setRate(double rate) {
+        this.refill();
+        this.rate = rate;
+        this.tokens = Math.min(this.tokens, this.capacity());
+    }
+
+    public synchronized double getRate() {
+        return this.rate;
+    }
+
+    public synchronized double getTokens() {
+        this.refill();
+        return this.tokens;
+    }
+
+    private double capacity() {
+        return Math.max(1.0, this.rate * this.burstSeconds);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.capacity(), this.tokens + (now - this.lastRefillNanos) * this.rate / TimeUnit.SECONDS.toNanos(1));
+        this.lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,292 @@
+--
+-- Subconjunto das tabelas do MeiosTX_Web_XX.dbo usadas pelas queries do
+-- config/jobs.yml, criado em cada schema do banco de load test ({schema})
+--
+CREATE TABLE {schema}.tabSites (
+    idSite INT PRIMARY KEY,
+    SiglaSite VARCHAR(20),
+    UFDoSite VARCHAR(2)
+);
+
+CREATE TABLE {schema}.tabEquipamentosTransmissao (
+    idEquipTrans INT PRIMARY KEY,
+    SiglaET VARCHAR(64),
+    idSite INT
+);
+
+CREATE TABLE {schema}.tabFabricantesEquipTransmissao (
+    codFabricante INT PRIMARY KEY,
+    Descricao VARCHAR(64)
+);
+
+CREATE TABLE {schema}.tabModelosEquipTransmissao (
+    codModeloEquip INT PRIMARY KEY,
+    Descricao VARCHAR(64)
+);
+
+--
+-- Rádios
+--
+CREATE TABLE {schema}.tabAntenaFabricantes (
+    codFabricanteAntena INT PRIMARY KEY,
+    FabricanteAntena VARCHAR(64)
+);
+
+CREATE TABLE {schema}.tabAntenaModelos (
+    codAntena INT PRIMARY KEY,
+    codFabricanteAntena INT,
+    SiglaAntena VARCHAR(32),
+    Diametro DECIMAL(5,2)
+);
+
+CREATE TABLE {schema}.tabAntenas (
+    idAntena INT PRIMARY KEY,
+    idSite INT,
+    codAntena INT,
+    SiglaAntena VARCHAR(32),
+    Altura DECIMAL(6,2)
+);
+
+CREATE TABLE {schema}.tabRadios (
+    idEquipTrans INT PRIMARY KEY,
+    SiglaET VARCHAR(64),
+    Status VARCHAR(20),
+    SiglaPlataforma VARCHAR(64),
+    Tecnologia VARCHAR(32),
+    EnderecoIP VARCHAR(15),
+    Subrede VARCHAR(15),
+    Configuracao VARCHAR(16),
+    RadioGerenciado VARCHAR(3),
+    idAntena INT,
+    codAntena INT,
+    codFabricante INT,
+    ModeloEquip INT,
+    Azimute DECIMAL(6,2),
+    AnguloElevacao DECIMAL(5,2),
+    Trecho VARCHAR(64),
+    Modulacao VARCHAR(16),
+    ModulacaoMax VARCHAR(16),
+    ModulacaoAdaptativa VARCHAR(3),
+    CapacidadeMb INT,
+    CapacidadeMbMax INT,
+    idEquipTransAssociado INT,
+    Atenuacao DECIMAL(6,2),
+    NivelTX DECIMAL(6,2),
+    Potencia DECIMAL(6,2),
+    Sensibilidade DECIMAL(6,2),
+    FaixaFrequencia VARCHAR(16)
+);
+
+CREATE TABLE {schema}.tabFrequenciasAnatel (
+    idFrequenciaAnatel INT PRIMARY KEY,
+    FaixaFrequencia VARCHAR(16),
+    Baixa DECIMAL(10,4),
+    Alta DECIMAL(10,4)
+);
+
+CREATE TABLE {schema}.tabRadioFrequencias (
+    idRadioFrequencia INT PRIMARY KEY,
+    idEquipTrans INT,
+    idFrequenciaAnatel INT,
+    Polarizacao VARCHAR(16)
+);
+
+CREATE TABLE {schema}.tabRadioModeloCaracteristicas (
+    codModeloEquip INT,
+    FaixaFrequencia VARCHAR(16),
+    Modulacao VARCHAR(16),
+    CapacidadeMb INT,
+    EspacamentoCanal DECIMAL(6,2)
+);
+
+CREATE TABLE {schema}.tabRadioPortasFast (
+    idEquipTrans INT,
+    Porta INT,
+    VelocidadePorta VARCHAR(16),
+    idDID INT
+);
+
+CREATE TABLE {schema}.tabFastEthernet (
+    idFast INT PRIMARY KEY,
+    idEquipTransB INT,
+    PortaB INT
+);
+
+--
+-- MUX (DWDM e Metro)
+--
+CREATE TABLE {schema}.tabMUX (
+    idEquipTrans INT PRIMARY KEY,
+    Status VARCHAR(20),
+    ModeloEquip INT,
+    codFabricante INT,
+    NumShelfs INT,
+    FuncaoEnderecoIP VARCHAR(32),
+    EnderecoIP VARCHAR(15),
+    FuncaoEnderecoIP2 VARCHAR(32),
+    EnderecoIP2 VARCHAR(15),
+    FuncaoEnderecoIP3 VARCHAR(32),
+    EnderecoIP3 VARCHAR(15),
+    FuncaoEnderecoIP4 VARCHAR(32),
+    EnderecoIP4 VARCHAR(15),
+    Configuracao VARCHAR(32),
+    NumOE VARCHAR(32)
+);
+
+CREATE TABLE {schema}.tabSubModelosEquipTransmissao (
+    idSubModeloEquip INT PRIMARY KEY,
+    DescSubModeloEquip VARCHAR(64)
+);
+
+CREATE TABLE {schema}.tabShelf (
+    idShelf INT PRIMARY KEY,
+    Status VARCHAR(20),
+    idSubModeloEquip INT,
+    TipoAddDrop VARCHAR(32)
+);
+
+CREATE TABLE {schema}.tabMUXTipoPlacas (
+    idMUXTipoPlaca INT PRIMARY KEY,
+    Descricao VARCHAR(64),
+    Funcao VARCHAR(32),
+    NumPortas INT,
+    NumPortasLogicas INT,
+    NumDIDs INT,
+    NumPlacas INT
+);
+
+CREATE TABLE {schema}.tabMUXSlots (
+    idMUXSlot INT PRIMARY KEY,
+    idEquipTrans INT,
+    idShelf INT,
+    Shelf INT,
+    Slot INT,
+    Modulo INT,
+    Status VARCHAR(20),
+    idMUXTipoPlaca INT,
+    numOE VARCHAR(32)
+);
+
+CREATE INDEX {schema}.idx_slots_equip ON {schema}.tabMUXSlots (idEquipTrans);
+
+CREATE TABLE {schema}.tabMUXSlotPortas (
+    idMUXSlot INT,
+    Porta INT,
+    Nome VARCHAR(64),
+    Funcao VARCHAR(32),
+    FuncaoPorta VARCHAR(32),
+    VelocidadePorta VARCHAR(16),
+    SwitchMode VARCHAR(16),
+    AutoNegociacao VARCHAR(3),
+    Eletrico VARCHAR(3),
+    PRIMARY KEY (idMUXSlot, Porta)
+);
+
+--
+-- Camadas WDM
+--
+CREATE TABLE {schema}.tabTipoFibra (
+    idTipoFibra INT PRIMARY KEY,
+    TipoFibra VARCHAR(32)
+);
+
+CREATE TABLE {schema}.tabTipoRedeOptica (
+    idTipoRedeOptica INT PRIMARY KEY,
+    TipoRedeOptica VARCHAR(32)
+);
+
+CREATE TABLE {schema}.tabWDMOTSHeader (
+    idWDMOTS INT PRIMARY KEY,
+    Status VARCHAR(20),
+    idEquipTransInic INT,
+    idEquipTransFim INT,
+    idSiteInic INT,
+    idSiteFim INT,
+    idMUXSlotInic INT,
+    PortaInic INT,
+    idMUXSlotInicTX INT,
+    PortaInicTX INT,
+    idMUXSlotFim INT,
+    PortaFim INT,
+    idMUXSlotFimTX INT,
+    PortaFimTX INT,
+    idTipoFibra INT,
+    idTipoRedeOptica INT,
+    Sigla VARCHAR(64),
+    DistanciaTeorica DECIMAL(10,2),
+    DistanciaReal DECIMAL(10,2),
+    AtenuacaoTeorica DECIMAL(10,2),
+    AtenuacaoRealTX DECIMAL(10,2),
+    AtenuacaoRealRX DECIMAL(10,2),
+    dB_Km DECIMAL(10,4),
+    ChaveOTS VARCHAR(64),
+    ChaveOMS VARCHAR(64),
+    NumOEAtivacao VARCHAR(32),
+    NumOEDesativ VARCHAR(32),
+    idETP INT,
+    MargemSistemica DECIMAL(10,2),
+    Coerente VARCHAR(3)
+);
+
+CREATE INDEX {schema}.idx_ots_inic ON {schema}.tabWDMOTSHeader (idEquipTransInic);
+
+CREATE INDEX {schema}.idx_ots_fim ON {schema}.tabWDMOTSHeader (idEquipTransFim);
+
+CREATE TABLE {schema}.tabWDMOMS (
+    idWDMOMS INT PRIMARY KEY,
+    Status VARCHAR(20),
+    idEquipTransInic INT,
+    idEquipTransFim INT,
+    Sigla VARCHAR(64),
+    NumCanais INT,
+    Funcao VARCHAR(32),
+    Velocidade VARCHAR(16)
+);
+
+CREATE TABLE {schema}.tabWDMOTS (
+    idWDMOTS INT,
+    idWDMOMS INT
+);
+
+CREATE TABLE {schema}.tabWDMOCH (
+    idWDMOCH INT PRIMARY KEY,
+    Status VARCHAR(20),
+    idEquipTransInic INT,
+    idEquipTransFim INT,
+    idMUXSlotInic INT,
+    PortaInic INT,
+    idMUXSlotFim INT,
+    PortaFim INT,
+    TipoOCH VARCHAR(32),
+    LambdaAlien VARCHAR(3),
+    Sigla VARCHAR(64),
+    Funcao VARCHAR(32),
+    Velocidade VARCHAR(16)
+);
+
+CREATE TABLE {schema}.tabWDMOCHTrechos (
+    idWDMOCH INT,
+    idWDMOMS INT,
+    Ordem INT,
+    idEquipTransA INT,
+    idEquipTransB INT,
+    Canal INT
+);
+
+CREATE TABLE {schema}.tabWDMODU (
+    idWDMODU INT PRIMARY KEY,
+    Status VARCHAR(20),
+    Sigla VARCHAR(64),
+    idEquipTransInic INT,
+    idEquipTransFim INT,
+    Velocidade VARCHAR(16),
+    CaminhoAlternativo VARCHAR(3),
+    NumOE VARCHAR(32)
+);
+
+CREATE TABLE {schema}.tabWDMODUTrechos (
+    idWDMODU INT,
+    idWDMOCH INT,
+    Caminho INT,
+    Ordem INT
+);
@@ -0,0 +1,60 @@
+--
+-- Espelho local do inventário montado pelas Jobs (um banco H2 por sessão),
+-- mesmas tabelas do sql/create.sql mas indexadas pelo KEY_HASH, hash de 64
+-- bits da chave do objeto, ao invés da chave VARCHAR(1024). O RESOURCE_KEY
+-- fica sem índice, o MERGE do MirrorInventoryWriter só atualiza a linha com a
+-- mesma chave e trata hash igual com outra chave como colisão
+--
+CREATE TABLE IF NOT EXISTS RESOURCES (
+  KEY_HASH BIGINT PRIMARY KEY,
+  RESOURCE_KEY VARCHAR(1024),
+  NODEADDRESS VARCHAR(1024),
+  RESOURCE_DOMAIN VARCHAR(255),
+  RESOURCE_CLASSNAME VARCHAR(255),
+  RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255),
+  STRUCTURE_ID VARCHAR(255),
+  INSERTED_ON TIMESTAMP,
+  RESOURCE BINARY LARGE OBJECT
+);
+
+CREATE TABLE IF NOT EXISTS CONNECTIONS (
+  KEY_HASH BIGINT PRIMARY KEY,
+  RESOURCE_KEY VARCHAR(1024),
+  NODEADDRESS VARCHAR(1024),
+  RESOURCE_DOMAIN VARCHAR(255),
+  RESOURCE_CLASSNAME VARCHAR(255),
+  RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255),
+  FROM_RESOURCE VARCHAR(1024),
+  TO_RESOURCE VARCHAR(1024),
+  INSERTED_ON TIMESTAMP,
+  RESOURCE BINARY LARGE OBJECT
+);
+
+CREATE TABLE IF NOT EXISTS CIRCUITS (
+  KEY_HASH BIGINT PRIMARY KEY,
+  RESOURCE_KEY VARCHAR(1024),
+  NODEADDRESS VARCHAR(1024),
+  RESOURCE_DOMAIN VARCHAR(255),
+  RESOURCE_CLASSNAME VARCHAR(255),
+  RESOURCE_ATTRIBUTE_SCHEMA_NAME VARCHAR(255),
+  A_RESOURCE VARCHAR(1024),
+  Z_RESOURCE VARCHAR(1024),
+  INSERTED_ON TIMESTAMP,
+  RESOURCE BINARY LARGE OBJECT
+);
+
+CREATE TABLE IF NOT EXISTS CIRCUIT_PATHS (
+  KEY_HASH BIGINT PRIMARY KEY,
+  RESOURCE_KEY VARCHAR(1024),
+  INSERTED_ON TIMESTAMP,
+  RESOURCE BINARY LARGE OBJECT
+);
+
+--
+-- Gravado só no close do writer, sem esta linha o espelho está incompleto
+--
+CREATE TABLE IF NOT EXISTS MIRROR_INFO (
+  SESSION_NAME VARCHAR(255) PRIMARY KEY,
+  COMPLETED_ON TIMESTAMP,
+  OBJECTS BIGINT
+);
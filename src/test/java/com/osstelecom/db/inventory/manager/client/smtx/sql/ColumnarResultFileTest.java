@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.sql;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ColumnarResultFileTest {
+
+    private static final String[] NAMES = {"Hostname", "Fabricante", "Porta"};
+
+    private static final int[] TYPES = {Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+
+    @TempDir
+    Path dir;
+
+    private List<String[]> rows(int count) {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new String[]{"HOST-" + i, i % 7 == 0 ? null : (i % 2 == 0 ? "Huawei" : "Padtec"), i % 5 == 0 ? null : String.valueOf(i)});
+        }
+        return rows;
+    }
+
+    @Test
+    public void roundTripsValuesAndNulls() throws IOException {
+        Path file = this.dir.resolve("getDwdm.col");
+        List<String[]> rows = this.rows(1_000);
+        ColumnarResultFile.write(file, NAMES, TYPES, rows);
+
+        ColumnarResultFile.Table table = ColumnarResultFile.read(file);
+        assertEquals(3, table.getColumnCount());
+        assertEquals(1_000, table.getRowCount());
+        for (int c = 0; c < NAMES.length; c++) {
+            assertEquals(NAMES[c], table.getName(c));
+            assertEquals(TYPES[c], table.getType(c));
+        }
+        for (int r = 0; r < rows.size(); r++) {
+            for (int c = 0; c < NAMES.length; c++) {
+                assertEquals(rows.get(r)[c], table.getValue(r, c), "row " + r + " column " + c);
+            }
+        }
+        assertFalse(Files.exists(file.resolveSibling("getDwdm.col.tmp")));
+    }
+
+    @Test
+    public void encodesRepetitiveColumnsWithDictionary() throws IOException {
+        Path file = this.dir.resolve("getDwdm.col");
+        ColumnarResultFile.write(file, NAMES, TYPES, this.rows(1_000));
+
+        ColumnarResultFile.Table table = ColumnarResultFile.read(file);
+        int fabricante = table.findColumn("FABRICANTE");
+        assertEquals(1, fabricante);
+        assertTrue(table.isDictionary(fabricante));
+        assertFalse(table.isDictionary(table.findColumn("Hostname")));
+        assertNull(table.getCodes(0));
+
+        String[] dictionary = table.getDictionary(fabricante);
+        assertEquals(2, dictionary.length);
+        int[] codes = table.getCodes(fabricante);
+        assertEquals(-1, codes[0]);
+        assertEquals("Padtec", dictionary[codes[1]]);
+        assertEquals("Huawei", dictionary[codes[2]]);
+        //
+        // As linhas apontam para a String do dicionário
+        //
+        assertSame(table.getValue(2, fabricante), table.getValue(4, fabricante));
+        assertEquals(-1, table.findColumn("Modelo"));
+    }
+
+    @Test
+    public void roundTripsAnEmptyResult() throws IOException {
+        Path file = this.dir.resolve("empty.col");
+        ColumnarResultFile.write(file, NAMES, TYPES, new ArrayList<>());
+
+        ColumnarResultFile.Table table = ColumnarResultFile.read(file);
+        assertEquals(0, table.getRowCount());
+        assertEquals(3, table.getColumnCount());
+    }
+
+    @Test
+    public void readsVersionOneFiles() throws IOException {
+        Path file = this.dir.resolve("v1.col");
+        List<String[]> rows = Arrays.asList(new String[]{"A", null}, new String[]{null, "1"}, new String[]{"C", "2"});
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeUTF("SMTXCOL1");
+            out.writeInt(2);
+            out.writeUTF("Hostname");
+            out.writeInt(Types.VARCHAR);
+            out.writeUTF("Porta");
+            out.writeInt(Types.INTEGER);
+            out.writeInt(rows.size());
+            for (int c = 0; c < 2; c++) {
+                byte nulls = 0;
+                for (int r = 0; r < rows.size(); r++) {
+                    if (rows.get(r)[c] == null) {
+                        nulls |= (byte) (1 << r);
+                    }
+                }
+                out.writeByte(nulls);
+                for (String[] row : rows) {
+                    if (row[c] != null) {
+                        byte[] bytes = row[c].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+        }
+
+        ColumnarResultFile.Table table = ColumnarResultFile.read(file);
+        assertEquals(3, table.getRowCount());
+        assertArrayEquals(new String[]{"A", null, "C"}, table.getColumn(0));
+        assertArrayEquals(new String[]{null, "1", "2"}, table.getColumn(1));
+        assertFalse(table.isDictionary(0));
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path file = this.dir.resolve("other.col");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeUTF("SOMETHING");
+        }
+        assertThrows(IOException.class, () -> ColumnarResultFile.read(file));
+    }
+}
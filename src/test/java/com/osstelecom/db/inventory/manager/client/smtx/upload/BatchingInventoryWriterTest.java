@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class BatchingInventoryWriterTest {
+
+    /**
+     * Destino com chamadas em lote, registra cada chamada como tipo:tamanho
+     */
+    static class BulkWriter implements InventoryWriter {
+
+        private final List<String> calls = new ArrayList<>();
+
+        private boolean rejectConnections = false;
+
+        @Override
+        public void addManagedResource(ManagedResource resource) {
+            this.calls.add("resource:1");
+        }
+
+        @Override
+        public void addResourceConnection(ResourceConnection connection) {
+            this.calls.add("connection:1");
+        }
+
+        @Override
+        public void addCircuitResource(CircuitResource circuit) {
+            this.calls.add("circuit:1");
+        }
+
+        @Override
+        public void addCircuitPath(CircuitPathDTO circuitPath) {
+            this.calls.add("path:1");
+        }
+
+        @Override
+        public void addManagedResources(List<ManagedResource> resources) {
+            this.calls.add("resource:" + resources.size());
+        }
+
+        @Override
+        public void addResourceConnections(List<ResourceConnection> connections) throws IOException {
+            if (this.rejectConnections) {
+                throw new IOException("Rejected");
+            }
+            this.calls.add("connection:" + connections.size());
+        }
+
+        @Override
+        public long getWrittenCount() {
+            return this.calls.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void deliversEachRunOfTheSameTypeInOneBulkCall() throws Exception {
+        BulkWriter target = new BulkWriter();
+        BatchingInventoryWriter writer = new BatchingInventoryWriter(target, "TEST", 5, 0);
+        writer.addManagedResource(new ManagedResource());
+        writer.addManagedResource(new ManagedResource());
+        writer.addResourceConnection(new ResourceConnection());
+        writer.addResourceConnection(new ResourceConnection());
+        assertTrue(target.calls.isEmpty());
+        writer.addManagedResource(new ManagedResource());
+        assertEquals(List.of("resource:2", "connection:2", "resource:1"), target.calls);
+        writer.close();
+    }
+
+    @Test
+    public void reportsAFailedRunToTheAddThatCompletedTheBatch() throws Exception {
+        BulkWriter target = new BulkWriter();
+        target.rejectConnections = true;
+        BatchingInventoryWriter writer = new BatchingInventoryWriter(target, "TEST", 3, 0);
+        writer.addManagedResource(new ManagedResource());
+        writer.addResourceConnection(new ResourceConnection());
+        IOException ex = assertThrows(IOException.class, () -> writer.addManagedResource(new ManagedResource()));
+        assertTrue(ex.getMessage().contains("Type:[connection] Objects:[1]"));
+        //
+        // As outras sequências do lote foram entregues
+        //
+        assertEquals(List.of("resource:1", "resource:1"), target.calls);
+        writer.close();
+    }
+
+    @Test
+    public void reportsAFailedLastBatchOnClose() throws Exception {
+        BulkWriter target = new BulkWriter();
+        target.rejectConnections = true;
+        BatchingInventoryWriter writer = new BatchingInventoryWriter(target, "TEST", 10, 0);
+        writer.addResourceConnection(new ResourceConnection());
+        assertThrows(IOException.class, writer::close);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import java.io.IOException;
+import java.io.StringWriter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Confere que o CircuitPathJsonWriter escreve o mesmo JSON que
+ * gson.toJson(circuitPath)
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class CircuitPathJsonWriterTest {
+
+    private static final String PATH_JSON = "{\"circuit\":{\"key\":\"CIRCUIT-1\",\"nodeAddress\":\"circuit-1\",\"className\":\"circuit.Default\"},"
+            + "\"note\":\"OCH\",\"hops\":2,"
+            + "\"paths\":[{\"key\":\"CONN-1\",\"nodeAddress\":\"conn-1\",\"name\":\"A-B\",\"from\":{\"key\":\"A\"},\"to\":{\"key\":\"B\"}},"
+            + "{\"key\":\"CONN-2\",\"nodeAddress\":\"conn-2\",\"name\":\"B-C\",\"from\":{\"key\":\"B\"},\"to\":{\"key\":\"C\"}}]}";
+
+    private final Gson gson = new Gson();
+
+    /**
+     * DTO com campos além de circuit e paths
+     */
+    static class NotedCircuitPath extends CircuitPathDTO {
+
+        private String note;
+
+        private int hops;
+    }
+
+    private JsonElement write(CircuitPathDTO circuitPath, boolean keysOnly) throws IOException {
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter out = this.gson.newJsonWriter(buffer)) {
+            new CircuitPathJsonWriter(this.gson, keysOnly).write(out, circuitPath);
+        }
+        return JsonParser.parseString(buffer.toString());
+    }
+
+    @Test
+    public void writesTheSameJsonAsGson() throws IOException {
+        CircuitPathDTO circuitPath = this.gson.fromJson(PATH_JSON, NotedCircuitPath.class);
+        assertEquals(JsonParser.parseString(this.gson.toJson(circuitPath)), this.write(circuitPath, false));
+    }
+
+    @Test
+    public void writesTheSameJsonAsGsonWithoutCircuitAndPaths() throws IOException {
+        CircuitPathDTO circuitPath = this.gson.fromJson("{\"note\":\"empty\"}", NotedCircuitPath.class);
+        assertEquals(JsonParser.parseString(this.gson.toJson(circuitPath)), this.write(circuitPath, false));
+    }
+
+    @Test
+    public void keepsOtherFieldsWithKeysOnly() throws IOException {
+        CircuitPathDTO circuitPath = this.gson.fromJson(PATH_JSON, NotedCircuitPath.class);
+        JsonObject written = this.write(circuitPath, true).getAsJsonObject();
+        assertEquals("OCH", written.get("note").getAsString());
+        assertEquals(2, written.get("hops").getAsInt());
+        assertEquals("CIRCUIT-1", written.getAsJsonObject("circuit").get("key").getAsString());
+        JsonArray paths = written.getAsJsonArray("paths");
+        assertEquals(2, paths.size());
+        JsonObject first = paths.get(0).getAsJsonObject();
+        assertEquals("CONN-1", first.get("key").getAsString());
+        assertEquals("conn-1", first.get("nodeAddress").getAsString());
+        assertFalse(first.has("name"));
+        assertFalse(first.has("from"));
+    }
+}
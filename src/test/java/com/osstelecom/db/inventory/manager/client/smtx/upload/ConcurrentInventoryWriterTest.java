@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class ConcurrentInventoryWriterTest {
+
+    /**
+     * Destino que registra as keys na ordem de entrega e recusa as keys
+     * marcadas
+     */
+    static class RecordingWriter implements InventoryWriter {
+
+        private final List<String> keys = Collections.synchronizedList(new ArrayList<>());
+
+        private final Set<String> rejected = new HashSet<>();
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private volatile int maxActive = 0;
+
+        private volatile boolean closed = false;
+
+        private void record(String key) throws IOException {
+            int current = this.active.incrementAndGet();
+            this.maxActive = Math.max(this.maxActive, current);
+            try {
+                if (this.rejected.contains(key)) {
+                    throw new IOException("Rejected: " + key);
+                }
+                this.keys.add(key);
+            } finally {
+                this.active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void addManagedResource(ManagedResource resource) throws IOException {
+            this.record(resource.getKey());
+        }
+
+        @Override
+        public void addResourceConnection(ResourceConnection connection) throws IOException {
+            this.record(connection.getKey());
+        }
+
+        @Override
+        public void addCircuitResource(CircuitResource circuit) throws IOException {
+            this.record(circuit.getKey());
+        }
+
+        @Override
+        public void addCircuitPath(CircuitPathDTO circuitPath) throws IOException {
+            this.record(circuitPath.getCircuit().getKey());
+        }
+
+        @Override
+        public long getWrittenCount() {
+            return this.keys.size();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    private static ManagedResource resource(String key) {
+        ManagedResource resource = new ManagedResource();
+        resource.setKey(key);
+        return resource;
+    }
+
+    private static ResourceConnection connection(String key) {
+        ResourceConnection connection = new ResourceConnection();
+        connection.setKey(key);
+        return connection;
+    }
+
+    @Test
+    public void deliversEveryObjectOnceKeepingEachThreadOrder() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        ConcurrentInventoryWriter writer = new ConcurrentInventoryWriter(target, "TEST", 16, 2);
+        int threadCount = 4;
+        int perThread = 1_000;
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threadCount; t++) {
+            String prefix = "t" + t + "-";
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        writer.addManagedResource(resource(prefix + i));
+                        writer.addResourceConnection(connection(prefix + i + "-c"));
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.flush();
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(threadCount * perThread * 2L, target.getWrittenCount());
+        assertEquals(target.keys.size(), new HashSet<>(target.keys).size());
+        assertEquals(1, target.maxActive);
+        for (int t = 0; t < threadCount; t++) {
+            String prefix = "t" + t + "-";
+            int expected = 0;
+            boolean connectionNext = false;
+            for (String key : target.keys) {
+                if (key.startsWith(prefix)) {
+                    String expectedKey = prefix + expected + (connectionNext ? "-c" : "");
+                    assertEquals(expectedKey, key);
+                    if (connectionNext) {
+                        expected++;
+                    }
+                    connectionNext = !connectionNext;
+                }
+            }
+            assertEquals(perThread, expected);
+        }
+        assertEquals(0L, writer.getFailedCount());
+    }
+
+    @Test
+    public void rejectedObjectDoesNotDropTheRestOfTheStage() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        target.rejected.add("r2");
+        ConcurrentInventoryWriter writer = new ConcurrentInventoryWriter(target, "TEST", 4, 1);
+        for (int i = 0; i < 6; i++) {
+            writer.addManagedResource(resource("r" + i));
+        }
+        writer.flush();
+
+        assertEquals(List.of("r0", "r1", "r3", "r4", "r5"), target.keys);
+        assertEquals(1L, writer.getFailedCount());
+    }
+
+    @Test
+    public void rejectedObjectsGoToTheErrorHandler() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        target.rejected.add("r1");
+        target.rejected.add("r3");
+        ConcurrentInventoryWriter writer = new ConcurrentInventoryWriter(target, "TEST", 2, 1);
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        writer.setErrorHandler((message, ex) -> {
+            messages.add(message);
+            errors.add(ex);
+        });
+        for (int i = 0; i < 4; i++) {
+            writer.addManagedResource(resource("r" + i));
+        }
+        writer.flush();
+
+        assertEquals(List.of("r0", "r2"), target.keys);
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).contains("Session:[TEST] Type:[resource]"));
+        assertEquals("Rejected: r1", errors.get(0).getMessage());
+        assertEquals(2L, writer.getFailedCount());
+    }
+
+    @Test
+    public void closeFlushesAndClosesTheTarget() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        ConcurrentInventoryWriter writer = new ConcurrentInventoryWriter(target, "TEST", 100, 1);
+        writer.addManagedResource(resource("r0"));
+        assertEquals(0L, target.getWrittenCount());
+        writer.close();
+
+        assertEquals(List.of("r0"), target.keys);
+        assertTrue(target.closed);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.upload;
+
+import com.google.gson.Gson;
+import com.osstelecom.db.inventory.manager.dto.CircuitPathDTO;
+import com.osstelecom.db.inventory.manager.resources.CircuitResource;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class DeduplicatingInventoryWriterTest {
+
+    /**
+     * Destino que guarda os recursos entregues
+     */
+    static class RecordingWriter implements InventoryWriter {
+
+        private final List<ManagedResource> resources = new ArrayList<>();
+
+        @Override
+        public void addManagedResource(ManagedResource resource) {
+            this.resources.add(resource);
+        }
+
+        @Override
+        public void addResourceConnection(ResourceConnection connection) {
+        }
+
+        @Override
+        public void addCircuitResource(CircuitResource circuit) {
+        }
+
+        @Override
+        public void addCircuitPath(CircuitPathDTO circuitPath) {
+        }
+
+        @Override
+        public long getWrittenCount() {
+            return this.resources.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Antena como o SMTXRadioJob.importAntenas monta, uma linha do getAntenas
+     * por polarização
+     */
+    private static ManagedResource antena(String polarizacao, String freqTx, String freqRx) {
+        ManagedResource antena = new ManagedResource();
+        antena.setKey("RADIO-01.ANT-A1");
+        antena.setNodeAddress("RADIO-01.ANT-A1");
+        antena.setClassName("resource.smtx.radio.antena");
+        antena.getAttributes().put("siglaAntena", "A1");
+        if (polarizacao.equals("vertical")) {
+            antena.getAttributes().put("freqTxVertical", freqTx);
+            antena.getAttributes().put("freqRxVertical", freqRx);
+        } else {
+            antena.getAttributes().put("freqTxHorizontal", freqTx);
+            antena.getAttributes().put("freqRxHorizontal", freqRx);
+        }
+        antena.getAttributes().put("polarizacao", polarizacao);
+        return antena;
+    }
+
+    @Test
+    public void keepsEachPolarizationOfTheSameAntenna() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        DeduplicatingInventoryWriter writer = new DeduplicatingInventoryWriter(target, new Gson(), "TEST");
+        writer.addManagedResource(antena("vertical", "7100", "7300"));
+        writer.addManagedResource(antena("horizontal", "7150", "7350"));
+        writer.close();
+        assertEquals(2, target.resources.size());
+        assertEquals("7100", target.resources.get(0).getAttributes().get("freqTxVertical"));
+        assertEquals("7350", target.resources.get(1).getAttributes().get("freqRxHorizontal"));
+        assertEquals(0L, writer.getDropped());
+    }
+
+    @Test
+    public void dropsIdenticalCopies() throws Exception {
+        RecordingWriter target = new RecordingWriter();
+        DeduplicatingInventoryWriter writer = new DeduplicatingInventoryWriter(target, new Gson(), "TEST");
+        writer.addManagedResource(antena("vertical", "7100", "7300"));
+        writer.addManagedResource(antena("vertical", "7100", "7300"));
+        writer.addManagedResource(antena("vertical", "7100", "7300"));
+        writer.close();
+        assertEquals(1, target.resources.size());
+        assertEquals(2L, writer.getDropped());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class Hash64Test {
+
+    @Test
+    public void isDeterministic() {
+        assertEquals(Hash64.of("resource.smtx.dwdm"), Hash64.of("resource.smtx.dwdm"));
+        assertEquals(Hash64.of(""), new Hash64().value());
+    }
+
+    @Test
+    public void appendsInPiecesLikeTheWholeValue() {
+        Hash64 pieces = new Hash64();
+        pieces.append("HOST-01");
+        pieces.append('.');
+        pieces.append("xxSHELF-1xx", 2, 9);
+        assertEquals(Hash64.of("HOST-01.SHELF-1"), pieces.value());
+    }
+
+    @Test
+    public void dependsOnOrderAndSeparators() {
+        assertNotEquals(Hash64.of("ab"), Hash64.of("ba"));
+        Hash64 first = new Hash64();
+        first.append("a");
+        first.append('\u0001');
+        first.append("bc");
+        Hash64 second = new Hash64();
+        second.append("ab");
+        second.append('\u0001');
+        second.append("c");
+        assertNotEquals(first.value(), second.value());
+    }
+
+    @Test
+    public void hasNoCollisionsOnNodeAddresses() {
+        Set<Long> hashes = new HashSet<>();
+        for (int host = 0; host < 200; host++) {
+            for (int slot = 0; slot < 500; slot++) {
+                assertTrue(hashes.add(Hash64.of("HOST-" + host + ".SHELF-1.SLOT-" + slot)));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void addReportsOnlyNewValues() {
+        LongHashSet set = new LongHashSet(4);
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.add(-42L));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(42L));
+        assertTrue(set.contains(-42L));
+        assertFalse(set.contains(43L));
+    }
+
+    @Test
+    public void zeroIsAValue() {
+        LongHashSet set = new LongHashSet(4);
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void growsPastTheExpectedSize() {
+        LongHashSet set = new LongHashSet(16);
+        long initialBytes = set.memoryBytes();
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(set.add(i));
+        }
+        assertEquals(10_000, set.size());
+        assertTrue(set.memoryBytes() > initialBytes);
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertFalse(set.contains(10_001L));
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(7L);
+        LongHashSet set = new LongHashSet(1_000);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            //
+            // Valores repetidos e só nos bits altos também
+            //
+            long value = i % 3 == 0 ? (long) random.nextInt(1_000) << 40 : random.nextInt(20_000);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (Long value : expected) {
+            assertTrue(set.contains(value));
+        }
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        LongHashSet set = new LongHashSet(16);
+        set.add(0L);
+        set.add(1L);
+        set.add(Long.MIN_VALUE);
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0L));
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(1L));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class PartitionedRowProcessorTest {
+
+    private static final class Row {
+
+        private final String hostname;
+
+        private final int sequence;
+
+        private Row(String hostname, int sequence) {
+            this.hostname = hostname;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Linhas processadas por Hostname, na ordem, e a thread de cada uma
+     */
+    private final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    private final Map<String, List<String>> threads = new ConcurrentHashMap<>();
+
+    private void record(Row row) {
+        this.processed.computeIfAbsent(row.hostname, k -> new ArrayList<>()).add(row.sequence);
+        this.threads.computeIfAbsent(row.hostname, k -> new ArrayList<>()).add(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void keepsTheOrderOfEachPartitionOnOneWorker() {
+        int hosts = 10;
+        int perHost = 500;
+        try (PartitionedRowProcessor<Row> workers = new PartitionedRowProcessor<>("test", 4, 8, row -> row.hostname, this::record)) {
+            for (int i = 0; i < perHost; i++) {
+                for (int h = 0; h < hosts; h++) {
+                    workers.submit(new Row("HOST-" + h, i));
+                }
+            }
+            assertEquals((long) hosts * perHost, workers.getRows());
+        }
+
+        assertEquals(hosts, this.processed.size());
+        for (int h = 0; h < hosts; h++) {
+            List<Integer> sequences = this.processed.get("HOST-" + h);
+            assertEquals(perHost, sequences.size());
+            for (int i = 0; i < perHost; i++) {
+                assertEquals(i, (int) sequences.get(i));
+            }
+            List<String> names = this.threads.get("HOST-" + h);
+            assertEquals(1L, names.stream().distinct().count());
+            assertTrue(names.get(0).startsWith("rows-test-"), names.get(0));
+        }
+    }
+
+    @Test
+    public void runsInlineWithOneWorker() {
+        String caller = Thread.currentThread().getName();
+        try (PartitionedRowProcessor<Row> workers = new PartitionedRowProcessor<>("inline", 1, 8, row -> row.hostname, this::record)) {
+            workers.submit(new Row("HOST-0", 0));
+            assertEquals(List.of(0), this.processed.get("HOST-0"));
+        }
+        assertEquals(List.of(caller), this.threads.get("HOST-0"));
+    }
+
+    @Test
+    public void countsRowsThatThrowAndKeepsGoing() {
+        AtomicInteger done = new AtomicInteger();
+        PartitionedRowProcessor<Row> workers = new PartitionedRowProcessor<>("errors", 2, 8, row -> row.hostname, row -> {
+            if (row.sequence % 10 == 0) {
+                throw new IllegalArgumentException("bad row " + row.sequence);
+            }
+            done.incrementAndGet();
+        });
+        for (int i = 0; i < 100; i++) {
+            workers.submit(new Row(i % 2 == 0 ? "HOST-A" : null, i));
+        }
+        workers.close();
+
+        assertEquals(10L, workers.getErrors());
+        assertEquals(90, done.get());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import com.osstelecom.db.inventory.manager.client.smtx.utils.PortPathBuilder.PortPath;
+import com.osstelecom.db.inventory.manager.resources.ManagedResource;
+import com.osstelecom.db.inventory.manager.resources.ResourceConnection;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class PortPathBuilderTest {
+
+    /**
+     * Monta os DTOs localmente e registra as chamadas feitas ao cliente
+     */
+    static class CountingFactory extends SharedResourceFactory {
+
+        private final List<String> resources = new ArrayList<>();
+
+        private int connections = 0;
+
+        CountingFactory() {
+            super(null);
+        }
+
+        @Override
+        public ManagedResource getManagedResource(String nodeAddress, String domain, String className, String attributeSchemaName) {
+            this.resources.add(className + ":" + nodeAddress);
+            ManagedResource resource = new ManagedResource();
+            resource.setNodeAddress(nodeAddress);
+            resource.setClassName(className);
+            return resource;
+        }
+
+        @Override
+        public ResourceConnection getResourceConnection(ManagedResource from, ManagedResource to, String domain, String className, String attributeSchemaName) {
+            this.connections++;
+            ResourceConnection connection = new ResourceConnection();
+            connection.setFrom(from);
+            connection.setTo(to);
+            return connection;
+        }
+    }
+
+    @Test
+    public void buildsTheChainFromTheHostToThePort() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        PortPathBuilder builder = new PortPathBuilder(factory, "dwdm", "resource.smtx.dwdm", "connection.default");
+        PortPath path = builder.get("HOST-A", "1", "2", null, "3");
+
+        assertEquals("HOST-A.SHELF-1.SLOT-2.PORTA-3", path.getPort().getNodeAddress());
+        assertEquals("resource.smtx.dwdm.porta", path.getPort().getClassName());
+        List<ResourceConnection> connections = path.getConnections();
+        assertEquals(3, connections.size());
+        assertEquals("HOST-A", connections.get(0).getFrom().getNodeAddress());
+        assertEquals("HOST-A.SHELF-1", connections.get(0).getTo().getNodeAddress());
+        assertEquals("HOST-A.SHELF-1.SLOT-2", connections.get(1).getTo().getNodeAddress());
+        assertSame(path.getPort(), connections.get(2).getTo());
+    }
+
+    @Test
+    public void insertsTheModuleBetweenSlotAndPort() throws Exception {
+        PortPathBuilder builder = new PortPathBuilder(new CountingFactory(), "dwdm", "resource.smtx.dwdm", "connection.default");
+        PortPath path = builder.get("HOST-A", "1", "2", "4", "3");
+
+        assertEquals("HOST-A.SHELF-1.SLOT-2.MODULO-4.PORTA-3", path.getPort().getNodeAddress());
+        assertEquals(4, path.getConnections().size());
+        assertEquals("resource.smtx.dwdm.modulo", path.getConnections().get(2).getTo().getClassName());
+    }
+
+    @Test
+    public void reusesChainsAndSharedResourcesAcrossCircuits() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        PortPathBuilder builder = new PortPathBuilder(factory, "dwdm", "resource.smtx.dwdm", "connection.default");
+        PortPath first = builder.get("HOST-A", "1", "2", null, "3");
+        PortPath again = builder.get("HOST-A", "1", "2", null, "3");
+        assertSame(first, again);
+        assertEquals(1L, builder.getHits());
+        assertEquals(1L, builder.getMisses());
+        //
+        // Porta vizinha: host, shelf e slot já memorizados, só a porta e as
+        // conexões são novas
+        //
+        int resourcesBefore = factory.resources.size();
+        builder.get("HOST-A", "1", "2", null, "4");
+        assertEquals(resourcesBefore + 1, factory.resources.size());
+        assertEquals(6, factory.connections);
+
+        builder.clear();
+        builder.get("HOST-A", "1", "2", null, "3");
+        assertEquals(0L, builder.getHits());
+        assertEquals(1L, builder.getMisses());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class PreparedStatementCacheTest {
+
+    private final AtomicInteger prepared = new AtomicInteger();
+    private final AtomicInteger statementsClosed = new AtomicInteger();
+    private final AtomicInteger resultSetsClosed = new AtomicInteger();
+
+    @Test
+    public void closingTheStatementKeepsItCached() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(this.connection(), Map.of("getFrequencias", "SELECT 1"));
+        for (int i = 0; i < 3; i++) {
+            try (PreparedStatement statement = cache.get("getFrequencias")) {
+                statement.executeQuery();
+            }
+        }
+        assertEquals(1, this.prepared.get());
+        assertEquals(0, this.statementsClosed.get());
+        assertEquals(3, this.resultSetsClosed.get());
+        assertEquals(2L, cache.getHits("getFrequencias"));
+        assertEquals(1L, cache.getMisses("getFrequencias"));
+
+        cache.close();
+        assertEquals(1, this.statementsClosed.get());
+    }
+
+    @Test
+    public void unknownQueryFails() {
+        PreparedStatementCache cache = new PreparedStatementCache(this.connection(), Map.of());
+        assertThrows(SQLException.class, () -> cache.get("getFrequencias"));
+    }
+
+    @Test
+    public void closedStatementIsPreparedAgain() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(this.connection(), Map.of("getFrequencias", "SELECT 1"));
+        PreparedStatement first = cache.get("getFrequencias");
+        first.unwrap(PreparedStatement.class).close();
+        assertTrue(first.isClosed());
+        PreparedStatement second = cache.get("getFrequencias");
+        assertFalse(second.isClosed());
+        assertEquals(2, this.prepared.get());
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                this.prepared.incrementAndGet();
+                return this.statement();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private PreparedStatement statement() {
+        boolean[] closed = {false};
+        ResultSet[] current = {null};
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    current[0] = this.resultSet();
+                    return current[0];
+                case "getResultSet":
+                    return current[0];
+                case "clearParameters":
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "unwrap":
+                    return proxy;
+                case "close":
+                    closed[0] = true;
+                    this.statementsClosed.incrementAndGet();
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private ResultSet resultSet() {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if (method.getName().equals("close")) {
+                this.resultSetsClosed.incrementAndGet();
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
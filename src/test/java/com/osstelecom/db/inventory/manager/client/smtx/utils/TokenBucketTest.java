@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Lucas Nishimura <lucas.nishimura@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.osstelecom.db.inventory.manager.client.smtx.utils;
+
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Lucas Nishimura <lucas.nishimura@gmail.com>
+ * @created 19.10.2026
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void zeroRateDoesNotLimit() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0, 1.0);
+        assertEquals(0L, bucket.acquire(1_000_000));
+        assertTrue(bucket.tryAcquire(1_000_000));
+    }
+
+    @Test
+    public void tryAcquireStopsAtTheBurstCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 1.0);
+        assertTrue(bucket.tryAcquire(10));
+        assertFalse(bucket.tryAcquire(5));
+    }
+
+    @Test
+    public void acquireBeyondTheBalanceWaitsForTheDebt() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1_000, 0.001);
+        assertEquals(0L, bucket.acquire(1));
+        long started = System.nanoTime();
+        long waited = bucket.acquire(50);
+        long elapsed = System.nanoTime() - started;
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(40), "waited " + waited);
+        assertTrue(elapsed >= waited, "elapsed " + elapsed);
+    }
+
+    @Test
+    public void rateCanBeChangedAndTurnedOff() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1.0);
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+        bucket.setRate(0);
+        assertEquals(0.0, bucket.getRate(), 0.0);
+        assertEquals(0L, bucket.acquire(100));
+        bucket.setRate(100);
+        assertTrue(bucket.getTokens() <= 100.0);
+    }
+}